@@ -40,6 +40,7 @@ import java.util.Set;
 import org.cytoscape.application.CyApplicationManager;
 import org.cytoscape.application.NetworkViewRenderer;
 import org.cytoscape.io.read.CyTableReader;
+import org.cytoscape.event.CyEventHelper;
 import org.cytoscape.model.CyColumn;
 import org.cytoscape.model.CyEdge;
 import org.cytoscape.model.CyIdentifiable;
@@ -53,6 +54,7 @@ import org.cytoscape.model.subnetwork.CyRootNetwork;
 import org.cytoscape.model.subnetwork.CyRootNetworkManager;
 import org.cytoscape.model.subnetwork.CySubNetwork;
 import org.cytoscape.service.util.CyServiceRegistrar;
+import org.cytoscape.task.internal.utils.BatchRowSetter;
 import org.cytoscape.task.internal.utils.DataUtils;
 import org.cytoscape.work.AbstractTask;
 import org.cytoscape.work.ProvidesTitle;
@@ -582,6 +584,18 @@ public class ImportTableDataTask extends AbstractTask implements TunableValidato
 			}
 		}
 		
+		final BatchRowSetter batch = new BatchRowSetter(targetTable, serviceRegistrar.getService(CyEventHelper.class));
+		
+		try {
+			copyRows(sourceTable, sourceColumns, targetTable, targetKeyColumn, normalizedSourceKeys, caseSensitive, batch);
+		} finally {
+			batch.finish();
+		}
+	}
+
+	private void copyRows(final CyTable sourceTable, final List<CyColumn> sourceColumns, final CyTable targetTable,
+			final CyColumn targetKeyColumn, final Map<String, String> normalizedSourceKeys, final boolean caseSensitive,
+			final BatchRowSetter batch) {
 		for (CyRow targetRow : targetTable.getAllRows()) {
 			Object key = targetRow.get(targetKeyColumn.getName(), targetKeyColumn.getType());
 			
@@ -615,7 +629,7 @@ public class ImportTableDataTask extends AbstractTask implements TunableValidato
 				String targetColName = source2targetColumnMap.get(col.getName());
 				
 				if (targetColName != null)
-					targetRow.set(targetColName, sourceRow.getRaw(col.getName()));
+					batch.set(targetRow, targetColName, sourceRow.getRaw(col.getName()));
 			}
 		}
 	}
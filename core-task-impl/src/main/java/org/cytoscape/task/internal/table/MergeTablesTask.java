@@ -37,6 +37,7 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 
+import org.cytoscape.event.CyEventHelper;
 import org.cytoscape.model.CyColumn;
 import org.cytoscape.model.CyEdge;
 import org.cytoscape.model.CyIdentifiable;
@@ -48,6 +49,7 @@ import org.cytoscape.model.CyTable;
 import org.cytoscape.model.CyTableManager;
 import org.cytoscape.model.subnetwork.CyRootNetwork;
 import org.cytoscape.model.subnetwork.CyRootNetworkManager;
+import org.cytoscape.task.internal.utils.BatchRowSetter;
 import org.cytoscape.task.internal.utils.DataUtils;
 import org.cytoscape.work.AbstractTask;
 import org.cytoscape.work.ProvidesTitle;
@@ -98,6 +100,7 @@ public class MergeTablesTask extends AbstractTask implements TunableValidator {
 	
 	private CyRootNetworkManager rootNetworkManager;
 	private CyTableManager tableMgr;
+	private CyEventHelper eventHelper;
 	private Map<String, CyNetwork> name2NetworkMap;
 	private Map<String, CyRootNetwork> name2RootMap;
 	private Map<String, String> source2targetColumnMap;
@@ -287,7 +290,8 @@ public class MergeTablesTask extends AbstractTask implements TunableValidator {
 	}
 
 	public MergeTablesTask(final CyTableManager tableMgr, final CyRootNetworkManager rootNetworkManager,
-			final CyNetworkManager networkManager) {
+			final CyNetworkManager networkManager, final CyEventHelper eventHelper) {
+		this.eventHelper = eventHelper;
 		init(tableMgr, rootNetworkManager, networkManager);
 	}
 
@@ -519,6 +523,17 @@ public class MergeTablesTask extends AbstractTask implements TunableValidator {
 	}
 
 	private void copyRows(CyTable inputTable, List<CyColumn> sourceColumns, CyTable targetTable) {
+		final BatchRowSetter batch = new BatchRowSetter(targetTable, eventHelper);
+		
+		try {
+			copyRows(inputTable, sourceColumns, targetTable, batch);
+		} finally {
+			batch.finish();
+		}
+	}
+
+	private void copyRows(CyTable inputTable, List<CyColumn> sourceColumns, CyTable targetTable,
+			BatchRowSetter batch) {
 		CyRow sourceRow = null;
 		CyColumn targetKeyColumn = getJoinTargetColumn(targetTable);
 
@@ -562,9 +577,9 @@ public class MergeTablesTask extends AbstractTask implements TunableValidator {
 					continue; // skip this column
 
 				if (col.getType() == List.class)
-					targetRow.set(targetColName, sourceRow.getList(col.getName(), col.getListElementType()));
+					batch.set(targetRow, targetColName, sourceRow.getList(col.getName(), col.getListElementType()));
 				else
-					targetRow.set(targetColName, sourceRow.get(col.getName(), col.getType()));
+					batch.set(targetRow, targetColName, sourceRow.get(col.getName(), col.getType()));
 			}
 		}
 	}
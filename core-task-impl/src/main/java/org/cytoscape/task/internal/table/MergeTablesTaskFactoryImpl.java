@@ -29,6 +29,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.cytoscape.event.CyEventHelper;
 import org.cytoscape.model.CyColumn;
 import org.cytoscape.model.CyIdentifiable;
 import org.cytoscape.model.CyNetwork;
@@ -51,17 +52,19 @@ public class MergeTablesTaskFactoryImpl extends AbstractTaskFactory implements M
 	private final TunableSetter tunableSetter; 
 	private final CyRootNetworkManager rootNetMgr;
 	private final CyTableManager tableMgr;
+	private final CyEventHelper eventHelper;
 	
-	public MergeTablesTaskFactoryImpl( final CyTableManager tableMgr,final CyNetworkManager networkManager, final TunableSetter tunableSetter, final CyRootNetworkManager rootNetMgr){
+	public MergeTablesTaskFactoryImpl( final CyTableManager tableMgr,final CyNetworkManager networkManager, final TunableSetter tunableSetter, final CyRootNetworkManager rootNetMgr, final CyEventHelper eventHelper){
 		this.networkManager = networkManager;
 		this.tunableSetter = tunableSetter;
 		this.rootNetMgr = rootNetMgr;
 		this.tableMgr = tableMgr;
+		this.eventHelper = eventHelper;
 	}
 	
 	@Override
 	public TaskIterator createTaskIterator() {
-		return new TaskIterator(new MergeTablesTask(tableMgr, rootNetMgr, networkManager));
+		return new TaskIterator(new MergeTablesTask(tableMgr, rootNetMgr, networkManager, eventHelper));
 	}
 	
 	@Override
@@ -0,0 +1,77 @@
+package org.cytoscape.task.internal.utils;
+
+/*
+ * #%L
+ * Cytoscape Core Task Impl (core-task-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.cytoscape.event.CyEventHelper;
+import org.cytoscape.model.CyColumn;
+import org.cytoscape.model.CyRow;
+import org.cytoscape.model.CyTable;
+import org.cytoscape.model.events.RowSetRecord;
+import org.cytoscape.model.events.RowsSetEvent;
+
+/**
+ * Sets many cells of one table while its events are silenced, then fires a single
+ * RowsSetEvent for the whole batch instead of one payload per cell.
+ * Always call {@link #finish()}, preferably in a finally block.
+ */
+public class BatchRowSetter {
+
+	private final CyTable table;
+	private final CyEventHelper eventHelper;
+	private final List<RowSetRecord> records = new ArrayList<RowSetRecord>();
+
+	public BatchRowSetter(final CyTable table, final CyEventHelper eventHelper) {
+		this.table = table;
+		this.eventHelper = eventHelper;
+		eventHelper.silenceEventSource(table);
+	}
+
+	public void set(final CyRow row, final String columnName, final Object value) {
+		row.set(columnName, value);
+		
+		Object newValue = value;
+		final CyColumn column = table.getColumn(columnName);
+		
+		// Equations: report the evaluated value, just like CyTable does.
+		if (value != null && column != null && !column.getType().isInstance(value)) {
+			newValue = column.getType() == List.class ?
+					row.getList(columnName, column.getListElementType()) : row.get(columnName, column.getType());
+		}
+		
+		records.add(new RowSetRecord(row, columnName, newValue, value));
+	}
+
+	public void finish() {
+		eventHelper.unsilenceEventSource(table);
+		
+		if (!records.isEmpty())
+			eventHelper.fireEvent(new RowsSetEvent(table, new ArrayList<RowSetRecord>(records)));
+		
+		records.clear();
+	}
+}
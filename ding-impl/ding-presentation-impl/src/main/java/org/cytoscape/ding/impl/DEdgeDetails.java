@@ -44,11 +44,16 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 
 import org.cytoscape.ding.DArrowShape;
 import org.cytoscape.ding.DVisualLexicon;
 import org.cytoscape.ding.EdgeView;
+import org.cytoscape.ding.impl.values.DoubleColumn;
+import org.cytoscape.ding.impl.values.FloatColumn;
+import org.cytoscape.ding.impl.values.IntColumn;
+import org.cytoscape.ding.impl.values.InternedColumn;
+import org.cytoscape.ding.impl.values.ObjectColumn;
+import org.cytoscape.ding.impl.values.ViewValueStore;
 import org.cytoscape.ding.impl.strokes.AnimatedStroke;
 import org.cytoscape.ding.impl.strokes.WidthStroke;
 import org.cytoscape.graph.render.immed.EdgeAnchors;
@@ -74,35 +79,35 @@ final class DEdgeDetails extends EdgeDetails {
 	private static final float DEFAULT_ARROW_SIZE = 6.0f;
 
 	private final DGraphView dGraphView;
-	private final Object m_deletedEntry = new Object();
 	
 	private final Map<VisualProperty<?>, Object> defaultValues; 
 
-	// Mapped Values
-	// If value found in these map objects, the value will be used by the renderer.
+	// Mapped Values, stored by edge slot in one struct-of-arrays store per view.
+	// If a value is found in these columns, the value will be used by the renderer.
 	// Otherwise, default value will be used.
-	Map<CyEdge, Object> m_colorsLowDetail = new ConcurrentHashMap<>(16, 0.75f, 2);
-	Map<CyEdge, Object> m_selectedColorsLowDetail = new ConcurrentHashMap<>(16, 0.75f, 2);
-	Map<CyEdge, Float> m_segmentThicknesses = new ConcurrentHashMap<>(16, 0.75f, 2);
-	Map<CyEdge, Stroke> m_segmentStrokes = new ConcurrentHashMap<>(16, 0.75f, 2);
-	Map<CyEdge, ArrowShape> m_sourceArrows = new ConcurrentHashMap<>(16, 0.75f, 2);
-	Map<CyEdge, Paint> m_sourceArrowPaints = new ConcurrentHashMap<>(16, 0.75f, 2);
-	Map<CyEdge, Paint> m_sourceArrowSelectedPaints = new ConcurrentHashMap<>(16, 0.75f, 2);
-	Map<CyEdge, ArrowShape> m_targetArrows = new ConcurrentHashMap<>(16, 0.75f, 2);
-	Map<CyEdge, Paint> m_targetArrowPaints = new ConcurrentHashMap<>(16, 0.75f, 2);
-	Map<CyEdge, Paint> m_targetArrowSelectedPaints = new ConcurrentHashMap<>(16, 0.75f, 2);
-	Map<CyEdge, Integer> m_labelCounts = new ConcurrentHashMap<>(16, 0.75f, 2);
-	Map<CyEdge, String> m_labelTexts = new ConcurrentHashMap<>(16, 0.75f, 2);
-	Map<CyEdge, Font> m_labelFonts = new ConcurrentHashMap<>(16, 0.75f, 2);
-	Map<CyEdge, Paint> m_labelPaints = new ConcurrentHashMap<>(16, 0.75f, 2);
-	Map<CyEdge, Double> m_labelWidths = new ConcurrentHashMap<>(16, 0.75f, 2);
-	Map<CyEdge, Paint> m_unselectedPaints = new ConcurrentHashMap<>(16, 0.75f, 2);
-	Map<CyEdge, Paint> m_selectedPaints = new ConcurrentHashMap<>(16, 0.75f, 2);
-	Map<CyEdge, Integer> m_lineCurved = new ConcurrentHashMap<>(16, 0.75f, 2);
-	Map<CyEdge, Bend> m_edgeBends = new ConcurrentHashMap<>(16, 0.75f, 2);
-	Map<CyEdge, String> m_edgeTooltips = new ConcurrentHashMap<>(16, 0.75f, 2);
-	Map<CyEdge, Integer> m_edgeTansparencies = new ConcurrentHashMap<>(16, 0.75f, 2);
-	Map<CyEdge, Integer> m_edgeLabelTansparencies = new ConcurrentHashMap<>(16, 0.75f, 2);
+	final ViewValueStore m_values = new ViewValueStore();
+	final InternedColumn<Color> m_colorsLowDetail = m_values.createInternedColumn();
+	final InternedColumn<Color> m_selectedColorsLowDetail = m_values.createInternedColumn();
+	final FloatColumn m_segmentThicknesses = m_values.createFloatColumn();
+	final InternedColumn<Stroke> m_segmentStrokes = m_values.createInternedColumn();
+	final InternedColumn<ArrowShape> m_sourceArrows = m_values.createInternedColumn();
+	final InternedColumn<Paint> m_sourceArrowPaints = m_values.createInternedColumn();
+	final InternedColumn<Paint> m_sourceArrowSelectedPaints = m_values.createInternedColumn();
+	final InternedColumn<ArrowShape> m_targetArrows = m_values.createInternedColumn();
+	final InternedColumn<Paint> m_targetArrowPaints = m_values.createInternedColumn();
+	final InternedColumn<Paint> m_targetArrowSelectedPaints = m_values.createInternedColumn();
+	final IntColumn m_labelCounts = m_values.createIntColumn();
+	final ObjectColumn<String> m_labelTexts = m_values.createObjectColumn();
+	final InternedColumn<Font> m_labelFonts = m_values.createInternedColumn();
+	final InternedColumn<Paint> m_labelPaints = m_values.createInternedColumn();
+	final DoubleColumn m_labelWidths = m_values.createDoubleColumn();
+	final InternedColumn<Paint> m_unselectedPaints = m_values.createInternedColumn();
+	final InternedColumn<Paint> m_selectedPaints = m_values.createInternedColumn();
+	final IntColumn m_lineCurved = m_values.createIntColumn();
+	final ObjectColumn<Bend> m_edgeBends = m_values.createObjectColumn();
+	final ObjectColumn<String> m_edgeTooltips = m_values.createObjectColumn();
+	final IntColumn m_edgeTansparencies = m_values.createIntColumn();
+	final IntColumn m_edgeLabelTansparencies = m_values.createIntColumn();
 
 	// Default Values
 	ArrowShape m_sourceArrowDefault;
@@ -138,60 +143,14 @@ final class DEdgeDetails extends EdgeDetails {
 		if (isCleared)
 			return;
 
-		m_segmentThicknesses = new ConcurrentHashMap<>();
-		m_segmentStrokes = new ConcurrentHashMap<>();
-		m_sourceArrows = new ConcurrentHashMap<>();
-		m_sourceArrowPaints = new ConcurrentHashMap<>();
-		m_targetArrows = new ConcurrentHashMap<>();
-		m_targetArrowPaints = new ConcurrentHashMap<>();
-		m_targetArrowSelectedPaints = new ConcurrentHashMap<>();
-		m_labelCounts = new ConcurrentHashMap<>();
-		m_labelTexts = new ConcurrentHashMap<>();
-		m_labelFonts = new ConcurrentHashMap<>();
-		m_labelPaints = new ConcurrentHashMap<>();
-		m_labelWidths = new ConcurrentHashMap<>();
-		m_unselectedPaints = new ConcurrentHashMap<>();
-		m_selectedPaints = new ConcurrentHashMap<>();
-		m_colorsLowDetail = new ConcurrentHashMap<>();
-		m_selectedColorsLowDetail = new ConcurrentHashMap<>();
-		m_lineCurved = new ConcurrentHashMap<>();
-		m_edgeBends = new ConcurrentHashMap<>();
-		m_edgeTooltips = new ConcurrentHashMap<>();
-		m_edgeTansparencies = new ConcurrentHashMap<>();
-		m_edgeLabelTansparencies = new ConcurrentHashMap<>();
+		m_values.clear();
 
 		isCleared = true;
 	}
 
 	void unregisterEdge(final CyEdge edgeIdx) {
-		final Object colorDetail = m_colorsLowDetail.get(edgeIdx);
-		if ((colorDetail != null) && (colorDetail != m_deletedEntry))
-			m_colorsLowDetail.put(edgeIdx, m_deletedEntry);
-
-		final Object selectedColorDetail = m_selectedColorsLowDetail.get(edgeIdx);
-		if ((selectedColorDetail != null) && (selectedColorDetail != m_deletedEntry))
-			m_selectedColorsLowDetail.put(edgeIdx, m_deletedEntry);
-
-		m_segmentThicknesses.remove(edgeIdx);
-		m_segmentStrokes.remove(edgeIdx);
-		m_sourceArrows.remove(edgeIdx);
-		m_sourceArrowPaints.remove(edgeIdx);
-		m_targetArrows.remove(edgeIdx);
-		m_targetArrowPaints.remove(edgeIdx);
-		m_targetArrowSelectedPaints.remove(edgeIdx);
-		m_labelCounts.remove(edgeIdx);
-		m_labelTexts.remove(edgeIdx);
-		m_labelFonts.remove(edgeIdx);
-		m_labelPaints.remove(edgeIdx);
-		m_labelWidths.remove(edgeIdx);
-		m_selectedPaints.remove(edgeIdx);
-		m_unselectedPaints.remove(edgeIdx);
-		m_lineCurved.remove(edgeIdx);
-		m_edgeBends.remove(edgeIdx);
+		m_values.remove(edgeIdx);
 		selected.remove(edgeIdx);
-		m_edgeTooltips.remove(edgeIdx);
-		m_edgeTansparencies.remove(edgeIdx);
-		m_edgeLabelTansparencies.remove(edgeIdx);
 	}
 	
 	public <V> void setDefaultValue(final VisualProperty<V> vp, V value) {
@@ -214,15 +173,15 @@ final class DEdgeDetails extends EdgeDetails {
 		if (dev.isValueLocked(DVisualLexicon.EDGE_STROKE_UNSELECTED_PAINT))
 			return (Color) dev.getVisualProperty(DVisualLexicon.EDGE_STROKE_UNSELECTED_PAINT);
 
-		final Object o = m_colorsLowDetail.get(edge);
+		final Color o = m_colorsLowDetail.get(edge);
 
-		if ((o == null) || (o == m_deletedEntry))
+		if (o == null)
 			if (m_colorLowDetailDefault == null)
 				return super.getColorLowDetail(edge);
 			else
 				return (Color) m_colorLowDetailDefault;
 
-		return (Color) o;
+		return o;
 	}
 
 	private Color getSelectedColorLowDetail(final CyEdge edge) {
@@ -231,15 +190,15 @@ final class DEdgeDetails extends EdgeDetails {
 		if (dev.isValueLocked(DVisualLexicon.EDGE_STROKE_SELECTED_PAINT))
 			return (Color) dev.getVisualProperty(DVisualLexicon.EDGE_STROKE_SELECTED_PAINT);
 
-		final Object o = m_selectedColorsLowDetail.get(edge);
+		final Color o = m_selectedColorsLowDetail.get(edge);
 
-		if ((o == null) || (o == m_deletedEntry))
+		if (o == null)
 			if (m_selectedColorLowDetailDefault == null)
 				return super.getColorLowDetail(edge);
 			else
 				return (Color) m_selectedColorLowDetailDefault;
 
-		return (Color) o;
+		return o;
 	}
 
 	void setSelectedColorLowDetailDefault(Color c) {
@@ -435,7 +394,7 @@ final class DEdgeDetails extends EdgeDetails {
 
 	@Override
 	public float getWidth(final CyEdge edge) {
-		Float w = null;
+		float w;
 		// Bypass check
 		final DEdgeView edv = dGraphView.getDEdgeView(edge);
 		
@@ -443,7 +402,7 @@ final class DEdgeDetails extends EdgeDetails {
 			w = edv.getVisualProperty(DVisualLexicon.EDGE_WIDTH).floatValue();
 		} else {
 			w = m_segmentThicknesses.get(edge);
-			if (w == null) {
+			if (Float.isNaN(w)) {
 				if (m_segmentThicknessDefault == null)
 					w = super.getWidth(edge);
 				else
@@ -622,14 +581,14 @@ final class DEdgeDetails extends EdgeDetails {
 	void setUnselectedPaint(final CyEdge edge, final Paint paint) {
 		m_unselectedPaints.put(edge, paint);
 		if (paint instanceof Color)
-			m_colorsLowDetail.put(edge, paint);
+			m_colorsLowDetail.put(edge, (Color) paint);
 		isCleared = false;
 	}
 
 	void setSelectedPaint(final CyEdge edge, final Paint paint) {
 		m_selectedPaints.put(edge, paint);
 		if (paint instanceof Color)
-			m_selectedColorsLowDetail.put(edge, paint);
+			m_selectedColorsLowDetail.put(edge, (Color) paint);
 
 		isCleared = false;
 	}
@@ -642,9 +601,9 @@ final class DEdgeDetails extends EdgeDetails {
 		if (dev.isValueLocked(DVisualLexicon.EDGE_LABEL) && !dev.getVisualProperty(DVisualLexicon.EDGE_LABEL).isEmpty())
 			return 1;
 		
-		Integer count = m_labelCounts.get(edge);
+		int count = m_labelCounts.get(edge);
 		
-		if (count == null) {
+		if (count == IntColumn.NOT_SET) {
 			try {
 				String defLabel = (String) defaultValues.get(DVisualLexicon.EDGE_LABEL);
 				count = (defLabel == null || defLabel.isEmpty()) ? super.getLabelCount(edge) : 1;
@@ -740,8 +699,8 @@ final class DEdgeDetails extends EdgeDetails {
 		if (dev.isValueLocked(DVisualLexicon.EDGE_TRANSPARENCY))
 			return dev.getVisualProperty(DVisualLexicon.EDGE_TRANSPARENCY);
 
-		Integer trans = m_edgeTansparencies.get(edge);
-		if (trans == null) {
+		int trans = m_edgeTansparencies.get(edge);
+		if (trans == IntColumn.NOT_SET) {
 			if (transparencyDefault == null)
 				trans = DVisualLexicon.EDGE_TRANSPARENCY.getDefault();
 			else
@@ -771,8 +730,8 @@ final class DEdgeDetails extends EdgeDetails {
 		if (dev.isValueLocked(DVisualLexicon.EDGE_LABEL_TRANSPARENCY))
 			return dev.getVisualProperty(DVisualLexicon.EDGE_LABEL_TRANSPARENCY);
 
-		Integer trans = m_edgeLabelTansparencies.get(edge);
-		if (trans == null) {
+		int trans = m_edgeLabelTansparencies.get(edge);
+		if (trans == IntColumn.NOT_SET) {
 			if (labelTransparencyDefault == null)
 				trans = DVisualLexicon.EDGE_LABEL_TRANSPARENCY.getDefault();
 			else
@@ -895,9 +854,9 @@ final class DEdgeDetails extends EdgeDetails {
 		if (dev.isValueLocked(DVisualLexicon.EDGE_LABEL_WIDTH))
 			return dev.getVisualProperty(DVisualLexicon.EDGE_LABEL_WIDTH);
 		
-		final Double width = m_labelWidths.get(edge);
+		final double width = m_labelWidths.get(edge);
 		
-		if (width == null) {
+		if (Double.isNaN(width)) {
 			if (m_labelWidthDefault == null)
 				return super.getLabelWidth(edge);
 			else
@@ -969,8 +928,8 @@ final class DEdgeDetails extends EdgeDetails {
 			}
 		}
 
-		final Integer lineType = m_lineCurved.get(edge);
-		if (lineType == null)
+		final int lineType = m_lineCurved.get(edge);
+		if (lineType == IntColumn.NOT_SET)
 			if (m_lineCurvedDefault == null)
 				return EdgeView.STRAIGHT_LINES;
 			else
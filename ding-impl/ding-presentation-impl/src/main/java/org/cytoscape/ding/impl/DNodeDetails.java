@@ -34,7 +34,6 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 
 import org.cytoscape.ding.DNodeShape;
 import org.cytoscape.ding.DVisualLexicon;
@@ -42,6 +41,12 @@ import org.cytoscape.ding.Justification;
 import org.cytoscape.ding.Label;
 import org.cytoscape.ding.ObjectPosition;
 import org.cytoscape.ding.Position;
+import org.cytoscape.ding.impl.values.DoubleColumn;
+import org.cytoscape.ding.impl.values.FloatColumn;
+import org.cytoscape.ding.impl.values.IntColumn;
+import org.cytoscape.ding.impl.values.InternedColumn;
+import org.cytoscape.ding.impl.values.ObjectColumn;
+import org.cytoscape.ding.impl.values.ViewValueStore;
 import org.cytoscape.graph.render.stateful.CustomGraphicsInfo;
 import org.cytoscape.graph.render.stateful.NodeDetails;
 import org.cytoscape.model.CyNode;
@@ -59,35 +64,35 @@ public class DNodeDetails extends NodeDetails {
 
 	// Parent Network View
 	protected final DGraphView dGraphView;
-	private final Object m_deletedEntry = new Object();
 	
 	private final Map<VisualProperty<?>, Object> defaultValues;
 
-	// Mapped Values
-	Map<CyNode, Object> m_colorsLowDetail = new ConcurrentHashMap<>(16, 0.75f, 2);
-	Map<CyNode, Object> m_selectedColorsLowDetail = new ConcurrentHashMap<>(16, 0.75f, 2);
-	Map<CyNode, NodeShape> m_shapes = new ConcurrentHashMap<>(16, 0.75f, 2);
-	Map<CyNode, Paint> m_unselectedPaints = new ConcurrentHashMap<>(16, 0.75f, 2);
-	Map<CyNode, Paint> m_selectedPaints = new ConcurrentHashMap<>(16, 0.75f, 2);
-	Map<CyNode, Float> m_borderWidths = new ConcurrentHashMap<>(16, 0.75f, 2);
-	Map<CyNode, Stroke> m_borderStrokes = new ConcurrentHashMap<>(16, 0.75f, 2);
-	Map<CyNode, Paint> m_borderPaints = new ConcurrentHashMap<>(16, 0.75f, 2);
-	Map<CyNode, Integer> m_labelCounts = new ConcurrentHashMap<>(16, 0.75f, 2);
-	Map<CyNode, String> m_labelTexts = new ConcurrentHashMap<>(16, 0.75f, 2);
-	Map<CyNode, String> m_tooltipTexts = new ConcurrentHashMap<>(16, 0.75f, 2);
-	Map<CyNode, Font> m_labelFonts = new ConcurrentHashMap<>(16, 0.75f, 2);
-	Map<CyNode, Paint> m_labelPaints = new ConcurrentHashMap<>(16, 0.75f, 2);
-	Map<CyNode, Double> m_labelWidths = new ConcurrentHashMap<>(16, 0.75f, 2);
-	Map<CyNode, Integer> m_labelTextAnchors = new ConcurrentHashMap<>(16, 0.75f, 2);
-	Map<CyNode, Integer> m_labelNodeAnchors = new ConcurrentHashMap<>(16, 0.75f, 2);
-	Map<CyNode, Integer> m_labelJustifys = new ConcurrentHashMap<>(16, 0.75f, 2);
-	Map<CyNode, Double> m_labelOffsetXs = new ConcurrentHashMap<>(16, 0.75f, 2);
-	Map<CyNode, Double> m_labelOffsetYs = new ConcurrentHashMap<>(16, 0.75f, 2);
-	Map<CyNode, Integer> m_nodeTansparencies = new ConcurrentHashMap<>(16, 0.75f, 2);
-	Map<CyNode, Integer> m_nodeBorderTansparencies = new ConcurrentHashMap<>(16, 0.75f, 2);
-	Map<CyNode, Integer> m_nodeLabelTansparencies = new ConcurrentHashMap<>(16, 0.75f, 2);
-	Map<CyNode, Double> m_nodeZ = new ConcurrentHashMap<>(16, 0.75f, 2);
-	Map<CyNode, Boolean> m_nestedNetworkImgVisible = new ConcurrentHashMap<>(16, 0.75f, 2);
+	// Mapped Values, stored by node slot in one struct-of-arrays store per view
+	final ViewValueStore m_values = new ViewValueStore();
+	final InternedColumn<Color> m_colorsLowDetail = m_values.createInternedColumn();
+	final InternedColumn<Color> m_selectedColorsLowDetail = m_values.createInternedColumn();
+	final InternedColumn<NodeShape> m_shapes = m_values.createInternedColumn();
+	final InternedColumn<Paint> m_unselectedPaints = m_values.createInternedColumn();
+	final InternedColumn<Paint> m_selectedPaints = m_values.createInternedColumn();
+	final FloatColumn m_borderWidths = m_values.createFloatColumn();
+	final InternedColumn<Stroke> m_borderStrokes = m_values.createInternedColumn();
+	final InternedColumn<Paint> m_borderPaints = m_values.createInternedColumn();
+	final IntColumn m_labelCounts = m_values.createIntColumn();
+	final ObjectColumn<String> m_labelTexts = m_values.createObjectColumn();
+	final ObjectColumn<String> m_tooltipTexts = m_values.createObjectColumn();
+	final InternedColumn<Font> m_labelFonts = m_values.createInternedColumn();
+	final InternedColumn<Paint> m_labelPaints = m_values.createInternedColumn();
+	final DoubleColumn m_labelWidths = m_values.createDoubleColumn();
+	final IntColumn m_labelTextAnchors = m_values.createIntColumn();
+	final IntColumn m_labelNodeAnchors = m_values.createIntColumn();
+	final IntColumn m_labelJustifys = m_values.createIntColumn();
+	final DoubleColumn m_labelOffsetXs = m_values.createDoubleColumn();
+	final DoubleColumn m_labelOffsetYs = m_values.createDoubleColumn();
+	final IntColumn m_nodeTansparencies = m_values.createIntColumn();
+	final IntColumn m_nodeBorderTansparencies = m_values.createIntColumn();
+	final IntColumn m_nodeLabelTansparencies = m_values.createIntColumn();
+	final DoubleColumn m_nodeZ = m_values.createDoubleColumn();
+	final IntColumn m_nestedNetworkImgVisible = m_values.createIntColumn();
 
 	private final Set<CyNode> selected = new HashSet<>();
 	
@@ -127,70 +132,17 @@ public class DNodeDetails extends NodeDetails {
 		if (isCleared)
 			return;
 
-		m_colorsLowDetail = new ConcurrentHashMap<>(16, 0.75f, 2);
-		m_selectedColorsLowDetail = new ConcurrentHashMap<>(16, 0.75f, 2);
-		m_shapes = new ConcurrentHashMap<>(16, 0.75f, 2);
-		m_unselectedPaints = new ConcurrentHashMap<>(16, 0.75f, 2);
-		m_borderWidths = new ConcurrentHashMap<>(16, 0.75f, 2);
-		m_borderStrokes = new ConcurrentHashMap<>(16, 0.75f, 2);
-		m_borderPaints = new ConcurrentHashMap<>(16, 0.75f, 2);
-		m_labelCounts = new ConcurrentHashMap<>(16, 0.75f, 2);
-		m_labelTexts = new ConcurrentHashMap<>(16, 0.75f, 2);
-		m_tooltipTexts = new ConcurrentHashMap<>(16, 0.75f, 2);
-		m_labelFonts = new ConcurrentHashMap<>(16, 0.75f, 2);
-		m_labelPaints = new ConcurrentHashMap<>(16, 0.75f, 2);
-		m_labelWidths = new ConcurrentHashMap<>(16, 0.75f, 2);
-		m_labelTextAnchors = new ConcurrentHashMap<>(16, 0.75f, 2);
-		m_labelNodeAnchors = new ConcurrentHashMap<>(16, 0.75f, 2);
-		m_labelJustifys = new ConcurrentHashMap<>(16, 0.75f, 2);
-		m_labelOffsetXs = new ConcurrentHashMap<>(16, 0.75f, 2);
-		m_labelOffsetYs = new ConcurrentHashMap<>(16, 0.75f, 2);
-		m_selectedPaints = new ConcurrentHashMap<>(16, 0.75f, 2);
-		this.m_nodeTansparencies = new ConcurrentHashMap<>(16, 0.75f, 2);
-		this.m_nodeBorderTansparencies = new ConcurrentHashMap<>(16, 0.75f, 2);
-		this.m_nodeLabelTansparencies = new ConcurrentHashMap<>(16, 0.75f, 2);
-		m_nodeZ = new ConcurrentHashMap<>(16, 0.75f, 2);
-		m_nestedNetworkImgVisible = new ConcurrentHashMap<>(16, 0.75f, 2);
+		m_values.clear();
 
 		isCleared = true;
 	}
 
 	void unregisterNode(final CyNode nodeIdx) {
-		final Object o = m_colorsLowDetail.get(nodeIdx);
-		if ((o != null) && (o != m_deletedEntry))
-			m_colorsLowDetail.put(nodeIdx, m_deletedEntry);
-
-		final Object os = m_selectedColorsLowDetail.get(nodeIdx);
-		if ((os != null) && (os != m_deletedEntry))
-			m_selectedColorsLowDetail.put(nodeIdx, m_deletedEntry);
-
-		m_shapes.remove(nodeIdx);
-		m_unselectedPaints.remove(nodeIdx);
-		m_borderWidths.remove(nodeIdx);
-		m_borderStrokes.remove(nodeIdx);
-		m_borderPaints.remove(nodeIdx);
-		m_labelWidths.remove(nodeIdx);
-		m_labelTextAnchors.remove(nodeIdx);
-		m_labelNodeAnchors.remove(nodeIdx);
-		m_labelJustifys.remove(nodeIdx);
-		m_labelOffsetXs.remove(nodeIdx);
-		m_labelOffsetYs.remove(nodeIdx);
-		m_selectedPaints.remove(nodeIdx);
-		m_tooltipTexts.remove(nodeIdx);
-		
+		m_values.remove(nodeIdx);
+
 		synchronized (lock) {
 			selected.remove(nodeIdx);
 		}
-		
-		m_labelCounts.remove(nodeIdx);
-		m_labelTexts.remove(nodeIdx);
-		m_labelFonts.remove(nodeIdx);
-		m_labelPaints.remove(nodeIdx);
-		m_nodeTansparencies.remove(nodeIdx);
-		m_nodeBorderTansparencies.remove(nodeIdx);
-		m_nodeLabelTansparencies.remove(nodeIdx);
-		m_nodeZ.remove(nodeIdx);
-		m_nestedNetworkImgVisible.remove(nodeIdx);
 	}
 
 	public <V> void setDefaultValue(final VisualProperty<V> vp, V value) {
@@ -217,15 +169,15 @@ public class DNodeDetails extends NodeDetails {
 		if (dnv.isValueLocked(DVisualLexicon.NODE_FILL_COLOR))
 			return (Color) dnv.getVisualProperty(DVisualLexicon.NODE_FILL_COLOR);
 
-		final Object o = m_colorsLowDetail.get(node);
+		final Color o = m_colorsLowDetail.get(node);
 
-		if ((o == null) || (o == m_deletedEntry))
+		if (o == null)
 			if (m_colorLowDetailDefault == null)
 				return super.getColorLowDetail(node);
 			else
 				return m_colorLowDetailDefault;
 
-		return (Color) o;
+		return o;
 	}
 
 	void setColorLowDetailDefault(Color c) {
@@ -240,15 +192,15 @@ public class DNodeDetails extends NodeDetails {
 		if (dnv.isValueLocked(DVisualLexicon.NODE_SELECTED_PAINT))
 			return (Color) dnv.getVisualProperty(DVisualLexicon.NODE_SELECTED_PAINT);
 
-		final Object o = m_selectedColorsLowDetail.get(node);
+		final Color o = m_selectedColorsLowDetail.get(node);
 
-		if ((o == null) || (o == m_deletedEntry))
+		if (o == null)
 			if (m_selectedColorLowDetailDefault == null)
 				return (Color) DNodeView.DEFAULT_NODE_SELECTED_PAINT;
 			else
 				return m_selectedColorLowDetailDefault;
 
-		return (Color) o;
+		return o;
 	}
 
 	void setSelectedColorLowDetailDefault(Color c) {
@@ -356,14 +308,14 @@ public class DNodeDetails extends NodeDetails {
 	void setUnselectedPaint(final CyNode node, final Paint paint) {
 		m_unselectedPaints.put(node, paint);
 		if (paint instanceof Color)
-			m_colorsLowDetail.put(node, paint);
+			m_colorsLowDetail.put(node, (Color) paint);
 		isCleared = false;
 	}
 
 	void setSelectedPaint(final CyNode node, final Paint paint) {
 		m_selectedPaints.put(node, paint);
 		if (paint instanceof Color)
-			m_selectedColorsLowDetail.put(node, paint);
+			m_selectedColorsLowDetail.put(node, (Color) paint);
 
 		isCleared = false;
 	}
@@ -417,9 +369,9 @@ public class DNodeDetails extends NodeDetails {
 		if (dnv.isValueLocked(DVisualLexicon.NODE_BORDER_WIDTH))
 			return dnv.getVisualProperty(DVisualLexicon.NODE_BORDER_WIDTH).floatValue();
 
-		final Float o = m_borderWidths.get(node);
+		final float o = m_borderWidths.get(node);
 		
-		if (o == null)
+		if (Float.isNaN(o))
 			if (m_borderWidthDefault == null)
 				return DVisualLexicon.NODE_BORDER_WIDTH.getDefault().floatValue();
 			else
@@ -541,9 +493,9 @@ public class DNodeDetails extends NodeDetails {
 		if (dnv.isValueLocked(DVisualLexicon.NODE_LABEL) && !dnv.getVisualProperty(DVisualLexicon.NODE_LABEL).isEmpty())
 			return 1;
 		
-		Integer count = m_labelCounts.get(node);
+		int count = m_labelCounts.get(node);
 		
-		if (count == null) {
+		if (count == IntColumn.NOT_SET) {
 			try {
 				String defLabel = (String) defaultValues.get(DVisualLexicon.NODE_LABEL);
 				count = (defLabel == null || defLabel.isEmpty()) ? super.getLabelCount(node) : 1;
@@ -748,9 +700,9 @@ public class DNodeDetails extends NodeDetails {
 			return convertG2ND(anchor.getConversionConstant());
 		}
 
-		final Integer p = m_labelTextAnchors.get(node);
+		final int p = m_labelTextAnchors.get(node);
 
-		if (p == null)
+		if (p == IntColumn.NOT_SET)
 			if (m_labelTextAnchorDefault == null)
 				return super.getLabelTextAnchor(node, labelInx);
 			else
@@ -775,7 +727,7 @@ public class DNodeDetails extends NodeDetails {
 		         convertG2ND(anchor) == m_labelTextAnchorDefault.byteValue())
 			m_labelTextAnchors.remove(node);
 		else {
-			m_labelTextAnchors.put(node, Integer.valueOf(anchor));
+			m_labelTextAnchors.put(node, anchor);
 			isCleared = false;
 		}
 	}
@@ -790,9 +742,9 @@ public class DNodeDetails extends NodeDetails {
 			return convertG2ND(anchor.getConversionConstant());
 		}
 
-		final Integer o = m_labelNodeAnchors.get(node);
+		final int o = m_labelNodeAnchors.get(node);
 
-		if (o == null)
+		if (o == IntColumn.NOT_SET)
 			if (m_labelNodeAnchorDefault == null)
 				return super.getLabelNodeAnchor(node, labelInx);
 			else
@@ -817,7 +769,7 @@ public class DNodeDetails extends NodeDetails {
 		         convertG2ND(anchor) == m_labelNodeAnchorDefault.byteValue())
 			m_labelNodeAnchors.remove(node);
 		else {
-			m_labelNodeAnchors.put(node, Integer.valueOf(anchor));
+			m_labelNodeAnchors.put(node, anchor);
 			isCleared = false;
 		}
 	}
@@ -831,15 +783,15 @@ public class DNodeDetails extends NodeDetails {
 			return (float) lp.getOffsetX();
 		}
 
-		final Object o = m_labelOffsetXs.get(node);
+		final double o = m_labelOffsetXs.get(node);
 
-		if (o == null)
+		if (Double.isNaN(o))
 			if (m_labelOffsetVectorXDefault == null)
 				return super.getLabelOffsetVectorX(node, labelInx);
 			else
 				return m_labelOffsetVectorXDefault.floatValue();
 
-		return ((Double) o).floatValue();
+		return (float) o;
 	}
 
 	void setLabelOffsetVectorXDefault(double x) {
@@ -858,7 +810,7 @@ public class DNodeDetails extends NodeDetails {
 		         ((float) x) == m_labelOffsetVectorXDefault.floatValue())
 			m_labelOffsetXs.remove(node);
 		else {
-			m_labelOffsetXs.put(node, new Double(x));
+			m_labelOffsetXs.put(node, x);
 			isCleared = false;
 		}
 	}
@@ -872,15 +824,15 @@ public class DNodeDetails extends NodeDetails {
 			return (float) lp.getOffsetY();
 		}
 
-		final Object o = m_labelOffsetYs.get(node);
+		final double o = m_labelOffsetYs.get(node);
 
-		if (o == null)
+		if (Double.isNaN(o))
 			if (m_labelOffsetVectorYDefault == null)
 				return super.getLabelOffsetVectorY(node, labelInx);
 			else
 				return m_labelOffsetVectorYDefault.floatValue();
 
-		return ((Double) o).floatValue();
+		return (float) o;
 	}
 
 	void setLabelOffsetVectorYDefault(double y) {
@@ -899,7 +851,7 @@ public class DNodeDetails extends NodeDetails {
 		         ((float) y) == m_labelOffsetVectorYDefault.floatValue())
 			m_labelOffsetYs.remove(node);
 		else {
-			m_labelOffsetYs.put(node, new Double(y));
+			m_labelOffsetYs.put(node, y);
 			isCleared = false;
 		}
 	}
@@ -914,9 +866,9 @@ public class DNodeDetails extends NodeDetails {
 			return convertG2ND(justify.getConversionConstant());
 		}
 
-		Integer o = m_labelJustifys.get(node);
+		final int o = m_labelJustifys.get(node);
 
-		if (o == null)
+		if (o == IntColumn.NOT_SET)
 			if (m_labelJustifyDefault == null)
 				return super.getLabelJustify(node, labelInx);
 			else
@@ -941,7 +893,7 @@ public class DNodeDetails extends NodeDetails {
 		    convertG2ND(justify) == m_labelJustifyDefault)
 			m_labelJustifys.remove(node);
 		else {
-			m_labelJustifys.put(node, Integer.valueOf(justify));
+			m_labelJustifys.put(node, justify);
 			isCleared = false;
 		}
 	}
@@ -954,9 +906,9 @@ public class DNodeDetails extends NodeDetails {
 		if (dnv.isValueLocked(DVisualLexicon.NODE_LABEL_WIDTH))
 			return dnv.getVisualProperty(DVisualLexicon.NODE_LABEL_WIDTH);
 		
-		final Double o = m_labelWidths.get(node);
+		final double o = m_labelWidths.get(node);
 
-		if (o == null) {
+		if (Double.isNaN(o)) {
 			if (m_labelWidthDefault == null)
 				return super.getLabelWidth(node);
 			else
@@ -991,9 +943,9 @@ public class DNodeDetails extends NodeDetails {
 		if (dnv.isValueLocked(DVisualLexicon.NODE_TRANSPARENCY))
 			return dnv.getVisualProperty(DVisualLexicon.NODE_TRANSPARENCY);
 
-		Integer trans = m_nodeTansparencies.get(node);
-		if (trans == null) {
-			trans = transparencyDefault != null ? transparencyDefault : DVisualLexicon.NODE_TRANSPARENCY.getDefault();
+		final int trans = m_nodeTansparencies.get(node);
+		if (trans == IntColumn.NOT_SET) {
+			return transparencyDefault != null ? transparencyDefault : DVisualLexicon.NODE_TRANSPARENCY.getDefault();
 		}
 		
 		return trans;
@@ -1019,9 +971,9 @@ public class DNodeDetails extends NodeDetails {
 		if (dnv.isValueLocked(DVisualLexicon.NODE_LABEL_TRANSPARENCY))
 			return dnv.getVisualProperty(DVisualLexicon.NODE_LABEL_TRANSPARENCY);
 
-		Integer trans = m_nodeLabelTansparencies.get(node);
-		if (trans == null) {
-			trans = transparencyLabelDefault != null ? 
+		final int trans = m_nodeLabelTansparencies.get(node);
+		if (trans == IntColumn.NOT_SET) {
+			return transparencyLabelDefault != null ? 
 					transparencyLabelDefault : DVisualLexicon.NODE_LABEL_TRANSPARENCY.getDefault();
 		}
 		
@@ -1048,9 +1000,9 @@ public class DNodeDetails extends NodeDetails {
 		if (dnv.isValueLocked(DVisualLexicon.NODE_BORDER_TRANSPARENCY))
 			return dnv.getVisualProperty(DVisualLexicon.NODE_BORDER_TRANSPARENCY);
 
-		Integer trans = m_nodeBorderTansparencies.get(node);
-		if (trans == null) {
-			trans = transparencyBorderDefault != null ? 
+		final int trans = m_nodeBorderTansparencies.get(node);
+		if (trans == IntColumn.NOT_SET) {
+			return transparencyBorderDefault != null ? 
 					transparencyBorderDefault : DVisualLexicon.NODE_BORDER_TRANSPARENCY.getDefault();
 		}
 		
@@ -1076,7 +1028,7 @@ public class DNodeDetails extends NodeDetails {
 	}
 	
 	void overrideNestedNetworkImgVisible(final CyNode node, final boolean visible) {
-		m_nestedNetworkImgVisible.put(node, visible);
+		m_nestedNetworkImgVisible.put(node, visible ? 1 : 0);
 		isCleared = false;
 	}
 	
@@ -1086,10 +1038,10 @@ public class DNodeDetails extends NodeDetails {
 		if (dnv.isValueLocked(BasicVisualLexicon.NODE_NESTED_NETWORK_IMAGE_VISIBLE))
 			return dnv.getVisualProperty(BasicVisualLexicon.NODE_NESTED_NETWORK_IMAGE_VISIBLE);
 		
-		Boolean visible = m_nestedNetworkImgVisible.get(node);
+		final int visible = m_nestedNetworkImgVisible.get(node);
 		
-		if (visible != null)
-			return visible;
+		if (visible != IntColumn.NOT_SET)
+			return visible != 0;
 		
 		return getDefaultValue(BasicVisualLexicon.NODE_NESTED_NETWORK_IMAGE_VISIBLE);
 	}
@@ -1099,8 +1051,8 @@ public class DNodeDetails extends NodeDetails {
 		if (dnv.isValueLocked(DVisualLexicon.NODE_DEPTH))
 			return dnv.getVisualProperty(DVisualLexicon.NODE_DEPTH);
 
-		Double depth = m_nodeZ.get(node);
-		if (depth == null)
+		final double depth = m_nodeZ.get(node);
+		if (Double.isNaN(depth))
 			return 0.0;
 		return depth;
 	}
@@ -45,6 +45,8 @@ public class DingGraphLOD extends GraphLOD implements PropertyUpdatedListener {
 	protected int nodeLabelThreshold;
 	protected int edgeArrowThreshold;
 	protected int edgeLabelThreshold;
+	protected int renderThreads;
+	protected int renderThreadsThreshold;
 
 	private final Properties props;
 	private final CyProperty<Properties> cyProp;
@@ -74,6 +76,8 @@ public class DingGraphLOD extends GraphLOD implements PropertyUpdatedListener {
 		this.nodeLabelThreshold = source.nodeLabelThreshold;
 		this.edgeArrowThreshold = source.edgeArrowThreshold;
 		this.edgeLabelThreshold = source.edgeLabelThreshold;
+		this.renderThreads = source.renderThreads;
+		this.renderThreadsThreshold = source.renderThreadsThreshold;
 		this.drawEdges = source.drawEdges;
 	}
 
@@ -84,6 +88,8 @@ public class DingGraphLOD extends GraphLOD implements PropertyUpdatedListener {
 		nodeLabelThreshold = parseInt(props.getProperty("render.nodeLabelThreshold"), 200);
 		edgeArrowThreshold = parseInt(props.getProperty("render.edgeArrowThreshold"), 600);
 		edgeLabelThreshold = parseInt(props.getProperty("render.edgeLabelThreshold"), 200);
+		renderThreads = parseInt(props.getProperty("render.threads"), 1);
+		renderThreadsThreshold = parseInt(props.getProperty("render.threadsThreshold"), 2000);
 
 	}
 
@@ -370,6 +376,19 @@ public class DingGraphLOD extends GraphLOD implements PropertyUpdatedListener {
 		return true;
 	}
 
+	/**
+	 * Paints the frame on up to "render.threads" threads once the number of
+	 * rendered nodes and edges reaches "render.threadsThreshold"; below that
+	 * the cost of recording the draw calls outweighs the gain.
+	 */
+	@Override
+	public int renderThreads(final int renderNodeCount, final int renderEdgeCount) {
+		if ((renderNodeCount + renderEdgeCount) < renderThreadsThreshold)
+			return 1;
+
+		return renderThreads;
+	}
+
 	public double getNestedNetworkImageScaleFactor() {
 		final String scaleFactor = props.getProperty("nestedNetwork.imageScaleFactor", "1.0");
 		try {
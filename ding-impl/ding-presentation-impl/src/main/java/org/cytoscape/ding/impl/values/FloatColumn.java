@@ -0,0 +1,97 @@
+package org.cytoscape.ding.impl.values;
+
+/*
+ * #%L
+ * Cytoscape Ding View/Presentation Impl (ding-presentation-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2016 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.util.Arrays;
+
+import org.cytoscape.model.CyIdentifiable;
+
+/**
+ * Stores one float value per element in a plain array.
+ * Missing values are represented by {@link #NOT_SET},
+ * so NaN cannot be stored.
+ */
+public final class FloatColumn extends ValueColumn {
+
+	/** Value returned for elements without a value of their own. */
+	public static final float NOT_SET = Float.NaN;
+	private static final float[] EMPTY = new float[0];
+
+	private volatile float[] values = EMPTY;
+
+	FloatColumn(final ViewValueStore store) {
+		super(store);
+	}
+
+	/**
+	 * Returns the value of the given element or {@link #NOT_SET} if it has none.
+	 */
+	public float get(final CyIdentifiable element) {
+		final int slot = store.slotOf(element);
+		final float[] v = values;
+
+		return slot >= 0 && slot < v.length ? v[slot] : NOT_SET;
+	}
+
+	public void put(final CyIdentifiable element, final float value) {
+		synchronized (store.lock) {
+			final int slot = store.assign(element);
+			float[] v = values;
+
+			if (slot >= v.length) {
+				final int oldLength = v.length;
+				v = Arrays.copyOf(v, grownLength(oldLength, slot));
+				Arrays.fill(v, oldLength, v.length, NOT_SET);
+			}
+
+			v[slot] = value;
+			values = v;
+		}
+	}
+
+	public void remove(final CyIdentifiable element) {
+		synchronized (store.lock) {
+			final int slot = store.slotOf(element);
+
+			if (slot >= 0)
+				unset(slot);
+		}
+	}
+
+	@Override
+	void unset(final int slot) {
+		final float[] v = values;
+
+		if (slot < v.length) {
+			v[slot] = NOT_SET;
+			values = v;
+		}
+	}
+
+	@Override
+	void reset() {
+		values = EMPTY;
+	}
+}
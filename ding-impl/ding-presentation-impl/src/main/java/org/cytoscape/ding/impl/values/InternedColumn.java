@@ -0,0 +1,198 @@
+package org.cytoscape.ding.impl.values;
+
+/*
+ * #%L
+ * Cytoscape Ding View/Presentation Impl (ding-presentation-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2016 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.cytoscape.model.CyIdentifiable;
+
+/**
+ * Stores one value per element as an int reference into a table of distinct
+ * values. Paints, fonts, strokes and shapes are usually shared by thousands of
+ * elements, so each element costs four bytes no matter how large the value is.
+ * <p>
+ * Values that are no longer referenced stay in the table until it holds more
+ * than twice as many entries as there are referencing elements, at which point
+ * it is compacted.
+ */
+public final class InternedColumn<T> extends ValueColumn {
+
+	private static final int MIN_COMPACT_SIZE = 64;
+
+	/** Table entry 0 is unused, so that a zero reference means "no value". */
+	private volatile Data data = new Data(new int[0], new Object[8]);
+
+	private final Map<Object, Integer> ids = new HashMap<>();
+	private int tableSize = 1;
+	private int refCount;
+
+	InternedColumn(final ViewValueStore store) {
+		super(store);
+	}
+
+	@SuppressWarnings("unchecked")
+	public T get(final CyIdentifiable element) {
+		final int slot = store.slotOf(element);
+		final Data d = data;
+
+		if (slot < 0 || slot >= d.refs.length)
+			return null;
+
+		final int ref = d.refs[slot];
+
+		return ref == 0 ? null : (T) d.table[ref];
+	}
+
+	/**
+	 * Sets the value of the given element; a null value removes it.
+	 */
+	public void put(final CyIdentifiable element, final T value) {
+		if (value == null) {
+			remove(element);
+			return;
+		}
+
+		synchronized (store.lock) {
+			final int slot = store.assign(element);
+			final int ref = intern(value);
+			Data d = data;
+
+			if (slot >= d.refs.length)
+				d = new Data(Arrays.copyOf(d.refs, grownLength(d.refs.length, slot)), d.table);
+
+			if (d.refs[slot] == 0)
+				refCount++;
+
+			d.refs[slot] = ref;
+			data = d;
+		}
+	}
+
+	public void remove(final CyIdentifiable element) {
+		synchronized (store.lock) {
+			final int slot = store.slotOf(element);
+
+			if (slot >= 0)
+				unset(slot);
+		}
+	}
+
+	/**
+	 * Returns the number of distinct values currently held in the table.
+	 */
+	public int getDistinctValueCount() {
+		synchronized (store.lock) {
+			return tableSize - 1;
+		}
+	}
+
+	@Override
+	void unset(final int slot) {
+		final Data d = data;
+
+		if (slot < d.refs.length && d.refs[slot] != 0) {
+			d.refs[slot] = 0;
+			refCount--;
+			data = d;
+		}
+	}
+
+	@Override
+	void reset() {
+		data = new Data(new int[0], new Object[8]);
+		ids.clear();
+		tableSize = 1;
+		refCount = 0;
+	}
+
+	private int intern(final Object value) {
+		final Integer id = ids.get(value);
+
+		if (id != null)
+			return id;
+
+		if (tableSize > MIN_COMPACT_SIZE && tableSize > 2 * refCount)
+			compact();
+
+		Data d = data;
+
+		if (tableSize == d.table.length) {
+			d = new Data(d.refs, Arrays.copyOf(d.table, tableSize * 2));
+			data = d;
+		}
+
+		final int ref = tableSize++;
+		d.table[ref] = value;
+		ids.put(value, ref);
+
+		return ref;
+	}
+
+	/**
+	 * Rebuilds the table with only the values still referenced. The remapped
+	 * references are published together with the new table, so concurrent
+	 * readers never combine an old reference with the new table.
+	 */
+	private void compact() {
+		final Data d = data;
+		final int[] refs = new int[d.refs.length];
+		final Object[] table = new Object[Math.max(8, refCount * 2 + 1)];
+		final int[] remap = new int[tableSize];
+		int size = 1;
+
+		ids.clear();
+
+		for (int slot = 0; slot < refs.length; slot++) {
+			final int old = d.refs[slot];
+
+			if (old == 0)
+				continue;
+
+			if (remap[old] == 0) {
+				remap[old] = size;
+				table[size] = d.table[old];
+				ids.put(d.table[old], size);
+				size++;
+			}
+
+			refs[slot] = remap[old];
+		}
+
+		tableSize = size;
+		data = new Data(refs, table);
+	}
+
+	private static final class Data {
+		final int[] refs;
+		final Object[] table;
+
+		Data(final int[] refs, final Object[] table) {
+			this.refs = refs;
+			this.table = table;
+		}
+	}
+}
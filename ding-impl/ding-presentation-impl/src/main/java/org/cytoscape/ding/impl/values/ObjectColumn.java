@@ -0,0 +1,99 @@
+package org.cytoscape.ding.impl.values;
+
+/*
+ * #%L
+ * Cytoscape Ding View/Presentation Impl (ding-presentation-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2016 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.util.Arrays;
+
+import org.cytoscape.model.CyIdentifiable;
+
+/**
+ * Stores one object reference per element in a plain array, using
+ * <code>null</code> for elements without a value. Use this for values that are
+ * mostly distinct per element, such as label texts; values shared by many
+ * elements are better kept in an {@link InternedColumn}.
+ */
+public final class ObjectColumn<T> extends ValueColumn {
+
+	private static final Object[] EMPTY = new Object[0];
+
+	private volatile Object[] values = EMPTY;
+
+	ObjectColumn(final ViewValueStore store) {
+		super(store);
+	}
+
+	@SuppressWarnings("unchecked")
+	public T get(final CyIdentifiable element) {
+		final int slot = store.slotOf(element);
+		final Object[] v = values;
+
+		return slot >= 0 && slot < v.length ? (T) v[slot] : null;
+	}
+
+	/**
+	 * Sets the value of the given element; a null value removes it.
+	 */
+	public void put(final CyIdentifiable element, final T value) {
+		if (value == null) {
+			remove(element);
+			return;
+		}
+
+		synchronized (store.lock) {
+			final int slot = store.assign(element);
+			Object[] v = values;
+
+			if (slot >= v.length)
+				v = Arrays.copyOf(v, grownLength(v.length, slot));
+
+			v[slot] = value;
+			values = v;
+		}
+	}
+
+	public void remove(final CyIdentifiable element) {
+		synchronized (store.lock) {
+			final int slot = store.slotOf(element);
+
+			if (slot >= 0)
+				unset(slot);
+		}
+	}
+
+	@Override
+	void unset(final int slot) {
+		final Object[] v = values;
+
+		if (slot < v.length) {
+			v[slot] = null;
+			values = v;
+		}
+	}
+
+	@Override
+	void reset() {
+		values = EMPTY;
+	}
+}
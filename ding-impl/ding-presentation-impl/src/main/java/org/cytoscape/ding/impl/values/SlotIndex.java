@@ -0,0 +1,190 @@
+package org.cytoscape.ding.impl.values;
+
+/*
+ * #%L
+ * Cytoscape Ding View/Presentation Impl (ding-presentation-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2016 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import org.cytoscape.util.intr.IntStack;
+
+/**
+ * Assigns dense slot numbers to element SUIDs, so visual property values can be
+ * stored in plain arrays instead of per-element hash map entries.
+ * <p>
+ * The table uses open addressing and recycles the slots of released elements.
+ * Each position holds an immutable entry that pairs a SUID with its slot, so a
+ * reader racing with a writer sees either the old or the new pair, never a SUID
+ * with the slot of another element. Writers must hold the lock of the owning
+ * {@link ViewValueStore}; readers do not lock, and a lookup racing with the
+ * removal of an element may miss it or still return its old slot for that call.
+ */
+final class SlotIndex {
+
+	private static final Entry DELETED = new Entry(0L, -1);
+	private static final int MIN_CAPACITY = 16;
+
+	private volatile Entry[] table = new Entry[MIN_CAPACITY];
+	private final IntStack freeSlots = new IntStack();
+
+	/** Number of live entries. */
+	private int size;
+	/** Number of live plus deleted entries, which both lengthen probe sequences. */
+	private int used;
+	/** Highest slot handed out so far, plus one. */
+	private int slotLimit;
+
+	/**
+	 * Returns the slot of the given SUID or -1 if it has none.
+	 */
+	int get(final long suid) {
+		final Entry[] t = table;
+		final int mask = t.length - 1;
+		int i = hash(suid) & mask;
+		Entry e;
+
+		while ((e = t[i]) != null) {
+			if (e != DELETED && e.suid == suid)
+				return e.slot;
+
+			i = (i + 1) & mask;
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Returns the slot of the given SUID, assigning one if necessary.
+	 */
+	int assign(final long suid) {
+		int slot = get(suid);
+
+		if (slot >= 0)
+			return slot;
+
+		if ((used + 1) * 2 > table.length)
+			rehash();
+
+		slot = freeSlots.size() > 0 ? freeSlots.pop() : slotLimit++;
+
+		final Entry[] t = table;
+		final int mask = t.length - 1;
+		int i = hash(suid) & mask;
+
+		while (t[i] != null && t[i] != DELETED)
+			i = (i + 1) & mask;
+
+		if (t[i] == null)
+			used++;
+
+		t[i] = new Entry(suid, slot);
+		size++;
+		table = t; // publish
+
+		return slot;
+	}
+
+	/**
+	 * Removes the given SUID and makes its slot available for reuse.
+	 * @return the released slot or -1 if the SUID had none
+	 */
+	int release(final long suid) {
+		final Entry[] t = table;
+		final int mask = t.length - 1;
+		int i = hash(suid) & mask;
+		Entry e;
+
+		while ((e = t[i]) != null) {
+			if (e != DELETED && e.suid == suid) {
+				t[i] = DELETED;
+				size--;
+				freeSlots.push(e.slot);
+				table = t; // publish
+
+				return e.slot;
+			}
+
+			i = (i + 1) & mask;
+		}
+
+		return -1;
+	}
+
+	void clear() {
+		table = new Entry[MIN_CAPACITY];
+		freeSlots.empty();
+		size = 0;
+		used = 0;
+		slotLimit = 0;
+	}
+
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Returns an upper bound for all slots assigned so far, which is the length
+	 * value arrays need in order to be addressed by any slot.
+	 */
+	int getSlotLimit() {
+		return slotLimit;
+	}
+
+	private void rehash() {
+		final Entry[] old = table;
+		int capacity = MIN_CAPACITY;
+
+		while (capacity < (size + 1) * 4)
+			capacity <<= 1;
+
+		final Entry[] t = new Entry[capacity];
+		final int mask = capacity - 1;
+
+		for (final Entry e : old) {
+			if (e != null && e != DELETED) {
+				int i = hash(e.suid) & mask;
+
+				while (t[i] != null)
+					i = (i + 1) & mask;
+
+				t[i] = e;
+			}
+		}
+
+		used = size;
+		table = t;
+	}
+
+	private static int hash(final long suid) {
+		final long h = suid * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+
+	private static final class Entry {
+		final long suid;
+		final int slot;
+
+		Entry(final long suid, final int slot) {
+			this.suid = suid;
+			this.slot = slot;
+		}
+	}
+}
@@ -0,0 +1,64 @@
+package org.cytoscape.ding.impl.values;
+
+/*
+ * #%L
+ * Cytoscape Ding View/Presentation Impl (ding-presentation-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2016 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+/**
+ * A column of per-element values held by a {@link ViewValueStore}.
+ * <p>
+ * Values are addressed by the slot the store assigned to an element, and every
+ * write republishes the column's backing array through a volatile field, so the
+ * renderer can read without taking the store's lock.
+ */
+public abstract class ValueColumn {
+
+	protected final ViewValueStore store;
+
+	ValueColumn(final ViewValueStore store) {
+		this.store = store;
+	}
+
+	/**
+	 * Removes the values of all elements from this column only.
+	 */
+	public void clear() {
+		synchronized (store.lock) {
+			reset();
+		}
+	}
+
+	/**
+	 * Removes the value stored at the given slot. Called with the store's lock held.
+	 */
+	abstract void unset(int slot);
+
+	/**
+	 * Drops all values. Called with the store's lock held.
+	 */
+	abstract void reset();
+
+	static int grownLength(final int length, final int slot) {
+		return Math.max(Math.max(slot + 1, length + (length >> 1)), 16);
+	}
+}
@@ -0,0 +1,126 @@
+package org.cytoscape.ding.impl.values;
+
+/*
+ * #%L
+ * Cytoscape Ding View/Presentation Impl (ding-presentation-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2016 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.cytoscape.model.CyIdentifiable;
+
+/**
+ * Struct-of-arrays storage for the visual property values of one network view.
+ * <p>
+ * Every element that has at least one value gets a dense slot, and each
+ * property is a {@link ValueColumn} addressed by that slot: numbers live in
+ * primitive arrays and shared objects such as paints and fonts are interned.
+ * Compared to a hash map per property this avoids an entry object and a boxed
+ * value per element and property, and lets the renderer read without locking.
+ * <p>
+ * Writes are serialized on the store; reads may run concurrently with writes.
+ */
+public final class ViewValueStore {
+
+	final Object lock = new Object();
+
+	private final SlotIndex index = new SlotIndex();
+	private final List<ValueColumn> columns = new ArrayList<>();
+
+	public FloatColumn createFloatColumn() {
+		return register(new FloatColumn(this));
+	}
+
+	public DoubleColumn createDoubleColumn() {
+		return register(new DoubleColumn(this));
+	}
+
+	public IntColumn createIntColumn() {
+		return register(new IntColumn(this));
+	}
+
+	public <T> ObjectColumn<T> createObjectColumn() {
+		return register(new ObjectColumn<T>(this));
+	}
+
+	public <T> InternedColumn<T> createInternedColumn() {
+		return register(new InternedColumn<T>(this));
+	}
+
+	/**
+	 * Removes the values of the given element from all columns and recycles its slot.
+	 */
+	public void remove(final CyIdentifiable element) {
+		synchronized (lock) {
+			final int slot = index.get(element.getSUID());
+
+			if (slot < 0)
+				return;
+
+			for (final ValueColumn column : columns)
+				column.unset(slot);
+
+			index.release(element.getSUID());
+		}
+	}
+
+	/**
+	 * Removes the values of all elements from all columns at once.
+	 */
+	public void clear() {
+		synchronized (lock) {
+			for (final ValueColumn column : columns)
+				column.reset();
+
+			index.clear();
+		}
+	}
+
+	/**
+	 * Returns the number of elements that currently own a slot.
+	 */
+	public int size() {
+		synchronized (lock) {
+			return index.size();
+		}
+	}
+
+	int slotOf(final CyIdentifiable element) {
+		return index.get(element.getSUID());
+	}
+
+	/**
+	 * Must be called with {@link #lock} held.
+	 */
+	int assign(final CyIdentifiable element) {
+		return index.assign(element.getSUID());
+	}
+
+	private <C extends ValueColumn> C register(final C column) {
+		synchronized (lock) {
+			columns.add(column);
+		}
+
+		return column;
+	}
+}
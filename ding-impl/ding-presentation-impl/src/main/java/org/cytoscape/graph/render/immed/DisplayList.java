@@ -0,0 +1,323 @@
+package org.cytoscape.graph.render.immed;
+
+
+/*
+ * #%L
+ * Cytoscape Ding View/Presentation Impl (ding-presentation-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Paint;
+import java.awt.Shape;
+import java.awt.Stroke;
+import java.awt.TexturePaint;
+import java.awt.font.FontRenderContext;
+import java.awt.geom.GeneralPath;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.geom.RectangularShape;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.cytoscape.model.CyNode;
+import org.cytoscape.view.model.CyNetworkView;
+import org.cytoscape.view.presentation.customgraphics.CustomGraphicLayer;
+import org.cytoscape.view.presentation.customgraphics.Cy2DGraphicLayer;
+import org.cytoscape.view.presentation.customgraphics.ImageCustomGraphicLayer;
+import org.cytoscape.view.presentation.customgraphics.PaintedShape;
+import org.cytoscape.view.presentation.property.values.ArrowShape;
+
+
+/**
+ * A list of draw calls recorded by a GraphGraphics (see
+ * GraphGraphics.startRecording()).  Each recorded call keeps a copy of the
+ * state it needs and its bounds in node coordinates, so that the list can
+ * later be replayed, in order, onto any number of GraphGraphics instances,
+ * for example onto the tiles of a frame that are painted concurrently.
+ * <p>
+ * Recording happens on the thread that renders the graph; replaying onto
+ * distinct GraphGraphics instances may happen on several threads at once,
+ * provided that isParallelSafe() returns true.
+ */
+public final class DisplayList {
+
+	private final List<Command> commands = new ArrayList<>();
+	private boolean parallelSafe = true;
+
+	/**
+	 * Returns the number of recorded draw calls.
+	 */
+	public int size() {
+		return commands.size();
+	}
+
+	/**
+	 * Returns false if a recorded draw call runs code that may touch the
+	 * network view, such as a Cy2DGraphicLayer, in which case the list should
+	 * only be replayed on the thread that recorded it.
+	 */
+	public boolean isParallelSafe() {
+		return parallelSafe;
+	}
+
+	/**
+	 * Removes all recorded draw calls.
+	 */
+	public void clear() {
+		commands.clear();
+		parallelSafe = true;
+	}
+
+	/**
+	 * Paints all recorded draw calls onto grafx, in recording order.  grafx
+	 * must have been cleared and must not be recording.
+	 */
+	public void replay(final GraphGraphics grafx) {
+		for (final Command cmd : commands)
+			cmd.paint(grafx);
+	}
+
+	/**
+	 * Paints the recorded draw calls whose bounds intersect the specified
+	 * region onto grafx, in recording order.  The region is given in node
+	 * coordinates; draw calls that lie entirely outside of it are skipped.
+	 */
+	public void replay(final GraphGraphics grafx, final float xMin, final float yMin,
+	                   final float xMax, final float yMax) {
+		for (final Command cmd : commands) {
+			if (cmd.xMin <= xMax && cmd.xMax >= xMin && cmd.yMin <= yMax && cmd.yMax >= yMin)
+				cmd.paint(grafx);
+		}
+	}
+
+	void addNodeLow(final float xMin, final float yMin, final float xMax, final float yMax,
+	                final Color fillColor) {
+		commands.add(new Command(xMin, yMin, xMax, yMax) {
+			void paint(final GraphGraphics grafx) {
+				grafx.drawNodeLow(xMin, yMin, xMax, yMax, fillColor);
+			}
+		});
+	}
+
+	Shape addNodeFull(final Shape nodeShape, final float xMin, final float yMin,
+	                  final float xMax, final float yMax, final Paint fillPaint,
+	                  final float borderWidth, final Stroke borderStroke, final Paint borderPaint) {
+		// Node shapes are reused by GraphGraphics, so keep a copy of this one.
+		final Shape sx = copyShape(nodeShape);
+		commands.add(new Command(xMin, yMin, xMax, yMax) {
+			void paint(final GraphGraphics grafx) {
+				grafx.fillNodeShape(sx, fillPaint, borderWidth, borderStroke, borderPaint);
+			}
+		});
+
+		return sx;
+	}
+
+	void addEdgeLow(final float x0, final float y0, final float x1, final float y1,
+	                final Color edgeColor) {
+		commands.add(new Command(Math.min(x0, x1), Math.min(y0, y1),
+		                         Math.max(x0, x1), Math.max(y0, y1)) {
+			void paint(final GraphGraphics grafx) {
+				grafx.drawEdgeLow(x0, y0, x1, y1, edgeColor);
+			}
+		});
+	}
+
+	void addEdgeFull(final ArrowShape arrow0Type, final float arrow0Size, final Paint arrow0Paint,
+	                 final ArrowShape arrow1Type, final float arrow1Size, final Paint arrow1Paint,
+	                 final float x0, final float y0, final EdgeAnchors anchors,
+	                 final float x1, final float y1, final float edgeThickness,
+	                 final Stroke edgeStroke, final Paint edgePaint) {
+		final int numAnchors = (anchors == null) ? 0 : anchors.numAnchors();
+		final float[] anchorCoords = new float[numAnchors * 2];
+
+		float xMin = Math.min(x0, x1);
+		float yMin = Math.min(y0, y1);
+		float xMax = Math.max(x0, x1);
+		float yMax = Math.max(y0, y1);
+
+		for (int i = 0; i < numAnchors; i++) {
+			anchors.getAnchor(i, anchorCoords, i * 2);
+			xMin = Math.min(xMin, anchorCoords[i * 2]);
+			yMin = Math.min(yMin, anchorCoords[(i * 2) + 1]);
+			xMax = Math.max(xMax, anchorCoords[i * 2]);
+			yMax = Math.max(yMax, anchorCoords[(i * 2) + 1]);
+		}
+
+		// The curves stay within the hull of the end points and anchors;
+		// arrows and wide strokes may extend past it.
+		final float pad = 2.0f * Math.max(edgeThickness, Math.max(arrow0Size, arrow1Size));
+		final EdgeAnchors anchorsCopy = (numAnchors == 0) ? null : new AnchorArray(anchorCoords);
+
+		commands.add(new Command(xMin - pad, yMin - pad, xMax + pad, yMax + pad) {
+			void paint(final GraphGraphics grafx) {
+				grafx.drawEdgeFull(arrow0Type, arrow0Size, arrow0Paint, arrow1Type, arrow1Size,
+				                   arrow1Paint, x0, y0, anchorsCopy, x1, y1, edgeThickness,
+				                   edgeStroke, edgePaint);
+			}
+		});
+	}
+
+	void addText(final Font font, final double scaleFactor, final String text,
+	             final float xCenter, final float yCenter, final float theta,
+	             final Paint paint, final boolean drawTextAsShape, final FontRenderContext frc) {
+		// The text is centered on its logical bounds and may be rotated; glyphs
+		// may overhang the logical bounds by a fraction of the font size.
+		final Rectangle2D textBounds = font.getStringBounds(text, frc);
+		final float radius = (float) (scaleFactor * ((0.5d * Math.hypot(textBounds.getWidth(),
+		                                                                textBounds.getHeight()))
+		                                             + font.getSize2D()));
+
+		commands.add(new Command(xCenter - radius, yCenter - radius,
+		                         xCenter + radius, yCenter + radius) {
+			void paint(final GraphGraphics grafx) {
+				grafx.drawTextFull(font, scaleFactor, text, xCenter, yCenter, theta, paint,
+				                   drawTextAsShape);
+			}
+		});
+	}
+
+	void addTextLow(final Font font, final String text, final float xCenter, final float yCenter,
+	                final Color color) {
+		// Low detail text is sized in image pixels, so it has no bounds in
+		// node coordinates.
+		commands.add(new Command(Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY,
+		                         Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY) {
+			void paint(final GraphGraphics grafx) {
+				grafx.drawTextLow(font, text, xCenter, yCenter, color);
+			}
+		});
+	}
+
+	void addCustomGraphicImage(final Shape shape, final float xOffset, final float yOffset,
+	                           final TexturePaint paint) {
+		final Rectangle2D bounds = shape.getBounds2D().getBounds();
+
+		commands.add(new Command((float) bounds.getMinX() + xOffset, (float) bounds.getMinY() + yOffset,
+		                         (float) bounds.getMaxX() + xOffset, (float) bounds.getMaxY() + yOffset) {
+			void paint(final GraphGraphics grafx) {
+				grafx.drawCustomGraphicImage(shape, xOffset, yOffset, paint);
+			}
+		});
+	}
+
+	void addCustomGraphic(final CyNetworkView netView, final CyNode node, final Shape nodeShape,
+	                      final CustomGraphicLayer cg, final float xOffset, final float yOffset) {
+		final Rectangle2D bounds;
+
+		if (cg instanceof PaintedShape) {
+			final PaintedShape ps = (PaintedShape) cg;
+			final Stroke stroke = ps.getStroke();
+
+			if (stroke == null) {
+				bounds = ps.getShape().getBounds2D();
+			} else if (stroke instanceof BasicStroke) {
+				final BasicStroke bs = (BasicStroke) stroke;
+				final double pad = bs.getLineWidth() * Math.max(1.0f, bs.getMiterLimit());
+				final Rectangle2D b = ps.getShape().getBounds2D();
+				bounds = new Rectangle2D.Double(b.getX() - pad, b.getY() - pad,
+				                                b.getWidth() + (2 * pad), b.getHeight() + (2 * pad));
+			} else {
+				bounds = null;
+			}
+		} else if (cg instanceof Cy2DGraphicLayer) {
+			// Arbitrary drawing code that may read the view; see isParallelSafe().
+			parallelSafe = false;
+			bounds = null;
+		} else if (cg instanceof ImageCustomGraphicLayer) {
+			bounds = cg.getBounds2D().getBounds();
+		} else {
+			bounds = nodeShape.getBounds2D();
+		}
+
+		final Command cmd;
+
+		if (bounds == null) {
+			cmd = new Command(Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY,
+			                  Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY) {
+				void paint(final GraphGraphics grafx) {
+					grafx.drawCustomGraphicFull(netView, node, nodeShape, cg, xOffset, yOffset);
+				}
+			};
+		} else {
+			cmd = new Command((float) bounds.getMinX() + xOffset, (float) bounds.getMinY() + yOffset,
+			                  (float) bounds.getMaxX() + xOffset, (float) bounds.getMaxY() + yOffset) {
+				void paint(final GraphGraphics grafx) {
+					grafx.drawCustomGraphicFull(netView, node, nodeShape, cg, xOffset, yOffset);
+				}
+			};
+		}
+
+		commands.add(cmd);
+	}
+
+	/*
+	 * Copies a shape without changing its type; the rasterizer takes different
+	 * paths for rectangles and general paths, so converting every shape to a
+	 * GeneralPath would change the rendered pixels.
+	 */
+	private static Shape copyShape(final Shape shape) {
+		if (shape == null)
+			return null;
+		else if (shape instanceof RectangularShape)
+			return (Shape) ((RectangularShape) shape).clone();
+		else if (shape instanceof Path2D)
+			return (Shape) ((Path2D) shape).clone();
+		else
+			return new GeneralPath(shape);
+	}
+
+	private static abstract class Command {
+		final float xMin;
+		final float yMin;
+		final float xMax;
+		final float yMax;
+
+		Command(final float xMin, final float yMin, final float xMax, final float yMax) {
+			this.xMin = xMin;
+			this.yMin = yMin;
+			this.xMax = xMax;
+			this.yMax = yMax;
+		}
+
+		abstract void paint(GraphGraphics grafx);
+	}
+
+	private static final class AnchorArray implements EdgeAnchors {
+		private final float[] coords;
+
+		AnchorArray(final float[] coords) {
+			this.coords = coords;
+		}
+
+		public int numAnchors() {
+			return coords.length / 2;
+		}
+
+		public void getAnchor(final int anchorIndex, final float[] anchorArr, final int offset) {
+			anchorArr[offset] = coords[anchorIndex * 2];
+			anchorArr[offset + 1] = coords[(anchorIndex * 2) + 1];
+		}
+	}
+}
@@ -50,6 +50,7 @@ import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.cytoscape.graph.render.immed.arrow.Arrow;
 import org.cytoscape.graph.render.immed.arrow.ArrowheadArrow;
@@ -163,8 +164,9 @@ public final class GraphGraphics {
 	 */
 	private static final double CURVE_ELLIPTICAL = (4.0d * (Math.sqrt(2.0d) - 1.0d)) / 3.0d;
 
-	// Mapping from node to its border stroke object.
-	private static final Map<Float,Stroke> borderStrokes = new HashMap<Float,Stroke>();
+	// Mapping from node to its border stroke object.  Shared by all instances,
+	// some of which may be rendering tiles of the same frame concurrently.
+	private static final Map<Float,Stroke> borderStrokes = new ConcurrentHashMap<Float,Stroke>();
 
 	static {		
 		nodeShapes = new HashMap<>();
@@ -226,6 +228,16 @@ public final class GraphGraphics {
 	private boolean m_cleared;
 	private boolean m_clear;
 
+	// The region of the frame that the image covers; by default the image is
+	// the whole frame.  See setFrameRegion().
+	private int m_frameWidth = -1;
+	private int m_frameHeight = -1;
+	private int m_frameX;
+	private int m_frameY;
+
+	// When set, draw calls are appended to this list instead of being painted.
+	private DisplayList m_record;
+
 	// This member variable only to be used from within defineCustomNodeShape().
 	private byte m_lastCustomShapeType = s_last_shape;
 
@@ -335,14 +347,15 @@ public final class GraphGraphics {
 			m_g2d.dispose();
 		}
 
+		m_record = null;
 		m_g2d = (Graphics2D) image.getGraphics();
-
+		m_g2d.translate(-m_frameX, -m_frameY);
 
 		if (m_clear) {
 			final Composite origComposite = m_g2d.getComposite();
 			m_g2d.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC));
 			m_g2d.setPaint(bgPaint);
-			m_g2d.fillRect(0, 0, image.getWidth(null), image.getHeight(null));
+			m_g2d.fillRect(m_frameX, m_frameY, image.getWidth(null), image.getHeight(null));
 			m_g2d.setComposite(origComposite);
 		}
 		
@@ -387,11 +400,66 @@ public final class GraphGraphics {
 	}
 
 	public void setTransform(double xCenter, double yCenter, double scaleFactor) {
-		m_currXform.setToTranslation(0.5d * image.getWidth(null), 0.5d * image.getHeight(null));
+		final int frameWidth = (m_frameWidth < 0) ? image.getWidth(null) : m_frameWidth;
+		final int frameHeight = (m_frameHeight < 0) ? image.getHeight(null) : m_frameHeight;
+		m_currXform.setToTranslation(0.5d * frameWidth, 0.5d * frameHeight);
 		m_currXform.scale(scaleFactor, scaleFactor);
 		m_currXform.translate(-xCenter, -yCenter);
 	}
 
+	/**
+	 * Makes the image of this GraphGraphics cover only part of a larger frame,
+	 * so that a frame can be rendered as several tiles.  The image's top left
+	 * pixel corresponds to pixel (xOffset, yOffset) of the frame, and the
+	 * xCenter and yCenter passed to clear() refer to the center of the frame.
+	 * Image coordinates used by this class, for example in
+	 * xformImageToNodeCoords(), are frame coordinates.
+	 * <p>
+	 * Takes effect at the next call to clear().
+	 *
+	 * @param frameWidth the width of the whole frame, in pixels.
+	 * @param frameHeight the height of the whole frame, in pixels.
+	 * @param xOffset the frame X coordinate of the image's left edge.
+	 * @param yOffset the frame Y coordinate of the image's top edge.
+	 */
+	public final void setFrameRegion(final int frameWidth, final int frameHeight,
+			final int xOffset, final int yOffset) {
+		if (frameWidth <= 0 || frameHeight <= 0)
+			throw new IllegalArgumentException("frame dimensions must be positive");
+
+		m_frameWidth = frameWidth;
+		m_frameHeight = frameHeight;
+		m_frameX = xOffset;
+		m_frameY = yOffset;
+	}
+
+	/**
+	 * Starts appending all subsequent draw calls to the specified list instead
+	 * of painting them.  Draw calls that return a value, such as
+	 * drawNodeFull(), return the same value as when painting.  Recording ends
+	 * with stopRecording() or with the next call to clear().
+	 * <p>
+	 * This method will not work unless clear() has been called at least once
+	 * previously.
+	 */
+	public final void startRecording(final DisplayList list) {
+		if (m_debug) {
+			checkCleared();
+		}
+
+		m_record = list;
+	}
+
+	/**
+	 * Stops recording and returns the list that draw calls were appended to,
+	 * or null if this GraphGraphics was not recording.
+	 */
+	public final DisplayList stopRecording() {
+		final DisplayList list = m_record;
+		m_record = null;
+		return list;
+	}
+
 	/**
 	 * Uses the current transform to map the specified image coordinates to node
 	 * coordinates. The transform used is defined by the last call to clear().
@@ -480,6 +548,11 @@ public final class GraphGraphics {
 			}
 		}
 
+		if (m_record != null) {
+			m_record.addNodeLow(xMin, yMin, xMax, yMax, fillColor);
+			return;
+		}
+
 		if (m_gMinimal == null) {
 			makeMinimalGraphics();
 		}
@@ -508,6 +581,7 @@ public final class GraphGraphics {
 	 */
 	private final void makeMinimalGraphics() {
 		m_gMinimal = (Graphics2D) image.getGraphics();
+		m_gMinimal.translate(-m_frameX, -m_frameY);
 		m_gMinimal.setRenderingHint(RenderingHints.KEY_RENDERING,
 				RenderingHints.VALUE_RENDER_SPEED);
 		m_gMinimal.setRenderingHint(RenderingHints.KEY_COLOR_RENDERING,
@@ -608,6 +682,19 @@ public final class GraphGraphics {
 		final float off = borderWidth/2.0f; // border offset
 		final Shape sx = getShape(nodeShape,xMin+off,yMin+off,xMax-off,yMax-off);
 
+		if (m_record != null)
+			return m_record.addNodeFull(sx, xMin, yMin, xMax, yMax, fillPaint, borderWidth,
+			                            borderStroke, borderPaint);
+
+		fillNodeShape(sx, fillPaint, borderWidth, borderStroke, borderPaint);
+		return sx;
+	}
+
+	/**
+	 * Paints a node shape computed by drawNodeFull().
+	 */
+	final void fillNodeShape(final Shape sx, final Paint fillPaint, final float borderWidth,
+			final Stroke borderStroke, final Paint borderPaint) {
 		// Draw border only when width is not zero.
 		if (borderWidth > 0.0f) {
 			m_g2d.setPaint(borderPaint);
@@ -625,7 +712,6 @@ public final class GraphGraphics {
 
 		m_g2d.setPaint(fillPaint);
 		m_g2d.fill(sx);
-		return sx;
 	}
 
 	/**
@@ -978,6 +1064,11 @@ public final class GraphGraphics {
 			return;
 		}
 
+		if (m_record != null) {
+			m_record.addEdgeLow(x0, y0, x1, y1, edgeColor);
+			return;
+		}
+
 		if (m_gMinimal == null) {
 			makeMinimalGraphics();
 		}
@@ -1141,6 +1232,12 @@ public final class GraphGraphics {
 					edgeStroke, edgeThickness, anchors);
 		}
 
+		if (m_record != null) {
+			m_record.addEdgeFull(arrow0Type, arrow0Size, arrow0Paint, arrow1Type, arrow1Size,
+					arrow1Paint, x0, y0, anchors, x1, y1, edgeThickness, edgeStroke, edgePaint);
+			return;
+		}
+
 		if (!computeCubicPolyEdgePath(arrow0Type,
 				(arrow0Type == ArrowShapeVisualProperty.NONE) ? 0.0f : arrow0Size, arrow1Type,
 				(arrow1Type == ArrowShapeVisualProperty.NONE) ? 0.0f : arrow1Size, x0, y0,
@@ -1867,6 +1964,11 @@ public final class GraphGraphics {
 			}
 		}
 
+		if (m_record != null) {
+			m_record.addTextLow(font, text, xCenter, yCenter, color);
+			return;
+		}
+
 		if (m_gMinimal == null) {
 			makeMinimalGraphics();
 		}
@@ -1969,6 +2071,12 @@ public final class GraphGraphics {
 			}
 		}
 
+		if (m_record != null) {
+			m_record.addText(font, scaleFactor, text, xCenter, yCenter, theta, paint,
+					drawTextAsShape, m_fontRenderContextFull);
+			return;
+		}
+
 		m_g2d.translate(xCenter, yCenter);
 		m_g2d.scale(scaleFactor, scaleFactor);
 
@@ -2032,6 +2140,11 @@ public final class GraphGraphics {
 			checkCleared();
 		}
 
+		if (m_record != null) {
+			m_record.addCustomGraphicImage(shape, xOffset, yOffset, paint);
+			return;
+		}
+
 		m_g2d.translate(xOffset, yOffset);
 		if(paint instanceof TexturePaint) {
 			final BufferedImage bImg = ((TexturePaint) paint).getImage();
@@ -2066,6 +2179,11 @@ public final class GraphGraphics {
 			checkCleared();
 		}
 
+		if (m_record != null) {
+			m_record.addCustomGraphic(netView, node, nodeShape, cg, xOffset, yOffset);
+			return;
+		}
+
 		m_g2d.translate(xOffset, yOffset);
 		
 		if (cg instanceof PaintedShape) {
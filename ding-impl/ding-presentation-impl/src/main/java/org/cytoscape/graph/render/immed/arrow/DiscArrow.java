@@ -33,10 +33,9 @@ import java.awt.geom.GeneralPath;
 
 public class DiscArrow extends AbstractArrow {
 	
-	private final GeneralPath capGP; 
-	private final Arc2D.Double capA;
-
-	private double currentRatio;
+	// The most recently computed cap.  A published cap is never modified,
+	// so renderers on different threads may fill it concurrently.
+	private volatile DiscCap lastCap;
 
 	public DiscArrow() {
 		super(1.0);
@@ -48,29 +47,37 @@ public class DiscArrow extends AbstractArrow {
 		arrow = arrowE;
 
 		// cap is calculated dynamically below!
-		capGP = new GeneralPath();
-		capA = new Arc2D.Double();
-
-		currentRatio = Double.NaN;
 	}
 
-	public synchronized Shape getCapShape(final double ratio) {
+	public Shape getCapShape(final double ratio) {
 		// only recreate the shape if we need to
-		if ( currentRatio != Double.NaN && ratio == currentRatio )
-			return capGP;
+		final DiscCap last = lastCap;
+		if ( last != null && ratio == last.ratio )
+			return last.shape;
 
-		currentRatio = ratio;
 		final double theta = Math.toDegrees(Math.asin(1.0d / ratio));
 
+		final Arc2D.Double capA = new Arc2D.Double();
 		capA.setArc(0.0d, ratio / -2.0d, ratio, ratio, 180.0d - theta, theta * 2, Arc2D.OPEN);
 
-		capGP.reset();
+		final GeneralPath capGP = new GeneralPath();
 		capGP.append(capA, false);
 		capGP.lineTo(0.0f, 0.5f);
 		capGP.lineTo(0.0f, -0.5f);
 		capGP.closePath();
 
+		lastCap = new DiscCap(ratio, capGP);
+
 		return capGP;
 	}
-}
 
+	private static final class DiscCap {
+		final double ratio;
+		final Shape shape;
+
+		DiscCap(final double ratio, final Shape shape) {
+			this.ratio = ratio;
+			this.shape = shape;
+		}
+	}
+}
@@ -224,6 +224,22 @@ public class GraphLOD {
 		return false;
 	}
 
+	/**
+	 * Determines how many threads paint the frame.  By default this method
+	 * returns 1.<p>
+	 * If a value greater than 1 is returned, the graph is still traversed on
+	 * the rendering thread, but the resulting draw calls are painted as
+	 * horizontal tiles of the frame on up to that many threads.  The image
+	 * produced is the same; only large frames with many rendered objects are
+	 * expected to benefit.
+	 * @param renderNodeCount the number of nodes that are about to be rendered.
+	 * @param renderEdgeCount the number of edges that are about to be rendered.
+	 * @return the maximum number of threads to paint the frame with.
+	 */
+	public int renderThreads(final int renderNodeCount, final int renderEdgeCount) {
+		return 1;
+	}
+
 	public double getNestedNetworkImageScaleFactor() { return 1.0; }
 
 	public boolean getDrawEdges() { return true; }
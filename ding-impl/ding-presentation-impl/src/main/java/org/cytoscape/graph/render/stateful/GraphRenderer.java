@@ -40,6 +40,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import org.cytoscape.graph.render.immed.DisplayList;
 import org.cytoscape.graph.render.immed.EdgeAnchors;
 import org.cytoscape.graph.render.immed.GraphGraphics;
 import org.cytoscape.model.CyEdge;
@@ -326,6 +327,18 @@ public final class GraphRenderer {
 				grafx.clear(bgPaint, xCenter, yCenter, scaleFactor);
 		}
 
+		// If the frame is to be painted on several threads, record the draw
+		// calls made below and paint them in tiles afterwards.
+		final int renderThreads = lod.renderThreads(renderNodeCount, renderEdgeCount);
+		final DisplayList displayList;
+
+		if (renderThreads > 1 && grafx.isInitialized()) {
+			displayList = new DisplayList();
+			grafx.startRecording(displayList);
+		} else {
+			displayList = null;
+		}
+
 		// Render the edges first.  No edge shall be rendered twice.  Render edge
 		// labels.  A label is not necessarily on top of every edge; it is only
 		// on top of the edge it belongs to.
@@ -750,6 +763,11 @@ public final class GraphRenderer {
 				}
 			}
 		}
+		if (displayList != null) {
+			grafx.stopRecording();
+			TileRenderer.render(grafx, displayList, xCenter, yCenter, scaleFactor, renderThreads);
+		}
+
 		// System.out.println("total time: "+(System.currentTimeMillis()-start)+"ms");
 		return lodBits;
 	}
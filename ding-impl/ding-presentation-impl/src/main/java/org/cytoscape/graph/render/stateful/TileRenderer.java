@@ -0,0 +1,158 @@
+package org.cytoscape.graph.render.stateful;
+
+/*
+ * #%L
+ * Cytoscape Ding View/Presentation Impl (ding-presentation-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import org.cytoscape.graph.render.immed.DisplayList;
+import org.cytoscape.graph.render.immed.GraphGraphics;
+
+
+/**
+ * Paints a recorded frame as horizontal tiles on the common fork-join pool,
+ * which is shared with the rest of the JVM and needs no shutting down.  Each tile
+ * is painted into an image of its own by a GraphGraphics that covers just
+ * that region of the frame, replaying only the draw calls whose bounds reach
+ * into the tile, in recording order.  The tiles are then copied back into the
+ * frame.  Since every tile sees the same draw calls in the same order as the
+ * frame would, z-order and edge de-duplication are exactly those of the
+ * single-threaded pass that recorded the list.
+ */
+final class TileRenderer {
+
+	// Margin, in pixels, added around each tile when selecting draw calls; it
+	// covers antialiasing and the rounding done by the low detail methods.
+	private static final int TILE_MARGIN = 2;
+
+	// Using more tiles than threads evens out the work when some parts of
+	// the frame are much busier than others.
+	private static final int TILES_PER_THREAD = 2;
+
+	// Tiles are never made shorter than this many pixels.
+	private static final int MIN_TILE_HEIGHT = 32;
+
+	// No constructor.
+	private TileRenderer() {
+	}
+
+	/**
+	 * Paints list onto the image of grafx, which must have been cleared with
+	 * the same xCenter, yCenter, and scaleFactor that are passed here.  Falls
+	 * back to replaying the list on the calling thread if the image cannot be
+	 * tiled or the list may not be replayed on other threads.
+	 *
+	 * @param threads the number of threads to split the frame for; how many tiles
+	 *        are actually painted at the same time is bounded by the parallelism
+	 *        of the common pool.
+	 */
+	static void render(final GraphGraphics grafx, final DisplayList list, final double xCenter,
+	                   final double yCenter, final double scaleFactor, final int threads) {
+		final int height = grafx.image.getHeight(null);
+		final int tileCount = Math.min(threads * TILES_PER_THREAD, height / MIN_TILE_HEIGHT);
+
+		if (threads < 2 || tileCount < 2 || !list.isParallelSafe()
+		    || !(grafx.image instanceof BufferedImage)) {
+			list.replay(grafx);
+			return;
+		}
+
+		final BufferedImage frame = (BufferedImage) grafx.image;
+		final int width = frame.getWidth();
+		final int tileHeight = (height + tileCount - 1) / tileCount;
+		final List<Callable<BufferedImage>> tasks = new ArrayList<>(tileCount);
+
+		for (int y = 0; y < height; y += tileHeight) {
+			final int yOffset = y;
+			final int h = Math.min(tileHeight, height - y);
+			tasks.add(() -> paintTile(frame, list, 0, yOffset, width, h,
+			                          xCenter, yCenter, scaleFactor));
+		}
+
+		final List<Future<BufferedImage>> tiles = ForkJoinPool.commonPool().invokeAll(tasks);
+		final Graphics2D g = frame.createGraphics();
+
+		try {
+			g.setComposite(AlphaComposite.Src);
+
+			for (int i = 0; i < tiles.size(); i++)
+				g.drawImage(tiles.get(i).get(), 0, i * tileHeight, null);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			if (cause instanceof Error)
+				throw (Error) cause;
+			throw new IllegalStateException(cause);
+		} finally {
+			g.dispose();
+		}
+	}
+
+	/*
+	 * Paints the region of the frame with the specified origin and size into
+	 * a new image, starting from the pixels that are already in the frame.
+	 */
+	private static BufferedImage paintTile(final BufferedImage frame, final DisplayList list,
+	                                       final int xOffset, final int yOffset,
+	                                       final int width, final int height,
+	                                       final double xCenter, final double yCenter,
+	                                       final double scaleFactor) {
+		final ColorModel cm = frame.getColorModel();
+		final BufferedImage tile = new BufferedImage(cm, cm.createCompatibleWritableRaster(width, height),
+		                                             cm.isAlphaPremultiplied(), null);
+		final Graphics2D g = tile.createGraphics();
+
+		try {
+			g.setComposite(AlphaComposite.Src);
+			g.drawImage(frame, -xOffset, -yOffset, null);
+		} finally {
+			g.dispose();
+		}
+
+		final GraphGraphics tileGrafx = new GraphGraphics(tile, false, false);
+		tileGrafx.setFrameRegion(frame.getWidth(), frame.getHeight(), xOffset, yOffset);
+		tileGrafx.clear(null, xCenter, yCenter, scaleFactor);
+
+		final double[] min = { xOffset - TILE_MARGIN, yOffset - TILE_MARGIN };
+		final double[] max = { xOffset + width + TILE_MARGIN, yOffset + height + TILE_MARGIN };
+		tileGrafx.xformImageToNodeCoords(min);
+		tileGrafx.xformImageToNodeCoords(max);
+		list.replay(tileGrafx, (float) min[0], (float) min[1], (float) max[0], (float) max[1]);
+
+		return tile;
+	}
+}
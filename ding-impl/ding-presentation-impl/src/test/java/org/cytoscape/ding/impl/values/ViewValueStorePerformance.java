@@ -0,0 +1,211 @@
+package org.cytoscape.ding.impl.values;
+
+/*
+ * #%L
+ * Cytoscape Ding View/Presentation Impl (ding-presentation-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2016 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Paint;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.cytoscape.model.CyIdentifiable;
+
+/**
+ * Compares the per-view visual property storage used by DNodeDetails against
+ * the ConcurrentHashMap-per-property layout it replaced, for a styled view of
+ * N nodes (100000 by default).
+ * <p>
+ * Each "frame" performs the lookups the renderer makes for every node at full
+ * detail: fill, border and label paints, border width, label text, font, width
+ * and anchors, and the three transparencies. Heap usage is measured after
+ * populating every property for every node.
+ */
+public class ViewValueStorePerformance {
+
+	private static final int FRAMES = 20;
+	private static final Paint[] PALETTE = new Paint[16];
+	private static final Font[] FONTS = {
+		new Font("SansSerif", Font.PLAIN, 12), new Font("SansSerif", Font.BOLD, 12), new Font("Serif", Font.PLAIN, 10)
+	};
+
+	static {
+		for (int i = 0; i < PALETTE.length; i++)
+			PALETTE[i] = new Color(i * 16, 255 - i * 16, 128);
+	}
+
+	public static void main(String[] args) {
+		final int n = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+		final CyIdentifiable[] nodes = new CyIdentifiable[n];
+
+		for (int i = 0; i < n; i++) {
+			final long suid = 1000L + i * 3L;
+			nodes[i] = () -> suid;
+		}
+
+		System.out.println("Nodes: " + n);
+		run("ConcurrentHashMap per property", new MapDetails(), nodes);
+		run("ViewValueStore", new StoreDetails(), nodes);
+	}
+
+	private static void run(final String name, final Details details, final CyIdentifiable[] nodes) {
+		final long before = usedMemory();
+		long start = System.nanoTime();
+		details.populate(nodes);
+		final long populateNanos = System.nanoTime() - start;
+		final long heap = usedMemory() - before;
+
+		long checksum = 0;
+
+		for (int i = 0; i < 5; i++) // warm up
+			checksum += details.frame(nodes);
+
+		start = System.nanoTime();
+
+		for (int i = 0; i < FRAMES; i++)
+			checksum += details.frame(nodes);
+
+		final long frameNanos = (System.nanoTime() - start) / FRAMES;
+
+		System.out.println(name + ":");
+		System.out.println("    populate: " + populateNanos / 1000000 + " ms");
+		System.out.println("    heap:     " + heap / 1024 + " KB (" + heap / nodes.length + " bytes/node)");
+		System.out.println("    frame:    " + frameNanos / 1000 + " us (checksum " + checksum + ")");
+	}
+
+	private static long usedMemory() {
+		final Runtime rt = Runtime.getRuntime();
+
+		for (int i = 0; i < 4; i++)
+			System.gc();
+
+		return rt.totalMemory() - rt.freeMemory();
+	}
+
+	private interface Details {
+		void populate(CyIdentifiable[] nodes);
+		long frame(CyIdentifiable[] nodes);
+	}
+
+	private static final class MapDetails implements Details {
+		final Map<CyIdentifiable, Paint> fills = new ConcurrentHashMap<>(16, 0.75f, 2);
+		final Map<CyIdentifiable, Paint> borders = new ConcurrentHashMap<>(16, 0.75f, 2);
+		final Map<CyIdentifiable, Paint> labelPaints = new ConcurrentHashMap<>(16, 0.75f, 2);
+		final Map<CyIdentifiable, Float> borderWidths = new ConcurrentHashMap<>(16, 0.75f, 2);
+		final Map<CyIdentifiable, String> labels = new ConcurrentHashMap<>(16, 0.75f, 2);
+		final Map<CyIdentifiable, Font> fonts = new ConcurrentHashMap<>(16, 0.75f, 2);
+		final Map<CyIdentifiable, Double> labelWidths = new ConcurrentHashMap<>(16, 0.75f, 2);
+		final Map<CyIdentifiable, Integer> textAnchors = new ConcurrentHashMap<>(16, 0.75f, 2);
+		final Map<CyIdentifiable, Integer> nodeAnchors = new ConcurrentHashMap<>(16, 0.75f, 2);
+		final Map<CyIdentifiable, Integer> transparencies = new ConcurrentHashMap<>(16, 0.75f, 2);
+		final Map<CyIdentifiable, Integer> borderTransparencies = new ConcurrentHashMap<>(16, 0.75f, 2);
+		final Map<CyIdentifiable, Integer> labelTransparencies = new ConcurrentHashMap<>(16, 0.75f, 2);
+
+		@Override
+		public void populate(final CyIdentifiable[] nodes) {
+			for (int i = 0; i < nodes.length; i++) {
+				final CyIdentifiable node = nodes[i];
+				fills.put(node, PALETTE[i % PALETTE.length]);
+				borders.put(node, PALETTE[(i / 7) % PALETTE.length]);
+				labelPaints.put(node, PALETTE[0]);
+				borderWidths.put(node, (float) (i % 5));
+				labels.put(node, "node " + i);
+				fonts.put(node, FONTS[i % FONTS.length]);
+				labelWidths.put(node, 100.0 + i % 50);
+				textAnchors.put(node, i % 9);
+				nodeAnchors.put(node, (i + 4) % 9);
+				transparencies.put(node, 200 + i % 56);
+				borderTransparencies.put(node, 255);
+				labelTransparencies.put(node, 100 + i % 100);
+			}
+		}
+
+		@Override
+		public long frame(final CyIdentifiable[] nodes) {
+			long sum = 0;
+
+			for (final CyIdentifiable node : nodes) {
+				sum += fills.get(node).hashCode() + borders.get(node).hashCode() + labelPaints.get(node).hashCode();
+				sum += (long) borderWidths.get(node).floatValue();
+				sum += labels.get(node).length() + fonts.get(node).getSize();
+				sum += (long) labelWidths.get(node).doubleValue();
+				sum += textAnchors.get(node) + nodeAnchors.get(node);
+				sum += transparencies.get(node) + borderTransparencies.get(node) + labelTransparencies.get(node);
+			}
+
+			return sum;
+		}
+	}
+
+	private static final class StoreDetails implements Details {
+		final ViewValueStore store = new ViewValueStore();
+		final InternedColumn<Paint> fills = store.createInternedColumn();
+		final InternedColumn<Paint> borders = store.createInternedColumn();
+		final InternedColumn<Paint> labelPaints = store.createInternedColumn();
+		final FloatColumn borderWidths = store.createFloatColumn();
+		final ObjectColumn<String> labels = store.createObjectColumn();
+		final InternedColumn<Font> fonts = store.createInternedColumn();
+		final DoubleColumn labelWidths = store.createDoubleColumn();
+		final IntColumn textAnchors = store.createIntColumn();
+		final IntColumn nodeAnchors = store.createIntColumn();
+		final IntColumn transparencies = store.createIntColumn();
+		final IntColumn borderTransparencies = store.createIntColumn();
+		final IntColumn labelTransparencies = store.createIntColumn();
+
+		@Override
+		public void populate(final CyIdentifiable[] nodes) {
+			for (int i = 0; i < nodes.length; i++) {
+				final CyIdentifiable node = nodes[i];
+				fills.put(node, PALETTE[i % PALETTE.length]);
+				borders.put(node, PALETTE[(i / 7) % PALETTE.length]);
+				labelPaints.put(node, PALETTE[0]);
+				borderWidths.put(node, (float) (i % 5));
+				labels.put(node, "node " + i);
+				fonts.put(node, FONTS[i % FONTS.length]);
+				labelWidths.put(node, 100.0 + i % 50);
+				textAnchors.put(node, i % 9);
+				nodeAnchors.put(node, (i + 4) % 9);
+				transparencies.put(node, 200 + i % 56);
+				borderTransparencies.put(node, 255);
+				labelTransparencies.put(node, 100 + i % 100);
+			}
+		}
+
+		@Override
+		public long frame(final CyIdentifiable[] nodes) {
+			long sum = 0;
+
+			for (final CyIdentifiable node : nodes) {
+				sum += fills.get(node).hashCode() + borders.get(node).hashCode() + labelPaints.get(node).hashCode();
+				sum += (long) borderWidths.get(node);
+				sum += labels.get(node).length() + fonts.get(node).getSize();
+				sum += (long) labelWidths.get(node);
+				sum += textAnchors.get(node) + nodeAnchors.get(node);
+				sum += transparencies.get(node) + borderTransparencies.get(node) + labelTransparencies.get(node);
+			}
+
+			return sum;
+		}
+	}
+}
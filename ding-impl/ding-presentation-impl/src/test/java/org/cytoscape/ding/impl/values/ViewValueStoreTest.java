@@ -0,0 +1,194 @@
+package org.cytoscape.ding.impl.values;
+
+/*
+ * #%L
+ * Cytoscape Ding View/Presentation Impl (ding-presentation-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2016 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Color;
+import java.awt.Paint;
+
+import org.cytoscape.model.CyIdentifiable;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ViewValueStoreTest {
+
+	private ViewValueStore store;
+	private FloatColumn widths;
+	private IntColumn transparencies;
+	private ObjectColumn<String> labels;
+	private InternedColumn<Paint> paints;
+
+	@Before
+	public void setUp() {
+		store = new ViewValueStore();
+		widths = store.createFloatColumn();
+		transparencies = store.createIntColumn();
+		labels = store.createObjectColumn();
+		paints = store.createInternedColumn();
+	}
+
+	@Test
+	public void testMissingValues() {
+		final CyIdentifiable e = element(1L);
+
+		assertTrue(Float.isNaN(widths.get(e)));
+		assertEquals(IntColumn.NOT_SET, transparencies.get(e));
+		assertNull(labels.get(e));
+		assertNull(paints.get(e));
+		assertEquals(0, store.size());
+	}
+
+	@Test
+	public void testPutGetRemove() {
+		final CyIdentifiable a = element(10L);
+		final CyIdentifiable b = element(20L);
+
+		widths.put(a, 2.5f);
+		transparencies.put(b, 128);
+		labels.put(a, "a");
+		paints.put(b, Color.RED);
+
+		assertEquals(2.5f, widths.get(a), 0.0f);
+		assertTrue(Float.isNaN(widths.get(b)));
+		assertEquals(128, transparencies.get(b));
+		assertEquals("a", labels.get(a));
+		assertEquals(Color.RED, paints.get(b));
+		assertEquals(2, store.size());
+
+		widths.remove(a);
+		labels.put(a, null);
+		assertTrue(Float.isNaN(widths.get(a)));
+		assertNull(labels.get(a));
+		assertEquals(128, transparencies.get(b));
+	}
+
+	@Test
+	public void testRemoveElementRecyclesSlot() {
+		final CyIdentifiable a = element(1L);
+		final CyIdentifiable b = element(2L);
+
+		widths.put(a, 1.0f);
+		paints.put(a, Color.BLUE);
+		store.remove(a);
+
+		assertEquals(0, store.size());
+		assertTrue(Float.isNaN(widths.get(a)));
+		assertNull(paints.get(a));
+
+		// b gets a's old slot and must not inherit any of its values
+		labels.put(b, "b");
+		assertEquals(1, store.size());
+		assertTrue(Float.isNaN(widths.get(b)));
+		assertNull(paints.get(b));
+		assertEquals("b", labels.get(b));
+	}
+
+	@Test
+	public void testClear() {
+		for (long suid = 1; suid <= 100; suid++) {
+			widths.put(element(suid), suid);
+			paints.put(element(suid), Color.GREEN);
+		}
+
+		store.clear();
+
+		assertEquals(0, store.size());
+		assertTrue(Float.isNaN(widths.get(element(50L))));
+		assertNull(paints.get(element(50L)));
+		assertEquals(0, paints.getDistinctValueCount());
+	}
+
+	@Test
+	public void testColumnClearKeepsOtherColumns() {
+		final CyIdentifiable a = element(3L);
+
+		widths.put(a, 4.0f);
+		labels.put(a, "a");
+		widths.clear();
+
+		assertTrue(Float.isNaN(widths.get(a)));
+		assertEquals("a", labels.get(a));
+	}
+
+	@Test
+	public void testInterning() {
+		for (long suid = 1; suid <= 1000; suid++)
+			paints.put(element(suid), suid % 2 == 0 ? new Color(255, 0, 0) : new Color(0, 0, 255));
+
+		assertEquals(2, paints.getDistinctValueCount());
+		assertSame(paints.get(element(2L)), paints.get(element(4L)));
+	}
+
+	@Test
+	public void testInternedTableIsCompacted() {
+		final int n = 200;
+
+		// Every round replaces all values, leaving the previous ones unreferenced
+		for (int round = 0; round < 10; round++) {
+			for (int i = 0; i < n; i++)
+				paints.put(element(i + 1), new Color(round, i, 0));
+		}
+
+		assertTrue(paints.getDistinctValueCount() <= 2 * n + 1);
+
+		for (int i = 0; i < n; i++)
+			assertEquals(new Color(9, i, 0), paints.get(element(i + 1)));
+	}
+
+	@Test
+	public void testManyElements() {
+		final int n = 100000;
+
+		for (int i = 0; i < n; i++) {
+			final CyIdentifiable e = element(i * 7L + 1);
+			widths.put(e, i);
+			transparencies.put(e, i % 256);
+		}
+
+		for (int i = 0; i < n; i += 2)
+			store.remove(element(i * 7L + 1));
+
+		assertEquals(n / 2, store.size());
+
+		for (int i = 0; i < n; i++) {
+			final CyIdentifiable e = element(i * 7L + 1);
+
+			if (i % 2 == 0) {
+				assertTrue(Float.isNaN(widths.get(e)));
+			} else {
+				assertEquals(i, widths.get(e), 0.0f);
+				assertEquals(i % 256, transparencies.get(e));
+			}
+		}
+	}
+
+	private static CyIdentifiable element(final long suid) {
+		return () -> suid;
+	}
+}
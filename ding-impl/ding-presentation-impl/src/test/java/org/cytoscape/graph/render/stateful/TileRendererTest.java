@@ -0,0 +1,195 @@
+package org.cytoscape.graph.render.stateful;
+
+/*
+ * #%L
+ * Cytoscape Ding View/Presentation Impl (ding-presentation-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Paint;
+import java.awt.Stroke;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import org.cytoscape.graph.render.immed.DisplayList;
+import org.cytoscape.graph.render.immed.EdgeAnchors;
+import org.cytoscape.graph.render.immed.GraphGraphics;
+import org.cytoscape.view.presentation.property.ArrowShapeVisualProperty;
+import org.cytoscape.view.presentation.property.values.ArrowShape;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks that painting a frame in tiles produces the same image as painting
+ * it directly on one thread.
+ */
+public class TileRendererTest extends TestCase {
+
+	private static final int WIDTH = 640;
+	private static final int HEIGHT = 480;
+	private static final double X_CENTER = 250.0;
+	private static final double Y_CENTER = 200.0;
+	private static final double SCALE = 1.37;
+
+	// Since Java 9 the Marlin renderer clips paths to the image before
+	// rasterizing them, which shifts antialiased coverage slightly where a
+	// shape crosses a tile boundary.  Missing or reordered draw calls change
+	// pixels by much more than this.
+	private static final int MAX_CHANNEL_DELTA = 32;
+
+	private static final ArrowShape[] ARROWS = {
+		ArrowShapeVisualProperty.NONE, ArrowShapeVisualProperty.DELTA,
+		ArrowShapeVisualProperty.CIRCLE, ArrowShapeVisualProperty.DIAMOND,
+		ArrowShapeVisualProperty.T, ArrowShapeVisualProperty.ARROW
+	};
+
+	public void testHighDetailTilesMatchSingleThread() {
+		assertTilesMatch(true);
+	}
+
+	public void testLowDetailTilesMatchSingleThread() {
+		assertTilesMatch(false);
+	}
+
+	public void testRecordedCallsReturnNodeShape() {
+		final GraphGraphics grafx = newGraphics();
+		final DisplayList list = new DisplayList();
+		grafx.startRecording(list);
+
+		assertNotNull(grafx.drawNodeFull(GraphGraphics.SHAPE_ELLIPSE, 0f, 0f, 10f, 10f,
+		                                 Color.RED, 0f, null, null));
+		assertEquals(1, list.size());
+		assertSame(list, grafx.stopRecording());
+		assertNull(grafx.stopRecording());
+	}
+
+	private void assertTilesMatch(final boolean highDetail) {
+		final GraphGraphics direct = newGraphics();
+		drawScene(direct, highDetail);
+
+		final GraphGraphics tiled = newGraphics();
+		final DisplayList list = new DisplayList();
+		tiled.startRecording(list);
+		drawScene(tiled, highDetail);
+		tiled.stopRecording();
+		assertTrue(list.size() > 0);
+		TileRenderer.render(tiled, list, X_CENTER, Y_CENTER, SCALE, 4);
+
+		final BufferedImage expected = (BufferedImage) direct.image;
+		final BufferedImage actual = (BufferedImage) tiled.image;
+
+		for (int y = 0; y < HEIGHT; y++) {
+			for (int x = 0; x < WIDTH; x++) {
+				final int e = expected.getRGB(x, y);
+				final int a = actual.getRGB(x, y);
+
+				for (int shift = 0; shift < 32; shift += 8) {
+					if (Math.abs(((e >> shift) & 0xff) - ((a >> shift) & 0xff)) > MAX_CHANNEL_DELTA)
+						fail("pixel (" + x + "," + y + ") differs: " + Integer.toHexString(e)
+						     + " != " + Integer.toHexString(a));
+				}
+			}
+		}
+	}
+
+	private static GraphGraphics newGraphics() {
+		final BufferedImage img = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB);
+		final GraphGraphics grafx = new GraphGraphics(img, false, true);
+		grafx.clear(Color.WHITE, X_CENTER, Y_CENTER, SCALE);
+		return grafx;
+	}
+
+	/*
+	 * Draws overlapping, translucent nodes, edges, and labels, many of which
+	 * cross tile boundaries, so that any change in painting order or clipping
+	 * shows up in the image.
+	 */
+	private static void drawScene(final GraphGraphics grafx, final boolean highDetail) {
+		final Random random = new Random(42);
+		final Font font = new Font("SansSerif", Font.PLAIN, 12);
+		final float[] pos = new float[400];
+
+		for (int i = 0; i < pos.length; i += 2) {
+			pos[i] = random.nextFloat() * 500f;
+			pos[i + 1] = random.nextFloat() * 400f;
+		}
+
+		for (int i = 0; i < pos.length - 2; i += 2) {
+			final int j = 2 * random.nextInt(pos.length / 2);
+			final Color color = new Color(random.nextInt(256), random.nextInt(256), random.nextInt(256));
+
+			if (highDetail) {
+				final float thickness = 0.5f + random.nextFloat() * 3f;
+				final Stroke stroke = new BasicStroke(thickness);
+				final Paint paint = new Color(color.getRed(), color.getGreen(), color.getBlue(), 160);
+				final EdgeAnchors anchors = (i % 3 == 0)
+					? new Anchor((pos[i] + pos[j]) / 2f + 20f, (pos[i + 1] + pos[j + 1]) / 2f - 20f)
+					: null;
+				grafx.drawEdgeFull(ARROWS[i % ARROWS.length], 6f + thickness, paint,
+				                   ARROWS[(i / 2) % ARROWS.length], 6f + thickness, paint,
+				                   pos[i], pos[i + 1], anchors, pos[j], pos[j + 1],
+				                   thickness, stroke, paint);
+			} else {
+				grafx.drawEdgeLow(pos[i], pos[i + 1], pos[j], pos[j + 1], color);
+			}
+		}
+
+		for (int i = 0; i < pos.length; i += 2) {
+			final float size = 8f + random.nextFloat() * 30f;
+			final Color color = new Color(random.nextInt(256), random.nextInt(256), random.nextInt(256));
+
+			if (highDetail) {
+				final byte shape = (byte) random.nextInt(GraphGraphics.SHAPE_VEE + 1);
+				final float border = (i % 4 == 0) ? 1.5f : 0f;
+				grafx.drawNodeFull(shape, pos[i], pos[i + 1], pos[i] + size, pos[i + 1] + size,
+				                   new Color(color.getRed(), color.getGreen(), color.getBlue(), 200),
+				                   border, null, Color.BLACK);
+				grafx.drawTextFull(font, 0.8, "node " + i, pos[i] + size / 2f, pos[i + 1] + size / 2f,
+				                   (i % 5 == 0) ? 0.3f : 0f, Color.DARK_GRAY, i % 2 == 0);
+			} else {
+				grafx.drawNodeLow(pos[i], pos[i + 1], pos[i] + size, pos[i + 1] + size, color);
+			}
+		}
+	}
+
+	private static final class Anchor implements EdgeAnchors {
+		private final float x;
+		private final float y;
+
+		Anchor(final float x, final float y) {
+			this.x = x;
+			this.y = y;
+		}
+
+		public int numAnchors() {
+			return 1;
+		}
+
+		public void getAnchor(final int anchorIndex, final float[] anchorArr, final int offset) {
+			anchorArr[offset] = x;
+			anchorArr[offset + 1] = y;
+		}
+	}
+}
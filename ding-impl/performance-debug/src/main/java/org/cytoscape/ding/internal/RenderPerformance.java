@@ -0,0 +1,210 @@
+package org.cytoscape.ding.internal;
+
+/*
+ * #%L
+ * Cytoscape Ding View/Presentation Impl Performance (ding-impl-performance-debug)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.awt.Color;
+import java.awt.Paint;
+import java.awt.image.BufferedImage;
+import java.util.Collections;
+import java.util.Random;
+
+import org.cytoscape.graph.render.immed.GraphGraphics;
+import org.cytoscape.graph.render.stateful.EdgeDetails;
+import org.cytoscape.graph.render.stateful.GraphLOD;
+import org.cytoscape.graph.render.stateful.GraphRenderer;
+import org.cytoscape.graph.render.stateful.NodeDetails;
+import org.cytoscape.model.CyEdge;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.model.NetworkTestSupport;
+import org.cytoscape.spacial.SpacialIndex2D;
+import org.cytoscape.spacial.internal.rtree.RTreeFactory;
+import org.cytoscape.util.intr.LongHash;
+import org.cytoscape.view.model.CyNetworkView;
+import org.cytoscape.view.presentation.property.ArrowShapeVisualProperty;
+import org.cytoscape.view.presentation.property.values.ArrowShape;
+
+
+/**
+ * Measures the time GraphRenderer takes to render a full detail frame of a
+ * large random network, painting on one thread and in tiles on several.
+ * Usage: RenderPerformance [nodeCount [edgeCount [frameWidth frameHeight]]]
+ */
+public class RenderPerformance {
+
+	private static final int WARMUP_FRAMES = 5;
+	private static final int MEASURED_FRAMES = 20;
+
+	public static void main(String[] args) {
+		final int nodeCount = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+		final int edgeCount = args.length > 1 ? Integer.parseInt(args[1]) : 10000;
+		final int width = args.length > 3 ? Integer.parseInt(args[2]) : 1600;
+		final int height = args.length > 3 ? Integer.parseInt(args[3]) : 1200;
+
+		final RenderPerformance perf = new RenderPerformance(nodeCount, edgeCount);
+		final int cores = Runtime.getRuntime().availableProcessors();
+
+		for (int threads = 1; threads <= cores; threads *= 2)
+			perf.measure(threads, width, height);
+
+		if (Integer.bitCount(cores) != 1)
+			perf.measure(cores, width, height);
+	}
+
+	private final CyNetworkView view;
+	private final SpacialIndex2D spacial;
+	private final NodeDetails nodeDetails;
+	private final EdgeDetails edgeDetails;
+	private final double extent;
+
+	public RenderPerformance(final int nodeCount, final int edgeCount) {
+		final CyNetwork network = new NetworkTestSupport().getNetwork();
+		final Random random = new Random(17);
+		final CyNode[] nodes = new CyNode[nodeCount];
+
+		extent = 40.0 * Math.sqrt(nodeCount);
+		spacial = new RTreeFactory().createSpacialIndex2D();
+
+		for (int i = 0; i < nodeCount; i++) {
+			nodes[i] = network.addNode();
+			final float x = (float) (random.nextDouble() * extent);
+			final float y = (float) (random.nextDouble() * extent);
+			spacial.insert(nodes[i].getSUID(), x, y, x + 20f, y + 20f, 0.0);
+		}
+
+		for (int i = 0; i < edgeCount; i++)
+			network.addEdge(nodes[random.nextInt(nodeCount)], nodes[random.nextInt(nodeCount)], true);
+
+		view = mock(CyNetworkView.class);
+		when(view.getModel()).thenReturn(network);
+
+		nodeDetails = new NodeDetails() {
+			@Override
+			public byte getShape(final CyNode node) {
+				return (byte) (node.getSUID() % (GraphGraphics.SHAPE_VEE + 1));
+			}
+
+			@Override
+			public Paint getFillPaint(final CyNode node) {
+				return new Color((int) (node.getSUID() * 2654435761L) | 0x80000000, true);
+			}
+
+			@Override
+			public float getBorderWidth(final CyNode node) {
+				return 2.0f;
+			}
+
+			@Override
+			public int getLabelCount(final CyNode node) {
+				return 1;
+			}
+
+			@Override
+			public String getLabelText(final CyNode node, final int labelInx) {
+				return "node " + node.getSUID();
+			}
+		};
+
+		edgeDetails = new EdgeDetails() {
+			@Override
+			public ArrowShape getTargetArrowShape(final CyEdge edge) {
+				return ArrowShapeVisualProperty.DELTA;
+			}
+
+			@Override
+			public float getTargetArrowSize(final CyEdge edge) {
+				return 6.0f;
+			}
+		};
+	}
+
+	/**
+	 * Renders the whole network into a frame of the specified size on the
+	 * specified number of threads and prints the mean frame time.
+	 */
+	public void measure(final int threads, final int width, final int height) {
+		final GraphLOD lod = new FullDetailLOD(threads);
+		final BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		final GraphGraphics grafx = new GraphGraphics(image, false, true);
+		final LongHash nodeBuff = new LongHash();
+		final double scale = Math.min(width, height) / extent;
+		long total = 0;
+
+		for (int i = 0; i < WARMUP_FRAMES + MEASURED_FRAMES; i++) {
+			final long start = System.nanoTime();
+			GraphRenderer.renderGraph(view, spacial, lod, nodeDetails, edgeDetails, nodeBuff, grafx,
+			                          Color.WHITE, extent / 2, extent / 2, scale, false,
+			                          Collections.emptySet());
+			if (i >= WARMUP_FRAMES)
+				total += System.nanoTime() - start;
+		}
+
+		System.out.println("threads: " + threads + "  frame " + width + "x" + height
+		                   + "  mean frame time: " + (total / MEASURED_FRAMES / 1000000) + " ms");
+	}
+
+	private static final class FullDetailLOD extends GraphLOD {
+		private final int threads;
+
+		FullDetailLOD(final int threads) {
+			this.threads = threads;
+		}
+
+		@Override
+		public byte renderEdges(final int visibleNodeCount, final int totalNodeCount,
+		                        final int totalEdgeCount) {
+			return 1;
+		}
+
+		@Override
+		public boolean detail(final int renderNodeCount, final int renderEdgeCount) {
+			return true;
+		}
+
+		@Override
+		public boolean nodeBorders(final int renderNodeCount, final int renderEdgeCount) {
+			return true;
+		}
+
+		@Override
+		public boolean nodeLabels(final int renderNodeCount, final int renderEdgeCount) {
+			return true;
+		}
+
+		@Override
+		public boolean edgeArrows(final int renderNodeCount, final int renderEdgeCount) {
+			return true;
+		}
+
+		@Override
+		public int renderThreads(final int renderNodeCount, final int renderEdgeCount) {
+			return threads;
+		}
+	}
+}
@@ -24,7 +24,7 @@ package org.cytoscape.equations.internal;
  * #L%
  */
 
-import org.cytoscape.equations.internal.EquationCompilerImpl;
+import org.cytoscape.equations.internal.HandleEquationCompilerImpl;
 import org.cytoscape.equations.internal.EquationParserImpl;
 import org.cytoscape.equations.internal.interpreter.InterpreterImpl;
 import org.cytoscape.equations.Interpreter;
@@ -49,7 +49,7 @@ public class CyActivator extends AbstractCyActivator {
 		
 		InterpreterImpl interpreter = new InterpreterImpl();
 		EquationParserImpl parser = new EquationParserImpl();
-		EquationCompilerImpl compiler = new EquationCompilerImpl(parser);
+		HandleEquationCompilerImpl compiler = new HandleEquationCompilerImpl(parser);
 		
 		registerService(bc,compiler,EquationCompiler.class, new Properties());
 		registerService(bc,interpreter,Interpreter.class, new Properties());
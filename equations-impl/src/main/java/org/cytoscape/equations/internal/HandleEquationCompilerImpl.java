@@ -0,0 +1,76 @@
+package org.cytoscape.equations.internal;
+
+/*
+ * #%L
+ * Cytoscape Equations Impl (equations-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2010 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.util.Map;
+
+import org.cytoscape.equations.Equation;
+import org.cytoscape.equations.EquationCompiler;
+import org.cytoscape.equations.EquationParser;
+import org.cytoscape.equations.internal.interpreter.HandleGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ *  An equation compiler that, in addition to the interpreter code, turns each equation into a chain of
+ *  method handles which the interpreter then runs instead of the code.  Equations that can't be
+ *  compiled this way are left to the interpreter.
+ */
+public class HandleEquationCompilerImpl implements EquationCompiler {
+	private static final Logger logger = LoggerFactory.getLogger(HandleEquationCompilerImpl.class);
+
+	private final EquationCompilerImpl compiler;
+	private Equation equation;
+
+	public HandleEquationCompilerImpl(final EquationParser parser) {
+		this.compiler = new EquationCompilerImpl(parser);
+	}
+
+	public boolean compile(final String equation, final Map<String, Class<?>> variableNameToTypeMap) {
+		this.equation = null;
+
+		if (!compiler.compile(equation, variableNameToTypeMap))
+			return false;
+
+		final Equation interpretedEquation = compiler.getEquation();
+		this.equation = HandleGenerator.compile(interpretedEquation, compiler.getParser().getParseTree());
+		if (this.equation == interpretedEquation)
+			logger.debug("Equation \"" + equation + "\" will be interpreted.");
+
+		return true;
+	}
+
+	public String getLastErrorMsg() { return compiler.getLastErrorMsg(); }
+
+	public Equation getEquation() { return equation; }
+
+	public EquationParser getParser() { return compiler.getParser(); }
+
+	public Equation getErrorEquation(final String equation, final Class<?> type, final String errorMessage) {
+		return compiler.getErrorEquation(equation, type, errorMessage);
+	}
+}
@@ -0,0 +1,88 @@
+package org.cytoscape.equations.internal.interpreter;
+
+/*
+ * #%L
+ * Cytoscape Equations Impl (equations-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2010 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.lang.invoke.MethodHandle;
+import java.util.Map;
+
+import org.cytoscape.equations.Equation;
+import org.cytoscape.equations.IdentDescriptor;
+
+
+/**
+ *  An equation that, in addition to its interpreter code, carries a method handle that computes
+ *  the same result.  The handle is specialized on the operand types, so numeric expressions are
+ *  evaluated without boxing.  Instances are created by {@link HandleGenerator}.
+ */
+public final class CompiledEquation extends Equation {
+	private final MethodHandle handle;
+	private final String[] variableNames;
+
+	CompiledEquation(final Equation equation, final MethodHandle handle, final String[] variableNames) {
+		super(equation.toString(), equation.getVariableReferences(), equation.getDefaultVariableValues(),
+		      equation.getCode(), equation.getSourceLocations(), equation.getType());
+
+		this.handle        = handle;
+		this.variableNames = variableNames;
+	}
+
+	/**
+	 *  @return the names of the referenced variables, in the order in which {@link #execute(Object[])}
+	 *          expects their values
+	 */
+	public String[] getVariableNames() { return variableNames.clone(); }
+
+	/**
+	 *  Evaluates the equation with the same semantics as {@link InterpreterImpl#execute(Equation, Map)},
+	 *  except that the type of the result is not checked.
+	 */
+	Object execute(final Map<String, IdentDescriptor> variableNameToDescriptorMap) {
+		final Object[] values = new Object[variableNames.length];
+		for (int i = 0; i < values.length; ++i) {
+			final IdentDescriptor identDescriptor = variableNameToDescriptorMap.get(variableNames[i]);
+			values[i] = identDescriptor == null ? HandleGenerator.UNKNOWN_VARIABLE : identDescriptor.getValue();
+		}
+
+		return execute(values);
+	}
+
+	/**
+	 *  Evaluates the equation for the given variable values.
+	 *  @param values  the values of the variables named by {@link #getVariableNames()}, as they would be held
+	 *                 by an {@link IdentDescriptor}, or null for an undefined value
+	 */
+	public Object execute(final Object[] values) {
+		try {
+			return (Object)handle.invokeExact(values);
+		} catch (final RuntimeException e) {
+			throw e;
+		} catch (final Error e) {
+			throw e;
+		} catch (final Throwable e) {
+			throw new IllegalStateException(e.getMessage(), e);
+		}
+	}
+}
@@ -0,0 +1,481 @@
+package org.cytoscape.equations.internal.interpreter;
+
+/*
+ * #%L
+ * Cytoscape Equations Impl (equations-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2010 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.cytoscape.equations.Equation;
+import org.cytoscape.equations.Function;
+import org.cytoscape.equations.FunctionError;
+import org.cytoscape.equations.TreeNode;
+import org.cytoscape.equations.internal.parse_tree.BinOpNode;
+import org.cytoscape.equations.internal.parse_tree.BooleanConstantNode;
+import org.cytoscape.equations.internal.parse_tree.FConvNode;
+import org.cytoscape.equations.internal.parse_tree.FloatConstantNode;
+import org.cytoscape.equations.internal.parse_tree.FuncCallNode;
+import org.cytoscape.equations.internal.parse_tree.IdentNode;
+import org.cytoscape.equations.internal.parse_tree.SConvNode;
+import org.cytoscape.equations.internal.parse_tree.StringConstantNode;
+import org.cytoscape.equations.internal.parse_tree.UnaryOpNode;
+
+
+/**
+ *  Turns a parse tree into a chain of method handles that computes the same result as interpreting
+ *  the equation's code.  Every node becomes a handle taking the array of variable values, and
+ *  returning a double, boolean or String where the type of the node is known, so that nested
+ *  arithmetic and comparisons run without boxing.  Operands are evaluated in the same order as by
+ *  the interpreter and fail with the same exceptions.
+ */
+public final class HandleGenerator {
+	/** The value of a variable for which no descriptor was supplied. */
+	static final Object UNKNOWN_VARIABLE = new Object();
+
+	private static final int MAX_ARG_COUNT = 100; // Same limit as in the interpreter.
+
+	private static final MethodType ROOT_TYPE = MethodType.methodType(Object.class, Object[].class);
+
+	private static final MethodHandle AREF, AREF2, GET_FLOAT, GET_LONG, GET_STRING, GET_BOOLEAN, CALL;
+	private static final MethodHandle FADD, FSUB, FMUL, FDIV, FPOW, SCONCAT;
+	private static final MethodHandle BEQLF, BNEQLF, BGTF, BLTF, BGTEF, BLTEF;
+	private static final MethodHandle BEQLS, BNEQLS, BGTS, BLTS, BGTES, BLTES;
+	private static final MethodHandle BEQLB, BNEQLB, BGTB, BLTB, BGTEB, BLTEB;
+	private static final MethodHandle FUMINUS, FUPLUS, FCONVI, FCONVB, FCONVS, SCONV, SCONVF, SCONVB;
+
+	static {
+		try {
+			final MethodHandles.Lookup lookup = MethodHandles.lookup();
+			final Class<?> c = HandleGenerator.class;
+
+			AREF        = lookup.findStatic(c, "aref", MethodType.methodType(Object.class, Object[].class, int.class, String.class));
+			AREF2       = lookup.findStatic(c, "aref2", MethodType.methodType(Object.class, Object[].class, int.class, String.class, Object.class));
+			GET_FLOAT   = lookup.findStatic(c, "getFloat", MethodType.methodType(double.class, Object.class));
+			GET_LONG    = lookup.findStatic(c, "getLong", MethodType.methodType(long.class, Object.class));
+			GET_STRING  = lookup.findStatic(c, "getString", MethodType.methodType(String.class, Object.class));
+			GET_BOOLEAN = lookup.findStatic(c, "getBoolean", MethodType.methodType(boolean.class, Object.class));
+			CALL        = lookup.findStatic(c, "call", MethodType.methodType(Object.class, Function.class, Object[].class));
+
+			final MethodType ffType = MethodType.methodType(double.class, double.class, double.class);
+			FADD    = lookup.findStatic(c, "fadd", ffType);
+			FSUB    = lookup.findStatic(c, "fsub", ffType);
+			FMUL    = lookup.findStatic(c, "fmul", ffType);
+			FDIV    = lookup.findStatic(c, "fdiv", ffType);
+			FPOW    = lookup.findStatic(c, "fpow", ffType);
+			SCONCAT = lookup.findStatic(c, "sconcat", MethodType.methodType(String.class, String.class, String.class));
+
+			final MethodType bfType = MethodType.methodType(boolean.class, double.class, double.class);
+			BEQLF  = lookup.findStatic(c, "beqlf", bfType);
+			BNEQLF = lookup.findStatic(c, "bneqlf", bfType);
+			BGTF   = lookup.findStatic(c, "bgtf", bfType);
+			BLTF   = lookup.findStatic(c, "bltf", bfType);
+			BGTEF  = lookup.findStatic(c, "bgtef", bfType);
+			BLTEF  = lookup.findStatic(c, "bltef", bfType);
+
+			final MethodType bsType = MethodType.methodType(boolean.class, String.class, String.class);
+			BEQLS  = lookup.findStatic(c, "beqls", bsType);
+			BNEQLS = lookup.findStatic(c, "bneqls", bsType);
+			BGTS   = lookup.findStatic(c, "bgts", bsType);
+			BLTS   = lookup.findStatic(c, "blts", bsType);
+			BGTES  = lookup.findStatic(c, "bgtes", bsType);
+			BLTES  = lookup.findStatic(c, "bltes", bsType);
+
+			final MethodType bbType = MethodType.methodType(boolean.class, boolean.class, boolean.class);
+			BEQLB  = lookup.findStatic(c, "beqlb", bbType);
+			BNEQLB = lookup.findStatic(c, "bneqlb", bbType);
+			BGTB   = lookup.findStatic(c, "bgtb", bbType);
+			BLTB   = lookup.findStatic(c, "bltb", bbType);
+			BGTEB  = lookup.findStatic(c, "bgteb", bbType);
+			BLTEB  = lookup.findStatic(c, "blteb", bbType);
+
+			FUMINUS = lookup.findStatic(c, "fuminus", MethodType.methodType(double.class, double.class));
+			FUPLUS  = lookup.findStatic(c, "fuplus", MethodType.methodType(double.class, double.class));
+			FCONVI  = lookup.findStatic(c, "fconvi", MethodType.methodType(double.class, long.class));
+			FCONVB  = lookup.findStatic(c, "fconvb", MethodType.methodType(double.class, boolean.class));
+			FCONVS  = lookup.findStatic(c, "fconvs", MethodType.methodType(double.class, String.class));
+			SCONV   = lookup.findStatic(c, "sconv", MethodType.methodType(String.class, Object.class));
+			SCONVF  = lookup.findStatic(c, "sconvf", MethodType.methodType(String.class, double.class));
+			SCONVB  = lookup.findStatic(c, "sconvb", MethodType.methodType(String.class, Object.class));
+		} catch (final ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	// Maps variable names to their index in the array of variable values.
+	private final Map<String, Integer> variableIndices = new LinkedHashMap<String, Integer>();
+
+	private HandleGenerator() { }
+
+	/**
+	 *  @param equation   the result of compiling "parseTree" to interpreter code
+	 *  @param parseTree  the parse tree of the equation
+	 *  @return a {@link CompiledEquation} for "equation", or "equation" itself if the parse tree contains
+	 *          anything this generator does not support, in which case the equation will be interpreted
+	 */
+	public static Equation compile(final Equation equation, final TreeNode parseTree) {
+		final HandleGenerator generator = new HandleGenerator();
+		final MethodHandle handle;
+		try {
+			handle = convert(generator.generate(parseTree), Object.class);
+		} catch (final UnsupportedOperationException e) {
+			return equation;
+		}
+
+		final String[] variableNames = generator.variableIndices.keySet().toArray(new String[generator.variableIndices.size()]);
+		return new CompiledEquation(equation, handle.asType(ROOT_TYPE), variableNames);
+	}
+
+	/**
+	 *  @return a handle taking the array of variable values and returning the value of "node", as a
+	 *          double, boolean or String if that is the type of the node and otherwise as an Object
+	 */
+	private MethodHandle generate(final TreeNode node) {
+		if (node instanceof FloatConstantNode)
+			return constant(double.class, ((FloatConstantNode)node).getValue());
+		if (node instanceof BooleanConstantNode)
+			return constant(boolean.class, ((BooleanConstantNode)node).getValue());
+		if (node instanceof StringConstantNode)
+			return constant(String.class, ((StringConstantNode)node).getValue());
+		if (node instanceof IdentNode)
+			return generateIdent((IdentNode)node);
+		if (node instanceof UnaryOpNode)
+			return generateUnaryOp((UnaryOpNode)node);
+		if (node instanceof BinOpNode)
+			return generateBinOp((BinOpNode)node);
+		if (node instanceof FConvNode)
+			return generateFConv((FConvNode)node);
+		if (node instanceof SConvNode)
+			return generateSConv((SConvNode)node);
+		if (node instanceof FuncCallNode)
+			return generateFuncCall((FuncCallNode)node);
+
+		throw new UnsupportedOperationException("unsupported node: " + node + ".");
+	}
+
+	private MethodHandle generateIdent(final IdentNode node) {
+		final String name = node.getAttribName();
+		Integer index = variableIndices.get(name);
+		if (index == null) {
+			index = variableIndices.size();
+			variableIndices.put(name, index);
+		}
+
+		final Object defaultValue = node.getDefaultValue();
+		if (defaultValue == null)
+			return MethodHandles.insertArguments(AREF, 1, index, name);
+		else
+			return MethodHandles.insertArguments(AREF2, 1, index, name, defaultValue);
+	}
+
+	private MethodHandle generateUnaryOp(final UnaryOpNode node) {
+		final MethodHandle operand = convert(generate(node.getLeftChild()), double.class);
+		switch (node.getOperator()) {
+		case PLUS:
+			return MethodHandles.filterReturnValue(operand, FUPLUS);
+		case MINUS:
+			return MethodHandles.filterReturnValue(operand, FUMINUS);
+		default:
+			throw new UnsupportedOperationException("invalid unary operation: " + node.getOperator() + ".");
+		}
+	}
+
+	private MethodHandle generateBinOp(final BinOpNode node) {
+		final MethodHandle rhs = generate(node.getRightChild());
+		final MethodHandle lhs = generate(node.getLeftChild());
+
+		switch (node.getOperator()) {
+		case CARET:
+			return binaryOp(FPOW, rhs, lhs);
+		case PLUS:
+			return binaryOp(FADD, rhs, lhs);
+		case MINUS:
+			return binaryOp(FSUB, rhs, lhs);
+		case DIV:
+			return binaryOp(FDIV, rhs, lhs);
+		case MUL:
+			return binaryOp(FMUL, rhs, lhs);
+		case AMPERSAND:
+			return binaryOp(SCONCAT, rhs, lhs);
+		case EQUAL:
+			return binaryOp(comparison(node, BEQLF, BEQLS, BEQLB), rhs, lhs);
+		case NOT_EQUAL:
+			return binaryOp(comparison(node, BNEQLF, BNEQLS, BNEQLB), rhs, lhs);
+		case GREATER_THAN:
+			return binaryOp(comparison(node, BGTF, BGTS, BGTB), rhs, lhs);
+		case LESS_THAN:
+			return binaryOp(comparison(node, BLTF, BLTS, BLTB), rhs, lhs);
+		case GREATER_OR_EQUAL:
+			return binaryOp(comparison(node, BGTEF, BGTES, BGTEB), rhs, lhs);
+		case LESS_OR_EQUAL:
+			return binaryOp(comparison(node, BLTEF, BLTES, BLTEB), rhs, lhs);
+		default:
+			throw new UnsupportedOperationException("unknown operator: " + node.getOperator() + ".");
+		}
+	}
+
+	/**
+	 *  Picks one of three operations based on the operand types, like BinOpNode.determineOpCode().
+	 */
+	private static MethodHandle comparison(final BinOpNode node, final MethodHandle floatOp, final MethodHandle stringOp,
+	                                       final MethodHandle booleanOp)
+	{
+		final Class<?> operandType = node.getLeftChild().getType();
+		if (operandType == Double.class)
+			return floatOp;
+		else if (operandType == String.class)
+			return stringOp;
+		else if (operandType == Boolean.class)
+			return booleanOp;
+
+		throw new UnsupportedOperationException("invalid LHS operand type for comparison: " + operandType + ".");
+	}
+
+	private MethodHandle generateFConv(final FConvNode node) {
+		final TreeNode convertee = node.getLeftChild();
+		final MethodHandle operand = generate(convertee);
+
+		final Class<?> type = convertee.getType();
+		if (type == Long.class)
+			return MethodHandles.filterReturnValue(convert(operand, long.class), FCONVI);
+		else if (type == Boolean.class)
+			return MethodHandles.filterReturnValue(convert(operand, boolean.class), FCONVB);
+		else if (type == String.class)
+			return MethodHandles.filterReturnValue(convert(operand, String.class), FCONVS);
+
+		throw new UnsupportedOperationException("unknown type: " + type + ".");
+	}
+
+	private MethodHandle generateSConv(final SConvNode node) {
+		final TreeNode convertee = node.getLeftChild();
+		final MethodHandle operand = generate(convertee);
+
+		final Class<?> type = convertee.getType();
+		if (type == Double.class || type == Long.class) {
+			if (operand.type().returnType() == double.class)
+				return MethodHandles.filterReturnValue(operand, SCONVF);
+			return MethodHandles.filterReturnValue(convert(operand, Object.class), SCONV);
+		} else if (type == Boolean.class)
+			return MethodHandles.filterReturnValue(convert(operand, Object.class), SCONVB);
+
+		throw new UnsupportedOperationException("unknown type: " + type + ".");
+	}
+
+	private MethodHandle generateFuncCall(final FuncCallNode node) {
+		final TreeNode[] args = node.getArgs();
+		if (args.length > MAX_ARG_COUNT)
+			throw new UnsupportedOperationException("too many arguments: " + args.length + ".");
+
+		// The interpreter evaluates the arguments from last to first, so collect them in that order.
+		MethodHandle handle = MethodHandles.insertArguments(CALL, 0, node.getFunction())
+			.asCollector(Object[].class, args.length);
+		if (args.length == 0)
+			return MethodHandles.dropArguments(handle, 0, Object[].class);
+
+		// Filters are nested one at a time, since the outermost filter runs first.
+		for (int i = args.length - 1; i >= 0; --i)
+			handle = MethodHandles.filterArguments(handle, i, convert(generate(args[args.length - 1 - i]), Object.class));
+
+		return shareValues(handle);
+	}
+
+	/**
+	 *  @return a handle computing "op(rhs, lhs)".  Like the interpreter, it evaluates "rhs" before "lhs" and
+	 *          then converts "lhs" before "rhs" to the operand type, so that the same error is reported first.
+	 */
+	private static MethodHandle binaryOp(final MethodHandle op, final MethodHandle rhs, final MethodHandle lhs) {
+		final MethodType opType = op.type();
+		MethodHandle handle = op;
+		handle = MethodHandles.filterArguments(handle, 0, converter(rhs.type().returnType(), opType.parameterType(0)));
+		handle = MethodHandles.filterArguments(handle, 1, converter(lhs.type().returnType(), opType.parameterType(1)));
+		handle = MethodHandles.filterArguments(handle, 1, lhs);
+		handle = MethodHandles.filterArguments(handle, 0, rhs);
+		return shareValues(handle);
+	}
+
+	/**
+	 *  @return "handle", which takes any number of arrays of variable values, adapted to take a single one
+	 */
+	private static MethodHandle shareValues(final MethodHandle handle) {
+		final MethodType type = handle.type();
+		return MethodHandles.permuteArguments(handle, MethodType.methodType(type.returnType(), Object[].class),
+		                                      new int[type.parameterCount()]);
+	}
+
+	private static MethodHandle constant(final Class<?> type, final Object value) {
+		return MethodHandles.dropArguments(MethodHandles.constant(type, value), 0, Object[].class);
+	}
+
+	/**
+	 *  @return "handle" with its result converted to "type"
+	 */
+	private static MethodHandle convert(final MethodHandle handle, final Class<?> type) {
+		final MethodHandle converter = converter(handle.type().returnType(), type);
+		return converter == null ? handle : MethodHandles.filterReturnValue(handle, converter);
+	}
+
+	/**
+	 *  @return a handle converting a value from type "from" to type "to" with the checks of the interpreter,
+	 *          or null if no conversion is necessary
+	 */
+	private static MethodHandle converter(final Class<?> from, final Class<?> to) {
+		if (from == to)
+			return null;
+
+		final MethodHandle conversion;
+		if (to == double.class)
+			conversion = GET_FLOAT;
+		else if (to == long.class)
+			conversion = GET_LONG;
+		else if (to == boolean.class)
+			conversion = GET_BOOLEAN;
+		else if (to == String.class)
+			conversion = GET_STRING;
+		else if (to == Object.class)
+			conversion = MethodHandles.identity(Object.class);
+		else
+			throw new UnsupportedOperationException("can't convert to " + to + ".");
+
+		return conversion.asType(MethodType.methodType(to, from));
+	}
+
+	//
+	// The operations, with the same semantics and error messages as those of the interpreter.
+	//
+
+	private static Object aref(final Object[] values, final int index, final String attribName) {
+		final Object value = values[index];
+		if (value == UNKNOWN_VARIABLE)
+			throw new IllegalStateException("unknown column reference: \"" + attribName + "\" (1).");
+		if (value == null)
+			throw new IllegalStateException("undefined column reference: \"" + attribName + "\".");
+		return value;
+	}
+
+	private static Object aref2(final Object[] values, final int index, final String attribName, final Object defaultValue) {
+		final Object value = values[index];
+		if (value == UNKNOWN_VARIABLE)
+			throw new IllegalStateException("unknown column reference: \"" + attribName + "\" (2).");
+		return value != null ? value : defaultValue;
+	}
+
+	private static Object call(final Function func, final Object[] reversedArgs) {
+		final Object[] args = new Object[reversedArgs.length];
+		for (int argNo = 0; argNo < args.length; ++argNo)
+			args[argNo] = reversedArgs[args.length - 1 - argNo];
+
+		try {
+			return func.evaluateFunction(args);
+		} catch (final FunctionError e) {
+			throw new IllegalStateException(e.getMessage());
+		}
+	}
+
+	private static double fadd(final double rhs, final double lhs) { return lhs + rhs; }
+	private static double fsub(final double rhs, final double lhs) { return lhs - rhs; }
+	private static double fmul(final double rhs, final double lhs) { return lhs * rhs; }
+	private static double fpow(final double rhs, final double lhs) { return Math.pow(lhs, rhs); }
+
+	private static double fdiv(final double rhs, final double lhs) {
+		if (rhs == 0.0)
+			throw new ArithmeticException("illegal division by zero.");
+		return lhs / rhs;
+	}
+
+	private static String sconcat(final String rhs, final String lhs) { return lhs + rhs; }
+
+	private static boolean beqlf(final double rhs, final double lhs) { return lhs == rhs; }
+	private static boolean bneqlf(final double rhs, final double lhs) { return lhs != rhs; }
+	private static boolean bgtf(final double rhs, final double lhs) { return lhs > rhs; }
+	private static boolean bltf(final double rhs, final double lhs) { return lhs < rhs; }
+	private static boolean bgtef(final double rhs, final double lhs) { return lhs >= rhs; }
+	private static boolean bltef(final double rhs, final double lhs) { return lhs <= rhs; }
+
+	private static boolean beqls(final String rhs, final String lhs) { return lhs.equals(rhs); }
+	private static boolean bneqls(final String rhs, final String lhs) { return !lhs.equals(rhs); }
+	private static boolean bgts(final String rhs, final String lhs) { return lhs.compareTo(rhs) > 0; }
+	private static boolean blts(final String rhs, final String lhs) { return lhs.compareTo(rhs) < 0; }
+	private static boolean bgtes(final String rhs, final String lhs) { return lhs.compareTo(rhs) >= 0; }
+	private static boolean bltes(final String rhs, final String lhs) { return lhs.compareTo(rhs) <= 0; }
+
+	private static boolean beqlb(final boolean rhs, final boolean lhs) { return lhs == rhs; }
+	private static boolean bneqlb(final boolean rhs, final boolean lhs) { return lhs != rhs; }
+	private static boolean bgtb(final boolean rhs, final boolean lhs) { return lhs && !rhs; }
+	private static boolean bltb(final boolean rhs, final boolean lhs) { return !lhs && rhs; }
+	private static boolean bgteb(final boolean rhs, final boolean lhs) { return (lhs && !rhs) || (lhs == rhs); }
+	private static boolean blteb(final boolean rhs, final boolean lhs) { return (!lhs && rhs) || (lhs == rhs); }
+
+	private static double fuminus(final double operand) { return -operand; }
+	private static double fuplus(final double operand) { return +operand; }
+
+	private static double fconvi(final long operand) { return (double)operand; }
+	private static double fconvb(final boolean operand) { return operand ? 1.0 : 0.0; }
+
+	private static double fconvs(final String operand) {
+		try {
+			return Double.parseDouble(operand);
+		} catch(final NumberFormatException e) {
+			throw new IllegalStateException("can't convert \"" + operand + "\" to a number.");
+		}
+	}
+
+	private static String sconv(final Object operand) { return operand.toString(); }
+	private static String sconvf(final double operand) { return Double.toString(operand); }
+
+	/**
+	 *  See InterpreterImpl.sconvb() for why both truth values become the same string.
+	 */
+	private static String sconvb(final Object operand) { return "\uFFFF\uFFFF\uFFFF"; }
+
+	private static double getFloat(final Object o) throws IllegalStateException {
+		if (o instanceof Double)
+			return (Double)o;
+
+		throw new IllegalStateException("can't convert a " + o.getClass() + " (" + o + ") to a floating point number.");
+	}
+
+	private static long getLong(final Object o) throws IllegalStateException {
+		if (o instanceof Long)
+			return (Long)o;
+
+		throw new IllegalStateException("can't convert a " + o.getClass() + " (" + o + ") to an integer number.");
+	}
+
+	private static String getString(final Object o) throws IllegalStateException {
+		if (o instanceof String)
+			return (String)o;
+
+		throw new IllegalStateException("can't convert a " + o.getClass() + " to a string.");
+	}
+
+	private static boolean getBoolean(final Object o) throws IllegalStateException {
+		if (o instanceof Boolean)
+			return (Boolean)o;
+
+		throw new IllegalStateException("can't convert a " + o.getClass() + " to a boolean.");
+	}
+}
@@ -40,6 +40,9 @@ import org.cytoscape.equations.internal.LongList;
 import org.cytoscape.equations.internal.StringList;
 
 
+/**
+ *  Can be used by several threads at once: every interpretation runs on its own argument stack.
+ */
 public class InterpreterImpl implements Interpreter {
 	private Stack<Object> argumentStack;
 	private Map<String, IdentDescriptor> variableNameToDescriptorMap;
@@ -58,6 +61,15 @@ public class InterpreterImpl implements Interpreter {
 		if (equation == null || variableNameToDescriptorMap == null)
 			throw new NullPointerException("null equation or variableNameToDescriptorMap.");
 
+		if (equation instanceof CompiledEquation)
+			return checkResult(((CompiledEquation)equation).execute(variableNameToDescriptorMap), "evaluation");
+
+		return new InterpreterImpl().interpret(equation, variableNameToDescriptorMap);
+	}
+
+	private Object interpret(final Equation equation, final Map<String, IdentDescriptor> variableNameToDescriptorMap)
+		throws ArithmeticException, IllegalArgumentException, IllegalStateException
+	{
 		this.argumentStack               = new Stack<Object>();
 		this.variableNameToDescriptorMap = variableNameToDescriptorMap;
 
@@ -189,14 +201,17 @@ public class InterpreterImpl implements Interpreter {
 
 		if (argumentStack.size() != 1)
 			throw new IllegalStateException("invalid argument stack size " + argumentStack.size() + ", must be 1.");
-		final Object retVal = argumentStack.peek();
+		return checkResult(argumentStack.peek(), "interpretation");
+	}
+
+	private static Object checkResult(final Object retVal, final String what) throws IllegalStateException {
 		final Class retValClass = retVal.getClass();
 		if (retValClass == Double.class || retValClass == String.class || retValClass == Boolean.class || retValClass == Long.class
 		    || retValClass == DoubleList.class || retValClass == BooleanList.class || retValClass == LongList.class
 		    || retValClass == StringList.class)
 			return retVal;
 
-		throw new IllegalStateException("illegal result type at end of interpretation: " + retValClass + ".");
+		throw new IllegalStateException("illegal result type at end of " + what + ": " + retValClass + ".");
 	}
 
 	private void fadd() throws EmptyStackException {
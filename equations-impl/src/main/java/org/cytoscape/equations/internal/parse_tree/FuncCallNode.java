@@ -76,6 +76,13 @@ public class FuncCallNode extends AbstractNode {
 	 */
 	public Object getValue() { return null; }
 
+	public Function getFunction() { return func; }
+
+	/**
+	 *  @return the argument expressions, in the order in which they are passed to the function
+	 */
+	public TreeNode[] getArgs() { return args; }
+
 	public void genCode(final Stack<CodeAndSourceLocation> codeStack) {
 		for (int i = args.length - 1; i >= 0; --i)
 			args[i].genCode(codeStack);
@@ -36,6 +36,7 @@ import org.cytoscape.equations.IdentDescriptor;
 import org.cytoscape.equations.Interpreter;
 
 import org.cytoscape.equations.internal.EquationCompilerImpl;
+import org.cytoscape.equations.internal.HandleEquationCompilerImpl;
 import org.cytoscape.equations.internal.EquationParserImpl;
 import org.cytoscape.equations.internal.interpreter.InterpreterImpl;
 
@@ -51,11 +52,16 @@ class Framework {
 		public List<Class<?>> getPossibleArgTypes(final Class[] leadingArgs) { return null; }
 	}
 
-	private static final EquationCompiler compiler;
+	// Every test is run against the interpreted as well as the compiled equations.
+	private static final EquationCompiler[] compilers;
 
 	static {
-		compiler = new EquationCompilerImpl(new EquationParserImpl());
-		compiler.getParser().registerFunction(new BadReturnFunction());
+		compilers = new EquationCompiler[] {
+			new EquationCompilerImpl(new EquationParserImpl()),
+			new HandleEquationCompilerImpl(new EquationParserImpl())
+		};
+		for (final EquationCompiler compiler : compilers)
+			compiler.getParser().registerFunction(new BadReturnFunction());
 	}
 
 	/**
@@ -63,6 +69,17 @@ class Framework {
 	 *  @return true if the test compiled and ran and produced the expected result
 	 */
 	static boolean executeTest(final String equation, final Map<String, Object> variablesAndValues, final Object expectedResult) {
+		for (final EquationCompiler compiler : compilers) {
+			if (!executeTest(compiler, equation, variablesAndValues, expectedResult))
+				return false;
+		}
+
+		return true;
+	}
+
+	private static boolean executeTest(final EquationCompiler compiler, final String equation,
+	                                   final Map<String, Object> variablesAndValues, final Object expectedResult)
+	{
 		final Map<String, Class<?>> varNameToTypeMap = new HashMap<String, Class<?>>();
 		for (final String variableName : variablesAndValues.keySet())
 			varNameToTypeMap.put(variableName, variablesAndValues.get(variableName).getClass());
@@ -114,6 +131,17 @@ class Framework {
 	 *
 	 */
 	static boolean executeTestExpectFailure(final String equation, final Map<String, Object> variablesAndValues) {
+		for (final EquationCompiler compiler : compilers) {
+			if (!executeTestExpectFailure(compiler, equation, variablesAndValues))
+				return false;
+		}
+
+		return true;
+	}
+
+	private static boolean executeTestExpectFailure(final EquationCompiler compiler, final String equation,
+	                                                final Map<String, Object> variablesAndValues)
+	{
 		final Map<String, Class<?>> varNameToTypeMap = new HashMap<String, Class<?>>();
 		for (final String variableName : variablesAndValues.keySet())
 			varNameToTypeMap.put(variableName, variablesAndValues.get(variableName).getClass());
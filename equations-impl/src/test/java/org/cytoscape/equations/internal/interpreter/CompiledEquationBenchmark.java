@@ -0,0 +1,94 @@
+package org.cytoscape.equations.internal.interpreter;
+
+/*
+ * #%L
+ * Cytoscape Equations Impl (equations-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2010 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.util.Map;
+
+import org.cytoscape.equations.Equation;
+import org.cytoscape.equations.EquationCompiler;
+import org.cytoscape.equations.IdentDescriptor;
+import org.cytoscape.equations.Interpreter;
+
+import org.cytoscape.equations.internal.EquationCompilerImpl;
+import org.cytoscape.equations.internal.EquationParserImpl;
+import org.cytoscape.equations.internal.HandleEquationCompilerImpl;
+
+
+/**
+ * Compares the time it takes to evaluate the formulas of {@link InterpreterTest} with the
+ * interpreter and as compiled equations.  That both give the same results is checked by
+ * {@link InterpreterTest#testCompiledEquationsMatchInterpretedEquations()}.
+ * <p>
+ * Usage: {@code CompiledEquationBenchmark [iterations]}.
+ */
+public class CompiledEquationBenchmark {
+
+	private static final int DEFAULT_ITERATIONS = 20000;
+
+	public static void main(String[] args) {
+		final int iterations = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_ITERATIONS;
+		final EquationCompiler compiler = new EquationCompilerImpl(new EquationParserImpl());
+		final EquationCompiler handleCompiler = new HandleEquationCompilerImpl(new EquationParserImpl());
+		final Interpreter interpreter = new InterpreterImpl();
+		final Map<String, Class<?>> attribNameToTypeMap = InterpreterTest.getTestVariableTypes();
+		final Map<String, IdentDescriptor> nameToDescriptorMap = InterpreterTest.getTestVariables();
+
+		System.out.println("formula\tinterpreted (ns)\tcompiled (ns)");
+
+		for (final String formula : InterpreterTest.TEST_FORMULAS) {
+			if (!compiler.compile(formula, attribNameToTypeMap)
+			    || !handleCompiler.compile(formula, attribNameToTypeMap))
+				throw new IllegalStateException("cannot compile " + formula);
+
+			final Equation interpretedEquation = compiler.getEquation();
+			final Equation compiledEquation = handleCompiler.getEquation();
+
+			// Warm up both code paths before timing them.
+			time(interpreter, interpretedEquation, nameToDescriptorMap, iterations);
+			time(interpreter, compiledEquation, nameToDescriptorMap, iterations);
+
+			final long interpreted = time(interpreter, interpretedEquation, nameToDescriptorMap, iterations);
+			final long compiled = time(interpreter, compiledEquation, nameToDescriptorMap, iterations);
+			System.out.println(formula + "\t" + interpreted / iterations + "\t" + compiled / iterations);
+		}
+	}
+
+	/**
+	 *  @return the time in nanoseconds "iterations" evaluations of "equation" took
+	 */
+	private static long time(final Interpreter interpreter, final Equation equation,
+	                         final Map<String, IdentDescriptor> nameToDescriptorMap, final int iterations) {
+		final long start = System.nanoTime();
+		for (int i = 0; i < iterations; ++i) {
+			try {
+				interpreter.execute(equation, nameToDescriptorMap);
+			} catch (final RuntimeException e) {
+				// Some of the test formulas are supposed to fail.
+			}
+		}
+		return System.nanoTime() - start;
+	}
+}
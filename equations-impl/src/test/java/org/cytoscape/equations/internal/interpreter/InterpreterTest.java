@@ -32,6 +32,7 @@ import java.util.Map;
 
 import junit.framework.*;
 
+import org.cytoscape.equations.Equation;
 import org.cytoscape.equations.EquationCompiler;
 import org.cytoscape.equations.EquationParser;
 import org.cytoscape.equations.Function;
@@ -40,6 +41,7 @@ import org.cytoscape.equations.Interpreter;
 
 import org.cytoscape.equations.internal.EquationCompilerImpl;
 import org.cytoscape.equations.internal.EquationParserImpl;
+import org.cytoscape.equations.internal.HandleEquationCompilerImpl;
 
 
 public class InterpreterTest extends TestCase {
@@ -54,8 +56,57 @@ public class InterpreterTest extends TestCase {
 	}
 
 	private final EquationCompiler compiler = new EquationCompilerImpl(new EquationParserImpl());
+	private final EquationCompiler handleCompiler = new HandleEquationCompilerImpl(new EquationParserImpl());
 	private final Interpreter interpreter = new InterpreterImpl();
 
+	// Formulas exercising every kind of parse tree node, evaluated with the variables set up by
+	// getTestVariableTypes() and getTestVariables().  Also used by CompiledEquationBenchmark.
+	static final String[] TEST_FORMULAS = {
+		"=42 - 12 + 3 * (4 - 2) + ${BOB:12}",
+		"=${d} / ${e} - -${d} ^ 2",
+		"=${d} / 0",
+		"=$l + 2.0",
+		"=\"Fred\"&${s}&${l}&${d}",
+		"=IF(${d} > ${e}, \"greater\", \"smaller\")",
+		"=${s} < \"Gene\"",
+		"=${b} <> FALSE",
+		"=\"a\" < TRUE",
+		"=TRUE + TRUE",
+		"=${s} + 1",
+		"=${undefined} + 1",
+		"=${unknown:3} * 2",
+		"=DEFINED(${undefined})",
+		"=AVERAGE(${d}, ${e}, $l, 4.5)",
+		"=MAX(SQRT(ABS(${e})), LN(${d}), ROUND(${d} * 100, 2))",
+		"=CONCATENATE(LOWER(${s}), MID(${s}, 2, 3), LEN(${s}))",
+		"=AND(${b}, NOT(${d} = ${e}), OR(FALSE, ${l} >= 3))",
+		"=MOD(${l}, 2) + TRUNC(${d})",
+	};
+
+	static Map<String, Class<?>> getTestVariableTypes() {
+		final Map<String, Class<?>> attribNameToTypeMap = new HashMap<String, Class<?>>();
+		attribNameToTypeMap.put("BOB", Double.class);
+		attribNameToTypeMap.put("d", Double.class);
+		attribNameToTypeMap.put("e", Double.class);
+		attribNameToTypeMap.put("l", Long.class);
+		attribNameToTypeMap.put("s", String.class);
+		attribNameToTypeMap.put("b", Boolean.class);
+		attribNameToTypeMap.put("undefined", Double.class);
+		attribNameToTypeMap.put("unknown", Double.class);
+		return attribNameToTypeMap;
+	}
+
+	static Map<String, IdentDescriptor> getTestVariables() {
+		final Map<String, IdentDescriptor> nameToDescriptorMap = new HashMap<String, IdentDescriptor>();
+		nameToDescriptorMap.put("BOB", new IdentDescriptor(-10.0));
+		nameToDescriptorMap.put("d", new IdentDescriptor(2.5));
+		nameToDescriptorMap.put("e", new IdentDescriptor(-7.25));
+		nameToDescriptorMap.put("l", new IdentDescriptor(3L));
+		nameToDescriptorMap.put("s", new IdentDescriptor("Protein"));
+		nameToDescriptorMap.put("b", new IdentDescriptor(true));
+		return nameToDescriptorMap;
+	}
+
 	public void testSimpleStringConcatExpr() throws Exception {
 		final Map<String, Class<?>> attribNameToTypeMap = new HashMap<String, Class<?>>();
 		attribNameToTypeMap.put("s1", String.class);
@@ -250,4 +301,49 @@ public class InterpreterTest extends TestCase {
 		assertTrue(compiler.compile("=FALSE < -1", attribNameToTypeMap));
                 assertEquals(new Boolean(false), interpreter.execute(compiler.getEquation(), nameToDescriptorMap));
 	}
+
+	public void testCompiledEquationsMatchInterpretedEquations() throws Exception {
+		final Map<String, Class<?>> attribNameToTypeMap = getTestVariableTypes();
+		final Map<String, IdentDescriptor> nameToDescriptorMap = getTestVariables();
+
+		for (final String formula : TEST_FORMULAS) {
+			assertTrue(formula, compiler.compile(formula, attribNameToTypeMap));
+			assertTrue(formula, handleCompiler.compile(formula, attribNameToTypeMap));
+			assertTrue(formula, handleCompiler.getEquation() instanceof CompiledEquation);
+
+			final String interpreted = evaluate(compiler.getEquation(), nameToDescriptorMap);
+			final String compiled = evaluate(handleCompiler.getEquation(), nameToDescriptorMap);
+			assertEquals(formula, interpreted, compiled);
+		}
+	}
+
+	public void testUncompilableEquationIsInterpreted() throws Exception {
+		final StringBuilder formula = new StringBuilder("=SUM(1");
+		for (int i = 0; i < 100; ++i)
+			formula.append(",1");
+		formula.append(')');
+
+		final Map<String, Class<?>> attribNameToTypeMap = new HashMap<String, Class<?>>();
+		assertTrue(handleCompiler.compile(formula.toString(), attribNameToTypeMap));
+		assertFalse(handleCompiler.getEquation() instanceof CompiledEquation);
+
+		final Map<String, IdentDescriptor> nameToDescriptorMap = new HashMap<String, IdentDescriptor>();
+		try {
+			interpreter.execute(handleCompiler.getEquation(), nameToDescriptorMap);
+			fail();
+		} catch (final IllegalStateException e) {
+			// The interpreter rejects calls with more than 100 arguments.
+		}
+	}
+
+	/**
+	 *  @return the result of evaluating "equation" or the message of the exception it failed with
+	 */
+	private String evaluate(final Equation equation, final Map<String, IdentDescriptor> nameToDescriptorMap) {
+		try {
+			return "result: " + interpreter.execute(equation, nameToDescriptorMap);
+		} catch (final Exception e) {
+			return e.getClass().getSimpleName() + ": " + e.getMessage();
+		}
+	}
 }
@@ -0,0 +1,89 @@
+package org.cytoscape.event.internal;
+
+/*
+ * #%L
+ * Cytoscape Event Impl (event-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import org.cytoscape.event.CyEventHelper;
+
+/**
+ * Flushes at a minimum interval as long as listeners keep up. When firing a flush
+ * takes a good part of the interval, the interval is doubled (up to a maximum),
+ * so more payloads get coalesced into fewer events; it shrinks back once
+ * flushes are cheap again.
+ */
+public class AdaptiveFlushPolicy implements PayloadFlushPolicy {
+
+	public static final int DEFAULT_MAX_PENDING_PAYLOADS = 100000;
+
+	private final long minIntervalMillis;
+	private final long maxIntervalMillis;
+	private final int maxPendingPayloads;
+	private final int backPressureLimit;
+	private long intervalMillis;
+
+	/**
+	 * Flushes every {@link CyEventHelper#DEFAULT_PAYLOAD_INTERVAL_MILLIS}, backing off
+	 * up to eight times that under load.
+	 */
+	public AdaptiveFlushPolicy() {
+		this(CyEventHelper.DEFAULT_PAYLOAD_INTERVAL_MILLIS, 8L * CyEventHelper.DEFAULT_PAYLOAD_INTERVAL_MILLIS,
+		     DEFAULT_MAX_PENDING_PAYLOADS, 4 * DEFAULT_MAX_PENDING_PAYLOADS);
+	}
+
+	public AdaptiveFlushPolicy(final long minIntervalMillis, final long maxIntervalMillis,
+	                           final int maxPendingPayloads, final int backPressureLimit) {
+		if (minIntervalMillis <= 0 || maxIntervalMillis < minIntervalMillis)
+			throw new IllegalArgumentException("invalid flush interval: " + minIntervalMillis + " - " + maxIntervalMillis);
+		if (maxPendingPayloads <= 0 || backPressureLimit < maxPendingPayloads)
+			throw new IllegalArgumentException("invalid payload limits: " + maxPendingPayloads + ", " + backPressureLimit);
+		
+		this.minIntervalMillis = minIntervalMillis;
+		this.maxIntervalMillis = maxIntervalMillis;
+		this.maxPendingPayloads = maxPendingPayloads;
+		this.backPressureLimit = backPressureLimit;
+		this.intervalMillis = minIntervalMillis;
+	}
+
+	@Override
+	public synchronized long getFlushDelayMillis(final int flushedPayloads, final long flushNanos) {
+		final long flushMillis = flushNanos / 1000000L;
+		
+		if (flushMillis * 2 > intervalMillis)
+			intervalMillis = Math.min(maxIntervalMillis, intervalMillis * 2);
+		else
+			intervalMillis = Math.max(minIntervalMillis, intervalMillis / 2);
+		
+		return intervalMillis;
+	}
+
+	@Override
+	public int getMaxPendingPayloads() {
+		return maxPendingPayloads;
+	}
+
+	@Override
+	public int getBackPressureLimit() {
+		return backPressureLimit;
+	}
+}
@@ -0,0 +1,132 @@
+package org.cytoscape.event.internal;
+
+/*
+ * #%L
+ * Cytoscape Event Impl (event-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Delivers events to listeners that asked for asynchronous delivery. Work is
+ * spread over a fixed number of single-threaded lanes; all events of one source
+ * go through the same lane, so they reach the listeners in the order they were
+ * fired. Each lane holds a bounded number of events fired from outside the lanes:
+ * when it is full, the firing thread waits for room. A lane thread never waits,
+ * since it may be the one that has to make room, so the events it fires are
+ * queued past the bound instead. Events are never dropped or reordered.
+ */
+final class AsyncDelivery {
+
+	private static final Logger logger = LoggerFactory.getLogger(AsyncDelivery.class);
+
+	private final ThreadPoolExecutor[] lanes;
+	private final Semaphore[] room;
+	private final ThreadLocal<Boolean> laneThread = new ThreadLocal<Boolean>();
+
+	AsyncDelivery(final int laneCount, final int queueCapacity) {
+		final AtomicInteger threadCount = new AtomicInteger();
+		final ThreadFactory threadFactory = new ThreadFactory() {
+			public Thread newThread(final Runnable r) {
+				final Thread t = Executors.defaultThreadFactory().newThread(new Runnable() {
+					public void run() {
+						laneThread.set(Boolean.TRUE);
+						r.run();
+					}
+				});
+				t.setName("CyEvent-async-" + threadCount.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			}
+		};
+		final RejectedExecutionHandler dropAfterShutdown = new RejectedExecutionHandler() {
+			public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+				logger.warn("Dropping event, asynchronous delivery has been shut down.");
+			}
+		};
+
+		lanes = new ThreadPoolExecutor[laneCount];
+		room = new Semaphore[laneCount];
+		for (int i = 0; i < laneCount; i++) {
+			lanes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+			                                  new LinkedBlockingQueue<Runnable>(),
+			                                  threadFactory, dropAfterShutdown);
+			room[i] = new Semaphore(queueCapacity);
+		}
+	}
+
+	void execute(final Object source, final Runnable delivery) {
+		final int lane = (System.identityHashCode(source) & 0x7fffffff) % lanes.length;
+		final Semaphore laneRoom = room[lane];
+
+		boolean acquired = false;
+		if ( laneThread.get() == null ) {
+			try {
+				laneRoom.acquire();
+				acquired = true;
+			} catch (InterruptedException e) {
+				// Still queue the event, past the bound, rather than lose it.
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		final boolean release = acquired;
+		lanes[lane].execute(new Runnable() {
+			public void run() {
+				try {
+					delivery.run();
+				} finally {
+					if ( release )
+						laneRoom.release();
+				}
+			}
+		});
+	}
+
+	/**
+	 * @return the number of deliveries waiting in the queues
+	 */
+	int getQueueDepth() {
+		int depth = 0;
+		for (final ThreadPoolExecutor lane : lanes) {
+			final BlockingQueue<Runnable> queue = lane.getQueue();
+			depth += queue.size();
+		}
+		return depth;
+	}
+
+	void shutdown() {
+		for (final ThreadPoolExecutor lane : lanes)
+			lane.shutdown();
+	}
+}
@@ -30,22 +30,75 @@ package org.cytoscape.event.internal;
 
 
 import org.cytoscape.event.internal.CyEventHelperImpl;
+import org.cytoscape.event.internal.EventStatistics;
 import org.cytoscape.event.internal.CyListenerAdapter;
 import org.cytoscape.event.CyEventHelper;
 import org.osgi.framework.BundleContext;
 import org.cytoscape.service.util.AbstractCyActivator;
+import java.lang.management.ManagementFactory;
 import java.util.Properties;
 
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 public class CyActivator extends AbstractCyActivator {
+	private static final Logger logger = LoggerFactory.getLogger(CyActivator.class);
+
+	private CyEventHelperImpl cyEventHelper;
+
 	public CyActivator() {
 		super();
 	}
 
 	public void start(BundleContext bc) {
 		CyListenerAdapter cyListenerAdapter = new CyListenerAdapter(bc);
-		CyEventHelperImpl cyEventHelper = new CyEventHelperImpl(cyListenerAdapter);
+		cyEventHelper = new CyEventHelperImpl(cyListenerAdapter);
 		
 		registerService(bc,cyEventHelper,CyEventHelper.class, new Properties());
+		registerStatistics(cyListenerAdapter.getStatistics());
+	}
+
+	@Override
+	public void stop(BundleContext bc) {
+		super.stop(bc);
+		
+		// Stop the flush thread and the asynchronous delivery lanes.
+		if (cyEventHelper != null) {
+			cyEventHelper.cleanup();
+			cyEventHelper = null;
+		}
+		
+		unregisterStatistics();
+	}
+
+	private void registerStatistics(final EventStatistics statistics) {
+		try {
+			final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			final ObjectName name = new ObjectName(EventStatistics.OBJECT_NAME);
+			
+			// Left over from an earlier start of this bundle.
+			if (server.isRegistered(name))
+				server.unregisterMBean(name);
+			
+			server.registerMBean(statistics, name);
+		} catch (Exception e) {
+			logger.warn("Could not register the event statistics with JMX.", e);
+		}
+	}
+
+	private void unregisterStatistics() {
+		try {
+			final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			final ObjectName name = new ObjectName(EventStatistics.OBJECT_NAME);
+			
+			if (server.isRegistered(name))
+				server.unregisterMBean(name);
+		} catch (Exception e) {
+			logger.warn("Could not unregister the event statistics from JMX.", e);
+		}
 	}
 }
 
@@ -29,15 +29,21 @@ import org.cytoscape.event.CyPayloadEvent;
 import org.cytoscape.event.CyEventHelper;
 
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.WeakHashMap;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -48,29 +54,64 @@ public class CyEventHelperImpl implements CyEventHelper {
 
 	private static final Object DUMMY = new Object();
 
+	private static final Comparator<SourcePayloads> CREATION_ORDER = new Comparator<SourcePayloads>() {
+		public int compare(SourcePayloads a, SourcePayloads b) {
+			return Long.compare(a.sequence, b.sequence);
+		}
+	};
+
 	private final CyListenerAdapter normal;
-	private final Map<Object,Map<Class<?>,PayloadAccumulator<?,?,?>>> sourceAccMap;
+	private final PayloadFlushPolicy flushPolicy;
+	private final ConcurrentMap<Object,SourcePayloads> sourceAccMap;
 	private final ScheduledExecutorService payloadEventMonitor;
 	private final Map<Object, Object> silencedSources;
-	private boolean havePayload;
+	private volatile boolean haveSilencedSources;
+
+	private final AtomicLong sourceSequence = new AtomicLong();
+	private final AtomicInteger pendingPayloads = new AtomicInteger();
+	private final AtomicBoolean flushScheduled = new AtomicBoolean();
+	private final AtomicBoolean immediateFlushScheduled = new AtomicBoolean();
+	private volatile long flushDelayMillis;
+
+	// Metrics
+	private final AtomicLong flushCount = new AtomicLong();
+	private volatile long lastFlushNanos;
+	private volatile long maxFlushNanos;
 	
 	private final Object lock = new Object();
+
+	private final Runnable flushTask = new Runnable() {
+		public void run() {
+			flushScheduled.set(false);
+			immediateFlushScheduled.set(false);
+			
+			final long begin = System.nanoTime();
+			final int flushed = flushPayloadEvents();
+			flushDelayMillis = flushPolicy.getFlushDelayMillis(flushed, System.nanoTime() - begin);
+			
+			// Payloads added while we were firing.
+			final int pending = pendingPayloads.get();
+			if (pending >= flushPolicy.getBackPressureLimit())
+				scheduleImmediateFlush();
+			else if (pending > 0)
+				scheduleFlush();
+		}
+	};
 	
 	public CyEventHelperImpl(final CyListenerAdapter normal) {
+		this(normal, new AdaptiveFlushPolicy());
+	}
+	
+	public CyEventHelperImpl(final CyListenerAdapter normal, final PayloadFlushPolicy flushPolicy) {
 		this.normal = normal;
-		sourceAccMap = new LinkedHashMap<Object,Map<Class<?>,PayloadAccumulator<?,?,?>>>();
-		payloadEventMonitor = Executors.newSingleThreadScheduledExecutor();
+		this.flushPolicy = flushPolicy;
+		sourceAccMap = new ConcurrentHashMap<Object,SourcePayloads>(16, 0.75f, 16);
 		silencedSources = new WeakHashMap<Object, Object>();
-		havePayload = false;
-
-		// This thread just flushes any accumulated payload events.
-		// It is scheduled to run repeatedly at a fixed interval.
-        final Runnable payloadChecker = new Runnable() {
-            public void run() {
-                flushPayloadEvents();
-            }
-        };
-        payloadEventMonitor.scheduleAtFixedRate(payloadChecker, CyEventHelper.DEFAULT_PAYLOAD_INTERVAL_MILLIS, CyEventHelper.DEFAULT_PAYLOAD_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+		flushDelayMillis = flushPolicy.getFlushDelayMillis(0, 0);
+
+		// This thread just flushes any accumulated payload events. A flush is
+		// scheduled when the first payload arrives, so nothing runs while idle.
+		payloadEventMonitor = Executors.newSingleThreadScheduledExecutor();
 	}	
 
 	@Override 
@@ -92,6 +133,7 @@ public class CyEventHelperImpl implements CyEventHelper {
 		normal.silenceEventSource(eventSource);
 		synchronized (lock) {
 			silencedSources.put(eventSource, DUMMY);
+			haveSilencedSources = true;
 		}
 	}
 
@@ -103,6 +145,7 @@ public class CyEventHelperImpl implements CyEventHelper {
 		normal.unsilenceEventSource(eventSource);
 		synchronized (lock) {
 			silencedSources.remove(eventSource);
+			haveSilencedSources = !silencedSources.isEmpty();
 		}
 	}
 
@@ -115,73 +158,206 @@ public class CyEventHelperImpl implements CyEventHelper {
 			return;
 		}
 		
-		synchronized (lock) {
-			if ( silencedSources.containsKey(source))
-				return;
+		if ( haveSilencedSources ) {
+			synchronized (lock) {
+				if ( silencedSources.containsKey(source)) {
+					normal.getStatistics().recordSilenced(eventType);
+					return;
+				}
+			}
+		}
 
-			Map<Class<?>,PayloadAccumulator<?,?,?>> cmap = sourceAccMap.get(source);
-			if ( cmap == null ) { 
-				cmap = new LinkedHashMap<Class<?>,PayloadAccumulator<?,?,?>>();
-				sourceAccMap.put(source,cmap);
+		// Each source accumulates under its own lock, so producers working on
+		// different sources don't contend. A flush may retire the accumulator we
+		// found, in which case we start a new one.
+		int pending;
+		while (true) {
+			SourcePayloads sp = sourceAccMap.get(source);
+			if ( sp == null ) {
+				final SourcePayloads created = new SourcePayloads(sourceSequence.getAndIncrement());
+				sp = sourceAccMap.putIfAbsent(source, created);
+				if ( sp == null )
+					sp = created;
 			}
-	
-			PayloadAccumulator<S,P,E> acc = (PayloadAccumulator<S,P,E>) cmap.get(eventType);
-	
-			if ( acc == null ) {
-				try {
-					acc = new PayloadAccumulator<S,P,E>(source, eventType);
-					cmap.put(eventType,acc);
-				} catch (NoSuchMethodException nsme) {
-					logger.warn("Unable to add payload to event, because of missing event constructor.", nsme);
-					return;
+
+			synchronized (sp) {
+				if ( sp.retired )
+					continue;
+
+				PayloadAccumulator<S,P,E> acc = (PayloadAccumulator<S,P,E>) sp.accumulators.get(eventType);
+				if ( acc == null ) {
+					try {
+						acc = new PayloadAccumulator<S,P,E>(source, eventType);
+						sp.accumulators.put(eventType,acc);
+					} catch (NoSuchMethodException nsme) {
+						logger.warn("Unable to add payload to event, because of missing event constructor.", nsme);
+						return;
+					}
 				}
+
+				acc.addPayload(payload);
+				sp.count++;
+				pending = pendingPayloads.incrementAndGet();
 			}
-			
-			acc.addPayload(payload);
-			havePayload = true;
-		}		
+			break;
+		}
+
+		// Past the back-pressure limit the monitor thread is told to flush right
+		// away, and keeps flushing without delay until it catches up. The producer
+		// neither fires the events nor waits for them: it may hold locks that the
+		// listeners need.
+		if ( pending >= flushPolicy.getBackPressureLimit() )
+			scheduleImmediateFlush();
+		else if ( pending == flushPolicy.getMaxPendingPayloads() )
+			submit(flushTask, 0);
+		else
+			scheduleFlush();
 	}
 
-	public void flushPayloadEvents() {
-		List<CyPayloadEvent<?,?>> flushList;
+	/**
+	 * Fires the accumulated payload events, in the order their sources first
+	 * produced a payload.
+	 *
+	 * @return the number of payloads flushed
+	 */
+	public int flushPayloadEvents() {
+		if ( pendingPayloads.get() == 0 )
+			return 0;
+
+		final List<SourcePayloads> retired = new ArrayList<SourcePayloads>();
 		
-		synchronized (lock) {
+		for (final Map.Entry<Object,SourcePayloads> entry : sourceAccMap.entrySet()) {
+			final SourcePayloads sp = entry.getValue();
+			if ( sourceAccMap.remove(entry.getKey(), sp) ) {
+				sp.source = entry.getKey();
+				retired.add(sp);
+			}
+		}
+		
+		Collections.sort(retired, CREATION_ORDER);
 
-			if ( !havePayload )
-				return;
-			
-			flushList = new ArrayList<CyPayloadEvent<?,?>>();
-			havePayload = false;
-			
-			Iterator<Entry<Object, Map<Class<?>, PayloadAccumulator<?, ?, ?>>>> iterator = sourceAccMap.entrySet().iterator();
-			while (iterator.hasNext()) {
-				Entry<Object, Map<Class<?>, PayloadAccumulator<?, ?, ?>>> entry = iterator.next();
-				Object source = entry.getKey();
-				for ( PayloadAccumulator<?,?,?> acc : entry.getValue().values() ) {
+		final List<CyPayloadEvent<?,?>> flushList = new ArrayList<CyPayloadEvent<?,?>>();
+		int flushed = 0;
+		
+		for (final SourcePayloads sp : retired) {
+			synchronized (sp) {
+				sp.retired = true;
+				flushed += sp.count;
+				pendingPayloads.addAndGet(-sp.count);
+				
+				for ( PayloadAccumulator<?,?,?> acc : sp.accumulators.values() ) {
 					try {
-						CyPayloadEvent<?,?> event = acc.newEventInstance( source );
+						CyPayloadEvent<?,?> event = acc.newEventInstance( sp.source );
 						if ( event != null ) {
 							flushList.add(event);
 						}
 					} catch (Exception ie) {
-						logger.warn("Couldn't instantiate event for source: " + source, ie);
+						logger.warn("Couldn't instantiate event for source: " + sp.source, ie);
 					}
 				}
-				iterator.remove();
 			}
-			
 		}
 		
-		// Actually fire the events outside of the synchronized block.
+		// Actually fire the events outside of the synchronized blocks.
+		final long begin = System.nanoTime();
+		
 		for (CyPayloadEvent<?,?> event : flushList) {
 			normal.fireEvent(event);
-		}	
+		}
+		
+		if ( flushed > 0 ) {
+			normal.getStatistics().recordFlush(flushed);
+			final long duration = System.nanoTime() - begin;
+			lastFlushNanos = duration;
+			if ( duration > maxFlushNanos )
+				maxFlushNanos = duration;
+			flushCount.incrementAndGet();
+		}
+		
+		return flushed;
 	}
-	
-	// Used only for unit testing to prevent the confusion of multiple 
+
+	/**
+	 * @return the number of payloads accumulated but not yet fired
+	 */
+	public int getPendingPayloadCount() {
+		return pendingPayloads.get();
+	}
+
+	/**
+	 * @return the number of events waiting for asynchronous delivery
+	 */
+	public int getAsyncQueueDepth() {
+		return normal.getAsyncQueueDepth();
+	}
+
+	/**
+	 * @return the number of flushes that fired at least one payload event
+	 */
+	public long getFlushCount() {
+		return flushCount.get();
+	}
+
+	/**
+	 * @return how long firing the events of the last non-empty flush took, in nanoseconds
+	 */
+	public long getLastFlushNanos() {
+		return lastFlushNanos;
+	}
+
+	/**
+	 * @return the longest time firing the events of a flush took, in nanoseconds
+	 */
+	public long getMaxFlushNanos() {
+		return maxFlushNanos;
+	}
+
+	/**
+	 * @return the current delay between a payload arriving and its flush, in milliseconds
+	 */
+	public long getFlushDelayMillis() {
+		return flushDelayMillis;
+	}
+
+	private void scheduleFlush() {
+		if ( flushScheduled.compareAndSet(false, true) )
+			submit(flushTask, flushDelayMillis);
+	}
+
+	private void scheduleImmediateFlush() {
+		if ( immediateFlushScheduled.compareAndSet(false, true) )
+			submit(flushTask, 0);
+	}
+
+	private void submit(final Runnable task, final long delayMillis) {
+		try {
+			payloadEventMonitor.schedule(task, delayMillis, TimeUnit.MILLISECONDS);
+		} catch (RejectedExecutionException e) {
+			// Shut down; payloads are still flushed by fireEvent().
+		}
+	}
+
+	// Stops the flush thread and the asynchronous delivery lanes. Called when
+	// the bundle stops, and by unit tests to prevent the confusion of multiple 
 	// threads running at once.
 	public void cleanup() {
 		payloadEventMonitor.shutdown();
+		normal.shutdown();
 	}
-}
 
+	/**
+	 * The payloads accumulated for one source, per event type.
+	 * Guarded by its own monitor.
+	 */
+	private static final class SourcePayloads {
+		final long sequence;
+		final Map<Class<?>,PayloadAccumulator<?,?,?>> accumulators = new LinkedHashMap<Class<?>,PayloadAccumulator<?,?,?>>();
+		Object source;
+		int count;
+		boolean retired;
+
+		SourcePayloads(final long sequence) {
+			this.sequence = sequence;
+		}
+	}
+}
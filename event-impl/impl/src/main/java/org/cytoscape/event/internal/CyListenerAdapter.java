@@ -25,14 +25,21 @@ package org.cytoscape.event.internal;
  */
 
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
-import java.util.Map;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.WeakHashMap;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.cytoscape.event.CyEvent;
 import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceReference;
 import org.osgi.util.tracker.ServiceTracker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -47,12 +54,27 @@ public class CyListenerAdapter {
 
 	private static final Object DUMMY = new Object();
 	
-	private final Map<Class<?>,ServiceTracker> serviceTrackers; 
+	/**
+	 * Listener services registered with this property set to {@link #ASYNC_DELIVERY}
+	 * get their events on a separate thread, in firing order per event source.
+	 */
+	public static final String DELIVERY_PROPERTY = "cyEventDelivery";
+	public static final String ASYNC_DELIVERY = "async";
+	
+	private static final int ASYNC_QUEUE_CAPACITY = 10000;
+	
+	// handleEvent(listener, event), adapted so the fire path can use invokeExact.
+	private static final MethodType DISPATCH_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+	
+	private final Map<Class<?>,Dispatcher> dispatchers; 
 	private final BundleContext bc;
 	private final Map<Object, Object> silencedSources;
 	private final StringBuilder traceString; 
 	private final boolean printEventTrace;
 	private int fireCount;
+	private final int asyncQueueCapacity;
+	private volatile AsyncDelivery asyncDelivery;
+	private final EventStatistics statistics = new EventStatistics();
 
 	private final Object lock = new Object();
 	
@@ -62,8 +84,16 @@ public class CyListenerAdapter {
 	 * @param bc  DOCUMENT ME!
 	 */
 	public CyListenerAdapter(BundleContext bc) {
+		this(bc, ASYNC_QUEUE_CAPACITY);
+	}
+
+	/**
+	 * @param asyncQueueCapacity the number of events each asynchronous delivery lane can hold
+	 */
+	public CyListenerAdapter(BundleContext bc, int asyncQueueCapacity) {
 		this.bc = bc;
-		serviceTrackers = new ConcurrentHashMap<Class<?>,ServiceTracker>(16, 0.75f, 2);
+		this.asyncQueueCapacity = asyncQueueCapacity;
+		dispatchers = new ConcurrentHashMap<Class<?>,Dispatcher>(16, 0.75f, 2);
 		silencedSources = new WeakHashMap<Object, Object>();
 
 		// used only for printing a coherent event trace
@@ -84,76 +114,136 @@ public class CyListenerAdapter {
 			return;
 
 		synchronized (lock) {
-			if ( silencedSources.containsKey( event.getSource() ) )
+			if ( silencedSources.containsKey( event.getSource() ) ) {
+				statistics.recordSilenced(event.getClass());
 				return;
+			}
 		}
 		
 		final Class<?> listenerClass = event.getListenerClass();
+		final Dispatcher dispatcher = getDispatcher(listenerClass);
 		
-		final Object[] listeners = getListeners(listenerClass);
-		if ( listeners == null ) 
+		final Listeners snapshot = dispatcher.getListeners();
+		if ( snapshot == null ) 
 			return;
 	
+		final MethodHandle handler = dispatcher.getHandler(event.getClass());
+		if ( handler == null )
+			return;
 	
-		Object lastListener = null;
 		long begin = 0;
+		final boolean timed = statistics.isEnabled();
+		final long eventBegin = timed ? System.nanoTime() : 0L;
 
 		if ( printEventTrace ) {
 			fireCount++;
 			printTrace(fireCount,"EVENT START: " + event.getClass().getName());
 		}
 		
-		try {
-			final Method method = listenerClass.getMethod("handleEvent", event.getClass());
+		final Object[] listeners = snapshot.listeners;
+		
+		for (int i = 0; i < listeners.length; i++) {
+			final Object listener = listeners[i];
+			
+			if ( snapshot.async[i] ) {
+				deliverAsync(listenerClass, handler, listener, event, timed ? snapshot.histograms[i] : null);
+				continue;
+			}
+			
+			final long start = timed ? System.nanoTime() : 0L;
+			
+			try {
+				// This call is VERY memory intensive - only use it for debugging!!!!
+				// logger.debug("event: " + event.getClass().getName() + "  listener: " + listener.getClass().getName());
+				if ( printEventTrace ) {
+					printTrace(fireCount,"listener: " + listener.getClass().getName());
+					begin = System.currentTimeMillis();
+				}
 
-			for (final Object listener : listeners) {
-				try {
-					lastListener = listener;
-	
-					// This call is VERY memory intensive - only use it for debugging!!!!
-					// logger.debug("event: " + event.getClass().getName() + "  listener: " + listener.getClass().getName());
-					if ( printEventTrace ) {
-						printTrace(fireCount,"listener: " + listener.getClass().getName());
-						begin = System.currentTimeMillis();
-					}
-	
-					method.invoke(listenerClass.cast(listener), event);
-	
-					if ( printEventTrace ) {
-						final long end = System.currentTimeMillis();
-						printTrace(fireCount,"listener: " + listener.getClass().getName() + " duration: " + (end - begin));
-					}
-				} catch (Exception e) {
-					logger.error("Unexpected exception while handling listener: " + listenerClass.getName(), e);
+				handler.invokeExact(listener, (Object) event);
+
+				if ( printEventTrace ) {
+					final long end = System.currentTimeMillis();
+					printTrace(fireCount,"listener: " + listener.getClass().getName() + " duration: " + (end - begin));
 				}
+			} catch (Throwable t) {
+				logger.error("Unexpected exception while handling listener: " + listenerClass.getName(), t);
 			}
-		} catch (NoSuchMethodException e) {
-			logger.error("Listener doesn't implement \"handleEvent\" method: "
-				     + listenerClass.getName(), e);
+			
+			if ( timed )
+				snapshot.histograms[i].record(System.nanoTime() - start);
 		}
 
+		if ( timed )
+			statistics.forEventType(event.getClass()).record(System.nanoTime() - eventBegin);
+
 		if ( printEventTrace ) {
 			printTrace(fireCount,"EVENT END  : " + event.getClass().getName());
 			fireCount--;
 		}
 	}
 
-	private Object[] getListeners(Class<?> listenerClass) {
-		ServiceTracker tracker = serviceTrackers.get(listenerClass);
-		if ( tracker == null ) {
-			//logger.debug("added new service tracker for " + listenerClass);
-			tracker = new ServiceTracker(bc, listenerClass.getName(), null);
-			tracker.open();
-			serviceTrackers.put( listenerClass, tracker );
+	private void deliverAsync(final Class<?> listenerClass, final MethodHandle handler, final Object listener,
+	                          final CyEvent<?> event, final LatencyHistogram histogram) {
+		getAsyncDelivery().execute(event.getSource(), new Runnable() {
+			public void run() {
+				final long start = histogram != null ? System.nanoTime() : 0L;
+				try {
+					handler.invokeExact(listener, (Object) event);
+				} catch (Throwable t) {
+					logger.error("Unexpected exception while handling listener: " + listenerClass.getName(), t);
+				}
+				if ( histogram != null )
+					histogram.record(System.nanoTime() - start);
+			}
+		});
+	}
+
+	/**
+	 * @return the latency statistics of this event bus
+	 */
+	public EventStatistics getStatistics() {
+		return statistics;
+	}
+
+	private AsyncDelivery getAsyncDelivery() {
+		AsyncDelivery delivery = asyncDelivery;
+		if ( delivery == null ) {
+			synchronized (lock) {
+				if ( asyncDelivery == null )
+					asyncDelivery = new AsyncDelivery(Math.max(1, Runtime.getRuntime().availableProcessors() / 2),
+					                                  asyncQueueCapacity);
+				delivery = asyncDelivery;
+			}
 		}
+		return delivery;
+	}
 
-		Object[] services = tracker.getServices();
+	/**
+	 * @return the number of events waiting for asynchronous delivery
+	 */
+	int getAsyncQueueDepth() {
+		final AsyncDelivery delivery = asyncDelivery;
+		return delivery == null ? 0 : delivery.getQueueDepth();
+	}
 
-		if ( services == null )
-			return null;
+	void shutdown() {
+		final AsyncDelivery delivery = asyncDelivery;
+		if ( delivery != null )
+			delivery.shutdown();
+	}
+
+	private Dispatcher getDispatcher(Class<?> listenerClass) {
+		Dispatcher dispatcher = dispatchers.get(listenerClass);
+		if ( dispatcher == null ) {
+			//logger.debug("added new service tracker for " + listenerClass);
+			final ServiceTracker tracker = new ServiceTracker(bc, listenerClass.getName(), null);
+			tracker.open();
+			dispatcher = new Dispatcher(listenerClass, tracker, statistics);
+			dispatchers.put( listenerClass, dispatcher );
+		}
 
-		Arrays.sort(services, serviceComparator);
-		return services; 
+		return dispatcher;
 	}
 
 	void silenceEventSource(Object eventSource) {
@@ -168,6 +258,112 @@ public class CyListenerAdapter {
 		}
 	}
 
+	/**
+	 * Caches, for one listener interface, the sorted listeners and the compiled
+	 * handleEvent method handles, so that firing an event needs neither reflection
+	 * nor sorting. The listener array is rebuilt only when the tracker reports a
+	 * change in the registered services.
+	 */
+	private static final class Dispatcher {
+		private final Class<?> listenerClass;
+		private final ServiceTracker tracker;
+		private final EventStatistics statistics;
+		private final Map<Class<?>,MethodHandle> handlers = new ConcurrentHashMap<Class<?>,MethodHandle>(4, 0.75f, 2);
+		private volatile Listeners listeners;
+		private volatile int trackingCount = -1;
+
+		Dispatcher(final Class<?> listenerClass, final ServiceTracker tracker, final EventStatistics statistics) {
+			this.listenerClass = listenerClass;
+			this.tracker = tracker;
+			this.statistics = statistics;
+		}
+
+		/**
+		 * @return the listeners in a consistent order, or null if there are none. 
+		 */
+		Listeners getListeners() {
+			final int count = tracker.getTrackingCount();
+			if ( count == trackingCount )
+				return listeners;
+
+			synchronized (this) {
+				if ( count != trackingCount ) {
+					listeners = Listeners.create(tracker, statistics);
+					trackingCount = count;
+				}
+				return listeners;
+			}
+		}
+
+		/**
+		 * @return the handleEvent method for the event class, or null if the listener doesn't have one.
+		 */
+		MethodHandle getHandler(final Class<?> eventClass) {
+			MethodHandle handler = handlers.get(eventClass);
+			if ( handler != null )
+				return handler;
+
+			try {
+				final Method method = listenerClass.getMethod("handleEvent", eventClass);
+				handler = MethodHandles.publicLookup().unreflect(method).asType(DISPATCH_TYPE);
+				handlers.put(eventClass, handler);
+				return handler;
+			} catch (NoSuchMethodException e) {
+				logger.error("Listener doesn't implement \"handleEvent\" method: "
+					     + listenerClass.getName(), e);
+			} catch (IllegalAccessException e) {
+				logger.error("Listener \"handleEvent\" method is not accessible: "
+					     + listenerClass.getName(), e);
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * An immutable, sorted snapshot of the listeners of one interface.
+	 */
+	private static final class Listeners {
+		final Object[] listeners;
+		final boolean[] async;
+		final LatencyHistogram[] histograms;
+
+		private Listeners(final Object[] listeners, final boolean[] async, final LatencyHistogram[] histograms) {
+			this.listeners = listeners;
+			this.async = async;
+			this.histograms = histograms;
+		}
+
+		static Listeners create(final ServiceTracker tracker, final EventStatistics statistics) {
+			final ServiceReference[] refs = tracker.getServiceReferences();
+			if ( refs == null )
+				return null;
+
+			final Map<Object, ServiceReference> refMap = new IdentityHashMap<Object, ServiceReference>();
+			final List<Object> services = new ArrayList<Object>(refs.length);
+			for (final ServiceReference ref : refs) {
+				final Object service = tracker.getService(ref);
+				if ( service != null && !refMap.containsKey(service) ) {
+					refMap.put(service, ref);
+					services.add(service);
+				}
+			}
+			if ( services.isEmpty() )
+				return null;
+
+			final Object[] sorted = services.toArray();
+			Arrays.sort(sorted, serviceComparator);
+
+			final boolean[] async = new boolean[sorted.length];
+			final LatencyHistogram[] histograms = new LatencyHistogram[sorted.length];
+			for (int i = 0; i < sorted.length; i++) {
+				async[i] = ASYNC_DELIVERY.equals(refMap.get(sorted[i]).getProperty(DELIVERY_PROPERTY));
+				histograms[i] = statistics.forListener(sorted[i].getClass());
+			}
+
+			return new Listeners(sorted, async, histograms);
+		}
+	}
+
 	private void printTrace(int indent, String message) {
 		traceString.delete(0,traceString.length());
 		for (int i = 0; i < indent; i++ )
@@ -0,0 +1,175 @@
+package org.cytoscape.event.internal;
+
+/*
+ * #%L
+ * Cytoscape Event Impl (event-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects latency histograms per event type and per listener class, the number
+ * of payloads per flush, and the events dropped for silenced sources. Recording
+ * is lock-free and allocation-free once a type has been seen, so this stays on
+ * in production; it can be switched off through JMX. Types are keyed by class
+ * name, so the statistics don't keep the classes of uninstalled apps loaded.
+ */
+public final class EventStatistics implements EventStatisticsMBean {
+
+	public static final String OBJECT_NAME = "org.cytoscape.event:type=EventStatistics";
+
+	private static final long MICROS = 1000L;
+
+	private final ConcurrentMap<String, LatencyHistogram> eventTypes = new ConcurrentHashMap<String, LatencyHistogram>();
+	private final ConcurrentMap<String, LatencyHistogram> listeners = new ConcurrentHashMap<String, LatencyHistogram>();
+	private final ConcurrentMap<String, LongAdder> silenced = new ConcurrentHashMap<String, LongAdder>();
+	private final LatencyHistogram payloadsPerFlush = new LatencyHistogram();
+	private volatile boolean enabled = true;
+
+	@Override
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	@Override
+	public void setEnabled(final boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	/**
+	 * @return the histogram for the listener class, to be cached by the caller
+	 */
+	LatencyHistogram forListener(final Class<?> listenerClass) {
+		return get(listeners, listenerClass.getName());
+	}
+
+	LatencyHistogram forEventType(final Class<?> eventType) {
+		return get(eventTypes, eventType.getName());
+	}
+
+	void recordFlush(final int payloads) {
+		if (enabled && payloads > 0)
+			payloadsPerFlush.record(payloads);
+	}
+
+	void recordSilenced(final Class<?> eventType) {
+		if (!enabled)
+			return;
+		
+		final String name = eventType.getName();
+		LongAdder count = silenced.get(name);
+		if (count == null) {
+			final LongAdder created = new LongAdder();
+			count = silenced.putIfAbsent(name, created);
+			if (count == null)
+				count = created;
+		}
+		count.increment();
+	}
+
+	@Override
+	public String[] getEventTypeSummaries() {
+		return summaries(eventTypes, eventTypes.size());
+	}
+
+	@Override
+	public String[] getListenerSummaries() {
+		return summaries(listeners, listeners.size());
+	}
+
+	@Override
+	public String[] getSlowestListeners(final int count) {
+		return summaries(listeners, count);
+	}
+
+	@Override
+	public String getPayloadsPerFlushSummary() {
+		return payloadsPerFlush.summary(1, "");
+	}
+
+	@Override
+	public long getSilencedEventCount() {
+		long total = 0;
+		for (final LongAdder count : silenced.values())
+			total += count.sum();
+		return total;
+	}
+
+	@Override
+	public String[] getSilencedEventSummaries() {
+		final List<String> lines = new ArrayList<String>();
+		for (final Map.Entry<String, LongAdder> entry : silenced.entrySet())
+			lines.add(entry.getKey() + ": " + entry.getValue().sum());
+		Collections.sort(lines);
+		return lines.toArray(new String[lines.size()]);
+	}
+
+	@Override
+	public void reset() {
+		for (final LatencyHistogram h : eventTypes.values())
+			h.reset();
+		for (final LatencyHistogram h : listeners.values())
+			h.reset();
+		for (final LongAdder count : silenced.values())
+			count.reset();
+		payloadsPerFlush.reset();
+	}
+
+	private static LatencyHistogram get(final ConcurrentMap<String, LatencyHistogram> map, final String type) {
+		LatencyHistogram histogram = map.get(type);
+		if (histogram == null) {
+			final LatencyHistogram created = new LatencyHistogram();
+			histogram = map.putIfAbsent(type, created);
+			if (histogram == null)
+				histogram = created;
+		}
+		return histogram;
+	}
+
+	/**
+	 * @return up to <code>limit</code> lines, by decreasing total time
+	 */
+	private static String[] summaries(final Map<String, LatencyHistogram> map, final int limit) {
+		final List<Map.Entry<String, LatencyHistogram>> entries =
+				new ArrayList<Map.Entry<String, LatencyHistogram>>(map.entrySet());
+		Collections.sort(entries, new Comparator<Map.Entry<String, LatencyHistogram>>() {
+			public int compare(Map.Entry<String, LatencyHistogram> a, Map.Entry<String, LatencyHistogram> b) {
+				return Long.compare(b.getValue().getTotal(), a.getValue().getTotal());
+			}
+		});
+		
+		final int n = Math.max(0, Math.min(limit, entries.size()));
+		final String[] lines = new String[n];
+		for (int i = 0; i < n; i++) {
+			final Map.Entry<String, LatencyHistogram> entry = entries.get(i);
+			lines[i] = entry.getKey() + ": " + entry.getValue().summary(MICROS, "us");
+		}
+		return lines;
+	}
+}
@@ -0,0 +1,69 @@
+package org.cytoscape.event.internal;
+
+/*
+ * #%L
+ * Cytoscape Event Impl (event-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+/**
+ * JMX view of the event bus statistics, registered as
+ * <code>org.cytoscape.event:type=EventStatistics</code>.
+ * Times are reported in microseconds.
+ */
+public interface EventStatisticsMBean {
+
+	boolean isEnabled();
+
+	void setEnabled(boolean enabled);
+
+	/**
+	 * @return one line per event type: how long firing it took, over all of its listeners
+	 */
+	String[] getEventTypeSummaries();
+
+	/**
+	 * @return one line per listener class: how long its handleEvent calls took
+	 */
+	String[] getListenerSummaries();
+
+	/**
+	 * @return the listener classes that spent the most time handling events, slowest first
+	 */
+	String[] getSlowestListeners(int count);
+
+	/**
+	 * @return the distribution of the number of payloads delivered per flush
+	 */
+	String getPayloadsPerFlushSummary();
+
+	/**
+	 * @return the number of events and payloads dropped because their source was silenced
+	 */
+	long getSilencedEventCount();
+
+	/**
+	 * @return one line per event type that was dropped because its source was silenced
+	 */
+	String[] getSilencedEventSummaries();
+
+	void reset();
+}
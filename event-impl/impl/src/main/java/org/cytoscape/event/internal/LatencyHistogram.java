@@ -0,0 +1,112 @@
+package org.cytoscape.event.internal;
+
+/*
+ * #%L
+ * Cytoscape Event Impl (event-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram with power-of-two buckets, cheap enough to record every
+ * listener call. Bucket <i>i</i> counts the values in [2<sup>i-1</sup>, 2<sup>i</sup>),
+ * so percentiles are accurate to within a factor of two.
+ */
+public final class LatencyHistogram {
+
+	private static final int BUCKETS = 64;
+
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+	private final LongAdder count = new LongAdder();
+	private final LongAdder total = new LongAdder();
+	private final AtomicLong max = new AtomicLong();
+
+	public void record(final long value) {
+		final long v = Math.max(0, value);
+		buckets.incrementAndGet(BUCKETS - Long.numberOfLeadingZeros(v));
+		count.increment();
+		total.add(v);
+		
+		long m = max.get();
+		while (v > m && !max.compareAndSet(m, v))
+			m = max.get();
+	}
+
+	public long getCount() {
+		return count.sum();
+	}
+
+	public long getTotal() {
+		return total.sum();
+	}
+
+	public long getMax() {
+		return max.get();
+	}
+
+	public long getMean() {
+		final long n = count.sum();
+		return n == 0 ? 0 : total.sum() / n;
+	}
+
+	/**
+	 * @param fraction between 0 and 1, e.g. 0.99
+	 * @return an upper bound of the value below which the given fraction of the recorded values fall
+	 */
+	public long getPercentile(final double fraction) {
+		final long n = count.sum();
+		if (n == 0)
+			return 0;
+		
+		final long rank = (long) Math.ceil(fraction * n);
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += buckets.get(i);
+			if (seen >= rank)
+				return Math.min((1L << i) - 1, getMax());
+		}
+		
+		return getMax();
+	}
+
+	public void reset() {
+		for (int i = 0; i < BUCKETS; i++)
+			buckets.set(i, 0);
+		count.reset();
+		total.reset();
+		max.set(0);
+	}
+
+	/**
+	 * @return count, mean, median, 99th percentile and max, with values in the given unit
+	 */
+	public String summary(final long unit, final String unitName) {
+		return "count=" + getCount()
+				+ " mean=" + getMean() / unit + unitName
+				+ " p50=" + getPercentile(0.5) / unit + unitName
+				+ " p99=" + getPercentile(0.99) / unit + unitName
+				+ " max=" + getMax() / unit + unitName
+				+ " total=" + getTotal() / unit + unitName;
+	}
+}
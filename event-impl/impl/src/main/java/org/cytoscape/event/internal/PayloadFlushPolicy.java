@@ -0,0 +1,52 @@
+package org.cytoscape.event.internal;
+
+/*
+ * #%L
+ * Cytoscape Event Impl (event-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+/**
+ * Decides when {@link CyEventHelperImpl} flushes the payload events it has accumulated.
+ */
+public interface PayloadFlushPolicy {
+
+	/**
+	 * Called after each timed flush.
+	 *
+	 * @param flushedPayloads the number of payloads the flush delivered
+	 * @param flushNanos how long it took to fire the flushed events
+	 * @return the delay before the next flush, in milliseconds
+	 */
+	long getFlushDelayMillis(int flushedPayloads, long flushNanos);
+
+	/**
+	 * @return the number of pending payloads at which a flush is started right away,
+	 *         instead of waiting for the delay to pass
+	 */
+	int getMaxPendingPayloads();
+
+	/**
+	 * @return the number of pending payloads at which the flush thread flushes again
+	 *         as soon as it is free, without waiting for the delay, until it catches up
+	 */
+	int getBackPressureLimit();
+}
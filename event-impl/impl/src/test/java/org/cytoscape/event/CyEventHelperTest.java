@@ -25,7 +25,6 @@ package org.cytoscape.event;
  */
 
 import junit.framework.Assert;
-import junit.framework.Test;
 import junit.framework.TestCase;
 import junit.framework.TestSuite;
 
@@ -37,10 +36,24 @@ import org.springframework.osgi.mock.*;
 
 import java.lang.RuntimeException;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Hashtable;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.After;
 import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
 
 
 /**
@@ -110,4 +123,210 @@ public class CyEventHelperTest extends AbstractCyEventHelperTest {
 	public void cleanup() {
 		helperImpl.cleanup();
 	}
+
+	@Test
+	public void testAsyncListenerIsCalledOnAnotherThread() throws InterruptedException {
+		final RecordingListener listener = new RecordingListener(1);
+		final CyEventHelperImpl asyncHelper = newHelper(listener, true, 10000, new AdaptiveFlushPolicy());
+		try {
+			asyncHelper.fireEvent(new SequenceEvent(new Object(), 0));
+			assertTrue(listener.await());
+			assertNotSame(Thread.currentThread(), listener.threads.get(0));
+		} finally {
+			asyncHelper.cleanup();
+		}
+	}
+
+	@Test
+	public void testAsyncDeliveryKeepsOrderPerSource() throws InterruptedException {
+		assertAsyncDeliveryKeepsOrderPerSource(10000);
+	}
+
+	@Test
+	public void testAsyncDeliveryKeepsOrderWhenTheQueueIsFull() throws InterruptedException {
+		// The firing thread waits for room instead of delivering the events itself.
+		assertAsyncDeliveryKeepsOrderPerSource(1);
+	}
+
+	private static void assertAsyncDeliveryKeepsOrderPerSource(final int asyncQueueCapacity)
+			throws InterruptedException {
+		final int sourceCount = 4;
+		final int eventCount = 500;
+		final RecordingListener listener = new RecordingListener(sourceCount * eventCount);
+		final CyEventHelperImpl asyncHelper = newHelper(listener, true, asyncQueueCapacity, new AdaptiveFlushPolicy());
+		try {
+			final Object[] sources = new Object[sourceCount];
+			for (int s = 0; s < sourceCount; s++)
+				sources[s] = new Object();
+			for (int i = 0; i < eventCount; i++)
+				for (int s = 0; s < sourceCount; s++)
+					asyncHelper.fireEvent(new SequenceEvent(sources[s], i));
+			
+			assertTrue(listener.await());
+			for (int s = 0; s < sourceCount; s++) {
+				final List<Integer> sequences = listener.sequencesOf(sources[s]);
+				assertEquals(eventCount, sequences.size());
+				for (int i = 0; i < eventCount; i++)
+					assertEquals(i, sequences.get(i).intValue());
+			}
+		} finally {
+			asyncHelper.cleanup();
+		}
+	}
+
+	@Test
+	public void testAsyncListenerFiringIntoItsFullQueueDoesNotDeadlock() throws InterruptedException {
+		final int eventCount = 20;
+		final CyEventHelperImpl[] asyncHelper = new CyEventHelperImpl[1];
+		final RecordingListener listener = new RecordingListener(eventCount) {
+			@Override
+			public void handleEvent(final SequenceEvent e) {
+				super.handleEvent(e);
+				// Fire more events for the same source, from the delivery thread.
+				if (e.sequence == 0) {
+					for (int i = 1; i < eventCount; i++)
+						asyncHelper[0].fireEvent(new SequenceEvent(e.getSource(), i));
+				}
+			}
+		};
+		asyncHelper[0] = newHelper(listener, true, 1, new AdaptiveFlushPolicy());
+		try {
+			asyncHelper[0].fireEvent(new SequenceEvent(new Object(), 0));
+			assertTrue(listener.await());
+		} finally {
+			asyncHelper[0].cleanup();
+		}
+	}
+
+	@Test
+	public void testBackPressureHandsTheFlushToTheFlushThread() throws InterruptedException {
+		final Object modelLock = new Object();
+		final RecordingPayloadListener listener = new RecordingPayloadListener() {
+			@Override
+			public void handleEvent(final StringPayloadEvent e) {
+				// Like a listener that reads the model the producer is changing.
+				synchronized (modelLock) {
+					super.handleEvent(e);
+				}
+			}
+		};
+		// Long intervals, so only the back-pressure limit triggers a flush.
+		final CyEventHelperImpl limitedHelper =
+				newHelper(listener, false, 10000, new AdaptiveFlushPolicy(60000, 60000, 10, 10));
+		try {
+			final Object source = new Object();
+			synchronized (modelLock) {
+				for (int i = 0; i < 10; i++)
+					limitedHelper.addEventPayload(source, "p" + i, StringPayloadEvent.class);
+				
+				// The producer didn't fire the events itself, while holding the lock.
+				assertTrue(listener.payloads.isEmpty());
+			}
+			
+			final long deadline = System.currentTimeMillis() + 10000;
+			while (listener.payloads.size() < 10 && System.currentTimeMillis() < deadline)
+				Thread.sleep(10);
+			
+			assertEquals(10, listener.payloads.size());
+			assertEquals(0, limitedHelper.getPendingPayloadCount());
+			assertFalse(listener.threads.contains(Thread.currentThread()));
+		} finally {
+			limitedHelper.cleanup();
+		}
+	}
+
+	/**
+	 * @return a helper with one listener, registered for asynchronous delivery or not
+	 */
+	private static CyEventHelperImpl newHelper(final Object listener, final boolean async, final int asyncQueueCapacity,
+	                                           final PayloadFlushPolicy policy) {
+		final Hashtable<String, Object> properties = new Hashtable<String, Object>();
+		if (async)
+			properties.put(CyListenerAdapter.DELIVERY_PROPERTY, CyListenerAdapter.ASYNC_DELIVERY);
+		final ServiceReference ref = new MockServiceReference(null, properties, null);
+		final String listenerClass = listener instanceof SequenceListener ? SequenceListener.class.getName()
+		                                                                 : StringPayloadListener.class.getName();
+
+		final BundleContext context = new MockBundleContext() {
+			public ServiceReference getServiceReference(String clazz) {
+				return clazz.equals(listenerClass) ? ref : null;
+			}
+
+			public ServiceReference[] getServiceReferences(String clazz, String filter) {
+				return clazz.equals(listenerClass) ? new ServiceReference[] { ref } : null;
+			}
+
+			public Object getService(ServiceReference reference) {
+				return reference == ref ? listener : null;
+			}
+		};
+
+		return new CyEventHelperImpl(new CyListenerAdapter(context, asyncQueueCapacity), policy);
+	}
+
+	public interface SequenceListener extends CyListener {
+		void handleEvent(SequenceEvent e);
+	}
+
+	public static final class SequenceEvent extends AbstractCyEvent<Object> {
+		final int sequence;
+
+		public SequenceEvent(final Object source, final int sequence) {
+			super(source, SequenceListener.class);
+			this.sequence = sequence;
+		}
+	}
+
+	public static class RecordingListener implements SequenceListener {
+		final List<Object> sources = Collections.synchronizedList(new ArrayList<Object>());
+		final List<Integer> sequences = Collections.synchronizedList(new ArrayList<Integer>());
+		final List<Thread> threads = Collections.synchronizedList(new ArrayList<Thread>());
+		private final CountDownLatch expected;
+
+		RecordingListener(final int expectedEvents) {
+			expected = new CountDownLatch(expectedEvents);
+		}
+
+		public void handleEvent(final SequenceEvent e) {
+			sources.add(e.getSource());
+			sequences.add(e.sequence);
+			threads.add(Thread.currentThread());
+			expected.countDown();
+		}
+
+		boolean await() throws InterruptedException {
+			return expected.await(10, TimeUnit.SECONDS);
+		}
+
+		List<Integer> sequencesOf(final Object source) {
+			final List<Integer> result = new ArrayList<Integer>();
+			synchronized (sequences) {
+				for (int i = 0; i < sequences.size(); i++) {
+					if (sources.get(i) == source)
+						result.add(sequences.get(i));
+				}
+			}
+			return result;
+		}
+	}
+
+	public interface StringPayloadListener extends CyListener {
+		void handleEvent(StringPayloadEvent e);
+	}
+
+	public static final class StringPayloadEvent extends AbstractCyPayloadEvent<Object, String> {
+		public StringPayloadEvent(final Object source, final Collection<String> payload) {
+			super(source, StringPayloadListener.class, payload);
+		}
+	}
+
+	public static class RecordingPayloadListener implements StringPayloadListener {
+		final List<String> payloads = Collections.synchronizedList(new ArrayList<String>());
+		final Set<Thread> threads = Collections.synchronizedSet(new HashSet<Thread>());
+
+		public void handleEvent(final StringPayloadEvent e) {
+			payloads.addAll(e.getPayloadCollection());
+			threads.add(Thread.currentThread());
+		}
+	}
 }
@@ -0,0 +1,71 @@
+package org.cytoscape.event;
+
+/*
+ * #%L
+ * Cytoscape Event Impl (event-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.cytoscape.event.internal.LatencyHistogram;
+import org.junit.Test;
+
+
+public class LatencyHistogramTest {
+
+	@Test
+	public void testEmpty() {
+		final LatencyHistogram h = new LatencyHistogram();
+		assertEquals(0, h.getCount());
+		assertEquals(0, h.getMean());
+		assertEquals(0, h.getPercentile(0.99));
+	}
+
+	@Test
+	public void testPercentilesAreWithinAFactorOfTwo() {
+		final LatencyHistogram h = new LatencyHistogram();
+		for (int i = 1; i <= 1000; i++)
+			h.record(i * 1000L);
+		
+		assertEquals(1000, h.getCount());
+		assertEquals(1000000L, h.getMax());
+		assertEquals(500500L, h.getMean());
+		
+		final long p50 = h.getPercentile(0.5);
+		assertTrue(p50 >= 500000L && p50 < 2 * 500000L);
+		assertEquals(1000000L, h.getPercentile(1.0));
+	}
+
+	@Test
+	public void testReset() {
+		final LatencyHistogram h = new LatencyHistogram();
+		h.record(0);
+		h.record(-5);
+		h.record(Long.MAX_VALUE);
+		assertEquals(3, h.getCount());
+		assertEquals(Long.MAX_VALUE, h.getPercentile(1.0));
+		h.reset();
+		assertEquals(0, h.getCount());
+		assertEquals(0, h.getMax());
+	}
+}
@@ -0,0 +1,158 @@
+package org.cytoscape.event;
+
+/*
+ * #%L
+ * Cytoscape Event Impl (event-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import org.cytoscape.event.internal.CyListenerAdapter;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceReference;
+import org.osgi.util.tracker.ServiceTracker;
+import org.springframework.osgi.mock.MockBundleContext;
+import org.springframework.osgi.mock.MockServiceReference;
+
+
+/**
+ * Compares the events per second delivered by CyListenerAdapter with the old
+ * dispatch path, which looked up handleEvent reflectively, re-sorted the tracked
+ * services and called Method.invoke on every event.
+ * Not a unit test; run it with main().
+ */
+public class ListenerDispatchBenchmark {
+
+	public interface BenchListener extends CyListener {
+		void handleEvent(BenchEvent e);
+	}
+
+	public static final class BenchEvent extends AbstractCyEvent<Object> {
+		public BenchEvent(final Object source) {
+			super(source, BenchListener.class);
+		}
+	}
+
+	private static final class CountingListener implements BenchListener {
+		long count;
+
+		@Override
+		public void handleEvent(final BenchEvent e) {
+			count++;
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		final int numListeners = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+		final int numEvents = args.length > 1 ? Integer.parseInt(args[1]) : 2000000;
+
+		final CountingListener[] listeners = new CountingListener[numListeners];
+		final ServiceReference[] refs = new ServiceReference[numListeners];
+		for (int i = 0; i < numListeners; i++) {
+			listeners[i] = new CountingListener();
+			refs[i] = new MockServiceReference();
+		}
+
+		final BundleContext bc = new MockBundleContext() {
+			@Override
+			public ServiceReference getServiceReference(String clazz) {
+				return clazz.equals(BenchListener.class.getName()) ? refs[0] : null;
+			}
+
+			@Override
+			public ServiceReference[] getServiceReferences(String clazz, String filter) {
+				return clazz.equals(BenchListener.class.getName()) ? refs : null;
+			}
+
+			@Override
+			public Object getService(ServiceReference ref) {
+				for (int i = 0; i < refs.length; i++)
+					if (refs[i] == ref)
+						return listeners[i];
+				return null;
+			}
+		};
+
+		final BenchEvent event = new BenchEvent(new Object());
+		final CyListenerAdapter adapter = new CyListenerAdapter(bc);
+		final LegacyDispatch legacy = new LegacyDispatch(bc);
+
+		// Warm up both paths.
+		for (int i = 0; i < numEvents / 10; i++) {
+			adapter.fireEvent(event);
+			legacy.fireEvent(event);
+		}
+
+		long start = System.nanoTime();
+		for (int i = 0; i < numEvents; i++)
+			legacy.fireEvent(event);
+		final long legacyNanos = System.nanoTime() - start;
+
+		start = System.nanoTime();
+		for (int i = 0; i < numEvents; i++)
+			adapter.fireEvent(event);
+		final long adapterNanos = System.nanoTime() - start;
+
+		System.out.println(numListeners + " listeners, " + numEvents + " events");
+		System.out.println("reflective dispatch: " + eventsPerSecond(numEvents, legacyNanos) + " events/sec");
+		System.out.println("cached dispatch:     " + eventsPerSecond(numEvents, adapterNanos) + " events/sec");
+		System.out.println("speedup:             " + (double) legacyNanos / Math.max(1, adapterNanos));
+		System.out.println("deliveries:          " + listeners[0].count);
+	}
+
+	private static long eventsPerSecond(final long events, final long nanos) {
+		return events * 1000000000L / Math.max(1, nanos);
+	}
+
+	/**
+	 * The dispatch path CyListenerAdapter used before it cached listeners and method handles.
+	 */
+	private static final class LegacyDispatch {
+		private final ServiceTracker tracker;
+		private final Comparator<Object> comparator = new Comparator<Object>() {
+			@Override
+			public int compare(Object a, Object b) {
+				return Integer.compare(a.hashCode(), b.hashCode());
+			}
+		};
+
+		LegacyDispatch(final BundleContext bc) {
+			tracker = new ServiceTracker(bc, BenchListener.class.getName(), null);
+			tracker.open();
+		}
+
+		void fireEvent(final CyEvent<?> event) throws Exception {
+			final Object[] services = tracker.getServices();
+			if (services == null)
+				return;
+
+			Arrays.sort(services, comparator);
+			final Class<?> listenerClass = event.getListenerClass();
+			final Method method = listenerClass.getMethod("handleEvent", event.getClass());
+
+			for (final Object listener : services)
+				method.invoke(listenerClass.cast(listener), event);
+		}
+	}
+}
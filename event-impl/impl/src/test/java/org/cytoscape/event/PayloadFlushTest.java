@@ -0,0 +1,114 @@
+package org.cytoscape.event;
+
+/*
+ * #%L
+ * Cytoscape Event Impl (event-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collection;
+
+import org.cytoscape.event.internal.AdaptiveFlushPolicy;
+import org.cytoscape.event.internal.CyEventHelperImpl;
+import org.cytoscape.event.internal.CyListenerAdapter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.osgi.mock.MockBundleContext;
+
+
+public class PayloadFlushTest {
+
+	public interface TestListener extends CyListener {
+		void handleEvent(TestPayloadEvent e);
+	}
+
+	public static final class TestPayloadEvent extends AbstractCyPayloadEvent<Object, String> {
+		public TestPayloadEvent(final Object source, final Collection<String> payload) {
+			super(source, TestListener.class, payload);
+		}
+	}
+
+	private CyEventHelperImpl helper;
+
+	@Before
+	public void setUp() {
+		// Long intervals, so only explicit and limit triggered flushes happen.
+		helper = new CyEventHelperImpl(new CyListenerAdapter(new MockBundleContext()),
+		                               new AdaptiveFlushPolicy(60000, 60000, 100, 1000));
+	}
+
+	@After
+	public void cleanup() {
+		helper.cleanup();
+	}
+
+	@Test
+	public void testPayloadsAreCountedAndFlushed() {
+		final Object a = new Object();
+		final Object b = new Object();
+		for (int i = 0; i < 10; i++) {
+			helper.addEventPayload(a, "a" + i, TestPayloadEvent.class);
+			helper.addEventPayload(b, "b" + i, TestPayloadEvent.class);
+		}
+		assertEquals(20, helper.getPendingPayloadCount());
+		assertEquals(20, helper.flushPayloadEvents());
+		assertEquals(0, helper.getPendingPayloadCount());
+		assertEquals(1, helper.getFlushCount());
+		assertEquals(0, helper.flushPayloadEvents());
+	}
+
+	@Test
+	public void testSilencedSourceIsIgnored() {
+		final Object source = new Object();
+		helper.silenceEventSource(source);
+		helper.addEventPayload(source, "x", TestPayloadEvent.class);
+		assertEquals(0, helper.getPendingPayloadCount());
+		helper.unsilenceEventSource(source);
+		helper.addEventPayload(source, "x", TestPayloadEvent.class);
+		assertEquals(1, helper.getPendingPayloadCount());
+	}
+
+	@Test
+	public void testMaxPendingPayloadsTriggersFlush() throws InterruptedException {
+		final Object source = new Object();
+		for (int i = 0; i < 100; i++)
+			helper.addEventPayload(source, "p" + i, TestPayloadEvent.class);
+		
+		for (int i = 0; i < 100 && helper.getPendingPayloadCount() > 0; i++)
+			Thread.sleep(20);
+		assertEquals(0, helper.getPendingPayloadCount());
+	}
+
+	@Test
+	public void testAdaptiveIntervalBacksOffAndRecovers() {
+		final AdaptiveFlushPolicy policy = new AdaptiveFlushPolicy(100, 400, 10, 10);
+		assertEquals(200, policy.getFlushDelayMillis(10, 80000000L));
+		assertEquals(400, policy.getFlushDelayMillis(10, 150000000L));
+		assertEquals(400, policy.getFlushDelayMillis(10, 500000000L));
+		assertEquals(200, policy.getFlushDelayMillis(10, 0));
+		assertEquals(100, policy.getFlushDelayMillis(10, 0));
+		assertTrue(policy.getFlushDelayMillis(0, 0) >= 100);
+	}
+}
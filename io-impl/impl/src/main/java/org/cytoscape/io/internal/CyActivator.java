@@ -43,6 +43,7 @@ import org.cytoscape.io.internal.read.bookmarks.BookmarkFileFilter;
 import org.cytoscape.io.internal.read.bookmarks.BookmarkReaderFactory;
 import org.cytoscape.io.internal.read.cysession.CysessionFileFilter;
 import org.cytoscape.io.internal.read.cysession.CysessionReaderFactory;
+import org.cytoscape.io.internal.read.datatable.BinaryCyReaderFactory;
 import org.cytoscape.io.internal.read.datatable.CSVCyReaderFactory;
 import org.cytoscape.io.internal.read.datatable.CyAttributesReaderFactory;
 import org.cytoscape.io.internal.read.expression.ExpressionReaderFactory;
@@ -86,6 +87,7 @@ import org.cytoscape.io.internal.write.SessionWriterManagerImpl;
 import org.cytoscape.io.internal.write.VizmapWriterManagerImpl;
 import org.cytoscape.io.internal.write.bookmarks.BookmarksWriterFactoryImpl;
 import org.cytoscape.io.internal.write.cysession.CysessionWriterFactoryImpl;
+import org.cytoscape.io.internal.write.datatable.binary.BinaryTableWriterFactory;
 import org.cytoscape.io.internal.write.datatable.csv.CSVTableWriterFactory;
 import org.cytoscape.io.internal.write.graphics.BitmapWriterFactory;
 import org.cytoscape.io.internal.write.graphics.PDFWriterFactory;
@@ -181,6 +183,7 @@ public class CyActivator extends AbstractCyActivator {
 		BasicCyFileFilter nnfFilter = new BasicCyFileFilter(new String[]{"nnf"}, new String[]{"text/nnf"}, "NNF", DataCategory.NETWORK, streamUtil);
 		BasicCyFileFilter csvFilter = new BasicCyFileFilter(new String[]{"csv"}, new String[]{"text/plain"}, "CSV", DataCategory.TABLE, streamUtil);
 		BasicCyFileFilter sessionTableFilter = new BasicCyFileFilter(new String[]{"cytable"}, new String[]{"text/plain"}, "Session Table",DataCategory.TABLE, streamUtil);
+		BasicCyFileFilter sessionBinaryTableFilter = new BasicCyFileFilter(new String[]{"cytb"}, new String[]{"application/octet-stream"}, "Binary Session Table",DataCategory.TABLE, streamUtil);
 		GenericXGMMLFileFilter xgmmlFilter = new GenericXGMMLFileFilter(new String[]{"xgmml","xml"}, new String[]{"text/xgmml","text/xgmml+xml"}, "XGMML",DataCategory.NETWORK, streamUtil);
 		SessionXGMMLFileFilter sessXgmmlFileFilter = new SessionXGMMLFileFilter(new String[]{"xgmml"}, new String[]{"text/xgmml","text/xgmml+xml"}, "Cy3 Session XGMML", DataCategory.NETWORK, streamUtil);
 		SessionXGMMLNetworkFileFilter sessXgmmlNetFileFilter = new SessionXGMMLNetworkFileFilter(new String[]{"xgmml"}, new String[]{"text/xgmml","text/xgmml+xml"}, "CYS Network XGMML", DataCategory.NETWORK, streamUtil);
@@ -225,7 +228,8 @@ public class CyActivator extends AbstractCyActivator {
 		SessionXGMMLNetworkReaderFactory sessXgmmlNetReaderFactory = new SessionXGMMLNetworkReaderFactory(sessXgmmlNetFileFilter,cyNetworkFactoryServiceRef,cyRootNetworkManagerServiceRef,renderingEngineManagerServiceRef,readDataManager,xgmmlParser,unrecognizedVisualPropertyManager, cyApplicationManagerServiceRef);
 		SessionXGMMLNetworkViewReaderFactory sessXgmmlViewReaderFactory = new SessionXGMMLNetworkViewReaderFactory(sessXgmmlViewFileFilter,cyNetworkFactoryServiceRef,renderingEngineManagerServiceRef,readDataManager,xgmmlParser,unrecognizedVisualPropertyManager, cyRootNetworkManagerServiceRef, cyApplicationManagerServiceRef);
 		CSVCyReaderFactory sessionTableReaderFactory = new CSVCyReaderFactory(sessionTableFilter,true,true,cyTableFactoryServiceRef,compilerServiceRef);
-		Cy3SessionReaderFactoryImpl cy3SessionReaderFactory = new Cy3SessionReaderFactoryImpl(cys3Filter,readCache,groupUtil,suidUpdater,cyNetworkReaderManager,cyPropertyReaderManager,vizmapReaderManager,sessionTableReaderFactory,cyNetworkTableManagerServiceRef,cyRootNetworkManagerServiceRef, equationCompilerServiceRef);
+		BinaryCyReaderFactory sessionBinaryTableReaderFactory = new BinaryCyReaderFactory(sessionBinaryTableFilter,true,cyTableFactoryServiceRef,compilerServiceRef);
+		Cy3SessionReaderFactoryImpl cy3SessionReaderFactory = new Cy3SessionReaderFactoryImpl(cys3Filter,readCache,groupUtil,suidUpdater,cyNetworkReaderManager,cyPropertyReaderManager,vizmapReaderManager,sessionTableReaderFactory,sessionBinaryTableReaderFactory,cyNetworkTableManagerServiceRef,cyRootNetworkManagerServiceRef, equationCompilerServiceRef);
 		Cy2SessionReaderFactoryImpl cy2SessionReaderFactory = new Cy2SessionReaderFactoryImpl(cys2Filter,readCache,groupUtil,cyNetworkReaderManager,cyPropertyReaderManager,vizmapReaderManager,cyRootNetworkManagerServiceRef);
 		CysessionReaderFactory cysessionReaderFactory = new CysessionReaderFactory(cysessionFilter);
 		BookmarkReaderFactory bookmarkReaderFactory = new BookmarkReaderFactory(bookmarksFilter);
@@ -247,8 +251,9 @@ public class CyActivator extends AbstractCyActivator {
 		PropertiesWriterFactoryImpl propertiesWriterFactory = new PropertiesWriterFactoryImpl(propertiesFilter);
 		CSVTableWriterFactory csvTableWriterFactory = new CSVTableWriterFactory(csvFilter,false,false, true);
 		CSVTableWriterFactory sessionTableWriterFactory = new CSVTableWriterFactory(sessionTableFilter,true,true, false);
+		BinaryTableWriterFactory sessionBinaryTableWriterFactory = new BinaryTableWriterFactory(sessionBinaryTableFilter,true, false);
 		VizmapWriterFactoryImpl vizmapWriterFactory = new VizmapWriterFactoryImpl(vizmapXMLFilter,visualStyleSerializer);
-		SessionWriterFactoryImpl sessionWriterFactory = new SessionWriterFactoryImpl(cys3Filter,bookmarksFilter,propertiesFilter,sessionTableFilter,vizmapXMLFilter,sessionXgmmlWriterFactory,cyRootNetworkManagerServiceRef,propertyWriterManager,tableWriterManager,vizmapWriterManager,groupUtil);
+		SessionWriterFactoryImpl sessionWriterFactory = new SessionWriterFactoryImpl(cys3Filter,bookmarksFilter,propertiesFilter,sessionTableFilter,sessionBinaryTableFilter,vizmapXMLFilter,sessionXgmmlWriterFactory,cyRootNetworkManagerServiceRef,propertyWriterManager,tableWriterManager,vizmapWriterManager,groupUtil,serviceRegistrar);
 		RecentlyOpenedTrackerImpl recentlyOpenedTracker = new RecentlyOpenedTrackerImpl("tracker.recent.sessions",cyApplicationConfigurationServiceRef);
 		
 		CyTransformerReaderImpl transformerReader = new CyTransformerReaderImpl();
@@ -285,6 +290,7 @@ public class CyActivator extends AbstractCyActivator {
 		registerService(bc,vizmapPropertiesReaderFactory,InputStreamTaskFactory.class, new Properties());
 		registerService(bc,vizmapXMLReaderFactory,InputStreamTaskFactory.class, new Properties());
 		registerService(bc,sessionTableReaderFactory,InputStreamTaskFactory.class, new Properties());
+		registerService(bc,sessionBinaryTableReaderFactory,InputStreamTaskFactory.class, new Properties());
 		registerService(bc,expressionReaderFactory,InputStreamTaskFactory.class, new Properties());
 		registerService(bc,streamUtil,StreamUtil.class, new Properties());
 		registerService(bc,unrecognizedVisualPropertyManager,NetworkViewAboutToBeDestroyedListener.class, new Properties());
@@ -315,6 +321,7 @@ public class CyActivator extends AbstractCyActivator {
 		registerAllServices(bc, propertiesWriterFactory, new Properties());
 		registerAllServices(bc, csvTableWriterFactory, new Properties());
 		registerAllServices(bc, sessionTableWriterFactory, new Properties());
+		registerAllServices(bc, sessionBinaryTableWriterFactory, new Properties());
 		registerAllServices(bc, vizmapWriterFactory, new Properties());
 		registerAllServices(bc, sessionWriterFactory, new Properties());
 	}
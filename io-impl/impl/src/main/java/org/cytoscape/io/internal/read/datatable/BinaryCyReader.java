@@ -0,0 +1,286 @@
+package org.cytoscape.io.internal.read.datatable;
+
+/*
+ * #%L
+ * Cytoscape IO Impl (io-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import static org.cytoscape.io.internal.util.session.BinaryTableFormat.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.cytoscape.equations.EquationCompiler;
+import org.cytoscape.io.read.CyTableReader;
+import org.cytoscape.model.CyRow;
+import org.cytoscape.model.CyTable;
+import org.cytoscape.model.CyTableFactory;
+import org.cytoscape.work.TaskMonitor;
+
+
+/**
+ * Reads a table in the binary columnar format described by
+ * {@link org.cytoscape.io.internal.util.session.BinaryTableFormat}.
+ * <p>
+ * The entry is read into a single buffer, and the values are decoded from it in place, one column at a time.
+ */
+public class BinaryCyReader implements CyTableReader {
+	private final InputStream stream;
+	private final boolean handleEquations;
+	private final CyTableFactory tableFactory;
+	private final EquationCompiler compiler;
+
+	private boolean isCanceled;
+	private CyTable table;
+
+	public BinaryCyReader(final InputStream stream, final boolean handleEquations,
+			      final CyTableFactory tableFactory, final EquationCompiler compiler)
+	{
+		this.stream          = stream;
+		this.handleEquations = handleEquations;
+		this.tableFactory    = tableFactory;
+		this.compiler        = compiler;
+	}
+
+	@Override
+	public void cancel() {
+		isCanceled = true;
+	}
+
+	@Override
+	public void run(TaskMonitor taskMonitor) throws Exception {
+		taskMonitor.setProgress(0.0);
+
+		final ByteBuffer buffer = ByteBuffer.wrap(readFully(stream));
+		taskMonitor.setProgress(0.2);
+
+		try {
+			table = createTable(buffer, taskMonitor);
+		} catch (BufferUnderflowException e) {
+			throw new IOException("Binary table is truncated.", e);
+		}
+		taskMonitor.setProgress(1.0);
+	}
+
+	CyTable createTable(final ByteBuffer buffer, final TaskMonitor taskMonitor) throws IOException {
+		final byte[] magic = new byte[MAGIC.length];
+		buffer.get(magic);
+		if (!Arrays.equals(MAGIC, magic))
+			throw new IOException("Not a binary Cytoscape table.");
+
+		final int version = buffer.getInt();
+		if (version != VERSION)
+			throw new IOException("Unsupported binary table version: " + version);
+
+		final TableInfo info = new TableInfo();
+		info.setTitle(readString(buffer));
+		final byte flags = buffer.get();
+		info.setPublic((flags & PUBLIC) != 0);
+		info.setMutable((flags & MUTABLE) != 0);
+		final int rowCount = buffer.getInt();
+		final ColumnInfo[] columns = new ColumnInfo[buffer.getInt()];
+		final ByteBuffer[] blocks = new ByteBuffer[columns.length];
+
+		// The column blocks follow their metadata, so the schema is known before any value is read
+		for (int i = 0; i < columns.length; i++) {
+			final ColumnInfo column = new ColumnInfo();
+			column.setName(readString(buffer));
+			final Class<?> type = getType(buffer.get());
+			final byte elementType = buffer.get();
+			if (type == List.class)
+				column.setListElementType(getType(elementType));
+			else
+				column.setType(type);
+			column.setMutable((buffer.get() & COLUMN_MUTABLE) != 0);
+			columns[i] = column;
+
+			final int blockLength = buffer.getInt();
+			if (blockLength < 0 || blockLength > buffer.remaining())
+				throw new IOException("Binary table is truncated.");
+			blocks[i] = buffer.slice();
+			blocks[i].limit(blockLength);
+			buffer.position(buffer.position() + blockLength);
+		}
+		info.setColumns(columns);
+
+		final CyTable table = tableFactory.createTable(info.getTitle(), columns[0].getName(),
+		                                               columns[0].getType(), info.isPublic(),
+		                                               true);
+
+		final Map<String, Class<?>> variableNameToTypeMap = new HashMap<String, Class<?>>();
+		for (final ColumnInfo colInfo : columns)
+			variableNameToTypeMap.put(colInfo.getName(), colInfo.getType() == Integer.class ? Long.class : colInfo.getType());
+
+		for (int i = 1; i < columns.length; i++) {
+			ColumnInfo column = columns[i];
+			if (column.getType().equals(List.class)) {
+				table.createListColumn(column.getName(), column.getListElementType(), !column.isMutable());
+			} else {
+				table.createColumn(column.getName(), column.getType(), !column.isMutable());
+			}
+		}
+
+		final List<Integer> equationRows = new ArrayList<Integer>();
+		final List<String> formulas = new ArrayList<String>();
+		final Object[] keys = readColumn(blocks[0], columns[0], rowCount, equationRows, formulas);
+		final CyRow[] rows = new CyRow[rowCount];
+		for (int i = 0; i < rowCount; i++) {
+			if (keys[i] == null)
+				throw new IOException("Missing primary key in row " + i + ".");
+			rows[i] = table.getRow(keys[i]);
+		}
+
+		for (int i = 1; i < columns.length; i++) {
+			if (isCanceled)
+				return null;
+
+			final String name = columns[i].getName();
+			equationRows.clear();
+			formulas.clear();
+			final Object[] values = readColumn(blocks[i], columns[i], rowCount, equationRows, formulas);
+
+			for (int j = 0; j < rowCount; j++) {
+				if (values[j] != null)
+					rows[j].set(name, values[j]);
+			}
+
+			if (handleEquations) {
+				for (int j = 0; j < equationRows.size(); j++) {
+					rows[equationRows.get(j)].set(name,
+							CSVCyReader.compileEquation(compiler, formulas.get(j), columns[i], variableNameToTypeMap));
+				}
+			}
+
+			taskMonitor.setProgress(0.2 + 0.8 * i / columns.length);
+		}
+
+		return table;
+	}
+
+	/**
+	 * Decodes the block of a column.
+	 * @return the plain value of each row, or null
+	 */
+	private static Object[] readColumn(final ByteBuffer block, final ColumnInfo column, final int rowCount,
+					   final List<Integer> equationRows, final List<String> formulas)
+	{
+		final int bitmapStart = block.position();
+		block.position(bitmapStart + getBitmapSize(rowCount));
+
+		final int equationCount = block.getInt();
+		for (int i = 0; i < equationCount; i++) {
+			equationRows.add(block.getInt());
+			formulas.add(readString(block));
+		}
+
+		final boolean isList = column.getType() == List.class;
+		final byte valueType = getTypeCode(isList ? column.getListElementType() : column.getType());
+		String[] dictionary = null;
+		if (valueType == STRING) {
+			dictionary = new String[block.getInt()];
+			for (int i = 0; i < dictionary.length; i++)
+				dictionary[i] = readString(block);
+		}
+
+		final Object[] values = new Object[rowCount];
+		for (int i = 0; i < rowCount; i++) {
+			if ((block.get(bitmapStart + (i >>> 3)) & (1 << (i & 7))) == 0)
+				continue;
+
+			values[i] = isList ? readList(block, valueType, dictionary) : readValue(block, valueType, dictionary);
+		}
+
+		return values;
+	}
+
+	private static List<Object> readList(final ByteBuffer block, final byte type, final String[] dictionary) {
+		final int size = block.getInt();
+		if (size >= 0) {
+			final List<Object> list = new ArrayList<Object>(size);
+			for (int i = 0; i < size; i++)
+				list.add(readValue(block, type, dictionary));
+			return list;
+		}
+
+		// Some elements are null
+		final List<Object> list = new ArrayList<Object>(-size);
+		final int bitmapStart = block.position();
+		block.position(bitmapStart + getBitmapSize(-size));
+		for (int i = 0; i < -size; i++) {
+			final boolean present = (block.get(bitmapStart + (i >>> 3)) & (1 << (i & 7))) != 0;
+			list.add(present ? readValue(block, type, dictionary) : null);
+		}
+		return list;
+	}
+
+	private static Object readValue(final ByteBuffer block, final byte type, final String[] dictionary) {
+		switch (type) {
+			case LONG:    return block.getLong();
+			case INTEGER: return block.getInt();
+			case DOUBLE:  return block.getDouble();
+			case BOOLEAN: return block.get() != 0;
+			case STRING:  return dictionary[block.getInt()];
+			default:
+				throw new IllegalArgumentException("Unsupported value type code: " + type);
+		}
+	}
+
+	private static String readString(final ByteBuffer buffer) {
+		final int length = buffer.getInt();
+		final String s;
+		if (buffer.hasArray()) {
+			s = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, UTF8);
+			buffer.position(buffer.position() + length);
+		} else {
+			final byte[] bytes = new byte[length];
+			buffer.get(bytes);
+			s = new String(bytes, UTF8);
+		}
+		return s;
+	}
+
+	private static byte[] readFully(final InputStream stream) throws IOException {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 * 1024);
+		final byte[] buf = new byte[64 * 1024];
+		int len;
+		while ((len = stream.read(buf)) != -1)
+			bytes.write(buf, 0, len);
+		return bytes.toByteArray();
+	}
+
+	@Override
+	public CyTable[] getTables() {
+		if (table == null) {
+			return null;
+		}
+		return new CyTable[] { table };
+	}
+}
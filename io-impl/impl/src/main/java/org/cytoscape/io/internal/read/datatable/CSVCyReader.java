@@ -28,8 +28,6 @@ package org.cytoscape.io.internal.read.datatable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.lang.reflect.Method;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -45,9 +43,14 @@ import org.cytoscape.model.CyTable;
 import org.cytoscape.model.CyTableFactory;
 import org.cytoscape.work.TaskMonitor;
 
-import au.com.bytecode.opencsv.CSVReader;
-
 
+/**
+ * Reads a table in the CyCSV format, as written by
+ * {@link org.cytoscape.io.internal.write.datatable.csv.CSVCyWriter}.
+ * <p>
+ * The values are parsed by a {@link CyCSVColumnParser} chosen for each column from the schema, straight
+ * from the characters of the record, so no intermediate strings are created for numbers and booleans.
+ */
 public class CSVCyReader implements CyTableReader {
 	private final static Pattern classPattern = Pattern.compile("([^<>]+)(<(.*?)>)?");
 
@@ -82,7 +85,7 @@ public class CSVCyReader implements CyTableReader {
 	public void run(TaskMonitor taskMonitor) throws Exception {
 		taskMonitor.setProgress(0.0);
 
-		CSVReader reader = new CSVReader(new InputStreamReader(stream, encoding), ',', '"', '\0');
+		CyCSVTokenizer reader = new CyCSVTokenizer(new InputStreamReader(stream, encoding));
 		taskMonitor.setProgress(0.2);
 
 		TableInfo info = readHeader(reader);
@@ -90,7 +93,7 @@ public class CSVCyReader implements CyTableReader {
 		taskMonitor.setProgress(1.0);
 	}
 
-	CyTable createTable(CSVReader reader, TableInfo info) throws IOException, SecurityException {
+	CyTable createTable(CyCSVTokenizer reader, TableInfo info) throws IOException, SecurityException {
 		final ColumnInfo[] columns = info.getColumns();
 		final CyTable table = tableFactory.createTable(info.getTitle(), columns[0].getName(),
 		                                               columns[0].getType(), info.isPublic(),
@@ -100,86 +103,78 @@ public class CSVCyReader implements CyTableReader {
 		for (final ColumnInfo colInfo : columns)
 			variableNameToTypeMap.put(colInfo.getName(), colInfo.getType() == Integer.class ? Long.class : colInfo.getType());
 
-		for (int i = 1; i < columns.length; i++) {
+		final CyCSVColumnParser[] parsers = new CyCSVColumnParser[columns.length];
+		for (int i = 0; i < columns.length; i++) {
 			ColumnInfo column = columns[i];
 			Class<?> type = column.getType();
-			if (type.equals(List.class)) {
-				table.createListColumn(column.getName(), column.getListElementType(), !column.isMutable());
-			} else {
-				table.createColumn(column.getName(), type, !column.isMutable());
+			if (i > 0) {
+				if (type.equals(List.class)) {
+					table.createListColumn(column.getName(), column.getListElementType(), !column.isMutable());
+				} else {
+					table.createColumn(column.getName(), type, !column.isMutable());
+				}
 			}
+			parsers[i] = CyCSVColumnParser.forColumn(column);
 		}
-		String[] values = reader.readNext();
-		while (values != null) {
+
+		while (reader.nextRecord()) {
 			if (isCanceled)
 				return null;
 
-			Object key = parseValue(columns[0].getType(), null, values[0]);
+			final char[] recordChars = reader.getChars();
+			Object key = parsers[0].parse(recordChars, reader.getStart(0), reader.getEnd(0));
 			CyRow row = table.getRow(key);
-			for (int i = 1; i < values.length; i++) {
+			final int fieldCount = Math.min(reader.getFieldCount(), columns.length);
+			for (int i = 1; i < fieldCount; i++) {
 				ColumnInfo column = columns[i];
 				String name = column.getName();
-				final Class<?> columnType = column.getType();
-				final Class<?> columnListElementType = column.getListElementType();
-				if (handleEquations && values[i].startsWith("=")) {
-					final Class<?> expectedType = variableNameToTypeMap.remove(name);
-					try {
-						final Equation equation;
-						final Class<?> eqnType;
-						if (compiler.compile(values[i], variableNameToTypeMap)) {
-							eqnType = compiler.getEquation().getType();
-							if(TypeUtils.eqnTypeIsCompatible(columnType, columnListElementType, eqnType))
-								equation = compiler.getEquation();
-							else {
-								final String errorMsg = "Equation result type is "
-									+ TypeUtils.getUnqualifiedName(eqnType) + ", column type is "
-									+ TypeUtils.getUnqualifiedName(columnType) + ".";
-								equation = compiler.getErrorEquation(values[i], expectedType, errorMsg);
-							}
-						} else {
-							equation = compiler.getErrorEquation(values[i], expectedType, compiler.getLastErrorMsg());
-						}
-						row.set(name, equation);
-					} catch (final Exception e) {
-						throw new IOException(e.getMessage(), e.getCause());
-					}
-					variableNameToTypeMap.put(name, expectedType);
+				if (handleEquations && reader.startsWith(i, '=')) {
+					row.set(name, compileEquation(compiler, reader.getString(i), column, variableNameToTypeMap));
 				} else {
-					Object value = parseValue(columnType, columnListElementType, values[i]);
+					Object value = parsers[i].parse(recordChars, reader.getStart(i), reader.getEnd(i));
 					if (value != null)
 						row.set(name, value);
 				}
 			}
-			values = reader.readNext();
 		}
 		return table;
 	}
 
-	Object parseValue(Class<?> type, Class<?> listElementType, String value) {
-		if (type.equals(List.class)) {
-			List<Object> list = new ArrayList<Object>();
-			String[] values = value.split("\n");
-			for (String item : values) {
-				list.add(parseValue(listElementType, null, item));
-			}
+	/**
+	 * Compiles the equation of a cell, or creates an error equation if it is invalid.
+	 * @param variableNameToTypeMap the types of all columns of the table
+	 */
+	static Equation compileEquation(final EquationCompiler compiler, final String formula, final ColumnInfo column,
+					final Map<String, Class<?>> variableNameToTypeMap) throws IOException
+	{
+		final String name = column.getName();
+		final Class<?> columnType = column.getType();
+		final Class<?> columnListElementType = column.getListElementType();
+		// The compiler is a shared service, and session tables are read concurrently
+		synchronized (compiler) {
+			final Class<?> expectedType = variableNameToTypeMap.remove(name);
+			try {
+				if (compiler.compile(formula, variableNameToTypeMap)) {
+					final Class<?> eqnType = compiler.getEquation().getType();
+					if(TypeUtils.eqnTypeIsCompatible(columnType, columnListElementType, eqnType))
+						return compiler.getEquation();
 
-			if (list.size() == 1 && list.get(0) == null) 
-				return null;
+					final String errorMsg = "Equation result type is "
+						+ TypeUtils.getUnqualifiedName(eqnType) + ", column type is "
+						+ TypeUtils.getUnqualifiedName(columnType) + ".";
+					return compiler.getErrorEquation(formula, expectedType, errorMsg);
+				}
 
-			return list;
-		} else if (type.equals(String.class))
-			return value;
-		else {
-			try {
-				Method method = type.getMethod("valueOf", String.class);
-				return method.invoke(null, value);
-			} catch (Exception e) {
-				return null;
+				return compiler.getErrorEquation(formula, expectedType, compiler.getLastErrorMsg());
+			} catch (final Exception e) {
+				throw new IOException(e.getMessage(), e.getCause());
+			} finally {
+				variableNameToTypeMap.put(name, expectedType);
 			}
 		}
 	}
 
-	TableInfo readHeader(CSVReader reader) throws IOException, ClassNotFoundException {
+	TableInfo readHeader(CyCSVTokenizer reader) throws IOException, ClassNotFoundException {
 		String[] values = reader.readNext();
 		int schemaVersion;
 		if (values.length == 2 && "CyCSV-Version".equals(values[0])) {
@@ -227,18 +222,18 @@ public class CSVCyReader implements CyTableReader {
 	}
 
 	static interface SchemaDelegate {
-		void readSchema(CSVReader reader, TableInfo table) throws IOException, ClassNotFoundException;
+		void readSchema(CyCSVTokenizer reader, TableInfo table) throws IOException, ClassNotFoundException;
 	}
 	
 	static class AbstractSchemaDelegate implements SchemaDelegate {
 		@Override
-		public void readSchema(CSVReader reader, TableInfo table) throws IOException, ClassNotFoundException {
+		public void readSchema(CyCSVTokenizer reader, TableInfo table) throws IOException, ClassNotFoundException {
 			handleColumnTypes(reader, table);
 			handleColumnOptions(reader, table);
 			handleTableOptions(reader, table);
 		}
 
-		protected void handleTableOptions(CSVReader reader, TableInfo table) throws IOException {
+		protected void handleTableOptions(CyCSVTokenizer reader, TableInfo table) throws IOException {
 			String[] values = reader.readNext();
 			table.setTitle(values[0]);
 			for (String option : values[1].split(",")) {
@@ -250,7 +245,7 @@ public class CSVCyReader implements CyTableReader {
 			}
 		}
 
-		protected void handleColumnOptions(CSVReader reader, TableInfo table) throws IOException, ClassNotFoundException {
+		protected void handleColumnOptions(CyCSVTokenizer reader, TableInfo table) throws IOException, ClassNotFoundException {
 			ColumnInfo[] columns = table.getColumns();
 			String[] values = reader.readNext();
 			for (int i = 0; i < values.length; i++) {
@@ -262,7 +257,7 @@ public class CSVCyReader implements CyTableReader {
 			}
 		}
 
-		protected void handleColumnTypes(CSVReader reader, TableInfo table) throws IOException, ClassNotFoundException {
+		protected void handleColumnTypes(CyCSVTokenizer reader, TableInfo table) throws IOException, ClassNotFoundException {
 			ColumnInfo[] columns = table.getColumns();
 			String[] values = reader.readNext();
 			for (int i = 0; i < values.length; i++) {
@@ -283,7 +278,7 @@ public class CSVCyReader implements CyTableReader {
 	
 	static class SchemaDelegate0 extends AbstractSchemaDelegate {
 		@Override
-		protected void handleColumnOptions(CSVReader reader, TableInfo table) throws IOException, ClassNotFoundException {
+		protected void handleColumnOptions(CyCSVTokenizer reader, TableInfo table) throws IOException, ClassNotFoundException {
 			// Make columns except primary key mutable by default so users
 			// won't run into issue #1526.
 			ColumnInfo[] columns = table.getColumns();
@@ -0,0 +1,262 @@
+package org.cytoscape.io.internal.read.datatable;
+
+/*
+ * #%L
+ * Cytoscape IO Impl (io-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Converts the fields of a CyCSV file to the values of one column.
+ * <p>
+ * A parser is chosen once per column, from the column type of the table schema, and then works directly
+ * on the characters of the field. The results are the same as those of the type's {@code valueOf(String)}
+ * method, except that a value that cannot be parsed is returned as null.
+ */
+abstract class CyCSVColumnParser {
+
+	/** The powers of ten that are exactly representable as doubles. */
+	private static final double[] POWERS_OF_TEN = {
+		1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+		1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+	};
+
+	/** Decimal numbers with at most this many digits have a mantissa that is exact as a double. */
+	private static final int MAX_EXACT_DIGITS = 15;
+
+	/**
+	 * @return the value of the characters between {@code from} and {@code to}, or null
+	 */
+	abstract Object parse(char[] chars, int from, int to);
+
+	static CyCSVColumnParser forColumn(final ColumnInfo column) {
+		if (column.getType() == List.class)
+			return new ListParser(forType(column.getListElementType()));
+
+		return forType(column.getType());
+	}
+
+	static CyCSVColumnParser forType(final Class<?> type) {
+		if (type == String.class)
+			return STRING;
+		if (type == Long.class)
+			return LONG;
+		if (type == Integer.class)
+			return INTEGER;
+		if (type == Double.class)
+			return DOUBLE;
+		if (type == Boolean.class)
+			return BOOLEAN;
+
+		return new ValueOfParser(type);
+	}
+
+	static final CyCSVColumnParser STRING = new CyCSVColumnParser() {
+		@Override
+		Object parse(final char[] chars, final int from, final int to) {
+			return new String(chars, from, to - from);
+		}
+	};
+
+	static final CyCSVColumnParser LONG = new CyCSVColumnParser() {
+		@Override
+		Object parse(final char[] chars, final int from, final int to) {
+			final long value = parseLong(chars, from, to, Long.MAX_VALUE);
+			return value == NOT_A_NUMBER ? valueOf(Long.class, chars, from, to) : Long.valueOf(value);
+		}
+	};
+
+	static final CyCSVColumnParser INTEGER = new CyCSVColumnParser() {
+		@Override
+		Object parse(final char[] chars, final int from, final int to) {
+			final long value = parseLong(chars, from, to, Integer.MAX_VALUE);
+			return value == NOT_A_NUMBER ? valueOf(Integer.class, chars, from, to) : Integer.valueOf((int) value);
+		}
+	};
+
+	static final CyCSVColumnParser DOUBLE = new CyCSVColumnParser() {
+		@Override
+		Object parse(final char[] chars, final int from, final int to) {
+			int i = from;
+			final boolean negative = i < to && chars[i] == '-';
+			if (i < to && (chars[i] == '-' || chars[i] == '+'))
+				i++;
+
+			long mantissa = 0;
+			int digits = 0;
+			int fractionDigits = -1;
+
+			for (; i < to; i++) {
+				final char c = chars[i];
+				if (c >= '0' && c <= '9') {
+					mantissa = mantissa * 10 + (c - '0');
+					digits++;
+					if (fractionDigits >= 0)
+						fractionDigits++;
+				} else if (c == '.' && fractionDigits < 0) {
+					fractionDigits = 0;
+				} else {
+					break;
+				}
+			}
+
+			// Anything else, such as exponents, is left to the JDK
+			if (i < to || digits == 0 || digits > MAX_EXACT_DIGITS)
+				return valueOf(Double.class, chars, from, to);
+
+			double value = mantissa;
+			if (fractionDigits > 0)
+				value /= POWERS_OF_TEN[fractionDigits];
+
+			return Double.valueOf(negative ? -value : value);
+		}
+	};
+
+	static final CyCSVColumnParser BOOLEAN = new CyCSVColumnParser() {
+		@Override
+		Object parse(final char[] chars, final int from, final int to) {
+			// Like Boolean.valueOf(String), anything but "true" is false
+			return to - from == 4
+				&& Character.toLowerCase(chars[from]) == 't'
+				&& Character.toLowerCase(chars[from + 1]) == 'r'
+				&& Character.toLowerCase(chars[from + 2]) == 'u'
+				&& Character.toLowerCase(chars[from + 3]) == 'e' ? Boolean.TRUE : Boolean.FALSE;
+		}
+	};
+
+	/**
+	 * Parses the elements of a list, which are separated by line breaks.
+	 */
+	static final class ListParser extends CyCSVColumnParser {
+		private final CyCSVColumnParser elementParser;
+
+		ListParser(final CyCSVColumnParser elementParser) {
+			this.elementParser = elementParser;
+		}
+
+		@Override
+		Object parse(final char[] chars, final int from, final int to) {
+			// Trailing empty elements are dropped, as String.split() would do
+			int end = to;
+			while (end > from && chars[end - 1] == '\n')
+				end--;
+
+			final List<Object> list = new ArrayList<Object>();
+			if (end == from && to > from)
+				return list;
+
+			int start = from;
+			for (int i = from; i <= end; i++) {
+				if (i == end || chars[i] == '\n') {
+					list.add(elementParser.parse(chars, start, i));
+					start = i + 1;
+				}
+			}
+
+			if (list.size() == 1 && list.get(0) == null)
+				return null;
+
+			return list;
+		}
+	}
+
+	/**
+	 * Parses values of any other type with its static {@code valueOf(String)} method.
+	 */
+	static final class ValueOfParser extends CyCSVColumnParser {
+		private final Method valueOf;
+
+		ValueOfParser(final Class<?> type) {
+			Method method;
+			try {
+				method = type.getMethod("valueOf", String.class);
+			} catch (Exception e) {
+				method = null;
+			}
+			valueOf = method;
+		}
+
+		@Override
+		Object parse(final char[] chars, final int from, final int to) {
+			if (valueOf == null)
+				return null;
+
+			try {
+				return valueOf.invoke(null, new String(chars, from, to - from));
+			} catch (Exception e) {
+				return null;
+			}
+		}
+	}
+
+	/** Returned by {@link #parseLong} for anything it does not handle, which is then left to the JDK. */
+	private static final long NOT_A_NUMBER = Long.MIN_VALUE;
+
+	/**
+	 * Parses an optional sign followed by ASCII digits.
+	 * @return the value, or {@link #NOT_A_NUMBER} if the characters are not of that form or the value is
+	 *         not within {@code [-max - 1, max]}
+	 */
+	private static long parseLong(final char[] chars, final int from, final int to, final long max) {
+		final boolean negative = from < to && chars[from] == '-';
+		int i = from < to && (chars[from] == '-' || chars[from] == '+') ? from + 1 : from;
+
+		if (i == to)
+			return NOT_A_NUMBER;
+
+		// Accumulated negatively, since the negative range is the larger one
+		final long limit = negative ? -max - 1 : -max;
+		final long multiplyLimit = limit / 10;
+		long result = 0;
+
+		for (; i < to; i++) {
+			final int digit = chars[i] - '0';
+			if (digit < 0 || digit > 9 || result < multiplyLimit)
+				return NOT_A_NUMBER;
+			result *= 10;
+			if (result < limit + digit)
+				return NOT_A_NUMBER;
+			result -= digit;
+		}
+
+		return negative ? result : -result;
+	}
+
+	private static Object valueOf(final Class<?> type, final char[] chars, final int from, final int to) {
+		final String value = new String(chars, from, to - from);
+
+		try {
+			if (type == Long.class)
+				return Long.valueOf(value);
+			if (type == Integer.class)
+				return Integer.valueOf(value);
+
+			return Double.valueOf(value);
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,208 @@
+package org.cytoscape.io.internal.read.datatable;
+
+/*
+ * #%L
+ * Cytoscape IO Impl (io-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.io.Reader;
+
+
+/**
+ * Splits a CyCSV file into records and fields.
+ * <p>
+ * Fields are separated by commas and may be quoted with double quotes, in which case they can contain
+ * commas, line breaks and doubled quotes. A line break inside a quoted field is read as a single
+ * {@code '\n'}, whatever its original form, and empty lines are skipped.
+ * <p>
+ * The unquoted content of the current record is kept in a single reusable character array, so that
+ * values can be parsed without creating a {@link String} for every field.
+ */
+final class CyCSVTokenizer {
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final Reader reader;
+	private final char[] buffer = new char[BUFFER_SIZE];
+	private int position;
+	private int limit;
+
+	private char[] chars = new char[1024];
+	private int length;
+	private int[] fieldStarts = new int[16];
+	private int[] fieldEnds = new int[16];
+	private int fieldCount;
+
+	CyCSVTokenizer(final Reader reader) {
+		this.reader = reader;
+	}
+
+	/**
+	 * Reads the next record.
+	 * @return false if the end of the input has been reached
+	 */
+	boolean nextRecord() throws IOException {
+		fieldCount = 0;
+		length = 0;
+
+		int c = read();
+		while (c == '\r' || c == '\n')
+			c = read();
+
+		if (c == -1)
+			return false;
+
+		boolean inQuotes = false;
+		int start = 0;
+
+		while (true) {
+			if (inQuotes) {
+				if (c == '"') {
+					if (peek() == '"') {
+						read();
+						append('"');
+					} else {
+						inQuotes = false;
+					}
+				} else if (c == '\r') {
+					if (peek() == '\n')
+						read();
+					append('\n');
+				} else if (c == -1) {
+					addField(start);
+					return true;
+				} else {
+					append((char) c);
+				}
+			} else if (c == ',') {
+				addField(start);
+				start = length;
+			} else if (c == '"') {
+				inQuotes = true;
+			} else if (c == '\r' || c == '\n' || c == -1) {
+				if (c == '\r' && peek() == '\n')
+					read();
+				addField(start);
+				return true;
+			} else {
+				append((char) c);
+			}
+
+			c = read();
+		}
+	}
+
+	/**
+	 * Reads the next record as an array of strings.
+	 * @return null if the end of the input has been reached
+	 */
+	String[] readNext() throws IOException {
+		if (!nextRecord())
+			return null;
+
+		final String[] values = new String[fieldCount];
+		for (int i = 0; i < fieldCount; i++)
+			values[i] = getString(i);
+
+		return values;
+	}
+
+	int getFieldCount() {
+		return fieldCount;
+	}
+
+	/**
+	 * @return the content of the current record; field {@code i} lies between
+	 *         {@link #getStart(int)} and {@link #getEnd(int)}
+	 */
+	char[] getChars() {
+		return chars;
+	}
+
+	int getStart(final int i) {
+		return fieldStarts[i];
+	}
+
+	int getEnd(final int i) {
+		return fieldEnds[i];
+	}
+
+	String getString(final int i) {
+		return new String(chars, fieldStarts[i], fieldEnds[i] - fieldStarts[i]);
+	}
+
+	boolean startsWith(final int i, final char c) {
+		return fieldEnds[i] > fieldStarts[i] && chars[fieldStarts[i]] == c;
+	}
+
+	private void addField(final int start) {
+		if (fieldCount == fieldStarts.length) {
+			fieldStarts = grow(fieldStarts);
+			fieldEnds = grow(fieldEnds);
+		}
+
+		fieldStarts[fieldCount] = start;
+		fieldEnds[fieldCount] = length;
+		fieldCount++;
+	}
+
+	private void append(final char c) {
+		if (length == chars.length) {
+			final char[] newChars = new char[length * 2];
+			System.arraycopy(chars, 0, newChars, 0, length);
+			chars = newChars;
+		}
+
+		chars[length++] = c;
+	}
+
+	private int read() throws IOException {
+		if (position == limit && !fill())
+			return -1;
+
+		return buffer[position++];
+	}
+
+	private int peek() throws IOException {
+		if (position == limit && !fill())
+			return -1;
+
+		return buffer[position];
+	}
+
+	private boolean fill() throws IOException {
+		limit = reader.read(buffer, 0, buffer.length);
+		position = 0;
+
+		if (limit > 0)
+			return true;
+
+		limit = 0;
+		return false;
+	}
+
+	private static int[] grow(final int[] array) {
+		final int[] newArray = new int[array.length * 2];
+		System.arraycopy(array, 0, newArray, 0, array.length);
+		return newArray;
+	}
+}
@@ -24,9 +24,15 @@ package org.cytoscape.io.internal.read.session;
  * #L%
  */
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
@@ -34,11 +40,13 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.WeakHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
+import java.util.zip.ZipFile;
 
 import org.cytoscape.group.CyGroup;
-import org.cytoscape.io.internal.read.MarkSupportedInputStream;
 import org.cytoscape.io.internal.util.GroupUtil;
 import org.cytoscape.io.internal.util.ReadCache;
 import org.cytoscape.io.internal.util.session.SessionUtil;
@@ -85,7 +93,11 @@ public abstract class AbstractSessionReader extends AbstractTask implements CySe
 	protected final Map<String, List<File>> appFileListMap = new HashMap<>();
 	protected final Map<Class<? extends CyIdentifiable>, Map<Object, ? extends CyIdentifiable>> objectMap = new HashMap<>();
 	
-	private boolean inputStreamRead;
+	/** Guards the session state collected by entries that are read concurrently. */
+	protected final Object lock = new Object();
+	
+	private File sessionFile;
+	private ZipFile zipFile;
 
 	public AbstractSessionReader(final InputStream sourceInputStream,
 								 final ReadCache cache,
@@ -96,7 +108,7 @@ public abstract class AbstractSessionReader extends AbstractTask implements CySe
 		assert groupUtil != null;
 		assert rootNetworkManager != null;
 		
-		this.sourceInputStream = new ReusableInputStream(sourceInputStream); // So it can be read multiple times
+		this.sourceInputStream = sourceInputStream;
 		this.cache = cache;
 		this.groupUtil = groupUtil;
 		this.rootNetworkManager = rootNetworkManager;
@@ -132,8 +144,6 @@ public abstract class AbstractSessionReader extends AbstractTask implements CySe
 	 * Every action that needs to happen before reading the cys file should be executed here.
 	 */
 	protected void init(TaskMonitor tm) throws Exception {
-		inputStreamRead = false;
-		
 		SessionUtil.setReadingSessionFile(true);
 		cache.init();
 		
@@ -172,11 +182,26 @@ public abstract class AbstractSessionReader extends AbstractTask implements CySe
 	 */
 	protected void cleanUp(TaskMonitor tm) {
 		try {
-			((ReusableInputStream) sourceInputStream).reallyClose();
+			sourceInputStream.close();
 		} catch (Exception e) {
 			logger.error("Error closing source input stream.", e);
 		}
 		
+		if (zipFile != null) {
+			try {
+				zipFile.close();
+			} catch (Exception e) {
+				logger.error("Error closing session file.", e);
+			}
+			zipFile = null;
+		}
+		
+		if (sessionFile != null) {
+			if (!sessionFile.delete())
+				logger.warn("Unable to delete temporary session file: " + sessionFile.getAbsolutePath());
+			sessionFile = null;
+		}
+		
 		if (cancelled) {
 			// Destroy groups
 			final Set<CyGroup> groups = groupUtil.getGroups(cache.getNetworks());
@@ -212,96 +237,134 @@ public abstract class AbstractSessionReader extends AbstractTask implements CySe
 	
 	/**
 	 * Extract Zip entries from the cys file.
+	 * Entries accepted by {@link #isIndependentEntry(String)} are handled on a thread pool,
+	 * all the others are handled by the calling thread, in the order in which they are stored.
+	 * Returns after all entries have been handled.
 	 * @throws Exception
 	 */
 	protected void readSessionFile(TaskMonitor tm) throws Exception {
-		if (!sourceInputStream.markSupported())
-			throw new RuntimeException("Mark/Reset not supported.");
-		
-		if (inputStreamRead)
-			sourceInputStream.reset();
+		final ZipFile zipFile = getZipFile();
 		
-		// So it can be read again if necessary.
-		sourceInputStream.mark(Integer.MAX_VALUE);
-		inputStreamRead = true;
+		if (zipFile == null)
+			return; // Cancelled
 		
-		ZipInputStream zis = new ZipInputStream(sourceInputStream);
+		final List<Future<?>> futures = new ArrayList<>();
+		ExecutorService exe = null;
 		int count = 0;
-	
+		
 		try {
-			ZipEntry zen = null;
-	
-			// Extract cysession.xml and the other files, except the XGMML ones:
-			while ((zen = zis.getNextEntry()) != null && !cancelled) {
+			final Enumeration<? extends ZipEntry> entries = zipFile.entries();
+			
+			while (entries.hasMoreElements() && !cancelled) {
+				final ZipEntry zen = entries.nextElement();
 				tm.setStatusMessage("Extracting zip entry #" + ++count);
 				
-				String entryName = zen.getName();
-				InputStream is = new MarkSupportedInputStream(zis);
-	
-				try {
-					this.handleEntry(is, entryName);
-				} catch (Exception e) {
-					logger.error("Failed reading session entry: " + entryName, e);
-				} finally {
-					if (is != null) {
-						try {
-							is.close();
-						} catch (final Exception ex) {
-							logger.error("Unable to close ZIP entry's input stream.", ex);
+				if (isIndependentEntry(zen.getName())) {
+					if (exe == null)
+						exe = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+					
+					futures.add(exe.submit(new Runnable() {
+						@Override
+						public void run() {
+							readEntry(zipFile, zen);
 						}
-						is = null;
-					}
+					}));
+				} else {
+					readEntry(zipFile, zen);
 				}
-	
-				zis.closeEntry();
 			}
 		} finally {
-			if (zis != null)
-				zis.close();
-			zis = null;
+			if (exe != null)
+				exe.shutdown();
+			
+			// Every entry must have been handled before the next step can start
+			for (final Future<?> f : futures)
+				f.get();
+		}
+	}
+	
+	private void readEntry(final ZipFile zipFile, final ZipEntry zen) {
+		final String entryName = zen.getName();
+		InputStream is = null;
+		
+		try {
+			is = new BufferedInputStream(zipFile.getInputStream(zen));
+			this.handleEntry(is, entryName);
+		} catch (Exception e) {
+			logger.error("Failed reading session entry: " + entryName, e);
+		} finally {
+			if (is != null) {
+				try {
+					is.close();
+				} catch (final Exception ex) {
+					logger.error("Unable to close ZIP entry's input stream.", ex);
+				}
+			}
 		}
 	}
 	
 	/**
 	 * The implementation of this method should handle the passed zip entry.
+	 * It may be invoked concurrently for entries accepted by {@link #isIndependentEntry(String)}.
 	 * @param is
 	 * @param entryName
 	 * @throws Exception
 	 */
 	abstract void handleEntry(InputStream is, String entryName) throws Exception;
 	
+	/**
+	 * Tells whether the passed zip entry can be handled concurrently with any other entry.
+	 * Such entries must not depend on the other ones, and their handlers must guard the state
+	 * they share with {@link #lock}. By default entries are handled sequentially.
+	 * @param entryName
+	 */
+	protected boolean isIndependentEntry(String entryName) {
+		return false;
+	}
+	
 	protected InputStream findEntry(String entry) throws IOException {
-		InputStream is = null;
-		ZipInputStream zis = null;
-
-		try {
-			sourceInputStream.reset();
-			zis = new ZipInputStream(sourceInputStream);
-			ZipEntry zen = null;
-			boolean found = false;
-
-			while (!found && (zen = zis.getNextEntry()) != null) {
-				String name = zen.getName();
-				is = new MarkSupportedInputStream(zis);
-
-				if (name.equals(entry)) {
-					found = true;
-				}
+		final ZipFile zipFile = getZipFile();
+		final ZipEntry zen = zipFile != null ? zipFile.getEntry(entry) : null;
+		
+		return zen != null ? new BufferedInputStream(zipFile.getInputStream(zen)) : null;
+	}
+	
+	/**
+	 * The cys file is opened as a random-access ZipFile, so its entries don't have to be kept in memory
+	 * and can be read in any order. As the source is just a stream, it is first copied to a temporary file.
+	 * @return the opened cys file, or null if the task has been cancelled while copying it
+	 */
+	private ZipFile getZipFile() throws IOException {
+		if (zipFile == null) {
+			sessionFile = createSessionFile();
+			
+			final OutputStream os = new BufferedOutputStream(new FileOutputStream(sessionFile));
+			
+			try {
+				final byte[] buf = new byte[64 * 1024];
+				int len;
 				
-				zis.closeEntry();
-			}
-		} finally {
-			if (zis != null) {
-				try {
-					zis.close();
-				} catch (final Exception ex) {
-					logger.error("Unable to close zip input stream.", ex);
-				}
-				zis = null;
+				while ((len = sourceInputStream.read(buf)) != -1 && !cancelled)
+					os.write(buf, 0, len);
+			} finally {
+				os.close();
 			}
+			
+			if (cancelled)
+				return null;
+			
+			zipFile = new ZipFile(sessionFile);
 		}
 		
-		return is;
+		return zipFile;
+	}
+	
+	/**
+	 * Creates the temporary file the cys file is copied to.
+	 * It is always deleted by {@link #cleanUp(TaskMonitor)}, once the session has been read.
+	 */
+	File createSessionFile() throws IOException {
+		return File.createTempFile("session", ".cys");
 	}
 	
 	abstract void createObjectMap();
@@ -327,61 +390,4 @@ public abstract class AbstractSessionReader extends AbstractTask implements CySe
         public void showMessage(TaskMonitor.Level level, String message) {
         }
 	}
-	
-	private class ReusableInputStream extends InputStream {
-	    private InputStream stream;
-
-	    public ReusableInputStream(InputStream stream) {
-	        this.stream = stream;
-	    }
-
-	    @Override
-	    public int read() throws IOException {
-	        return stream.read();
-	    }
-
-	    @Override
-	    public void close() {
-	        // ignore
-	    }
-	    
-	    @Override
-		public int available() throws IOException {
-			return stream.available();
-		}
-
-		@Override
-		public synchronized void mark(int readlimit) {
-			stream.mark(readlimit);
-		}
-
-		@Override
-		public boolean markSupported() {
-			return stream.markSupported();
-		}
-
-		@Override
-		public int read(byte[] b, int off, int len) throws IOException {
-			return stream.read(b, off, len);
-		}
-
-		@Override
-		public int read(byte[] b) throws IOException {
-			return stream.read(b);
-		}
-
-		@Override
-		public synchronized void reset() throws IOException {
-			stream.reset();
-		}
-
-		@Override
-		public long skip(long n) throws IOException {
-			return stream.skip(n);
-		}
-
-		public void reallyClose() throws IOException {
-	        stream.close();
-	    }
-	}
 }
@@ -28,6 +28,7 @@ import java.io.InputStream;
 
 import org.cytoscape.equations.EquationCompiler;
 import org.cytoscape.io.CyFileFilter;
+import org.cytoscape.io.internal.read.datatable.BinaryCyReaderFactory;
 import org.cytoscape.io.internal.read.datatable.CSVCyReaderFactory;
 import org.cytoscape.io.internal.util.GroupUtil;
 import org.cytoscape.io.internal.util.ReadCache;
@@ -49,6 +50,7 @@ public class Cy3SessionReaderFactoryImpl extends AbstractInputStreamTaskFactory
 	private final CyPropertyReaderManager propertyReaderMgr;
 	private final VizmapReaderManager vizmapReaderMgr;
 	private final CSVCyReaderFactory csvCyReaderFactory;
+	private final BinaryCyReaderFactory binaryCyReaderFactory;
 	private final CyNetworkTableManager networkTableMgr;
 	private final CyRootNetworkManager rootNetworkMgr;
 	private final EquationCompiler compiler;
@@ -61,6 +63,7 @@ public class Cy3SessionReaderFactoryImpl extends AbstractInputStreamTaskFactory
 									   final CyPropertyReaderManager propertyReaderMgr,
 									   final VizmapReaderManager vizmapReaderMgr,
 									   final CSVCyReaderFactory csvCyReaderFactory,
+									   final BinaryCyReaderFactory binaryCyReaderFactory,
 									   final CyNetworkTableManager networkTableMgr,
 									   final CyRootNetworkManager rootNetworkMgr,
 									   final EquationCompiler compiler) {
@@ -72,6 +75,7 @@ public class Cy3SessionReaderFactoryImpl extends AbstractInputStreamTaskFactory
 		this.propertyReaderMgr = propertyReaderMgr;
 		this.vizmapReaderMgr = vizmapReaderMgr;
 		this.csvCyReaderFactory = csvCyReaderFactory;
+		this.binaryCyReaderFactory = binaryCyReaderFactory;
 		this.networkTableMgr = networkTableMgr;
 		this.rootNetworkMgr = rootNetworkMgr;
 		this.compiler = compiler;
@@ -80,6 +84,6 @@ public class Cy3SessionReaderFactoryImpl extends AbstractInputStreamTaskFactory
 	@Override
 	public TaskIterator createTaskIterator(InputStream inputStream, String inputName) {
 		return new TaskIterator(new Cy3SessionReaderImpl(inputStream, cache, groupUtil, suidUpdater, networkReaderMgr,
-				propertyReaderMgr, vizmapReaderMgr, csvCyReaderFactory, networkTableMgr, rootNetworkMgr, compiler));
+				propertyReaderMgr, vizmapReaderMgr, csvCyReaderFactory, binaryCyReaderFactory, networkTableMgr, rootNetworkMgr, compiler));
 	}
 }
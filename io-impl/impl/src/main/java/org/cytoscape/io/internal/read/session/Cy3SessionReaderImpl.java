@@ -26,6 +26,7 @@ package org.cytoscape.io.internal.read.session;
 
 
 import static org.cytoscape.io.internal.util.session.SessionUtil.APPS_FOLDER;
+import static org.cytoscape.io.internal.util.session.SessionUtil.BINARY_TABLE_EXT;
 import static org.cytoscape.io.internal.util.session.SessionUtil.CYTABLE_STATE_FILE;
 import static org.cytoscape.io.internal.util.session.SessionUtil.NETWORKS_FOLDER;
 import static org.cytoscape.io.internal.util.session.SessionUtil.NETWORK_VIEWS_FOLDER;
@@ -58,6 +59,7 @@ import java.util.regex.Pattern;
 
 import org.cytoscape.equations.Equation;
 import org.cytoscape.equations.EquationCompiler;
+import org.cytoscape.io.internal.read.datatable.BinaryCyReaderFactory;
 import org.cytoscape.io.internal.read.datatable.CSVCyReaderFactory;
 import org.cytoscape.io.internal.read.datatable.CyTablesXMLReader;
 import org.cytoscape.io.internal.read.session.CyTableMetadataImpl.CyTableMetadataBuilder;
@@ -68,6 +70,7 @@ import org.cytoscape.io.internal.util.SUIDUpdater;
 import org.cytoscape.io.internal.util.TypeUtils;
 import org.cytoscape.io.internal.util.cytables.model.VirtualColumn;
 import org.cytoscape.io.internal.util.session.SessionUtil;
+import org.cytoscape.io.read.AbstractInputStreamTaskFactory;
 import org.cytoscape.io.read.CyNetworkReader;
 import org.cytoscape.io.read.CyNetworkReaderManager;
 import org.cytoscape.io.read.CyPropertyReader;
@@ -106,8 +109,8 @@ public class Cy3SessionReaderImpl extends AbstractSessionReader {
 	public static final Pattern NETWORK_NAME_PATTERN = Pattern.compile("(\\d+)(-(.+))?");
 	public static final Pattern NETWORK_VIEW_PATTERN = Pattern.compile(".*/"+NETWORK_VIEWS_FOLDER+"(([^/]+)[.]xgmml)");
 	public static final Pattern NETWORK_VIEW_NAME_PATTERN = Pattern.compile("(\\d+)-(\\d+)(-(.+))?"); // netId_viewId_title
-	public static final Pattern NETWORK_TABLE_PATTERN = Pattern.compile(".*/(([^/]+)/([^/]+)-([^/]+)-([^/]+)[.]cytable)");
-	public static final Pattern GLOBAL_TABLE_PATTERN = Pattern.compile(".*/(global/(\\d+)-([^/]+)[.]cytable)");
+	public static final Pattern NETWORK_TABLE_PATTERN = Pattern.compile(".*/(([^/]+)/([^/]+)-([^/]+)-([^/]+)[.](?:cytable|cytb))");
+	public static final Pattern GLOBAL_TABLE_PATTERN = Pattern.compile(".*/(global/(\\d+)-([^/]+)[.](?:cytable|cytb))");
 	public static final Pattern PROPERTIES_PATTERN = Pattern.compile(".*/"+PROPERTIES_FOLDER+"?(([^/]+)[.](props|properties))");
 	
 	private final Map<Long/*network_suid*/, CyNetwork> networkLookup = new LinkedHashMap<Long, CyNetwork>();
@@ -118,6 +121,7 @@ public class Cy3SessionReaderImpl extends AbstractSessionReader {
 	private final CyPropertyReaderManager propertyReaderMgr;
 	private final VizmapReaderManager vizmapReaderMgr;
 	private final CSVCyReaderFactory csvCyReaderFactory;
+	private final BinaryCyReaderFactory binaryCyReaderFactory;
 	private final CyNetworkTableManager networkTableMgr;
 	private final EquationCompiler compiler;
 
@@ -136,6 +140,7 @@ public class Cy3SessionReaderImpl extends AbstractSessionReader {
 							    final CyPropertyReaderManager propertyReaderMgr,
 							    final VizmapReaderManager vizmapReaderMgr,
 							    final CSVCyReaderFactory csvCyReaderFactory,
+							    final BinaryCyReaderFactory binaryCyReaderFactory,
 							    final CyNetworkTableManager networkTableMgr,
 							    final CyRootNetworkManager rootNetworkMgr,
 							    final EquationCompiler compiler) {
@@ -155,6 +160,9 @@ public class Cy3SessionReaderImpl extends AbstractSessionReader {
 		
 		if (csvCyReaderFactory == null) throw new NullPointerException("table reader manager is null.");
 		this.csvCyReaderFactory = csvCyReaderFactory;
+		
+		if (binaryCyReaderFactory == null) throw new NullPointerException("binary table reader factory is null.");
+		this.binaryCyReaderFactory = binaryCyReaderFactory;
 
 		if (networkTableMgr == null) throw new NullPointerException("network table manager is null.");
 		this.networkTableMgr = networkTableMgr;
@@ -190,7 +198,7 @@ public class Cy3SessionReaderImpl extends AbstractSessionReader {
 				if (matcher.matches()) {
 					extractNetworks(is, entryName);
 				}
-			} else if (entryName.endsWith(TABLE_EXT)) {
+			} else if (entryName.endsWith(TABLE_EXT) || entryName.endsWith(BINARY_TABLE_EXT)) {
 				extractTable(is, entryName);
 			} else if (entryName.endsWith(CYTABLE_STATE_FILE)) {
 				extractCyTableSessionState(is, entryName);
@@ -210,6 +218,16 @@ public class Cy3SessionReaderImpl extends AbstractSessionReader {
 		}
 	}
 
+	/**
+	 * Networks and network views are parsed through the shared XGMML read state and refer to each other's
+	 * elements, so they are read one at a time, in order. All the other entries of the first pass only
+	 * depend on the merge steps of {@link #complete(TaskMonitor)}, so they are read concurrently.
+	 */
+	@Override
+	protected boolean isIndependentEntry(final String entryName) {
+		return !networksExtracted && (entryName.contains("/" + APPS_FOLDER) || !entryName.endsWith(XGMML_EXT));
+	}
+
 	@Override
 	protected void complete(TaskMonitor tm) throws Exception {
 		tm.setProgress(0.4);
@@ -260,18 +278,30 @@ public class Cy3SessionReaderImpl extends AbstractSessionReader {
 		
 		try {
 			reader.run(taskMonitor);
-			virtualColumns.addAll(reader.getCyTables().getVirtualColumns().getVirtualColumn());
+			
+			synchronized (lock) {
+				virtualColumns.addAll(reader.getCyTables().getVirtualColumns().getVirtualColumn());
+			}
 		} catch (Exception e) {
 			throw new IOException(e);
 		}
 	}
 
 	private void extractTable(InputStream stream, String entryName) throws Exception {
-		CyTableReader reader = (CyTableReader) csvCyReaderFactory.createTaskIterator(stream, entryName).next();
+		final AbstractInputStreamTaskFactory factory =
+				entryName.endsWith(BINARY_TABLE_EXT) ? binaryCyReaderFactory : csvCyReaderFactory;
+		CyTableReader reader = (CyTableReader) factory.createTaskIterator(stream, entryName).next();
 		reader.run(taskMonitor);
 
 		// Assume one table per entry
 		CyTable table = reader.getTables()[0];
+		
+		synchronized (lock) {
+			addTable(table, entryName);
+		}
+	}
+
+	private void addTable(CyTable table, String entryName) throws Exception {
 		Matcher matcher = NETWORK_TABLE_PATTERN.matcher(entryName);
 		
 		if (matcher.matches()) {
@@ -362,6 +392,11 @@ public class Cy3SessionReaderImpl extends AbstractSessionReader {
 			if (network != null && !cancelled) {
 				// Create the view
 				final CyNetworkReader reader = networkReaderMgr.getReader(is, entryName);
+				
+				// Let the reader apply the visual properties while parsing, instead of keeping them all in memory
+				if (reader instanceof SessionXGMMLNetworkViewReader)
+					((SessionXGMMLNetworkViewReader) reader).setNetwork(network);
+				
 				reader.run(taskMonitor);
 				
 				final CyNetworkView view = reader.buildCyNetworkView(network);
@@ -421,17 +456,22 @@ public class Cy3SessionReaderImpl extends AbstractSessionReader {
 		if (cancelled) return;
 
 		// Put the file into appFileListMap
-		if (!appFileListMap.containsKey(appName))
-			appFileListMap.put(appName, new ArrayList<File>());
-
-		List<File> fileList = appFileListMap.get(appName);
-		fileList.add(file);
+		synchronized (lock) {
+			if (!appFileListMap.containsKey(appName))
+				appFileListMap.put(appName, new ArrayList<File>());
+	
+			List<File> fileList = appFileListMap.get(appName);
+			fileList.add(file);
+		}
 	}
 
 	private void extractVizmap(InputStream is, String entryName) throws Exception {
 		VizmapReader reader = vizmapReaderMgr.getReader(is, entryName);
 		reader.run(taskMonitor);
-		visualStyles.addAll(reader.getVisualStyles());
+		
+		synchronized (lock) {
+			visualStyles.addAll(reader.getVisualStyles());
+		}
 	}
 
 	private void extractProperties(InputStream is, String entryName) throws Exception {
@@ -466,8 +506,11 @@ public class Cy3SessionReaderImpl extends AbstractSessionReader {
 			logger.error("Cannot extract CyProperty name from: " + entryName);
 		}
 		
-		if (cyProps != null)
-			properties.add(cyProps);
+		if (cyProps != null) {
+			synchronized (lock) {
+				properties.add(cyProps);
+			}
+		}
 	}
 	
 	protected void restoreVirtualColumns() throws Exception {
@@ -167,18 +167,7 @@ public class GenericXGMMLReader extends AbstractCyNetworkReader {
 
 	@Override
 	public CyNetworkView buildCyNetworkView(final CyNetwork network) {
-		NetworkViewRenderer networkViewRenderer = null;
-		
-		if (readDataMgr.getRendererId() != null)
-			networkViewRenderer = cyApplicationManager.getNetworkViewRenderer(readDataMgr.getRendererId());
-		
-		// If the XGMML has no renderer ID info or a NetworkViewRenderer with that ID can't be found,
-		// just use the passed CyNetworkViewFactory. 
-		// Otherwise use the factory provided by the specified NetworkViewRenderer.
-		final CyNetworkViewFactory netViewFactory = networkViewRenderer != null ? 
-				networkViewRenderer.getNetworkViewFactory() : getNetworkViewFactory();
-				
-		final CyNetworkView netView = netViewFactory.createNetworkView(network);
+		final CyNetworkView netView = createNetworkView(network);
 		setNetworkViewProperties(netView);
 		
 		if (netView.getModel().getNodeCount() > 0) {
@@ -197,6 +186,24 @@ public class GenericXGMMLReader extends AbstractCyNetworkReader {
 		return netView;
 	}
 	
+	/**
+	 * Creates an empty view of the network, with the renderer specified by the XGMML document, if any.
+	 */
+	protected CyNetworkView createNetworkView(final CyNetwork network) {
+		NetworkViewRenderer networkViewRenderer = null;
+		
+		if (readDataMgr.getRendererId() != null)
+			networkViewRenderer = cyApplicationManager.getNetworkViewRenderer(readDataMgr.getRendererId());
+		
+		// If the XGMML has no renderer ID info or a NetworkViewRenderer with that ID can't be found,
+		// just use the passed CyNetworkViewFactory. 
+		// Otherwise use the factory provided by the specified NetworkViewRenderer.
+		final CyNetworkViewFactory netViewFactory = networkViewRenderer != null ? 
+				networkViewRenderer.getNetworkViewFactory() : getNetworkViewFactory();
+				
+		return netViewFactory.createNetworkView(network);
+	}
+	
 	protected void init(final TaskMonitor tm) {
 		readDataMgr.init();
 		readDataMgr.setViewFormat(false); // TODO: refactor readDataMgr and delete this line
@@ -293,40 +300,43 @@ public class GenericXGMMLReader extends AbstractCyNetworkReader {
 		}
 	}
 	
-	@SuppressWarnings({ "rawtypes", "unchecked" })
 	protected void setVisualProperties(final CyNetworkView netView, final View<? extends CyIdentifiable> view,
 			final Map<String, String> atts) {
 		if (view != null && atts != null) {
-			final CyIdentifiable model = view.getModel();
-			Class<?> type = CyNetwork.class;
-			
-			if (model instanceof CyNode)      type = CyNode.class;
-			else if (model instanceof CyEdge) type = CyEdge.class;
-
 			final Set<String> attSet = atts.keySet();
 
-			for (final String attName : attSet) {
-				String attValue = atts.get(attName);
-				final VisualProperty vp = visualLexicon.lookup(type, attName);
-				
-				if (vp != null) {
-					if (isXGMMLTransparency(attName))
-						attValue = convertXGMMLTransparencyValue(attValue);
-					else if (isOldArrowShape(attName))
-						attValue = convertOldArrowShapeValue(attValue);
-					
-					final Object parsedValue = vp.parseSerializableString(attValue);
-
-					if (parsedValue != null) {
-						if (isLockedVisualProperty(model, attName))
-							view.setLockedValue(vp, parsedValue);
-						else
-							view.setVisualProperty(vp, parsedValue);
-					}
-				} else {
-					unrecognizedVisualPropertyMgr.addUnrecognizedVisualProperty(netView, view, attName, attValue);
-				}
+			for (final String attName : attSet)
+				setVisualProperty(netView, view, attName, atts.get(attName));
+		}
+	}
+	
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	protected void setVisualProperty(final CyNetworkView netView, final View<? extends CyIdentifiable> view,
+			final String attName, String attValue) {
+		final CyIdentifiable model = view.getModel();
+		Class<?> type = CyNetwork.class;
+		
+		if (model instanceof CyNode)      type = CyNode.class;
+		else if (model instanceof CyEdge) type = CyEdge.class;
+
+		final VisualProperty vp = visualLexicon.lookup(type, attName);
+		
+		if (vp != null) {
+			if (isXGMMLTransparency(attName))
+				attValue = convertXGMMLTransparencyValue(attValue);
+			else if (isOldArrowShape(attName))
+				attValue = convertOldArrowShapeValue(attValue);
+			
+			final Object parsedValue = vp.parseSerializableString(attValue);
+
+			if (parsedValue != null) {
+				if (isLockedVisualProperty(model, attName))
+					view.setLockedValue(vp, parsedValue);
+				else
+					view.setVisualProperty(vp, parsedValue);
 			}
+		} else {
+			unrecognizedVisualPropertyMgr.addUnrecognizedVisualProperty(netView, view, attName, attValue);
 		}
 	}
 	
@@ -29,9 +29,11 @@ import java.util.Map;
 
 import org.cytoscape.application.CyApplicationManager;
 import org.cytoscape.io.internal.read.xgmml.handler.ReadDataManager;
+import org.cytoscape.io.internal.read.xgmml.handler.ReadDataManager.ViewGraphicsListener;
 import org.cytoscape.io.internal.util.UnrecognizedVisualPropertyManager;
 import org.cytoscape.model.CyEdge;
 import org.cytoscape.model.CyIdentifiable;
+import org.cytoscape.model.CyNetwork;
 import org.cytoscape.model.CyNetworkFactory;
 import org.cytoscape.model.CyNode;
 import org.cytoscape.model.subnetwork.CyRootNetworkManager;
@@ -42,10 +44,16 @@ import org.cytoscape.work.TaskMonitor;
 
 /**
  * This reader handles XGMML files that serialize CyNetworkViews in Cy3 session files.
+ * <p>
+ * If the network is passed to {@link #setNetwork(CyNetwork)} before the reader runs, the view is created as soon
+ * as its first graphics attribute is parsed, and the attributes are applied to it as they arrive,
+ * so that reading a view does not require keeping all of its graphics attributes in memory.
  */
-public class SessionXGMMLNetworkViewReader extends GenericXGMMLReader {
+public class SessionXGMMLNetworkViewReader extends GenericXGMMLReader implements ViewGraphicsListener {
 
 	private boolean settingLockedVisualProperties;
+	private CyNetwork network;
+	private CyNetworkView streamedView;
 	
 	public SessionXGMMLNetworkViewReader(final InputStream inputStream,
 										 final CyNetworkFactory cyNetworkFactory,
@@ -63,10 +71,63 @@ public class SessionXGMMLNetworkViewReader extends GenericXGMMLReader {
 		return readDataMgr.getVisualStyleName();
 	}
 	
+	/**
+	 * @param network The network of the serialized view, which must have been read already.
+	 */
+	public void setNetwork(final CyNetwork network) {
+		this.network = network;
+	}
+	
 	@Override
 	protected void init(final TaskMonitor tm) {
 		super.init(tm);
 		readDataMgr.setViewFormat(true);
+		streamedView = null;
+		
+		if (network != null)
+			readDataMgr.setViewGraphicsListener(this);
+	}
+	
+	@Override
+	public CyNetworkView buildCyNetworkView(final CyNetwork net) {
+		if (streamedView == null || streamedView.getModel() != net)
+			return super.buildCyNetworkView(net);
+		
+		// The graphics attributes have already been applied
+		setNetworkViewProperties(streamedView);
+		
+		return streamedView;
+	}
+	
+	@Override
+	public void handleViewGraphicsAttribute(final Object oldModelId, final String attName, final String attValue,
+			final boolean locked) {
+		if (oldModelId == null)
+			return;
+		
+		// The root graph element, which comes first, has the renderer ID
+		if (streamedView == null)
+			streamedView = createNetworkView(network);
+		
+		final View<? extends CyIdentifiable> view;
+		
+		if (oldModelId.equals(readDataMgr.getNetworkId())) {
+			view = streamedView;
+		} else {
+			final CyNode node = readDataMgr.getCache().getNode(oldModelId);
+			
+			if (node != null) {
+				view = streamedView.getNodeView(node);
+			} else {
+				final CyEdge edge = readDataMgr.getCache().getEdge(oldModelId);
+				view = edge != null ? streamedView.getEdgeView(edge) : null;
+			}
+		}
+		
+		if (view != null) {
+			this.settingLockedVisualProperties = locked;
+			setVisualProperty(streamedView, view, attName, attValue);
+		}
 	}
 	
 	@Override
@@ -30,7 +30,6 @@ import static org.cytoscape.io.internal.util.GroupUtil.GROUP_STATE_ATTRIBUTE;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
-import java.util.Hashtable;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -54,6 +53,7 @@ import org.cytoscape.model.CyNetwork;
 import org.cytoscape.model.CyNetworkFactory;
 import org.cytoscape.model.CyNode;
 import org.cytoscape.model.CyRow;
+import org.cytoscape.model.CyTable;
 import org.cytoscape.model.subnetwork.CyRootNetwork;
 import org.cytoscape.model.subnetwork.CyRootNetworkManager;
 import org.cytoscape.model.subnetwork.CySubNetwork;
@@ -64,6 +64,21 @@ import org.xml.sax.Attributes;
 
 public class ReadDataManager {
 
+	/**
+	 * Receives the graphics attributes of view-format XGMML as soon as they are parsed, so they can be applied to
+	 * an existing view instead of being kept until the end of the document.
+	 */
+	public interface ViewGraphicsListener {
+		
+		/**
+		 * @param oldModelId The original ID of the CyNode, CyEdge or CyNetwork.
+		 * @param attName The name of the attribute
+		 * @param attValue The value of the attribute
+		 * @param locked Whether the attribute is a locked visual property
+		 */
+		void handleViewGraphicsAttribute(Object oldModelId, String attName, String attValue, boolean locked);
+	}
+
 	protected final static String XLINK = "http://www.w3.org/1999/xlink";
 	
 	private static final String PATTERN2X = "type|fill|w|h|size|width|outline|"
@@ -112,7 +127,7 @@ public class ReadDataManager {
 	private Map<Long/*node suid*/, Map<String/*att name*/, String/*att value*/>> nodeGraphics;
 	private Map<Long/*edge suid*/, Map<String/*att name*/, String/*att value*/>> edgeGraphics;
 	
-	private Map<CyRow, Map<String/*column name*/, String/*equation*/>> equations;
+	private Map<CyTable, Map<CyRow, Map<String/*column name*/, String/*equation*/>>> equations;
 
 	protected int graphCount;
 	protected int graphDoneCount;
@@ -134,6 +149,7 @@ public class ReadDataManager {
 	private Object currentElementId; // node/edge/network old id
 	private Map<Object/*old model id*/, Map<String/*att name*/, String/*att value*/>> viewGraphics;
 	private Map<Object/*old model id*/, Map<String/*att name*/, String/*att value*/>> viewLockedGraphics;
+	private ViewGraphicsListener viewGraphicsListener;
 	
 	private final ReadCache cache;
 	private final SUIDUpdater suidUpdater;
@@ -200,7 +216,7 @@ public class ReadDataManager {
 		compoundNodeStack = new Stack<CyNode>();
 		
 		publicNetworks = new LinkedHashSet<CyNetwork>();
-		equations = new Hashtable<CyRow, Map<String, String>>();
+		equations = new LinkedHashMap<CyTable, Map<CyRow, Map<String, String>>>();
 		
 		networkGraphics = new LinkedHashMap<Long, Map<String, String>>();
 		nodeGraphics = new LinkedHashMap<Long, Map<String, String>>();
@@ -212,6 +228,7 @@ public class ReadDataManager {
 		rendererId = null;
 		viewGraphics = new LinkedHashMap<Object, Map<String,String>>();
 		viewLockedGraphics = new LinkedHashMap<Object, Map<String,String>>();
+		viewGraphicsListener = null;
 	}
 	
 	public void dispose() {
@@ -224,6 +241,7 @@ public class ReadDataManager {
 		currentNode = null;
 		currentEdge = null;
 		currentRow = null;
+		viewGraphicsListener = null;
 		
 		// Important: graphics related maps and lists cannot be disposed here,
 		// because they may be necessary when creating the network views.
@@ -302,6 +320,11 @@ public class ReadDataManager {
 	 * @param locked
 	 */
 	protected void addViewGraphicsAttribute(Object oldModelId, String attName, String attValue, boolean locked) {
+		if (viewGraphicsListener != null) {
+			viewGraphicsListener.handleViewGraphicsAttribute(oldModelId, attName, attValue, locked);
+			return;
+		}
+		
 		Map<Object, Map<String, String>> graphics = locked ? viewLockedGraphics : viewGraphics;
 		Map<String, String> attributes = graphics.get(oldModelId);
 
@@ -345,6 +368,15 @@ public class ReadDataManager {
 		return null;
 	}
 	
+	/**
+	 * When a listener is set, the graphics attributes of view-format XGMML are passed to it as they are parsed,
+	 * and {@link #getViewGraphicsAttributes(Object, boolean)} returns null for all elements.
+	 * The listener is removed by {@link #init()} and {@link #dispose()}.
+	 */
+	public void setViewGraphicsListener(final ViewGraphicsListener listener) {
+		this.viewGraphicsListener = listener;
+	}
+	
 	public <T extends CyIdentifiable> Map<String, String> getViewGraphicsAttributes(final Object oldId, final boolean locked) {
 		return locked ? viewLockedGraphics.get(oldId) : viewGraphics.get(oldId);
 	}
@@ -365,43 +397,65 @@ public class ReadDataManager {
 	 * @param formula The equation formula
 	 */
 	public void addEquationString(CyRow row, String columnName, String formula) {
-		Map<String, String> colEquationMap = equations.get(row);
+		final CyTable table = row.getTable();
+		Map<CyRow, Map<String, String>> rowEquationMap = equations.get(table);
+		
+		if (rowEquationMap == null) {
+			rowEquationMap = new LinkedHashMap<CyRow, Map<String, String>>();
+			equations.put(table, rowEquationMap);
+		}
+		
+		Map<String, String> colEquationMap = rowEquationMap.get(row);
 		
 		if (colEquationMap == null) {
 			colEquationMap = new HashMap<String, String>();
-			equations.put(row, colEquationMap);
+			rowEquationMap.put(row, colEquationMap);
 		}
 		
 		colEquationMap.put(columnName, formula);
 	}
 	
 	/**
-	 * Should be called only after all XGMML attributes have been read.
+	 * Should be called only after all XGMML attributes have been read, because equations may refer to columns
+	 * that are declared later in the document. The pending equations are released afterwards.
 	 */
 	protected void parseAllEquations() {
-		for (Map.Entry<CyRow, Map<String, String>> entry : equations.entrySet()) {
-			CyRow row = entry.getKey();
-			Map<String, String> colEquationMap = entry.getValue();
-			
-			Map<String, Class<?>> colNameTypeMap = new Hashtable<String, Class<?>>();
-			Collection<CyColumn> columns = row.getTable().getColumns();
+		for (Map.Entry<CyTable, Map<CyRow, Map<String, String>>> tableEntry : equations.entrySet()) {
+			// All the rows of a table have the same columns
+			Map<String, Class<?>> colNameTypeMap = new HashMap<String, Class<?>>();
+			Collection<CyColumn> columns = tableEntry.getKey().getColumns();
 			
 			for (CyColumn col : columns) {
 				colNameTypeMap.put(col.getName(), col.getType());
 			}
 			
-			for (Map.Entry<String, String> colEqEntry : colEquationMap.entrySet()) {
-				String columnName = colEqEntry.getKey();
-				String formula = colEqEntry.getValue();
-
-				if (equationCompiler.compile(formula, colNameTypeMap)) {
-					Equation equation = equationCompiler.getEquation();
-					row.set(columnName, equation);
-				} else {
-					logger.error("Error parsing equation \"" + formula + "\": " + equationCompiler.getLastErrorMsg());
+			for (Map.Entry<CyRow, Map<String, String>> entry : tableEntry.getValue().entrySet()) {
+				CyRow row = entry.getKey();
+				
+				for (Map.Entry<String, String> colEqEntry : entry.getValue().entrySet()) {
+					String columnName = colEqEntry.getKey();
+					String formula = colEqEntry.getValue();
+	
+					Equation equation = null;
+					String errorMsg = null;
+					
+					// The compiler is a shared service, and session entries are read concurrently
+					synchronized (equationCompiler) {
+						if (equationCompiler.compile(formula, colNameTypeMap))
+							equation = equationCompiler.getEquation();
+						else
+							errorMsg = equationCompiler.getLastErrorMsg();
+					}
+					
+					if (equation != null)
+						row.set(columnName, equation);
+					else
+						logger.error("Error parsing equation \"" + formula + "\": " + errorMsg);
 				}
 			}
 		}
+		
+		equations.clear();
 	}
 	
 	protected void setCurrentNetwork(CyNetwork network) {
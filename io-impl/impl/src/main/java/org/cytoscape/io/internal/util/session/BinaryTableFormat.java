@@ -0,0 +1,113 @@
+package org.cytoscape.io.internal.util.session;
+
+/*
+ * #%L
+ * Cytoscape IO Impl (io-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.nio.charset.Charset;
+import java.util.List;
+
+/**
+ * Constants of the binary columnar table format, which session files may use instead of CyCSV.
+ * <p>
+ * All numbers are big-endian. A table is laid out as:
+ * <pre>
+ * magic "CYTB", int version
+ * string title, byte table flags, int row count, int column count
+ * for each column, the primary key first:
+ *     string name, byte type, byte list element type, byte column flags, int block length
+ *     block:
+ *         null bitmap, one bit per row, set if the row has a plain value
+ *         int equation count, followed by (int row, string formula) pairs
+ *         the values of the rows whose bit is set:
+ *             Long and Double: 8 bytes, Integer: 4 bytes, Boolean: 1 byte
+ *             String: an index into the column's dictionary, written before the values
+ *             List: an int size, followed by the elements; a negative size -n means that the n
+ *                   elements are preceded by their own null bitmap and only the non-null ones follow
+ * </pre>
+ * Strings are written as an int byte length followed by their UTF-8 bytes. String dictionaries are an int
+ * size followed by the strings, and are shared by the plain values and the list elements of the column.
+ */
+public final class BinaryTableFormat {
+	
+	public static final byte[] MAGIC = { 'C', 'Y', 'T', 'B' };
+	public static final int VERSION = 1;
+	
+	public static final Charset UTF8 = Charset.forName("UTF-8");
+	
+	// Table flags
+	public static final byte PUBLIC = 1;
+	public static final byte MUTABLE = 2;
+	
+	// Column flags
+	public static final byte COLUMN_MUTABLE = 1;
+	
+	// Types
+	public static final byte NONE = 0;
+	public static final byte LONG = 1;
+	public static final byte INTEGER = 2;
+	public static final byte DOUBLE = 3;
+	public static final byte BOOLEAN = 4;
+	public static final byte STRING = 5;
+	public static final byte LIST = 6;
+	
+	private BinaryTableFormat() {
+	}
+	
+	public static byte getTypeCode(final Class<?> type) {
+		if (type == Long.class)
+			return LONG;
+		if (type == Integer.class)
+			return INTEGER;
+		if (type == Double.class)
+			return DOUBLE;
+		if (type == Boolean.class)
+			return BOOLEAN;
+		if (type == String.class)
+			return STRING;
+		if (type == List.class)
+			return LIST;
+		
+		throw new IllegalArgumentException("Unsupported column type: " + type);
+	}
+	
+	public static Class<?> getType(final byte code) {
+		switch (code) {
+			case LONG:    return Long.class;
+			case INTEGER: return Integer.class;
+			case DOUBLE:  return Double.class;
+			case BOOLEAN: return Boolean.class;
+			case STRING:  return String.class;
+			case LIST:    return List.class;
+			default:
+				throw new IllegalArgumentException("Unsupported column type code: " + code);
+		}
+	}
+	
+	/**
+	 * @return the number of bytes of a bitmap with one bit for each of {@code count} items
+	 */
+	public static int getBitmapSize(final int count) {
+		return (count + 7) >>> 3;
+	}
+}
@@ -57,6 +57,7 @@ public class SessionUtil {
 	
 	public static final String PROPERTIES_EXT = ".props";
 	public static final String TABLE_EXT = ".cytable";
+	public static final String BINARY_TABLE_EXT = ".cytb";
 	public static final String VERSION_EXT = ".version";
 	public static final String XGMML_EXT = ".xgmml";
 	
@@ -83,13 +84,17 @@ public class SessionUtil {
 	}
 	
 	public static String getNetworkTableFilename(CyNetwork network, CyTableMetadata metadata) throws UnsupportedEncodingException {
+		return getNetworkTableFilename(network, metadata, TABLE_EXT);
+	}
+	
+	public static String getNetworkTableFilename(CyNetwork network, CyTableMetadata metadata, String extension) throws UnsupportedEncodingException {
 		CyTable table = metadata.getTable();
 		Long networkId = network.getSUID();
 		String networkFileName = getNetworkFileName(network);
 		String namespace = escape(metadata.getNamespace());
 		String type = escape(metadata.getType().getCanonicalName());
 		String tableTitle = escape(table.getTitle());
-		return String.format("%s-%s/%s-%s-%s%s", networkId, networkFileName, namespace, type, tableTitle, TABLE_EXT);
+		return String.format("%s-%s/%s-%s-%s%s", networkId, networkFileName, namespace, type, tableTitle, extension);
 	}
 	
 	public static String getXGMMLFilename(CyNetwork network) throws UnsupportedEncodingException {
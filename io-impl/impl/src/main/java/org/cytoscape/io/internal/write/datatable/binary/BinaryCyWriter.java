@@ -0,0 +1,260 @@
+package org.cytoscape.io.internal.write.datatable.binary;
+
+/*
+ * #%L
+ * Cytoscape IO Impl (io-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import static org.cytoscape.io.internal.util.session.BinaryTableFormat.*;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.cytoscape.equations.Equation;
+import org.cytoscape.io.write.CyWriter;
+import org.cytoscape.model.CyColumn;
+import org.cytoscape.model.CyRow;
+import org.cytoscape.model.CyTable;
+import org.cytoscape.model.CyTable.Mutability;
+import org.cytoscape.work.TaskMonitor;
+
+
+/**
+ * Writes a table in the binary columnar format described by
+ * {@link org.cytoscape.io.internal.util.session.BinaryTableFormat}.
+ */
+public class BinaryCyWriter implements CyWriter {
+	private final OutputStream outputStream;
+	private final CyTable table;
+	private final boolean handleEquations;
+	private final boolean includeVirtualColumns;
+	private boolean isCanceled;
+
+	public BinaryCyWriter(final OutputStream outputStream, final CyTable table, final boolean handleEquations,
+			      final boolean includeVirtualColumns)
+	{
+		this.outputStream          = outputStream;
+		this.table                 = table;
+		this.handleEquations       = handleEquations;
+		this.includeVirtualColumns = includeVirtualColumns;
+	}
+
+	@Override
+	public void cancel() {
+		isCanceled = true;
+	}
+
+	@Override
+	public void run(TaskMonitor taskMonitor) throws Exception {
+		taskMonitor.setProgress(0.0);
+		final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(outputStream, 64 * 1024));
+		try {
+			final List<CyColumn> columns = getColumns();
+			final List<CyRow> rows = new ArrayList<CyRow>(table.getAllRows());
+			taskMonitor.setProgress(0.2);
+
+			out.write(MAGIC);
+			out.writeInt(VERSION);
+			writeString(out, table.getTitle());
+			byte flags = 0;
+			if (table.isPublic())
+				flags |= PUBLIC;
+			if (table.getMutability() == Mutability.MUTABLE)
+				flags |= MUTABLE;
+			out.writeByte(flags);
+			out.writeInt(rows.size());
+			out.writeInt(columns.size());
+
+			final ByteArrayOutputStream block = new ByteArrayOutputStream();
+			for (int i = 0; i < columns.size(); i++) {
+				if (isCanceled)
+					return;
+
+				final CyColumn column = columns.get(i);
+				final Class<?> elementType = column.getListElementType();
+				writeString(out, column.getName());
+				out.writeByte(getTypeCode(column.getType()));
+				out.writeByte(elementType == null ? NONE : getTypeCode(elementType));
+				out.writeByte(column.isImmutable() ? 0 : COLUMN_MUTABLE);
+
+				block.reset();
+				writeColumn(new DataOutputStream(block), column, rows);
+				out.writeInt(block.size());
+				block.writeTo(out);
+
+				taskMonitor.setProgress(0.2 + 0.8 * (i + 1) / columns.size());
+			}
+		} finally {
+			out.flush();
+		}
+		taskMonitor.setProgress(1.0);
+	}
+
+	private List<CyColumn> getColumns() {
+		final List<CyColumn> columns = new ArrayList<CyColumn>();
+		for (CyColumn column : table.getColumns()) {
+			if (column.getVirtualColumnInfo().isVirtual() && !includeVirtualColumns)
+				continue;
+			columns.add(column);
+		}
+
+		// Same order as CyCSV, the primary key first
+		Collections.sort(columns, new Comparator<CyColumn>() {
+			@Override
+			public int compare(CyColumn o1, CyColumn o2) {
+				if (o1.isPrimaryKey())
+					return -1;
+				if (o2.isPrimaryKey())
+					return 1;
+				return o1.getName().compareToIgnoreCase(o2.getName());
+			}
+		});
+		return columns;
+	}
+
+	private void writeColumn(final DataOutputStream out, final CyColumn column, final List<CyRow> rows)
+			throws IOException
+	{
+		final String name = column.getName();
+		final Class<?> type = column.getType();
+		final Class<?> elementType = column.getListElementType();
+		final Object[] values = new Object[rows.size()];
+		final List<Integer> equationRows = new ArrayList<Integer>();
+		final List<String> formulas = new ArrayList<String>();
+		final byte[] bitmap = new byte[getBitmapSize(rows.size())];
+
+		for (int i = 0; i < values.length; i++) {
+			final CyRow row = rows.get(i);
+			if (handleEquations) {
+				final Object rawValue = row.getRaw(name);
+				if (rawValue instanceof Equation) {
+					equationRows.add(i);
+					formulas.add(rawValue.toString());
+					continue;
+				}
+			}
+
+			values[i] = type == List.class ? row.getList(name, elementType) : row.get(name, type);
+			if (values[i] != null)
+				bitmap[i >>> 3] |= 1 << (i & 7);
+		}
+
+		out.write(bitmap);
+		out.writeInt(equationRows.size());
+		for (int i = 0; i < equationRows.size(); i++) {
+			out.writeInt(equationRows.get(i));
+			writeString(out, formulas.get(i));
+		}
+
+		final byte valueType = getTypeCode(type == List.class ? elementType : type);
+		final Map<String, Integer> dictionary = valueType == STRING ? createDictionary(values) : null;
+		if (dictionary != null) {
+			out.writeInt(dictionary.size());
+			// Insertion order is the index order
+			final String[] strings = new String[dictionary.size()];
+			for (Map.Entry<String, Integer> entry : dictionary.entrySet())
+				strings[entry.getValue()] = entry.getKey();
+			for (String s : strings)
+				writeString(out, s);
+		}
+
+		for (Object value : values) {
+			if (value == null)
+				continue;
+
+			if (type != List.class) {
+				writeValue(out, valueType, value, dictionary);
+				continue;
+			}
+
+			final List<?> list = (List<?>) value;
+			final int size = list.size();
+			if (!list.contains(null)) {
+				out.writeInt(size);
+				for (Object element : list)
+					writeValue(out, valueType, element, dictionary);
+			} else {
+				out.writeInt(-size);
+				final byte[] elementBitmap = new byte[getBitmapSize(size)];
+				for (int i = 0; i < size; i++) {
+					if (list.get(i) != null)
+						elementBitmap[i >>> 3] |= 1 << (i & 7);
+				}
+				out.write(elementBitmap);
+				for (Object element : list) {
+					if (element != null)
+						writeValue(out, valueType, element, dictionary);
+				}
+			}
+		}
+		out.flush();
+	}
+
+	private static Map<String, Integer> createDictionary(final Object[] values) {
+		final Map<String, Integer> dictionary = new HashMap<String, Integer>();
+		for (Object value : values) {
+			if (value instanceof Collection) {
+				for (Object element : (Collection<?>) value)
+					addToDictionary(dictionary, element);
+			} else {
+				addToDictionary(dictionary, value);
+			}
+		}
+		return dictionary;
+	}
+
+	private static void addToDictionary(final Map<String, Integer> dictionary, final Object value) {
+		if (value != null && !dictionary.containsKey(value))
+			dictionary.put((String) value, dictionary.size());
+	}
+
+	private static void writeValue(final DataOutputStream out, final byte type, final Object value,
+				       final Map<String, Integer> dictionary) throws IOException
+	{
+		switch (type) {
+			case LONG:    out.writeLong((Long) value); break;
+			case INTEGER: out.writeInt((Integer) value); break;
+			case DOUBLE:  out.writeDouble((Double) value); break;
+			case BOOLEAN: out.writeByte((Boolean) value ? 1 : 0); break;
+			case STRING:  out.writeInt(dictionary.get(value)); break;
+			default:
+				throw new IllegalArgumentException("Unsupported value type code: " + type);
+		}
+	}
+
+	private static void writeString(final DataOutputStream out, final String s) throws IOException {
+		final byte[] bytes = s.getBytes(UTF8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+}
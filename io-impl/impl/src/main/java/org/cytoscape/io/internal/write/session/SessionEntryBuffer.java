@@ -0,0 +1,142 @@
+package org.cytoscape.io.internal.write.session;
+
+/*
+ * #%L
+ * Cytoscape IO Impl (io-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+
+/**
+ * Holds the serialized content of one session file entry until it is copied into the zip file.
+ * Small entries are kept in memory, larger ones are spilled to a temporary file.
+ * The size and CRC-32 of the content are computed while it is written, so the entry can also be stored
+ * without compression.
+ */
+class SessionEntryBuffer extends OutputStream {
+
+	/** Entries larger than this are written to a temporary file. */
+	static final int MAX_MEMORY_SIZE = 4 * 1024 * 1024;
+	
+	private final ByteArrayOutputStream memory = new ByteArrayOutputStream();
+	private final CRC32 crc = new CRC32();
+	private File file;
+	private OutputStream fileStream;
+	private long size;
+	
+	@Override
+	public void write(int b) throws IOException {
+		write(new byte[] { (byte) b }, 0, 1);
+	}
+	
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		if (fileStream == null && memory.size() + len > MAX_MEMORY_SIZE)
+			spill();
+		
+		if (fileStream != null)
+			fileStream.write(b, off, len);
+		else
+			memory.write(b, off, len);
+		
+		crc.update(b, off, len);
+		size += len;
+	}
+	
+	@Override
+	public void flush() throws IOException {
+		if (fileStream != null)
+			fileStream.flush();
+	}
+	
+	@Override
+	public void close() throws IOException {
+		if (fileStream != null) {
+			fileStream.close();
+			fileStream = null;
+		}
+	}
+	
+	long getSize() {
+		return size;
+	}
+	
+	long getCrc() {
+		return crc.getValue();
+	}
+	
+	/**
+	 * Copies the content to the passed stream. The buffer must have been closed.
+	 */
+	void writeTo(final OutputStream os) throws IOException {
+		if (file == null) {
+			memory.writeTo(os);
+			return;
+		}
+		
+		final InputStream is = new FileInputStream(file);
+		
+		try {
+			final byte[] buf = new byte[64 * 1024];
+			int len;
+			
+			while ((len = is.read(buf)) != -1)
+				os.write(buf, 0, len);
+		} finally {
+			is.close();
+		}
+	}
+	
+	/**
+	 * Deletes the temporary file, if any.
+	 */
+	void dispose() {
+		try {
+			close();
+		} catch (IOException e) {
+			// Ignore, the file is deleted anyway
+		}
+		
+		memory.reset();
+		
+		if (file != null) {
+			file.delete();
+			file = null;
+		}
+	}
+	
+	private void spill() throws IOException {
+		file = File.createTempFile("session-entry", ".tmp");
+		file.deleteOnExit();
+		fileStream = new BufferedOutputStream(new FileOutputStream(file), 64 * 1024);
+		memory.writeTo(fileStream);
+		memory.reset();
+	}
+}
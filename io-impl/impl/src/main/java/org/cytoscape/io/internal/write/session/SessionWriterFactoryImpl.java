@@ -25,6 +25,7 @@ package org.cytoscape.io.internal.write.session;
  */
 
 import java.io.OutputStream;
+import java.util.Properties;
 
 import org.cytoscape.io.CyFileFilter;
 import org.cytoscape.io.internal.util.GroupUtil;
@@ -36,13 +37,22 @@ import org.cytoscape.io.write.CyTableWriterManager;
 import org.cytoscape.io.write.CyWriter;
 import org.cytoscape.io.write.VizmapWriterManager;
 import org.cytoscape.model.subnetwork.CyRootNetworkManager;
+import org.cytoscape.property.CyProperty;
+import org.cytoscape.service.util.CyServiceRegistrar;
 import org.cytoscape.session.CySession;
 
 public class SessionWriterFactoryImpl extends AbstractCyWriterFactory implements CySessionWriterFactory {
 	
+	/**
+	 * If "true" in cytoscape3.props, tables are saved in the binary format, which is faster to read and write,
+	 * but cannot be read by Cytoscape versions that only know CyCSV.
+	 */
+	public static final String BINARY_TABLES_PROPERTY = "session.binaryTables";
+	
 	private final CyFileFilter bookmarksFilter;
 	private final CyFileFilter propertiesFilter;
 	private final CyFileFilter tableFilter;
+	private final CyFileFilter binaryTableFilter;
 	private final CyFileFilter vizmapFilter;
 	private final CyNetworkViewWriterFactory networkViewWriterFactory;
 	private final CyRootNetworkManager rootNetworkManager;
@@ -50,6 +60,7 @@ public class SessionWriterFactoryImpl extends AbstractCyWriterFactory implements
 	private final CyTableWriterManager tableWriterMgr;
 	private final VizmapWriterManager vizmapWriterMgr;
 	private final GroupUtil groupUtil;
+	private final CyServiceRegistrar serviceRegistrar;
 
 	private OutputStream outputStream;
 	private CySession session;
@@ -59,17 +70,20 @@ public class SessionWriterFactoryImpl extends AbstractCyWriterFactory implements
 	                                final CyFileFilter bookmarksFilter, 
 	                                final CyFileFilter propertiesFilter,
 	                                final CyFileFilter tableFilter,
+	                                final CyFileFilter binaryTableFilter,
 	                                final CyFileFilter vizmapFilter,
 	                                final CyNetworkViewWriterFactory networkViewWriterFactory,
 	                                final CyRootNetworkManager rootNetworkManager,
 	                                final CyPropertyWriterManager propertyWriterMgr,
 	                                final CyTableWriterManager tableWriterMgr,
 	                                final VizmapWriterManager vizmapWriterMgr,
-	                                final GroupUtil groupUtil) {
+	                                final GroupUtil groupUtil,
+	                                final CyServiceRegistrar serviceRegistrar) {
 		super(thisFilter);
 		this.bookmarksFilter = bookmarksFilter;
 		this.propertiesFilter = propertiesFilter;
 		this.tableFilter = tableFilter;
+		this.binaryTableFilter = binaryTableFilter;
 		this.vizmapFilter = vizmapFilter;
 		this.networkViewWriterFactory = networkViewWriterFactory;
 		this.rootNetworkManager = rootNetworkManager;
@@ -77,13 +91,22 @@ public class SessionWriterFactoryImpl extends AbstractCyWriterFactory implements
 		this.tableWriterMgr = tableWriterMgr;
 		this.vizmapWriterMgr = vizmapWriterMgr;
 		this.groupUtil = groupUtil;
+		this.serviceRegistrar = serviceRegistrar;
 	}
 	
 	@Override
 	public CyWriter createWriter(OutputStream outputStream, CySession session) {
 		return new SessionWriterImpl(outputStream, session, rootNetworkManager, propertyWriterMgr, tableWriterMgr,
-				vizmapWriterMgr, networkViewWriterFactory, bookmarksFilter, propertiesFilter, tableFilter, vizmapFilter,
-				groupUtil);
+				vizmapWriterMgr, networkViewWriterFactory, bookmarksFilter, propertiesFilter,
+				useBinaryTables() ? binaryTableFilter : tableFilter, vizmapFilter, groupUtil);
+	}
+	
+	@SuppressWarnings("unchecked")
+	private boolean useBinaryTables() {
+		final CyProperty<Properties> cyProperty =
+				serviceRegistrar.getService(CyProperty.class, "(cyPropertyName=cytoscape3.props)");
+		
+		return cyProperty != null && Boolean.parseBoolean(cyProperty.getProperties().getProperty(BINARY_TABLES_PROPERTY));
 	}
 
 }
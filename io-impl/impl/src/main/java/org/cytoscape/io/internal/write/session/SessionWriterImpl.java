@@ -41,13 +41,21 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.Deflater;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
@@ -78,6 +86,12 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Write session states into files and zip them into one session file "*.cys".
+ * <p>
+ * The entries are serialized concurrently, each one into its own {@link SessionEntryBuffer}, and then
+ * copied into the zip file by the task thread, in the order in which they were added. So the session
+ * file is the same no matter which entry finishes first. Only a few entries are serialized ahead of
+ * the one being zipped, to limit the memory and temporary files taken by the buffers. How each entry
+ * is compressed is decided by {@link EntryCompression}.
  *
  * @see org.cytoscape.io.internal.read.session.Cy2SessionReaderImpl
  * @see org.cytoscape.io.internal.read.session.Cy3SessionReaderImpl
@@ -89,10 +103,41 @@ public class SessionWriterImpl extends AbstractTask implements CyWriter {
 	// Name of CySession file.
 	private static final String VIZMAP_FILE = "session_vizmap.xml";
 	
+	/**
+	 * How an entry of the session file is compressed.
+	 */
+	enum EntryCompression {
+		/** For content that is already compressed, such as images or archives saved by apps. */
+		STORE,
+		/** For large entries, which would otherwise take most of the compression time. */
+		FAST,
+		DEFAULT;
+		
+		/** Entries of at least this size are compressed with {@link #FAST}. */
+		static final long LARGE_ENTRY_SIZE = 16 * 1024 * 1024;
+		
+		private static final String[] COMPRESSED_EXTENSIONS = {
+			".png", ".jpg", ".jpeg", ".gif", ".zip", ".gz", ".jar", ".cys"
+		};
+		
+		static EntryCompression forEntry(final String entryName, final long size) {
+			final String name = entryName.toLowerCase(Locale.US);
+			
+			for (final String ext : COMPRESSED_EXTENSIONS) {
+				if (name.endsWith(ext))
+					return STORE;
+			}
+			
+			return size >= LARGE_ENTRY_SIZE ? FAST : DEFAULT;
+		}
+	}
+	
 	private final String cysessionDocId;
 	private final String sessionDir;
 	private ZipOutputStream zos; 
-	private TaskMonitor taskMonitor;
+	private ExecutorService executor;
+	private int threads;
+	private final List<PendingEntry> pendingEntries = new ArrayList<PendingEntry>();
 
 	private final OutputStream outputStream;
 	private final CySession session;
@@ -154,12 +199,23 @@ public class SessionWriterImpl extends AbstractTask implements CyWriter {
 	 */
 	@Override
 	public void run(TaskMonitor tm) throws Exception {
-		this.taskMonitor = tm;
-		
 		try {
 			init(tm);
 			write(tm);
+			zipEntries(tm);
 		} finally {
+			if (executor != null) {
+				// Otherwise disposing the entries that never started would wait for them forever
+				for (final Runnable notStarted : executor.shutdownNow())
+					((Future<?>) notStarted).cancel(false);
+			}
+			
+			// Entries that have not been zipped yet, because of an error or cancellation
+			for (final PendingEntry entry : pendingEntries)
+				entry.dispose();
+			
+			pendingEntries.clear();
+			
 			try {
 				if (zos != null)
 					zos.close();
@@ -177,55 +233,135 @@ public class SessionWriterImpl extends AbstractTask implements CyWriter {
 		tm.setStatusMessage("Preparing...");
 		
 		zos = new ZipOutputStream(outputStream);
+		threads = Runtime.getRuntime().availableProcessors();
+		executor = Executors.newFixedThreadPool(threads);
 		prepareGroups(); // Groups require specific metadata
 	}
 	
+	/**
+	 * Adds all entries. They are serialized and zipped by {@link #zipEntries(TaskMonitor)}.
+	 */
 	private void write(TaskMonitor tm) throws Exception {
+		tm.setStatusMessage("Preparing session entries...");
 		zipVersion();
-		tm.setProgress(0.1);
 		
 		if (cancelled) return;
 		
-		tm.setStatusMessage("Saving networks...");
 		zipNetworks();
-		tm.setProgress(0.3);
 		
 		if (cancelled) return;
 		
-		tm.setStatusMessage("Saving network views...");
 		zipNetworkViews();
-		tm.setProgress(0.4);
 		
 		if (cancelled) return;
 		
-		tm.setStatusMessage("Saving tables...");
 		zipTables();
-		tm.setProgress(0.5);
 		
 		if (cancelled) return;
 		
-		tm.setStatusMessage("Saving table properties...");
 		zipTableProperties();
-		tm.setProgress(0.6);
 		
 		if (cancelled) return;
 		
-		tm.setStatusMessage("Saving visual styles...");
 		zipVizmap();
-		tm.setProgress(0.7);
 		
 		if (cancelled) return;
 		
-		tm.setStatusMessage("Saving Cytoscape properties...");
 		zipProperties();
-		tm.setProgress(0.8);
 		
 		if (cancelled) return;
 		
 		zipFileListMap();
+	}
+	
+	/**
+	 * Copies the serialized entries into the zip file, in the order in which they were added,
+	 * each one as soon as it is ready.
+	 */
+	private void zipEntries(TaskMonitor tm) throws Exception {
+		final int total = pendingEntries.size();
+		int submitted = 0;
+		
+		for (int i = 0; i < total; i++) {
+			if (cancelled) return;
+			
+			// Limit the number of entries kept in memory
+			while (submitted < total && submitted < i + 2 * threads)
+				submit(pendingEntries.get(submitted++));
+			
+			final PendingEntry entry = pendingEntries.get(i);
+			tm.setStatusMessage(entry.statusMessage);
+			tm.setProgress(0.1 + 0.8 * i / total);
+			
+			final SessionEntryBuffer buffer;
+			
+			try {
+				buffer = entry.future.get();
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof Exception)
+					throw (Exception) e.getCause();
+				
+				throw e;
+			}
+			
+			final ZipEntry zipEntry = new ZipEntry(entry.name);
+			
+			switch (EntryCompression.forEntry(entry.name, buffer.getSize())) {
+				case STORE:
+					zipEntry.setMethod(ZipEntry.STORED);
+					zipEntry.setSize(buffer.getSize());
+					zipEntry.setCompressedSize(buffer.getSize());
+					zipEntry.setCrc(buffer.getCrc());
+					break;
+				case FAST:
+					zos.setLevel(Deflater.BEST_SPEED);
+					break;
+				default:
+					zos.setLevel(Deflater.DEFAULT_COMPRESSION);
+					break;
+			}
+			
+			zos.putNextEntry(zipEntry);
+			buffer.writeTo(zos);
+			zos.closeEntry();
+			buffer.dispose();
+		}
+		
 		tm.setProgress(0.9);
 	}
 	
+	/**
+	 * Adds an entry to the session file. It is serialized later, see {@link #zipEntries(TaskMonitor)}.
+	 * @param name the full name of the zip entry
+	 * @param statusMessage shown while the entry is being zipped
+	 * @param writer writes the entry's content, or null if the entry is empty
+	 */
+	private void addEntry(final String name, final String statusMessage, final EntryWriter writer) {
+		pendingEntries.add(new PendingEntry(name, statusMessage, writer));
+	}
+	
+	/**
+	 * Starts serializing an entry on the thread pool.
+	 */
+	private void submit(final PendingEntry entry) {
+		final SessionEntryBuffer buffer = entry.buffer;
+		final EntryWriter writer = entry.writer;
+		
+		entry.future = executor.submit(new Callable<SessionEntryBuffer>() {
+			@Override
+			public SessionEntryBuffer call() throws Exception {
+				try {
+					if (writer != null && !cancelled)
+						writer.write(buffer);
+				} finally {
+					buffer.close();
+				}
+				
+				return buffer;
+			}
+		});
+	}
+	
 	private void complete(TaskMonitor tm) {
 		if (cancelled) return;
 		
@@ -240,30 +376,29 @@ public class SessionWriterImpl extends AbstractTask implements CyWriter {
 	 * Writes the version file, which has no content. The file name itself gives the CYS version.
 	 */
 	private void zipVersion() throws Exception {
-		zos.putNextEntry(new ZipEntry(sessionDir + CYS_VERSION + VERSION_EXT));
-		zos.closeEntry();
+		addEntry(sessionDir + CYS_VERSION + VERSION_EXT, "Saving version...", null);
 	}
 	
 	/**
 	 * Writes the vizmap.props file to the session zip.
 	 */
 	private void zipVizmap() throws Exception {
-		Set<VisualStyle> styles = session.getVisualStyles();
-
-		zos.putNextEntry(new ZipEntry(sessionDir + VIZMAP_FILE) );
-
-		CyWriter vizmapWriter = vizmapWriterMgr.getWriter(styles, vizmapFilter, zos);
-		vizmapWriter.run(taskMonitor);
+		final Set<VisualStyle> styles = session.getVisualStyles();
 
-		zos.closeEntry();
-		vizmapWriter = null;
+		addEntry(sessionDir + VIZMAP_FILE, "Saving visual styles...", new EntryWriter() {
+			@Override
+			public void write(OutputStream os) throws Exception {
+				CyWriter vizmapWriter = vizmapWriterMgr.getWriter(styles, vizmapFilter, os);
+				vizmapWriter.run(entryTaskMonitor);
+			}
+		});
 	}
 
 	/**
 	 * Writes the cytoscape.props file to the session zip.
 	 */
 	private void zipProperties() throws Exception {
-		for (CyProperty<?> cyProps : session.getProperties()) {
+		for (final CyProperty<?> cyProps : session.getProperties()) {
 			if (cancelled) return;
 			
 			String filename = null;
@@ -283,13 +418,15 @@ public class SessionWriterImpl extends AbstractTask implements CyWriter {
 				continue;
 			}
 			
-			zos.putNextEntry(new ZipEntry(sessionDir + PROPERTIES_FOLDER + filename));
+			final CyFileFilter propertiesFilter = filter;
 			
-			CyWriter propertiesWriter = propertyWriterMgr.getWriter(cyProps.getProperties(), filter, zos);
-			propertiesWriter.run(taskMonitor);
-	
-			zos.closeEntry();
-			propertiesWriter = null;
+			addEntry(sessionDir + PROPERTIES_FOLDER + filename, "Saving Cytoscape properties...", new EntryWriter() {
+				@Override
+				public void write(OutputStream os) throws Exception {
+					CyWriter propertiesWriter = propertyWriterMgr.getWriter(cyProps.getProperties(), propertiesFilter, os);
+					propertiesWriter.run(entryTaskMonitor);
+				}
+			});
 		}
 	}
 
@@ -309,17 +446,18 @@ public class SessionWriterImpl extends AbstractTask implements CyWriter {
 				rootNetworks.add(rn);
 		}
 		
-		for (CyRootNetwork rn : rootNetworks) {
+		for (final CyRootNetwork rn : rootNetworks) {
 			if (cancelled) return;
 			
 			String xgmmlFile = SessionUtil.getXGMMLFilename(rn);if (xgmmlFile.contains("_ERROR")) throw new Exception("Simulating exception...");
-			zos.putNextEntry(new ZipEntry(sessionDir + NETWORKS_FOLDER + xgmmlFile) );
 			
-			CyWriter writer = networkViewWriterFactory.createWriter(zos, rn);
-			writer.run(taskMonitor);
-	
-			zos.closeEntry();
-			writer = null;
+			addEntry(sessionDir + NETWORKS_FOLDER + xgmmlFile, "Saving networks...", new EntryWriter() {
+				@Override
+				public void write(OutputStream os) throws Exception {
+					CyWriter writer = networkViewWriterFactory.createWriter(os, rn);
+					writer.run(entryTaskMonitor);
+				}
+			});
 		}
 	}
 	
@@ -334,13 +472,14 @@ public class SessionWriterImpl extends AbstractTask implements CyWriter {
 			if (cancelled) return;
 			
 			String xgmmlFile = SessionUtil.getXGMMLFilename(view);
-			zos.putNextEntry(new ZipEntry(sessionDir + NETWORK_VIEWS_FOLDER + xgmmlFile) );
 			
-			CyWriter writer = networkViewWriterFactory.createWriter(zos, view);
-			writer.run(taskMonitor);
-	
-			zos.closeEntry();
-			writer = null;
+			addEntry(sessionDir + NETWORK_VIEWS_FOLDER + xgmmlFile, "Saving network views...", new EntryWriter() {
+				@Override
+				public void write(OutputStream os) throws Exception {
+					CyWriter writer = networkViewWriterFactory.createWriter(os, view);
+					writer.run(entryTaskMonitor);
+				}
+			});
 		}
 	}
 
@@ -355,7 +494,6 @@ public class SessionWriterImpl extends AbstractTask implements CyWriter {
 
 		// now write any files to the zip files
 		if ((appFileMap != null) && (appFileMap.size() > 0)) {
-			byte[] buf = new byte[5000];
 			Set<String> appSet = appFileMap.keySet();
 		
 			for (String appName : appSet) {
@@ -364,23 +502,29 @@ public class SessionWriterImpl extends AbstractTask implements CyWriter {
 				if ((theFileList == null) || (theFileList.size() == 0))
 					continue;
 	
-				for (File theFile : theFileList) {
+				for (final File theFile : theFileList) {
 					if (cancelled) return;
 					
 					if ((theFile == null) || (!theFile.exists()))
 						continue;
 	
-					zos.putNextEntry(new ZipEntry( sessionDir + APPS_FOLDER + appName + 
-					                               "/" + theFile.getName() ) );
-
-					// copy the file contents to the zip output stream
-					FileInputStream fileIS = new FileInputStream(theFile);
-					int numRead = 0;
-			        while ((numRead = fileIS.read(buf)) > -1)
-		            	zos.write(buf, 0, numRead);
-					fileIS.close();
-
-					zos.closeEntry();
+					addEntry(sessionDir + APPS_FOLDER + appName + "/" + theFile.getName(), "Saving app files...",
+							new EntryWriter() {
+						@Override
+						public void write(OutputStream os) throws Exception {
+							// copy the file contents to the entry
+							byte[] buf = new byte[5000];
+							FileInputStream fileIS = new FileInputStream(theFile);
+							
+							try {
+								int numRead = 0;
+								while ((numRead = fileIS.read(buf)) > -1)
+									os.write(buf, 0, numRead);
+							} finally {
+								fileIS.close();
+							}
+						}
+					});
 				}
 			}
 		}
@@ -389,11 +533,13 @@ public class SessionWriterImpl extends AbstractTask implements CyWriter {
 	private void zipTables() throws Exception {
 		tableFilenamesBySUID = new HashMap<Long, String>();
 		Set<CyTableMetadata> tableData = session.getTables();
+		// The table filter decides the format, CyCSV or binary
+		final String tableExt = "." + tableFilter.getExtensions().iterator().next();
 		
 		for (CyTableMetadata metadata : tableData) {
 			if (cancelled) return;
 			
-			CyTable table = metadata.getTable();
+			final CyTable table = metadata.getTable();
 			
 			if (table.getSavePolicy() != SavePolicy.SESSION_FILE)
 				continue;
@@ -403,34 +549,95 @@ public class SessionWriterImpl extends AbstractTask implements CyWriter {
 			CyNetwork network = metadata.getNetwork();
 			
 			if (network == null) {
-				filename = String.format("global/%d-%s.cytable", table.getSUID(), tableTitle);
+				filename = String.format("global/%d-%s%s", table.getSUID(), tableTitle, tableExt);
 			} else {
-				filename = SessionUtil.getNetworkTableFilename(network, metadata);
+				filename = SessionUtil.getNetworkTableFilename(network, metadata, tableExt);
 			}
 			
 			tableFilenamesBySUID.put(table.getSUID(), filename);
-			zos.putNextEntry(new ZipEntry(sessionDir + TABLES_FOLDER + filename));
 			
-			try {
-				CyWriter writer = tableWriterMgr.getWriter(table, tableFilter, zos);
-				writer.run(taskMonitor);
-			} finally {
-				zos.closeEntry();
-			}
+			addEntry(sessionDir + TABLES_FOLDER + filename, "Saving tables...", new EntryWriter() {
+				@Override
+				public void write(OutputStream os) throws Exception {
+					CyWriter writer = tableWriterMgr.getWriter(table, tableFilter, os);
+					writer.run(entryTaskMonitor);
+				}
+			});
 		}
 	}
 	
 	private void zipTableProperties() throws Exception {
-		zos.putNextEntry(new ZipEntry(sessionDir + TABLES_FOLDER + CYTABLE_STATE_FILE));
-		try {
-			CyTablesXMLWriter writer = new CyTablesXMLWriter(session.getTables(), tableFilenamesBySUID, zos);
-			writer.run(taskMonitor);
-		} finally {
-			zos.closeEntry();
-		}
+		final Map<Long, String> tableFilenames = tableFilenamesBySUID;
+		
+		addEntry(sessionDir + TABLES_FOLDER + CYTABLE_STATE_FILE, "Saving table properties...", new EntryWriter() {
+			@Override
+			public void write(OutputStream os) throws Exception {
+				CyTablesXMLWriter writer = new CyTablesXMLWriter(session.getTables(), tableFilenames, os);
+				writer.run(entryTaskMonitor);
+			}
+		});
 	}
 	
 	private void prepareGroups() {
 		groupUtils.prepareGroupsForSerialization(session.getNetworks());
 	}
+	
+	/**
+	 * Writes the content of one session file entry.
+	 */
+	private interface EntryWriter {
+		void write(OutputStream os) throws Exception;
+	}
+	
+	/**
+	 * An entry that has been added to the session file, but not zipped yet.
+	 */
+	private static final class PendingEntry {
+		
+		final String name;
+		final String statusMessage;
+		final EntryWriter writer;
+		final SessionEntryBuffer buffer = new SessionEntryBuffer();
+		/** Null until the entry is submitted to the thread pool. */
+		Future<SessionEntryBuffer> future;
+		
+		PendingEntry(final String name, final String statusMessage, final EntryWriter writer) {
+			this.name = name;
+			this.statusMessage = statusMessage;
+			this.writer = writer;
+		}
+		
+		/**
+		 * Waits until the entry is no longer being written, and releases its buffer.
+		 */
+		void dispose() {
+			if (future != null) {
+				try {
+					future.get();
+				} catch (Exception e) {
+					// Cancelled or failed, the buffer is released anyway
+				}
+			}
+			
+			buffer.dispose();
+		}
+	}
+	
+	/**
+	 * Entries are written concurrently, so they don't report their progress.
+	 */
+	private final TaskMonitor entryTaskMonitor = new TaskMonitor() {
+		@Override
+		public void setTitle(String title) {
+		}
+		@Override
+		public void setProgress(double progress) {
+		}
+		@Override
+		public void setStatusMessage(String statusMessage) {
+		}
+		@Override
+		public void showMessage(TaskMonitor.Level level, String message) {
+		}
+	};
 }
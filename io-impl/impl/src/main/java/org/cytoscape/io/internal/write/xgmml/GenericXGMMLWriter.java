@@ -28,18 +28,25 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
+import java.nio.charset.Charset;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.Deque;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import org.cytoscape.io.internal.read.xgmml.ObjectTypeMap;
 import org.cytoscape.io.internal.util.GroupUtil;
@@ -75,6 +82,12 @@ import org.slf4j.LoggerFactory;
 
 /**
  * This writer serializes CyNetworks and CyNetworkViews as standard XGMML files.
+ * <p>
+ * The document is built in memory buffers, which escape values and format numbers in place. Node and edge
+ * elements that do not contain nested graphs are independent from each other, so large numbers of them are
+ * written on the common fork-join pool, in chunks that are then concatenated in document order. The output
+ * does not depend on the number of threads; setting the {@link #PARALLEL_PROPERTY} system property to "false"
+ * writes everything on the calling thread, which is useful to compare the output of both modes.
  */
 public class GenericXGMMLWriter extends AbstractTask implements CyWriter {
 
@@ -98,6 +111,12 @@ public class GenericXGMMLWriter extends AbstractTask implements CyWriter {
     protected static final String REFERENCE = "reference";
 
     public static final String ENCODE_PROPERTY = "cytoscape.encode.xgmml.attributes";
+    public static final String PARALLEL_PROPERTY = "cytoscape.xgmml.parallel";
+
+    /** Number of characters buffered before they are written to the output stream */
+    private static final int FLUSH_SIZE = 64 * 1024;
+    /** Number of elements written by a thread at a time */
+    private static final int CHUNK_SIZE = 1000;
 
     protected final OutputStream outputStream;
     protected final CyNetwork network;
@@ -112,15 +131,21 @@ public class GenericXGMMLWriter extends AbstractTask implements CyWriter {
     protected final RenderingEngineManager renderingEngineMgr;
     private final GroupUtil groupUtil;
 
-    protected final Map<CyNode, CyNode> writtenNodeMap = new WeakHashMap<CyNode, CyNode>();
-    protected final Map<CyEdge, CyEdge> writtenEdgeMap = new WeakHashMap<CyEdge, CyEdge>();
-    protected final Map<CyNetwork, CyNetwork> writtenNetMap = new WeakHashMap<CyNetwork, CyNetwork>();
+    // Synchronized, because they are updated by the threads that write node and edge chunks
+    protected final Map<CyNode, CyNode> writtenNodeMap =
+            Collections.synchronizedMap(new WeakHashMap<CyNode, CyNode>());
+    protected final Map<CyEdge, CyEdge> writtenEdgeMap =
+            Collections.synchronizedMap(new WeakHashMap<CyEdge, CyEdge>());
+    protected final Map<CyNetwork, CyNetwork> writtenNetMap =
+            Collections.synchronizedMap(new WeakHashMap<CyNetwork, CyNetwork>());
 
-    protected int depth = 0;
-    private String indentString = "";
     private Writer writer;
+    private XGMMLBuffer buffer;
+    /** The buffer of the chunk that the current thread is writing, if any */
+    private final ThreadLocal<XGMMLBuffer> chunkBuffer = new ThreadLocal<XGMMLBuffer>();
 
     private boolean doFullEncoding;
+    private final boolean parallel;
     
     final static private Logger logger = LoggerFactory.getLogger(GenericXGMMLWriter.class);
 
@@ -163,11 +188,8 @@ public class GenericXGMMLWriter extends AbstractTask implements CyWriter {
             this.subNetworks = new HashSet<CySubNetwork>();
         }
         
-        // Create our indent string (480 blanks);
-        for (int i = 0; i < 20; i++)
-            indentString += "                        ";
-        
         doFullEncoding = Boolean.valueOf(System.getProperty(ENCODE_PROPERTY, "true"));
+        parallel = Boolean.valueOf(System.getProperty(PARALLEL_PROPERTY, "true"));
     }
 
     @Override
@@ -177,7 +199,7 @@ public class GenericXGMMLWriter extends AbstractTask implements CyWriter {
 
         writeRootElement();
         taskMonitor.setProgress(0.2);
-        depth++;
+        increaseDepth();
         
         writeMetadata();
         taskMonitor.setProgress(0.3);
@@ -190,12 +212,14 @@ public class GenericXGMMLWriter extends AbstractTask implements CyWriter {
         
         writeEdges();
         taskMonitor.setProgress(0.8);
-        depth--;
+        decreaseDepth();
         
         // Wwrite final tag
         writeElement("</graph>\n");
 
+        buffer.flush();
         writer.flush();
+        
         taskMonitor.setProgress(1.0);
 
         // Clean up the group stuff a little
@@ -205,7 +229,8 @@ public class GenericXGMMLWriter extends AbstractTask implements CyWriter {
     }
     
     protected void init(TaskMonitor tm) {
-        writer = new OutputStreamWriter(outputStream);
+        writer = new OutputStreamWriter(outputStream, Charset.forName(ENCODING));
+        buffer = new XGMMLBuffer(writer, FLUSH_SIZE, doFullEncoding, 0);
         prepareGroupsForSerialization();
     }
     
@@ -255,7 +280,7 @@ public class GenericXGMMLWriter extends AbstractTask implements CyWriter {
      */
     protected void writeMetadata() throws IOException {
         writeElement("<att name=\"networkMetadata\">\n");
-        depth++;
+        increaseDepth();
         
         // Write RDF
         String title = networkView != null ? getLabel(networkView) : getLabel(network, network);
@@ -263,9 +288,9 @@ public class GenericXGMMLWriter extends AbstractTask implements CyWriter {
         DateFormat df = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
         
         writeElement("<rdf:RDF>\n");
-        depth++;
+        increaseDepth();
         writeElement("<rdf:Description rdf:about=\"http://www.cytoscape.org/\">\n");
-        depth++;
+        increaseDepth();
         writeElement("<dc:type>Protein-Protein Interaction</dc:type>\n");
         writeElement("<dc:description>N/A</dc:description>\n");
         writeElement("<dc:identifier>N/A</dc:identifier>\n");
@@ -273,12 +298,12 @@ public class GenericXGMMLWriter extends AbstractTask implements CyWriter {
         writeElement("<dc:title>" + title + "</dc:title>\n");
         writeElement("<dc:source>http://www.cytoscape.org/</dc:source>\n");
         writeElement("<dc:format>Cytoscape-XGMML</dc:format>\n");
-        depth--;
+        decreaseDepth();
         writeElement("</rdf:Description>\n");
-        depth--;
+        decreaseDepth();
         writeElement("</rdf:RDF>\n");
         
-        depth--;
+        decreaseDepth();
         writeElement("</att>\n");
     }
 
@@ -312,7 +337,7 @@ public class GenericXGMMLWriter extends AbstractTask implements CyWriter {
                 writtenNetMap.put(net, net);
                 
                 writeElement("<att>\n");
-                depth++;
+                increaseDepth();
                 writeElement("<graph");
                 // Always write the network ID
                 writeAttributePair("id", net.getSUID());
@@ -320,7 +345,7 @@ public class GenericXGMMLWriter extends AbstractTask implements CyWriter {
                 writeAttributePair("label", getLabel(net, net));
                 writeAttributePair("cy:registered", ObjectTypeMap.toXGMMLBoolean(isRegistered(net)));
                 write(">\n");
-                depth++;
+                increaseDepth();
         
                 writeAttributes(net.getRow(net));
                 writeAttributes(net.getRow(net, CyNetwork.HIDDEN_ATTRS));
@@ -330,9 +355,9 @@ public class GenericXGMMLWriter extends AbstractTask implements CyWriter {
                 for (CyEdge childEdge : net.getEdgeList())
                     writeEdge(net, childEdge);
         
-                depth--;
+                decreaseDepth();
                 writeElement("</graph>\n");
-                depth--;
+                decreaseDepth();
                 writeElement("</att>\n");
             }
         }
@@ -354,11 +379,11 @@ public class GenericXGMMLWriter extends AbstractTask implements CyWriter {
         }
         
         writeElement("<att>\n");
-        depth++;
+        increaseDepth();
         writeElement("<graph");
         writeAttributePair("xlink:href", href);
         write("/>\n");
-        depth--;
+        decreaseDepth();
         writeElement("</att>\n");
     }
 
@@ -367,6 +392,7 @@ public class GenericXGMMLWriter extends AbstractTask implements CyWriter {
      * @throws IOException
      */
     protected void writeNodes() throws IOException {
+        List<CyNode> nodes = new ArrayList<CyNode>();
         List<CyNode> pointerNodes = new ArrayList<CyNode>();
 
         for (CyNode node : network.getNodeList()) {
@@ -379,8 +405,15 @@ public class GenericXGMMLWriter extends AbstractTask implements CyWriter {
 
             // Only if not already written inside a nested graph
             if (!writtenNodeMap.containsKey(node))
-                writeNode(network, node);
+                nodes.add(node);
         }
+        
+        writeInChunks(nodes, new ElementWriter<CyNode>() {
+            @Override
+            public void write(CyNode node) throws IOException {
+                writeNode(network, node);
+            }
+        });
 
         for (CyNode node : pointerNodes) {
             if (!writtenNodeMap.containsKey(node))
@@ -402,11 +435,20 @@ public class GenericXGMMLWriter extends AbstractTask implements CyWriter {
      * @throws IOException
      */
     protected void writeEdges() throws IOException {
+        List<CyEdge> edges = new ArrayList<CyEdge>();
+        
         for (CyEdge edge : network.getEdgeList()) {
             // Only if not already written inside a nested graph
             if (!writtenEdgeMap.containsKey(edge))
-                writeEdge(network, edge);
+                edges.add(edge);
         }
+        
+        writeInChunks(edges, new ElementWriter<CyEdge>() {
+            @Override
+            public void write(CyEdge edge) throws IOException {
+                writeEdge(network, edge);
+            }
+        });
 
         // Now, output hidden edges groups.  
         // For collapsed groups, we need to output external edges,
@@ -449,7 +491,7 @@ public class GenericXGMMLWriter extends AbstractTask implements CyWriter {
             writeAttributePair("id", node.getSUID());
             writeAttributePair("label", getLabel(net, node));
             write(">\n");
-            depth++;
+            increaseDepth();
             
             // Output the node attributes
             writeAttributes(net.getRow(node));
@@ -465,7 +507,7 @@ public class GenericXGMMLWriter extends AbstractTask implements CyWriter {
             if (networkView != null && network.containsNode(node))
                 writeGraphics(networkView.getNodeView(node), false);
             
-            depth--;
+            decreaseDepth();
             writeElement("</node>\n");
         }
     }
@@ -495,7 +537,7 @@ public class GenericXGMMLWriter extends AbstractTask implements CyWriter {
             writeAttributePair("cy:directed",  ObjectTypeMap.toXGMMLBoolean(edge.isDirected()));
             
             write(">\n");
-            depth++;
+            increaseDepth();
 
             // Write the edge attributes
             writeAttributes(getRowFromNetOrRoot(net, edge, null));
@@ -505,7 +547,7 @@ public class GenericXGMMLWriter extends AbstractTask implements CyWriter {
             if (networkView != null)
                 writeGraphics(networkView.getEdgeView(edge), false);
 
-            depth--;
+            decreaseDepth();
             writeElement("</edge>\n");
         }
     }
@@ -592,7 +634,7 @@ public class GenericXGMMLWriter extends AbstractTask implements CyWriter {
             write("/>\n");
         } else {
             write(">\n");
-            depth++;
+            increaseDepth();
             
             // write Cy3-specific properties 
             for (VisualProperty vp : attProperties) {
@@ -611,17 +653,17 @@ public class GenericXGMMLWriter extends AbstractTask implements CyWriter {
             // serialize locked properties as <att> tags inside <graphics>
             if (!lockedProperties.isEmpty()) {
                 writeAttributeXML("lockedVisualProperties", ObjectType.LIST, null, false, false);
-                depth++;
+                increaseDepth();
                 
                 for (VisualProperty vp : lockedProperties) {
                     writeVisualPropertyAtt(view, vp);
                 }
                 
-                depth--;
+                decreaseDepth();
                 writeElement("</att>\n");
             }
             
-            depth--;
+            decreaseDepth();
             writeElement("</graphics>\n");
         }
     }
@@ -758,7 +800,7 @@ public class GenericXGMMLWriter extends AbstractTask implements CyWriter {
             writeAttributeXML(attName, ObjectType.LIST, elementType, null, hidden, false);
 
             if (listAttr != null) {
-                depth++;
+                increaseDepth();
                 // iterate through the list
                 for (Object obj : listAttr) {
                     String sAttr = null;
@@ -776,7 +818,7 @@ public class GenericXGMMLWriter extends AbstractTask implements CyWriter {
                     // set child attribute value & label
                     writeAttributeXML(attName, getObjectType(obj), sAttr, hidden, true);
                 }
-                depth--;
+                decreaseDepth();
             }
             
             writeAttributeXML(null, null, null, hidden, true);
@@ -842,7 +884,7 @@ public class GenericXGMMLWriter extends AbstractTask implements CyWriter {
      * @throws IOException
      */
     protected void write(String str) throws IOException {
-        writer.write(str);
+        getBuffer().write(str);
     }
     
     /**
@@ -853,7 +895,7 @@ public class GenericXGMMLWriter extends AbstractTask implements CyWriter {
      * @throws IOException
      */
     protected void writeAttributePair(String name, Object value) throws IOException {
-        write(" " + name + "=" + quote(value.toString()));
+        getBuffer().writeAttributePair(name, value);
     }
 
     /**
@@ -863,10 +905,117 @@ public class GenericXGMMLWriter extends AbstractTask implements CyWriter {
      * @throws IOException
      */
     protected void writeElement(String line) throws IOException {
-        while (depth * 2 > indentString.length() - 1)
-            indentString = indentString + "                        ";
-        writer.write(indentString, 0, depth * 2);
-        writer.write(line);
+        getBuffer().writeElement(line);
+    }
+
+    /**
+     * Increases the indentation of the following elements.
+     */
+    protected void increaseDepth() {
+        getBuffer().increaseDepth();
+    }
+
+    /**
+     * Decreases the indentation of the following elements.
+     */
+    protected void decreaseDepth() {
+        getBuffer().decreaseDepth();
+    }
+
+    private XGMMLBuffer getBuffer() {
+        final XGMMLBuffer b = chunkBuffer.get();
+        
+        return b != null ? b : buffer;
+    }
+
+    /**
+     * Writes an element, such as a node, an edge or one of their views.
+     */
+    protected interface ElementWriter<T> {
+        void write(T element) throws IOException;
+    }
+
+    /**
+     * Writes the elements in order. If there are enough of them, they are split into chunks that are written by
+     * several threads into separate buffers, which are then appended to the output in order.
+     * <p>
+     * Only use it for elements that are written independently from each other: the writer must not write nested
+     * graphs, because they would change which elements have already been written.
+     */
+    protected <T> void writeInChunks(final List<T> elements, final ElementWriter<T> elementWriter)
+            throws IOException {
+        if (!parallel || elements.size() < 2 * CHUNK_SIZE) {
+            for (T element : elements)
+                elementWriter.write(element);
+            
+            return;
+        }
+        
+        // The common pool is shared by all writers, so that session files, which write many networks at once,
+        // do not start a pool of their own for each of them
+        final ForkJoinPool executor = ForkJoinPool.commonPool();
+        final int threads = executor.getParallelism();
+        
+        final int depth = getBuffer().getDepth();
+        final Deque<Future<XGMMLBuffer>> pendingChunks = new ArrayDeque<Future<XGMMLBuffer>>();
+        
+        try {
+            for (int start = 0; start < elements.size(); start += CHUNK_SIZE) {
+                final List<T> chunk = elements.subList(start, Math.min(start + CHUNK_SIZE, elements.size()));
+                
+                // Limit the number of chunks kept in memory
+                if (pendingChunks.size() >= 2 * threads)
+                    appendChunk(pendingChunks.poll());
+                
+                pendingChunks.add(executor.submit(new Callable<XGMMLBuffer>() {
+                    @Override
+                    public XGMMLBuffer call() throws Exception {
+                        final XGMMLBuffer b = new XGMMLBuffer(null, FLUSH_SIZE, doFullEncoding, depth);
+                        chunkBuffer.set(b);
+                        
+                        try {
+                            for (T element : chunk)
+                                elementWriter.write(element);
+                        } finally {
+                            chunkBuffer.remove();
+                        }
+                        
+                        return b;
+                    }
+                }));
+            }
+            
+            while (!pendingChunks.isEmpty())
+                appendChunk(pendingChunks.poll());
+        } finally {
+            for (Future<XGMMLBuffer> future : pendingChunks)
+                future.cancel(true);
+        }
+    }
+
+    private void appendChunk(final Future<XGMMLBuffer> future) throws IOException {
+        final XGMMLBuffer b;
+        
+        try {
+            b = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while writing XGMML.", e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            
+            if (cause instanceof IOException)
+                throw (IOException) cause;
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            
+            throw new IOException(cause);
+        }
+        
+        buffer.flush();
+        b.writeTo(writer);
     }
 
     /**
@@ -981,16 +1130,6 @@ public class GenericXGMMLWriter extends AbstractTask implements CyWriter {
         return s;
     }
 
-    /**
-     * quote returns a quoted string appropriate for use as an XML attribute
-     *
-     * @param str the string to quote
-     * @return the quoted string
-     */
-    private String quote(String str) {
-        return '"' + encode(str) + '"';
-    }
-
     /**
      * Used when saving the view-type XGMML. 
      * @param visualStyleName
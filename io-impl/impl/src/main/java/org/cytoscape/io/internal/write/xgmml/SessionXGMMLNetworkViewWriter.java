@@ -26,6 +26,7 @@ package org.cytoscape.io.internal.write.xgmml;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.Collection;
 
 import org.cytoscape.io.internal.read.xgmml.ObjectTypeMap;
@@ -89,14 +90,26 @@ public class SessionXGMMLNetworkViewWriter extends GenericXGMMLWriter {
 	
 	@Override
 	protected void writeNodes() throws IOException {
-		for (View<CyNode> view : networkView.getNodeViews())
-			writeNodeView(networkView.getModel(), view);
+		final CyNetwork net = networkView.getModel();
+		
+		writeInChunks(new ArrayList<View<CyNode>>(networkView.getNodeViews()), new ElementWriter<View<CyNode>>() {
+			@Override
+			public void write(View<CyNode> view) throws IOException {
+				writeNodeView(net, view);
+			}
+		});
 	}
 	
 	@Override
 	protected void writeEdges() throws IOException {
-    	for (View<CyEdge> view : networkView.getEdgeViews())
-			writeEdgeView(networkView.getModel(), view);
+		final CyNetwork net = networkView.getModel();
+		
+		writeInChunks(new ArrayList<View<CyEdge>>(networkView.getEdgeViews()), new ElementWriter<View<CyEdge>>() {
+			@Override
+			public void write(View<CyEdge> view) throws IOException {
+				writeEdgeView(net, view);
+			}
+		});
     }
 	
 	/**
@@ -125,12 +138,12 @@ public class SessionXGMMLNetworkViewWriter extends GenericXGMMLWriter {
 		writeAttributePair("label", getLabel(network, view.getModel()));
 		writeAttributePair("cy:nodeId", view.getModel().getSUID());
 		write(">\n");
-        depth++;
+        increaseDepth();
         
         // Output the node graphics if we have a view and it is a simple XGMML export
 		writeGraphics(view, true);
 
-		depth--;
+		decreaseDepth();
 		writeElement("</node>\n");
 	}
 	
@@ -158,12 +171,12 @@ public class SessionXGMMLNetworkViewWriter extends GenericXGMMLWriter {
 			writeAttributePair("label", getLabel(network, view.getModel()));
 			writeAttributePair("cy:edgeId", view.getModel().getSUID());
 			write(">\n");
-			depth++;
+			increaseDepth();
 	
 			// Write the edge graphics
 			writeGraphics(view, true);
 	
-			depth--;
+			decreaseDepth();
 			writeElement("</edge>\n");
 		}
 	}
@@ -26,6 +26,8 @@ package org.cytoscape.io.internal.write.xgmml;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.cytoscape.io.internal.read.xgmml.ObjectTypeMap;
 import org.cytoscape.io.internal.util.UnrecognizedVisualPropertyManager;
@@ -119,7 +121,7 @@ public class SessionXGMMLNetworkWriter extends GenericXGMMLWriter {
 				write("/>\n");
 			} else {
 				write(">\n");
-				depth++;
+				increaseDepth();
 				
 				// Write node's sub-graph:
 				if (isRegistered(netPointer)) {
@@ -131,7 +133,7 @@ public class SessionXGMMLNetworkWriter extends GenericXGMMLWriter {
 					writeSubGraph(netPointer);
 				}
 				
-				depth--;
+				decreaseDepth();
 				writeElement("</node>\n");
 			}
 		}
@@ -139,11 +141,20 @@ public class SessionXGMMLNetworkWriter extends GenericXGMMLWriter {
 
 	@Override
     protected void writeEdges() throws IOException {
+		final List<CyEdge> edges = new ArrayList<CyEdge>();
+		
 		for (CyEdge edge : network.getEdgeList()) {
 			// Only if not already written inside a nested graph
 			if (!writtenEdgeMap.containsKey(edge))
-				writeEdge(network, edge);
+				edges.add(edge);
 		}
+		
+		writeInChunks(edges, new ElementWriter<CyEdge>() {
+			@Override
+			public void write(CyEdge edge) throws IOException {
+				writeEdge(network, edge);
+			}
+		});
 	}
 	
 	@Override
@@ -0,0 +1,184 @@
+package org.cytoscape.io.internal.write.xgmml;
+
+/*
+ * #%L
+ * Cytoscape IO Impl (io-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Character buffer for a fragment of an XGMML document.
+ * <p>
+ * Attribute values are escaped and numbers are formatted straight into the buffer, without creating
+ * intermediate Strings. The output is the same as that of escaping {@code value.toString()}.
+ */
+final class XGMMLBuffer {
+
+	private static final String SPACES = "                                                                ";
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+	private final StringBuilder sb;
+	private final Writer sink;
+	private final int flushSize;
+	private final boolean fullEncoding;
+	private char[] chars;
+	private int depth;
+
+	/**
+	 * @param sink Where the buffered characters are written once there are more than {@code flushSize} of them,
+	 *             or null if the buffer must keep everything until {@link #writeTo(Writer)} is called.
+	 * @param fullEncoding Whether characters other than printable ASCII are written as character references.
+	 * @param depth The initial indentation depth.
+	 */
+	XGMMLBuffer(final Writer sink, final int flushSize, final boolean fullEncoding, final int depth) {
+		this.sb = new StringBuilder(flushSize + 1024);
+		this.sink = sink;
+		this.flushSize = flushSize;
+		this.fullEncoding = fullEncoding;
+		this.depth = depth;
+	}
+
+	int getDepth() {
+		return depth;
+	}
+
+	void increaseDepth() {
+		depth++;
+	}
+
+	void decreaseDepth() {
+		depth--;
+	}
+
+	void write(final String str) {
+		sb.append(str);
+	}
+
+	/**
+	 * Writes an indented line.
+	 */
+	void writeElement(final String line) throws IOException {
+		if (sink != null && sb.length() >= flushSize)
+			flush();
+
+		for (int n = depth * 2; n > 0; n -= SPACES.length())
+			sb.append(SPACES, 0, Math.min(n, SPACES.length()));
+
+		sb.append(line);
+	}
+
+	/**
+	 * Writes {@code name="value"}, preceded by a space.
+	 */
+	void writeAttributePair(final String name, final Object value) {
+		sb.append(' ').append(name).append("=\"");
+
+		// The characters of numbers never need to be escaped
+		if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte)
+			sb.append(((Number) value).longValue());
+		else if (value instanceof Double)
+			sb.append(((Double) value).doubleValue());
+		else if (value instanceof Float)
+			sb.append(((Float) value).floatValue());
+		else
+			appendEncoded(value.toString());
+
+		sb.append('"');
+	}
+
+	/**
+	 * Appends the string with the characters that are not allowed in XML attribute values replaced by entities.
+	 */
+	void appendEncoded(final String str) {
+		final int length = str.length();
+
+		for (int i = 0; i < length; i++) {
+			final char c = str.charAt(i);
+
+			if ((c < ' ') || (c > '~')) {
+				if (fullEncoding)
+					appendCharacterReference(c);
+				else
+					sb.append(c);
+			} else if (c == '"') {
+				sb.append("&quot;");
+			} else if (c == '\'') {
+				sb.append("&apos;");
+			} else if (c == '&') {
+				sb.append("&amp;");
+			} else if (c == '<') {
+				sb.append("&lt;");
+			} else if (c == '>') {
+				sb.append("&gt;");
+			} else {
+				sb.append(c);
+			}
+		}
+	}
+
+	int length() {
+		return sb.length();
+	}
+
+	/**
+	 * Writes the buffered characters to the sink and empties the buffer.
+	 */
+	void flush() throws IOException {
+		writeTo(sink);
+	}
+
+	/**
+	 * Writes the buffered characters and empties the buffer.
+	 */
+	void writeTo(final Writer writer) throws IOException {
+		final int length = sb.length();
+
+		if (chars == null || chars.length < Math.min(length, 64 * 1024))
+			chars = new char[Math.min(Math.max(length, 1024), 64 * 1024)];
+
+		for (int start = 0; start < length; start += chars.length) {
+			final int end = Math.min(start + chars.length, length);
+			sb.getChars(start, end, chars, 0);
+			writer.write(chars, 0, end - start);
+		}
+
+		sb.setLength(0);
+	}
+
+	/**
+	 * Same as appending {@code "&#x" + Integer.toHexString(c) + ";"}.
+	 */
+	private void appendCharacterReference(final char c) {
+		sb.append("&#x");
+		int shift = 12;
+
+		while (shift > 0 && (c >>> shift) == 0)
+			shift -= 4;
+
+		for (; shift >= 0; shift -= 4)
+			sb.append(HEX_DIGITS[(c >>> shift) & 0xF]);
+
+		sb.append(';');
+	}
+}
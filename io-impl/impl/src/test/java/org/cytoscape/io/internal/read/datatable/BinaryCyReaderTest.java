@@ -0,0 +1,150 @@
+package org.cytoscape.io.internal.read.datatable;
+
+/*
+ * #%L
+ * Cytoscape IO Impl (io-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.cytoscape.io.internal.write.datatable.binary.BinaryCyWriter;
+import org.cytoscape.model.CyRow;
+import org.cytoscape.model.CyTable;
+import org.cytoscape.model.CyTableFactory;
+import org.cytoscape.model.TableTestSupport;
+import org.cytoscape.work.TaskMonitor;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+
+public class BinaryCyReaderTest {
+	@Mock TaskMonitor taskMonitor;
+
+	private CyTableFactory tableFactory;
+
+	@Before
+	public void setUp() {
+		TableTestSupport tableTestSupport = new TableTestSupport();
+		tableFactory = tableTestSupport.getTableFactory();
+		MockitoAnnotations.initMocks(this);
+	}
+
+	private CyTable roundTrip(CyTable table) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		BinaryCyWriter writer = new BinaryCyWriter(out, table, /* handleEquations = */ false,
+							   /* includeVirtualColumns = */ false);
+		writer.run(taskMonitor);
+
+		BinaryCyReader reader = new BinaryCyReader(new ByteArrayInputStream(out.toByteArray()),
+							   /* handleEquations = */ false, tableFactory, null);
+		reader.run(taskMonitor);
+		return reader.getTables()[0];
+	}
+
+	@Test
+	public void testRoundTrip() throws Exception {
+		CyTable table = tableFactory.createTable("test table", "SUID", Long.class, true, true);
+		table.createColumn("name", String.class, false);
+		table.createColumn("weight", Double.class, false);
+		table.createColumn("count", Integer.class, true);
+		table.createColumn("hidden", Boolean.class, false);
+		table.createColumn("total", Long.class, false);
+		table.createListColumn("names", String.class, false);
+		table.createListColumn("counts", Integer.class, false);
+
+		CyRow row = table.getRow(1L);
+		row.set("name", "a");
+		row.set("weight", -1.25);
+		row.set("count", Integer.MIN_VALUE);
+		row.set("hidden", true);
+		row.set("total", Long.MAX_VALUE);
+		row.set("names", Arrays.asList("x", "y", "x"));
+		row.set("counts", Arrays.asList(1, null, 3));
+
+		row = table.getRow(2L);
+		row.set("name", "a");
+		row.set("names", Collections.<String>emptyList());
+
+		table.getRow(3L);
+
+		CyTable result = roundTrip(table);
+		assertEquals("test table", result.getTitle());
+		assertTrue(result.isPublic());
+		assertEquals(3, result.getRowCount());
+		assertEquals(8, result.getColumns().size());
+		assertTrue(result.getColumn("count").isImmutable());
+		assertFalse(result.getColumn("name").isImmutable());
+		assertEquals(Integer.class, result.getColumn("counts").getListElementType());
+
+		row = result.getRow(1L);
+		assertEquals("a", row.get("name", String.class));
+		assertEquals((Double) (-1.25), row.get("weight", Double.class));
+		assertEquals((Integer) Integer.MIN_VALUE, row.get("count", Integer.class));
+		assertEquals(Boolean.TRUE, row.get("hidden", Boolean.class));
+		assertEquals((Long) Long.MAX_VALUE, row.get("total", Long.class));
+		assertEquals(Arrays.asList("x", "y", "x"), row.getList("names", String.class));
+		assertEquals(Arrays.asList(1, null, 3), row.getList("counts", Integer.class));
+
+		row = result.getRow(2L);
+		assertEquals("a", row.get("name", String.class));
+		assertNull(row.get("weight", Double.class));
+		assertEquals(Collections.emptyList(), row.getList("names", String.class));
+
+		row = result.getRow(3L);
+		assertNull(row.get("name", String.class));
+		assertNull(row.getList("counts", Integer.class));
+	}
+
+	@Test
+	public void testVirtualColumnsAreSkipped() throws Exception {
+		CyTable source = tableFactory.createTable("source", "SUID", Long.class, true, true);
+		source.createColumn("shared", String.class, false);
+		source.getRow(1L).set("shared", "s");
+		CyTable table = tableFactory.createTable("target", "SUID", Long.class, true, true);
+		table.getRow(1L);
+		table.addVirtualColumn("shared", "shared", source, "SUID", false);
+
+		CyTable result = roundTrip(table);
+		assertNull(result.getColumn("shared"));
+		assertEquals(1, result.getRowCount());
+	}
+
+	@Test(expected = IOException.class)
+	public void testNotBinary() throws Exception {
+		String data = "SUID\r\njava.lang.Long\r\ntest table,\"public,mutable\"\r\n5\r\n6";
+		BinaryCyReader reader = new BinaryCyReader(new ByteArrayInputStream(data.getBytes("UTF-8")),
+							   /* handleEquations = */ false, tableFactory, null);
+		reader.run(taskMonitor);
+	}
+}
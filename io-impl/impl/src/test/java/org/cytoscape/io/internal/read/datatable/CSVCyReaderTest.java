@@ -27,11 +27,13 @@ package org.cytoscape.io.internal.read.datatable;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
+import java.util.Arrays;
 import java.util.List;
 
 import org.cytoscape.model.CyIdentifiable;
@@ -132,4 +134,42 @@ public class CSVCyReaderTest {
 		List<String> list = row.getList("list", String.class);
 		assertEquals("c", list.get(2));
 	}
+
+	@Test
+	public void testReadLongList() throws Exception {
+		String data = "SUID,list\r\njava.lang.Long,java.util.List<java.lang.Long>\r\ntest table,\"public,mutable\"\r\n1,\"3\r\n-2\r9223372036854775807\"";
+		CSVCyReader reader = new CSVCyReader(createStream(data), true,
+						     /* handleEquations = */ false, tableFactory, null, "UTF-8");
+		reader.run(taskMonitor);
+		CyTable table = reader.getTables()[0];
+		List<Long> list = table.getRow(1L).getList("list", Long.class);
+		assertEquals(Arrays.asList(3L, -2L, Long.MAX_VALUE), list);
+	}
+
+	@Test
+	public void testReadQuoted() throws Exception {
+		String data = "\"CyCSV-Version\",\"1\"\r\n\"SUID\",\"name\",\"weight\"\r\n"
+				+ "\"java.lang.Long\",\"java.lang.String\",\"java.lang.Double\"\r\n\"\",\"mutable\",\"mutable\"\r\n"
+				+ "\"test table\",\"public,mutable\"\r\n\"1\",\"Smith, \"\"Bob\"\"\",\"1.5E-7\"\r\n\"2\",\"\",\r\n";
+		CSVCyReader reader = new CSVCyReader(createStream(data), true,
+						     /* handleEquations = */ false, tableFactory, null, "UTF-8");
+		reader.run(taskMonitor);
+		CyTable table = reader.getTables()[0];
+		assertEquals(2, table.getRowCount());
+		assertEquals("Smith, \"Bob\"", table.getRow(1L).get("name", String.class));
+		assertEquals((Double) 1.5E-7, table.getRow(1L).get("weight", Double.class));
+		assertNull(table.getRow(2L).get("weight", Double.class));
+	}
+
+	@Test
+	public void testReadInvalidInteger() throws Exception {
+		String data = "SUID,count\r\njava.lang.Long,java.lang.Integer\r\ntest table,\"public,mutable\"\r\n1,2147483648\r\n2,-2147483648\r\n3,x";
+		CSVCyReader reader = new CSVCyReader(createStream(data), true,
+						     /* handleEquations = */ false, tableFactory, null, "UTF-8");
+		reader.run(taskMonitor);
+		CyTable table = reader.getTables()[0];
+		assertNull(table.getRow(1L).get("count", Integer.class));
+		assertEquals((Integer) Integer.MIN_VALUE, table.getRow(2L).get("count", Integer.class));
+		assertNull(table.getRow(3L).get("count", Integer.class));
+	}
 }
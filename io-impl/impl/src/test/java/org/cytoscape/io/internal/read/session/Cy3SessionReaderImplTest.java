@@ -24,40 +24,78 @@ package org.cytoscape.io.internal.read.session;
  * #L%
  */
 
+import static org.cytoscape.io.internal.util.session.SessionUtil.CYS_VERSION;
+import static org.cytoscape.io.internal.util.session.SessionUtil.NETWORKS_FOLDER;
+import static org.cytoscape.io.internal.util.session.SessionUtil.TABLES_FOLDER;
+import static org.cytoscape.io.internal.util.session.SessionUtil.TABLE_EXT;
+import static org.cytoscape.io.internal.util.session.SessionUtil.VERSION_EXT;
+import static org.cytoscape.io.internal.util.session.SessionUtil.XGMML_EXT;
 import static org.mockito.Mockito.*;
 import static org.junit.Assert.*;
 
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import org.cytoscape.ding.NetworkViewTestSupport;
 import org.cytoscape.equations.EquationCompiler;
+import org.cytoscape.io.CyFileFilter;
+import org.cytoscape.io.internal.read.datatable.BinaryCyReaderFactory;
 import org.cytoscape.io.internal.read.datatable.CSVCyReaderFactory;
 import org.cytoscape.io.internal.util.GroupUtil;
 import org.cytoscape.io.internal.util.ReadCache;
 import org.cytoscape.io.internal.util.SUIDUpdater;
 import org.cytoscape.io.internal.util.cytables.model.VirtualColumn;
 import org.cytoscape.io.internal.util.session.SessionUtil;
+import org.cytoscape.io.read.CyNetworkReader;
 import org.cytoscape.io.read.CyNetworkReaderManager;
 import org.cytoscape.io.read.CyPropertyReaderManager;
 import org.cytoscape.io.read.VizmapReaderManager;
 import org.cytoscape.model.CyColumn;
 import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNetworkFactory;
 import org.cytoscape.model.CyNetworkTableManager;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.model.CyRow;
 import org.cytoscape.model.CyTable;
 import org.cytoscape.model.CyTableFactory;
+import org.cytoscape.model.CyTableMetadata;
 import org.cytoscape.model.NetworkTestSupport;
 import org.cytoscape.model.TableTestSupport;
 import org.cytoscape.model.subnetwork.CyRootNetworkManager;
+import org.cytoscape.session.CySession;
 import org.cytoscape.view.model.CyNetworkView;
+import org.cytoscape.work.AbstractTask;
+import org.cytoscape.work.TaskMonitor;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 public class Cy3SessionReaderImplTest {
 	
+	private static final String SESSION_DIR = "CytoscapeSession-test/";
+	private static final int NETWORK_COUNT = 4;
+	private static final int GLOBAL_TABLE_COUNT = 2;
+	private static final int GLOBAL_TABLE_ROW_COUNT = 3;
+	
 	private Cy3SessionReaderImpl reader;
 	private TableTestSupport tblTestSupport;
 	
@@ -72,11 +110,12 @@ public class Cy3SessionReaderImplTest {
 		CyPropertyReaderManager propReaderMgr = mock(CyPropertyReaderManager.class);
 		VizmapReaderManager vizmapReaderMgr = mock(VizmapReaderManager.class);
 		CSVCyReaderFactory csvCyReaderFactory = mock(CSVCyReaderFactory.class);
+		BinaryCyReaderFactory binaryCyReaderFactory = mock(BinaryCyReaderFactory.class);
 		CyRootNetworkManager rootNetMgr = mock(CyRootNetworkManager.class);
 		EquationCompiler compiler = mock(EquationCompiler.class);
 		
 		reader = new Cy3SessionReaderImpl(is, cache, groupUtil, suidUpdater, netReaderMgr, 
-				propReaderMgr, vizmapReaderMgr, csvCyReaderFactory, netTblMgr, rootNetMgr, compiler);
+				propReaderMgr, vizmapReaderMgr, csvCyReaderFactory, binaryCyReaderFactory, netTblMgr, rootNetMgr, compiler);
 		tblTestSupport = new TableTestSupport();
 	}
 	
@@ -247,7 +286,285 @@ public class Cy3SessionReaderImplTest {
 		reader.restoreVirtualColumns();
 	}
 	
+	@Test
+	public void testConcurrentReadMatchesSequentialRead() throws Exception {
+		final List<String> expected = describeSourceSession();
+		
+		// Whatever the order of the entries in the archive
+		for (int seed = 0; seed < 5; seed++) {
+			final byte[] cys = createSessionFile(new Random(seed));
+			final List<File> sessionFiles = new ArrayList<File>();
+			
+			final Cy3SessionReaderImpl sequentialReader = createReader(cys, false, sessionFiles, new AtomicInteger(), -1);
+			sequentialReader.run(mock(TaskMonitor.class));
+			final Cy3SessionReaderImpl concurrentReader = createReader(cys, true, sessionFiles, new AtomicInteger(), -1);
+			concurrentReader.run(mock(TaskMonitor.class));
+			
+			assertEquals(expected, describe(sequentialReader.getSession()));
+			assertEquals(expected, describe(concurrentReader.getSession()));
+			assertDeleted(sessionFiles);
+		}
+	}
+	
+	@Test
+	public void testCancelWhileReading() throws Exception {
+		final byte[] cys = createSessionFile(new Random(0));
+		final List<File> sessionFiles = new ArrayList<File>();
+		final AtomicInteger networksRead = new AtomicInteger();
+		
+		final Cy3SessionReaderImpl reader = createReader(cys, true, sessionFiles, networksRead, 2);
+		reader.run(mock(TaskMonitor.class));
+		
+		// No network is read after the cancellation, and the ones already read are dropped
+		assertEquals(2, networksRead.get());
+		assertTrue(reader.getSession().getNetworks().isEmpty());
+		assertDeleted(sessionFiles);
+	}
+	
+	/**
+	 * @param concurrent whether the independent entries are read concurrently, or all in order
+	 * @param sessionFiles receives the temporary copies of the session file
+	 * @param networksRead counts the networks read
+	 * @param cancelAfter the number of networks after which the reader is cancelled, or -1 to read all of them
+	 */
+	private Cy3SessionReaderImpl createReader(final byte[] cys, final boolean concurrent, final List<File> sessionFiles,
+			final AtomicInteger networksRead, final int cancelAfter) {
+		final NetworkTestSupport netSupport = new NetworkTestSupport();
+		final CyNetworkTableManager netTblMgr = netSupport.getNetworkTableManager();
+		final ReadCache cache = new ReadCache(netTblMgr);
+		final CyNetworkReaderManager netReaderMgr = mock(CyNetworkReaderManager.class);
+		final CSVCyReaderFactory csvCyReaderFactory = new CSVCyReaderFactory(mock(CyFileFilter.class), true, true,
+				tblTestSupport.getTableFactory(), mock(EquationCompiler.class));
+		final Cy3SessionReaderImpl[] sessionReader = new Cy3SessionReaderImpl[1];
+		
+		sessionReader[0] = new Cy3SessionReaderImpl(new ByteArrayInputStream(cys), cache, mock(GroupUtil.class),
+				mock(SUIDUpdater.class), netReaderMgr, mock(CyPropertyReaderManager.class),
+				mock(VizmapReaderManager.class), csvCyReaderFactory, mock(BinaryCyReaderFactory.class), netTblMgr,
+				netSupport.getRootNetworkFactory(), mock(EquationCompiler.class)) {
+			@Override
+			protected boolean isIndependentEntry(final String entryName) {
+				return concurrent && super.isIndependentEntry(entryName);
+			}
+			
+			@Override
+			File createSessionFile() throws IOException {
+				final File file = super.createSessionFile();
+				sessionFiles.add(file);
+				
+				return file;
+			}
+		};
+		
+		when(netReaderMgr.getReader(any(InputStream.class), anyString())).thenAnswer(new Answer<CyNetworkReader>() {
+			@Override
+			public CyNetworkReader answer(final InvocationOnMock invocation) throws Throwable {
+				if (networksRead.incrementAndGet() == cancelAfter)
+					sessionReader[0].cancel();
+				
+				return new NetworkEntryReader((InputStream) invocation.getArguments()[0],
+						netSupport.getNetworkFactory(), cache);
+			}
+		});
+		
+		return sessionReader[0];
+	}
+	
+	/**
+	 * Creates a session with a few networks, each with its node table, and a few global tables.
+	 * The network entries only list the old SUIDs of the network and its nodes, see {@link NetworkEntryReader}.
+	 * @param random shuffles the entries of the archive
+	 */
+	private static byte[] createSessionFile(final Random random) throws IOException {
+		final Map<String, String> entries = new LinkedHashMap<String, String>();
+		entries.put(SESSION_DIR + CYS_VERSION + VERSION_EXT, "");
+		
+		for (int i = 0; i < NETWORK_COUNT; i++) {
+			final String networkName = "net" + i;
+			final String networkToken = networkId(i) + "-" + SessionUtil.escape(networkName);
+			final StringBuilder network = new StringBuilder(networkId(i) + "," + networkName + "\n");
+			final StringBuilder nodeTable = new StringBuilder("SUID,name,score\r\n"
+					+ "java.lang.Long,java.lang.String,java.lang.Double\r\n"
+					+ networkName + " default node,\"public,mutable\"\r\n");
+			
+			for (int j = 0; j < nodeCount(i); j++) {
+				network.append(nodeId(i, j)).append("\n");
+				nodeTable.append(nodeId(i, j)).append(',').append(nodeName(i, j)).append(',').append(score(i, j))
+						.append("\r\n");
+			}
+			
+			entries.put(SESSION_DIR + NETWORKS_FOLDER + networkToken + XGMML_EXT, network.toString());
+			entries.put(SESSION_DIR + TABLES_FOLDER + networkToken + "/" + SessionUtil.escape(CyNetwork.DEFAULT_ATTRS)
+					+ "-" + SessionUtil.escape(CyNode.class.getName()) + "-"
+					+ SessionUtil.escape(networkName + " default node") + TABLE_EXT, nodeTable.toString());
+		}
+		
+		for (int i = 0; i < GLOBAL_TABLE_COUNT; i++) {
+			final StringBuilder table = new StringBuilder("key,value\r\njava.lang.Long,java.lang.String\r\n"
+					+ globalTableTitle(i) + ",\"public,mutable\"\r\n");
+			
+			for (long key = 0; key < GLOBAL_TABLE_ROW_COUNT; key++)
+				table.append(key).append(',').append(globalTableValue(i, key)).append("\r\n");
+			
+			entries.put(SESSION_DIR + TABLES_FOLDER + "global/" + (3000 + i) + "-"
+					+ SessionUtil.escape(globalTableTitle(i)) + TABLE_EXT, table.toString());
+		}
+		
+		final List<String> names = new ArrayList<String>(entries.keySet());
+		Collections.shuffle(names, random);
+		
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final ZipOutputStream zos = new ZipOutputStream(bytes);
+		
+		for (final String name : names) {
+			zos.putNextEntry(new ZipEntry(name));
+			zos.write(entries.get(name).getBytes("UTF-8"));
+			zos.closeEntry();
+		}
+		
+		zos.close();
+		
+		return bytes.toByteArray();
+	}
+	
+	private static List<String> describeSourceSession() {
+		final List<String> description = new ArrayList<String>();
+		
+		for (int i = 0; i < NETWORK_COUNT; i++) {
+			final List<String> nodes = new ArrayList<String>();
+			
+			for (int j = 0; j < nodeCount(i); j++)
+				nodes.add(nodeName(i, j) + "=" + score(i, j));
+			
+			Collections.sort(nodes);
+			description.add("net" + i + nodes);
+		}
+		
+		for (int i = 0; i < GLOBAL_TABLE_COUNT; i++) {
+			final List<String> rows = new ArrayList<String>();
+			
+			for (long key = 0; key < GLOBAL_TABLE_ROW_COUNT; key++)
+				rows.add(key + "=" + globalTableValue(i, key));
+			
+			description.add(globalTableTitle(i) + rows);
+		}
+		
+		Collections.sort(description);
+		
+		return description;
+	}
+	
+	private static List<String> describe(final CySession session) {
+		final List<String> description = new ArrayList<String>();
+		
+		for (final CyNetwork network : session.getNetworks()) {
+			final List<String> nodes = new ArrayList<String>();
+			
+			for (final CyNode node : network.getNodeList()) {
+				final CyRow row = network.getRow(node);
+				nodes.add(row.get(CyNetwork.NAME, String.class) + "=" + row.get("score", Double.class));
+			}
+			
+			Collections.sort(nodes);
+			description.add(network.getRow(network).get(CyNetwork.NAME, String.class) + nodes);
+		}
+		
+		for (final CyTableMetadata metadata : session.getTables()) {
+			if (metadata.getNetwork() != null)
+				continue;
+			
+			final List<String> rows = new ArrayList<String>();
+			
+			for (final CyRow row : metadata.getTable().getAllRows())
+				rows.add(row.get("key", Long.class) + "=" + row.get("value", String.class));
+			
+			Collections.sort(rows);
+			description.add(metadata.getTable().getTitle() + rows);
+		}
+		
+		Collections.sort(description);
+		
+		return description;
+	}
+	
+	private static void assertDeleted(final List<File> sessionFiles) {
+		assertFalse(sessionFiles.isEmpty());
+		
+		for (final File file : sessionFiles)
+			assertFalse("Temporary session file not deleted: " + file, file.exists());
+	}
+	
+	private static long networkId(final int network) {
+		return 1000 + network;
+	}
+	
+	private static int nodeCount(final int network) {
+		return 5 + network;
+	}
+	
+	private static long nodeId(final int network, final int node) {
+		return 10000 + 100 * network + node;
+	}
+	
+	private static String nodeName(final int network, final int node) {
+		return "n" + network + "_" + node;
+	}
+	
+	private static double score(final int network, final int node) {
+		return network * 10 + node + 0.5;
+	}
+	
+	private static String globalTableTitle(final int table) {
+		return "global" + table;
+	}
+	
+	private static String globalTableValue(final int table, final long key) {
+		return "g" + table + "v" + key;
+	}
+	
 	private String decode(String encodedText) throws UnsupportedEncodingException {
 		return URLDecoder.decode(encodedText, "UTF-8");
 	}
+	
+	/**
+	 * Reads the network entries of the test sessions. The first line has the old SUID and the name of the network,
+	 * and each of the next ones the old SUID of a node.
+	 */
+	private static class NetworkEntryReader extends AbstractTask implements CyNetworkReader {
+		
+		private final InputStream is;
+		private final CyNetworkFactory networkFactory;
+		private final ReadCache cache;
+		private CyNetwork network;
+		
+		NetworkEntryReader(final InputStream is, final CyNetworkFactory networkFactory, final ReadCache cache) {
+			this.is = is;
+			this.networkFactory = networkFactory;
+			this.cache = cache;
+		}
+		
+		@Override
+		public void run(final TaskMonitor taskMonitor) throws Exception {
+			final BufferedReader reader = new BufferedReader(new InputStreamReader(is, "UTF-8"));
+			final String[] header = reader.readLine().split(",");
+			
+			network = networkFactory.createNetwork();
+			network.getRow(network).set(CyNetwork.NAME, header[1]);
+			cache.cache(Long.valueOf(header[0]), network);
+			
+			String line;
+			
+			while ((line = reader.readLine()) != null)
+				cache.cache(Long.valueOf(line), network.addNode());
+		}
+		
+		@Override
+		public CyNetwork[] getNetworks() {
+			return new CyNetwork[] { network };
+		}
+		
+		@Override
+		public CyNetworkView buildCyNetworkView(final CyNetwork network) {
+			throw new UnsupportedOperationException();
+		}
+	}
 }
@@ -0,0 +1,239 @@
+package org.cytoscape.io.internal.read.xgmml;
+
+/*
+ * #%L
+ * Cytoscape IO Impl (io-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.awt.Color;
+import java.io.ByteArrayInputStream;
+
+import org.cytoscape.application.CyApplicationManager;
+import org.cytoscape.application.NetworkViewRenderer;
+import org.cytoscape.ding.NetworkViewTestSupport;
+import org.cytoscape.equations.EquationCompiler;
+import org.cytoscape.io.internal.read.xgmml.handler.ReadDataManager;
+import org.cytoscape.io.internal.util.GroupUtil;
+import org.cytoscape.io.internal.util.ReadCache;
+import org.cytoscape.io.internal.util.SUIDUpdater;
+import org.cytoscape.io.internal.util.UnrecognizedVisualPropertyManager;
+import org.cytoscape.io.internal.util.session.SessionUtil;
+import org.cytoscape.model.CyEdge;
+import org.cytoscape.model.CyIdentifiable;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNetworkFactory;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.model.CyTableManager;
+import org.cytoscape.model.NetworkTestSupport;
+import org.cytoscape.model.TableTestSupport;
+import org.cytoscape.model.subnetwork.CyRootNetworkManager;
+import org.cytoscape.view.model.CyNetworkView;
+import org.cytoscape.view.model.View;
+import org.cytoscape.view.model.VisualLexicon;
+import org.cytoscape.view.model.VisualProperty;
+import org.cytoscape.view.presentation.RenderingEngineManager;
+import org.cytoscape.view.presentation.property.BasicVisualLexicon;
+import org.cytoscape.view.presentation.property.NullVisualProperty;
+import org.cytoscape.work.TaskMonitor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SessionXGMMLNetworkViewReaderTest {
+
+	private static final int NODES = 10;
+	private static final int EDGES = 15;
+
+	private VisualLexicon lexicon;
+	private CyNetworkFactory networkFactory;
+	private CyRootNetworkManager rootNetworkMgr;
+	private RenderingEngineManager renderingEngineMgr;
+	private CyApplicationManager applicationMgr;
+	private UnrecognizedVisualPropertyManager unrecognizedVisualPropertyMgr;
+	private ReadCache readCache;
+	private ReadDataManager readDataMgr;
+	private XGMMLParser parser;
+
+	@Before
+	public void setUp() throws Exception {
+		final NetworkTestSupport networkTestSupport = new NetworkTestSupport();
+		networkFactory = networkTestSupport.getNetworkFactory();
+		rootNetworkMgr = networkTestSupport.getRootNetworkFactory();
+		
+		lexicon = new BasicVisualLexicon(new NullVisualProperty("MINIMAL_ROOT", "Minimal Root Visual Property"));
+		renderingEngineMgr = mock(RenderingEngineManager.class);
+		when(renderingEngineMgr.getDefaultVisualLexicon()).thenReturn(lexicon);
+		
+		final NetworkViewRenderer networkViewRenderer = mock(NetworkViewRenderer.class);
+		when(networkViewRenderer.getNetworkViewFactory())
+				.thenReturn(new NetworkViewTestSupport().getNetworkViewFactory());
+		applicationMgr = mock(CyApplicationManager.class);
+		when(applicationMgr.getDefaultNetworkViewRenderer()).thenReturn(networkViewRenderer);
+		
+		unrecognizedVisualPropertyMgr = new UnrecognizedVisualPropertyManager(
+				new TableTestSupport().getTableFactory(), mock(CyTableManager.class));
+		
+		readCache = new ReadCache(networkTestSupport.getNetworkTableManager());
+		readDataMgr = new ReadDataManager(readCache, new SUIDUpdater(), mock(EquationCompiler.class),
+				networkFactory, rootNetworkMgr, mock(GroupUtil.class));
+		final HandlerFactory handlerFactory = new HandlerFactory(readDataMgr);
+		handlerFactory.init();
+		parser = new XGMMLParser(handlerFactory, readDataMgr);
+		
+		SessionUtil.setReadingSessionFile(true);
+	}
+
+	@After
+	public void tearDown() {
+		SessionUtil.setReadingSessionFile(false);
+	}
+
+	@Test
+	public void testStreamedViewMatchesBufferedView() throws Exception {
+		final CyNetwork network = createNetwork();
+		final byte[] data = createView(network);
+		
+		final CyNetworkView bufferedView = readView(network, data, false);
+		final CyNetworkView streamedView = readView(network, data, true);
+		assertNotSame(bufferedView, streamedView);
+		
+		// Check a few values, so that the views cannot match just because nothing was applied
+		final CyNode node = network.getNodeList().get(3);
+		final View<CyNode> nodeView = streamedView.getNodeView(node);
+		assertEquals(Double.valueOf(42.0), nodeView.getVisualProperty(BasicVisualLexicon.NODE_X_LOCATION));
+		assertTrue(nodeView.isValueLocked(BasicVisualLexicon.NODE_FILL_COLOR));
+		assertEquals(new Color(0x000004), nodeView.getVisualProperty(BasicVisualLexicon.NODE_FILL_COLOR));
+		assertTrue(streamedView.getEdgeView(network.getEdgeList().get(0)).isValueLocked(BasicVisualLexicon.EDGE_WIDTH));
+		assertEquals(Color.ORANGE, streamedView.getVisualProperty(BasicVisualLexicon.NETWORK_BACKGROUND_PAINT));
+		
+		assertSameVisualProperties(bufferedView, streamedView, BasicVisualLexicon.NETWORK);
+		
+		for (final CyNode n : network.getNodeList())
+			assertSameVisualProperties(bufferedView.getNodeView(n), streamedView.getNodeView(n),
+					BasicVisualLexicon.NODE);
+		
+		for (final CyEdge e : network.getEdgeList())
+			assertSameVisualProperties(bufferedView.getEdgeView(e), streamedView.getEdgeView(e),
+					BasicVisualLexicon.EDGE);
+	}
+
+	private CyNetworkView readView(final CyNetwork network, final byte[] data, final boolean streaming)
+			throws Exception {
+		final SessionXGMMLNetworkViewReader reader = new SessionXGMMLNetworkViewReader(
+				new ByteArrayInputStream(data), networkFactory, renderingEngineMgr, readDataMgr, parser,
+				unrecognizedVisualPropertyMgr, rootNetworkMgr, applicationMgr);
+		
+		if (streaming)
+			reader.setNetwork(network);
+		
+		reader.run(mock(TaskMonitor.class));
+		final CyNetworkView view = reader.buildCyNetworkView(network);
+		assertNotNull(view);
+		assertSame(network, view.getModel());
+		
+		return view;
+	}
+
+	private void assertSameVisualProperties(final View<? extends CyIdentifiable> expected,
+			final View<? extends CyIdentifiable> actual, final VisualProperty<?> root) {
+		for (final VisualProperty<?> vp : lexicon.getAllDescendants(root)) {
+			assertEquals(vp.getIdString(), expected.getVisualProperty(vp), actual.getVisualProperty(vp));
+			assertEquals(vp.getIdString(), expected.isValueLocked(vp), actual.isValueLocked(vp));
+		}
+	}
+
+	/**
+	 * Creates the network and caches its elements by their own SUIDs, as if it had been read from the session.
+	 */
+	private CyNetwork createNetwork() {
+		final CyNetwork network = networkFactory.createNetwork();
+		readCache.cache(network.getSUID(), network);
+		
+		final CyNode[] nodes = new CyNode[NODES];
+		
+		for (int i = 0; i < NODES; i++) {
+			nodes[i] = network.addNode();
+			readCache.cache(nodes[i].getSUID(), nodes[i]);
+		}
+		
+		for (int i = 0; i < EDGES; i++) {
+			final CyEdge edge = network.addEdge(nodes[i % NODES], nodes[(i * 3 + 1) % NODES], true);
+			readCache.cache(edge.getSUID(), edge);
+		}
+		
+		return network;
+	}
+
+	/**
+	 * Creates the XGMML document written by the session writer for a view of the network, with direct and
+	 * locked visual properties for the network, its nodes and its edges.
+	 */
+	private static byte[] createView(final CyNetwork network) throws Exception {
+		final StringBuilder sb = new StringBuilder();
+		sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n");
+		sb.append("<graph id=\"1\" label=\"view\" cy:view=\"1\" cy:networkId=\"")
+				.append(network.getSUID()).append("\" cy:documentVersion=\"3.0\" xmlns:cy=\"http://www.cytoscape.org\"")
+				.append(" xmlns=\"http://www.cs.rpi.edu/XGMML\">\n");
+		sb.append("  <graphics>\n    <att name=\"NETWORK_BACKGROUND_PAINT\" value=\"#FFC800\" type=\"string\"/>\n");
+		sb.append("    <att name=\"NETWORK_SCALE_FACTOR\" value=\"1.5\" type=\"real\"/>\n");
+		sb.append("    <att name=\"lockedVisualProperties\" type=\"list\">\n");
+		sb.append("      <att name=\"NETWORK_TITLE\" value=\"locked title\" type=\"string\"/>\n");
+		sb.append("    </att>\n  </graphics>\n");
+		
+		int i = 0;
+		
+		for (final CyNode node : network.getNodeList()) {
+			i++;
+			sb.append("  <node id=\"").append(node.getSUID()).append("\" label=\"n").append(i)
+					.append("\" cy:nodeId=\"").append(node.getSUID()).append("\">\n");
+			sb.append("    <graphics x=\"").append(i * 10.5).append("\" y=\"").append(-i).append(".0\" z=\"0.0\">\n");
+			sb.append("      <att name=\"NODE_LABEL\" value=\"n").append(i).append("\" type=\"string\"/>\n");
+			sb.append("      <att name=\"lockedVisualProperties\" type=\"list\">\n");
+			sb.append("        <att name=\"NODE_FILL_COLOR\" value=\"#").append(String.format("%06X", i))
+					.append("\" type=\"string\"/>\n");
+			sb.append("      </att>\n    </graphics>\n  </node>\n");
+		}
+		
+		for (final CyEdge edge : network.getEdgeList()) {
+			i++;
+			sb.append("  <edge id=\"").append(edge.getSUID()).append("\" label=\"e").append(i)
+					.append("\" cy:edgeId=\"").append(edge.getSUID()).append("\">\n");
+			sb.append("    <graphics>\n      <att name=\"EDGE_LABEL\" value=\"e").append(i)
+					.append("\" type=\"string\"/>\n");
+			sb.append("      <att name=\"lockedVisualProperties\" type=\"list\">\n");
+			sb.append("        <att name=\"EDGE_WIDTH\" value=\"").append(1 + i % 5).append(".0\" type=\"real\"/>\n");
+			sb.append("      </att>\n    </graphics>\n  </edge>\n");
+		}
+		
+		sb.append("</graph>\n");
+		
+		return sb.toString().getBytes("UTF-8");
+	}
+}
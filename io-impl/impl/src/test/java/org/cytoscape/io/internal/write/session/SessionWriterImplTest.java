@@ -0,0 +1,273 @@
+package org.cytoscape.io.internal.write.session;
+
+/*
+ * #%L
+ * Cytoscape IO Impl (io-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import static org.cytoscape.io.internal.util.session.SessionUtil.APPS_FOLDER;
+import static org.cytoscape.io.internal.util.session.SessionUtil.CYS_VERSION;
+import static org.cytoscape.io.internal.util.session.SessionUtil.CYTABLE_STATE_FILE;
+import static org.cytoscape.io.internal.util.session.SessionUtil.TABLES_FOLDER;
+import static org.cytoscape.io.internal.util.session.SessionUtil.VERSION_EXT;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import org.cytoscape.io.CyFileFilter;
+import org.cytoscape.io.internal.util.GroupUtil;
+import org.cytoscape.io.internal.write.session.SessionWriterImpl.EntryCompression;
+import org.cytoscape.io.write.CyWriter;
+import org.cytoscape.io.write.VizmapWriterManager;
+import org.cytoscape.model.subnetwork.CyRootNetworkManager;
+import org.cytoscape.session.CySession;
+import org.cytoscape.work.TaskMonitor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SessionWriterImplTest {
+
+	private File tempDir;
+
+	@Before
+	public void setUp() throws IOException {
+		tempDir = File.createTempFile("session-writer-test", "");
+		tempDir.delete();
+		tempDir.mkdir();
+	}
+
+	@After
+	public void tearDown() {
+		for (final File file : tempDir.listFiles())
+			file.delete();
+		
+		tempDir.delete();
+	}
+
+	@Test
+	public void testEntriesAreZippedLikeSerialWriter() throws Exception {
+		// More app files than the writer serializes ahead, some of them stored without compression and
+		// one too large to be buffered in memory
+		final int fileCount = 4 * Runtime.getRuntime().availableProcessors() + 3;
+		final Random random = new Random(42);
+		final List<File> appFiles = new ArrayList<File>();
+		
+		for (int i = 0; i < fileCount; i++) {
+			final String name = String.format("file%02d", i) + (i % 3 == 0 ? ".png" : ".txt");
+			final int size = i == 1 ? SessionEntryBuffer.MAX_MEMORY_SIZE + 1000 : random.nextInt(50000);
+			appFiles.add(createFile(name, size, random));
+		}
+		
+		final Map<String, List<File>> appFileListMap = new HashMap<String, List<File>>();
+		appFileListMap.put("myApp", appFiles);
+		final CySession session = new CySession.Builder().appFileListMap(appFileListMap).build();
+		
+		final File sessionFile = new File(tempDir, "session.cys");
+		final OutputStream os = new FileOutputStream(sessionFile);
+		
+		try {
+			newWriter(os, session).run(mock(TaskMonitor.class));
+		} finally {
+			os.close();
+		}
+		
+		final ZipFile zip = new ZipFile(sessionFile);
+		
+		try {
+			final List<ZipEntry> entries = new ArrayList<ZipEntry>();
+			
+			for (final Enumeration<? extends ZipEntry> e = zip.entries(); e.hasMoreElements();)
+				entries.add(e.nextElement());
+			
+			final String sessionDir = entries.get(0).getName().substring(0, entries.get(0).getName().indexOf('/') + 1);
+			
+			// The entries are in the order in which they were added
+			final List<String> expectedNames = new ArrayList<String>();
+			expectedNames.add(sessionDir + CYS_VERSION + VERSION_EXT);
+			expectedNames.add(sessionDir + TABLES_FOLDER + CYTABLE_STATE_FILE);
+			expectedNames.add(sessionDir + "session_vizmap.xml");
+			
+			for (final File file : appFiles)
+				expectedNames.add(sessionDir + APPS_FOLDER + "myApp/" + file.getName());
+			
+			final List<String> names = new ArrayList<String>();
+			final List<byte[]> contents = new ArrayList<byte[]>();
+			
+			for (final ZipEntry entry : entries) {
+				names.add(entry.getName());
+				contents.add(read(zip, entry));
+			}
+			
+			assertEquals(expectedNames, names);
+			
+			for (int i = 0; i < appFiles.size(); i++)
+				assertArrayEquals(names.get(3 + i), readFile(appFiles.get(i)), contents.get(3 + i));
+			
+			// Each entry is compressed just like it is when the entries are zipped one after the other
+			final File serialFile = new File(tempDir, "serial.cys");
+			writeSerially(serialFile, names, contents);
+			final ZipFile serialZip = new ZipFile(serialFile);
+			
+			try {
+				for (final ZipEntry entry : entries) {
+					final ZipEntry serialEntry = serialZip.getEntry(entry.getName());
+					assertEquals(entry.getName(), serialEntry.getMethod(), entry.getMethod());
+					assertEquals(entry.getName(), serialEntry.getCompressedSize(), entry.getCompressedSize());
+					assertEquals(entry.getName(), serialEntry.getCrc(), entry.getCrc());
+				}
+			} finally {
+				serialZip.close();
+			}
+		} finally {
+			zip.close();
+		}
+	}
+	
+	private SessionWriterImpl newWriter(final OutputStream os, final CySession session) throws Exception {
+		final VizmapWriterManager vizmapWriterMgr = mock(VizmapWriterManager.class);
+		when(vizmapWriterMgr.getWriter(any(Set.class), any(CyFileFilter.class), any(OutputStream.class)))
+				.thenReturn(mock(CyWriter.class));
+		
+		final CyFileFilter tableFilter = mock(CyFileFilter.class);
+		when(tableFilter.getExtensions()).thenReturn(Collections.singleton("cytable"));
+		
+		return new SessionWriterImpl(os, session, mock(CyRootNetworkManager.class), null, null, vizmapWriterMgr,
+				null, mock(CyFileFilter.class), mock(CyFileFilter.class), tableFilter, mock(CyFileFilter.class),
+				mock(GroupUtil.class));
+	}
+	
+	/**
+	 * Zips the entries one after the other, choosing the compression of each the same way as the
+	 * session writer.
+	 */
+	private static void writeSerially(final File file, final List<String> names, final List<byte[]> contents)
+			throws IOException {
+		final ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(file));
+		
+		try {
+			for (int i = 0; i < names.size(); i++) {
+				final ZipEntry entry = new ZipEntry(names.get(i));
+				final byte[] content = contents.get(i);
+				
+				switch (EntryCompression.forEntry(entry.getName(), content.length)) {
+					case STORE:
+						final CRC32 crc = new CRC32();
+						crc.update(content);
+						entry.setMethod(ZipEntry.STORED);
+						entry.setSize(content.length);
+						entry.setCompressedSize(content.length);
+						entry.setCrc(crc.getValue());
+						break;
+					case FAST:
+						zos.setLevel(Deflater.BEST_SPEED);
+						break;
+					default:
+						zos.setLevel(Deflater.DEFAULT_COMPRESSION);
+						break;
+				}
+				
+				zos.putNextEntry(entry);
+				zos.write(content);
+				zos.closeEntry();
+			}
+		} finally {
+			zos.close();
+		}
+	}
+	
+	/**
+	 * Creates a temporary file of the given size, with text that compresses somewhat.
+	 */
+	private File createFile(final String name, final int size, final Random random) throws IOException {
+		final File file = new File(tempDir, name);
+		
+		final byte[] content = new byte[size];
+		
+		for (int i = 0; i < size; i++)
+			content[i] = (byte) ('a' + random.nextInt(8));
+		
+		final OutputStream os = new FileOutputStream(file);
+		
+		try {
+			os.write(content);
+		} finally {
+			os.close();
+		}
+		
+		return file;
+	}
+	
+	private static byte[] readFile(final File file) throws IOException {
+		final InputStream is = new FileInputStream(file);
+		
+		try {
+			return readFully(is);
+		} finally {
+			is.close();
+		}
+	}
+	
+	private static byte[] read(final ZipFile zip, final ZipEntry entry) throws IOException {
+		final InputStream is = zip.getInputStream(entry);
+		
+		try {
+			return readFully(is);
+		} finally {
+			is.close();
+		}
+	}
+	
+	private static byte[] readFully(final InputStream is) throws IOException {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final byte[] buf = new byte[64 * 1024];
+		int len;
+		
+		while ((len = is.read(buf)) != -1)
+			bytes.write(buf, 0, len);
+		
+		return bytes.toByteArray();
+	}
+}
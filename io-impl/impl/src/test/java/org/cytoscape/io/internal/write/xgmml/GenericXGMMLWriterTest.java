@@ -28,6 +28,7 @@ import static org.cytoscape.view.presentation.property.BasicVisualLexicon.*;
 import static org.junit.Assert.*;
 
 import java.awt.Color;
+import java.io.ByteArrayOutputStream;
 import java.io.UnsupportedEncodingException;
 import java.util.Arrays;
 
@@ -39,6 +40,7 @@ import org.cytoscape.model.CyNode;
 import org.cytoscape.model.CyTable;
 import org.cytoscape.model.SavePolicy;
 import org.cytoscape.model.subnetwork.CySubNetwork;
+import org.cytoscape.view.model.CyNetworkView;
 import org.cytoscape.view.model.View;
 import org.cytoscape.view.presentation.property.NodeShapeVisualProperty;
 import org.junit.Before;
@@ -394,4 +396,47 @@ public class GenericXGMMLWriterTest extends AbstractXGMMLWriterTest {
 			assertEquals("#0000FF", evalString("//x:edge[@id="+id+"]/x:graphics/@fill").toUpperCase());
 		}
 	}
+	
+	@Test
+	public void testParallelOutputSameAsSerialOutput() throws Exception {
+		CyTable nodeTable = net.getDefaultNodeTable();
+		nodeTable.createColumn("special", String.class, false);
+		nodeTable.createColumn("weight", Double.class, false);
+		CyNode previous = net.getNodeList().get(0);
+		
+		for (int i = 0; i < 5000; i++) {
+			CyNode node = net.addNode();
+			net.getRow(node).set(CyNetwork.NAME, "n<" + i + ">");
+			net.getRow(node).set("special", "\"a\" & 'b' \u00e9\u4e2d\t" + i);
+			net.getRow(node).set("weight", i / 7.0);
+			net.addEdge(previous, node, i % 2 == 0);
+			previous = node;
+		}
+		
+		view = netViewTestSupport.getNetworkViewFactory().createNetworkView(net);
+		
+		String parallel = System.getProperty(GenericXGMMLWriter.PARALLEL_PROPERTY);
+		
+		try {
+			System.setProperty(GenericXGMMLWriter.PARALLEL_PROPERTY, "false");
+			String serialOutput = writeToString(view);
+			System.setProperty(GenericXGMMLWriter.PARALLEL_PROPERTY, "true");
+			String parallelOutput = writeToString(view);
+			
+			assertEquals(serialOutput, parallelOutput);
+		} finally {
+			if (parallel == null)
+				System.clearProperty(GenericXGMMLWriter.PARALLEL_PROPERTY);
+			else
+				System.setProperty(GenericXGMMLWriter.PARALLEL_PROPERTY, parallel);
+		}
+	}
+	
+	private String writeToString(CyNetworkView netView) throws Exception {
+		out = new ByteArrayOutputStream();
+		newWriter(netView).run(tm);
+		
+		// Ignore the time of writing
+		return out.toString("UTF-8").replaceFirst("<dc:date>.*</dc:date>", "");
+	}
 }
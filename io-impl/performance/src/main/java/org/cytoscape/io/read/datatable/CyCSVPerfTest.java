@@ -0,0 +1,128 @@
+package org.cytoscape.io.read.datatable;
+
+/*
+ * #%L
+ * Cytoscape IO Impl Performance (io-impl-performance)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+
+import static org.mockito.Mockito.mock;
+
+import java.io.ByteArrayInputStream;
+import java.util.Random;
+
+import org.cytoscape.io.internal.read.datatable.CSVCyReader;
+import org.cytoscape.model.CyTable;
+import org.cytoscape.model.CyTableFactory;
+import org.cytoscape.model.TableTestSupport;
+import org.cytoscape.work.TaskMonitor;
+
+
+/**
+ * Measures how fast session tables in the CyCSV format are read.
+ */
+public class CyCSVPerfTest {
+
+	private static final int ROWS = 200000;
+	private static final int WARM_UP_RUNS = 3;
+	private static final int RUNS = 5;
+
+	public static void main(String[] args) {
+		final int rows = args.length > 0 ? Integer.parseInt(args[0]) : ROWS;
+		
+		try {
+			new CyCSVPerfTest().runTestLoop(rows);
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
+
+	private final CyTableFactory tableFactory;
+	private final TaskMonitor taskMonitor;
+
+	public CyCSVPerfTest() {
+		tableFactory = new TableTestSupport().getTableFactory();
+		taskMonitor = mock(TaskMonitor.class);
+	}
+
+	public void runTestLoop(final int rows) throws Exception {
+		final byte[] data = createTable(rows);
+		System.out.println("CyCSV table: " + rows + " rows, " + data.length / 1024 + " KB");
+
+		for (int i = 0; i < WARM_UP_RUNS; i++)
+			readTable(data);
+
+		long total = 0;
+		for (int i = 0; i < RUNS; i++) {
+			final long start = System.nanoTime();
+			final CyTable table = readTable(data);
+			final long end = System.nanoTime();
+			total += end - start;
+
+			if (table.getRowCount() != rows)
+				throw new IllegalStateException("Expected " + rows + " rows, read " + table.getRowCount());
+		}
+
+		final double seconds = total / 1e9 / RUNS;
+		System.out.println("Reading CyCSV table duration: " + Math.round(seconds * 1000) + " ms, "
+				+ Math.round(rows / seconds) + " rows/s, "
+				+ Math.round(data.length / seconds / (1024 * 1024)) + " MB/s");
+	}
+
+	private CyTable readTable(final byte[] data) throws Exception {
+		final CSVCyReader reader = new CSVCyReader(new ByteArrayInputStream(data), true, false, tableFactory,
+				null, "UTF-8");
+		reader.run(taskMonitor);
+
+		return reader.getTables()[0];
+	}
+
+	/**
+	 * Creates a node table as written by the session writer, with a column of each type.
+	 */
+	private static byte[] createTable(final int rows) throws Exception {
+		final Random random = new Random(42);
+		final StringBuilder sb = new StringBuilder();
+		sb.append("\"CyCSV-Version\",\"1\"\r\n");
+		sb.append("\"SUID\",\"degree\",\"label\",\"score\",\"selected\",\"synonyms\",\"weight\"\r\n");
+		sb.append("\"java.lang.Long\",\"java.lang.Integer\",\"java.lang.String\",\"java.lang.Double\",")
+				.append("\"java.lang.Boolean\",\"java.util.List<java.lang.String>\",\"java.lang.Long\"\r\n");
+		sb.append("\"\",\"mutable\",\"mutable\",\"mutable\",\"mutable\",\"mutable\",\"mutable\"\r\n");
+		sb.append("\"node table\",\"public,mutable\"\r\n");
+
+		for (int i = 0; i < rows; i++) {
+			sb.append('"').append(100000L + i).append("\",");
+			sb.append('"').append(random.nextInt(100)).append("\",");
+			sb.append("\"Node \"\"").append(i).append("\"\", gene\",");
+			sb.append('"').append(random.nextDouble() * 1000).append("\",");
+			sb.append('"').append(random.nextBoolean()).append("\",");
+			sb.append("\"SYN").append(i).append("-A\rSYN").append(i).append("-B\",");
+			// Missing values are written as empty, unquoted fields
+			if (i % 10 != 0)
+				sb.append('"').append(random.nextLong()).append('"');
+			sb.append("\r\n");
+		}
+
+		return sb.toString().getBytes("UTF-8");
+	}
+}
@@ -0,0 +1,265 @@
+package org.cytoscape.io.read.xgmml;
+
+/*
+ * #%L
+ * Cytoscape IO Impl Performance (io-impl-performance)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.cytoscape.application.CyApplicationManager;
+import org.cytoscape.application.NetworkViewRenderer;
+import org.cytoscape.ding.NetworkViewTestSupport;
+import org.cytoscape.equations.EquationCompiler;
+import org.cytoscape.io.internal.read.xgmml.HandlerFactory;
+import org.cytoscape.io.internal.read.xgmml.SessionXGMMLNetworkViewReader;
+import org.cytoscape.io.internal.read.xgmml.XGMMLParser;
+import org.cytoscape.io.internal.read.xgmml.handler.ReadDataManager;
+import org.cytoscape.io.internal.util.GroupUtil;
+import org.cytoscape.io.internal.util.ReadCache;
+import org.cytoscape.io.internal.util.SUIDUpdater;
+import org.cytoscape.io.internal.util.UnrecognizedVisualPropertyManager;
+import org.cytoscape.io.internal.util.session.SessionUtil;
+import org.cytoscape.model.CyEdge;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNetworkFactory;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.model.CyTableManager;
+import org.cytoscape.model.NetworkTestSupport;
+import org.cytoscape.model.TableTestSupport;
+import org.cytoscape.model.subnetwork.CyRootNetworkManager;
+import org.cytoscape.view.model.CyNetworkView;
+import org.cytoscape.view.presentation.RenderingEngineManager;
+import org.cytoscape.view.presentation.property.BasicVisualLexicon;
+import org.cytoscape.view.presentation.property.NullVisualProperty;
+import org.cytoscape.work.TaskMonitor;
+
+
+/**
+ * Measures the peak heap usage and the parse rate of reading a network view of a Cy3 session, with the graphics
+ * attributes buffered until the view is built, and with the view built while the document is parsed.
+ */
+public class XGMMLViewPerfTest {
+
+	private static final int NODES = 100000;
+	private static final int EDGES = 300000;
+	private static final int RUNS = 3;
+
+	public static void main(String[] args) {
+		final int nodes = args.length > 0 ? Integer.parseInt(args[0]) : NODES;
+		final int edges = args.length > 1 ? Integer.parseInt(args[1]) : EDGES;
+		
+		try {
+			new XGMMLViewPerfTest().runTestLoop(nodes, edges);
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
+
+	private final CyNetworkFactory networkFactory;
+	private final CyRootNetworkManager rootNetworkMgr;
+	private final RenderingEngineManager renderingEngineMgr;
+	private final CyApplicationManager applicationMgr;
+	private final UnrecognizedVisualPropertyManager unrecognizedVisualPropertyMgr;
+	private final ReadCache readCache;
+	private final ReadDataManager readDataMgr;
+	private final XGMMLParser parser;
+	private final TaskMonitor taskMonitor;
+
+	public XGMMLViewPerfTest() {
+		final NetworkTestSupport networkTestSupport = new NetworkTestSupport();
+		networkFactory = networkTestSupport.getNetworkFactory();
+		rootNetworkMgr = networkTestSupport.getRootNetworkFactory();
+		
+		renderingEngineMgr = mock(RenderingEngineManager.class);
+		when(renderingEngineMgr.getDefaultVisualLexicon())
+				.thenReturn(new BasicVisualLexicon(new NullVisualProperty("MINIMAL_ROOT",
+																			"Minimal Root Visual Property")));
+		
+		final NetworkViewRenderer networkViewRenderer = mock(NetworkViewRenderer.class);
+		when(networkViewRenderer.getNetworkViewFactory())
+				.thenReturn(new NetworkViewTestSupport().getNetworkViewFactory());
+		applicationMgr = mock(CyApplicationManager.class);
+		when(applicationMgr.getDefaultNetworkViewRenderer()).thenReturn(networkViewRenderer);
+		
+		unrecognizedVisualPropertyMgr = new UnrecognizedVisualPropertyManager(
+				new TableTestSupport().getTableFactory(), mock(CyTableManager.class));
+		
+		readCache = new ReadCache(networkTestSupport.getNetworkTableManager());
+		readDataMgr = new ReadDataManager(readCache, new SUIDUpdater(), mock(EquationCompiler.class),
+				networkFactory, rootNetworkMgr, mock(GroupUtil.class));
+		final HandlerFactory handlerFactory = new HandlerFactory(readDataMgr);
+		handlerFactory.init();
+		parser = new XGMMLParser(handlerFactory, readDataMgr);
+		taskMonitor = mock(TaskMonitor.class);
+	}
+
+	public void runTestLoop(final int nodes, final int edges) throws Exception {
+		SessionUtil.setReadingSessionFile(true);
+		
+		try {
+			final CyNetwork network = createNetwork(nodes, edges);
+			final byte[] data = createView(network);
+			System.out.println("XGMML view: " + nodes + " nodes, " + edges + " edges, "
+					+ data.length / (1024 * 1024) + " MB");
+			
+			for (int i = 0; i < RUNS; i++) {
+				readView(network, data, false);
+				readView(network, data, true);
+			}
+		} finally {
+			SessionUtil.setReadingSessionFile(false);
+		}
+	}
+
+	private void readView(final CyNetwork network, final byte[] data, final boolean streaming) throws Exception {
+		final long baseline = resetPeakHeapUsage();
+		final long start = System.nanoTime();
+		
+		final SessionXGMMLNetworkViewReader reader = new SessionXGMMLNetworkViewReader(
+				new ByteArrayInputStream(data), networkFactory, renderingEngineMgr, readDataMgr, parser,
+				unrecognizedVisualPropertyMgr, rootNetworkMgr, applicationMgr);
+		
+		if (streaming)
+			reader.setNetwork(network);
+		
+		reader.run(taskMonitor);
+		final CyNetworkView view = reader.buildCyNetworkView(network);
+		
+		final long end = System.nanoTime();
+		final long peak = getPeakHeapUsage() - baseline;
+		
+		if (view.getNodeViews().size() != network.getNodeCount())
+			throw new IllegalStateException("Expected " + network.getNodeCount() + " node views");
+		
+		final double seconds = (end - start) / 1e9;
+		final int elements = network.getNodeCount() + network.getEdgeCount();
+		System.out.println((streaming ? "Streaming" : "Buffered ") + " view read: "
+				+ Math.round(seconds * 1000) + " ms, "
+				+ Math.round(elements / seconds) + " elements/s, "
+				+ Math.round(data.length / seconds / (1024 * 1024)) + " MB/s, peak heap +"
+				+ peak / (1024 * 1024) + " MB");
+	}
+
+	/**
+	 * Creates the network and caches its elements by their own SUIDs, as if it had been read from the session.
+	 */
+	private CyNetwork createNetwork(final int nodes, final int edges) {
+		final CyNetwork network = networkFactory.createNetwork();
+		readCache.cache(network.getSUID(), network);
+		
+		final CyNode[] nodeArray = new CyNode[nodes];
+		
+		for (int i = 0; i < nodes; i++) {
+			nodeArray[i] = network.addNode();
+			readCache.cache(nodeArray[i].getSUID(), nodeArray[i]);
+		}
+		
+		for (int i = 0; i < edges; i++) {
+			final CyEdge edge = network.addEdge(nodeArray[i % nodes], nodeArray[(i * 31 + 7) % nodes], true);
+			readCache.cache(edge.getSUID(), edge);
+		}
+		
+		return network;
+	}
+
+	/**
+	 * Creates the XGMML document written by the session writer for a view of the network, where every node has
+	 * a position and a locked fill color, and every edge has a locked width.
+	 */
+	private static byte[] createView(final CyNetwork network) throws Exception {
+		final StringBuilder sb = new StringBuilder();
+		sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n");
+		sb.append("<graph id=\"1\" label=\"view\" cy:view=\"1\" cy:networkId=\"").append(network.getSUID())
+				.append("\" cy:documentVersion=\"3.0\" xmlns:cy=\"http://www.cytoscape.org\"")
+				.append(" xmlns=\"http://www.cs.rpi.edu/XGMML\">\n");
+		sb.append("  <graphics>\n    <att name=\"NETWORK_BACKGROUND_PAINT\" value=\"#FFFFFF\" type=\"string\"/>\n")
+				.append("  </graphics>\n");
+		
+		int i = 0;
+		
+		for (final CyNode node : network.getNodeList()) {
+			sb.append("  <node id=\"").append(++i).append("\" label=\"n").append(i).append("\" cy:nodeId=\"")
+					.append(node.getSUID()).append("\">\n");
+			sb.append("    <graphics x=\"").append(i % 1000 * 10.5).append("\" y=\"").append(i / 1000 * 10.5)
+					.append("\" z=\"0.0\">\n");
+			sb.append("      <att name=\"lockedVisualProperties\" type=\"list\">\n");
+			sb.append("        <att name=\"NODE_FILL_COLOR\" value=\"#").append(String.format("%06X", i & 0xFFFFFF))
+					.append("\" type=\"string\"/>\n");
+			sb.append("      </att>\n    </graphics>\n  </node>\n");
+		}
+		
+		for (final CyEdge edge : network.getEdgeList()) {
+			sb.append("  <edge id=\"").append(++i).append("\" label=\"e").append(i).append("\" cy:edgeId=\"")
+					.append(edge.getSUID()).append("\">\n");
+			sb.append("    <graphics>\n      <att name=\"lockedVisualProperties\" type=\"list\">\n");
+			sb.append("        <att name=\"EDGE_WIDTH\" value=\"").append(1 + i % 5).append(".0\" type=\"real\"/>\n");
+			sb.append("      </att>\n    </graphics>\n  </edge>\n");
+		}
+		
+		sb.append("</graph>\n");
+		
+		return sb.toString().getBytes("UTF-8");
+	}
+
+	private static long resetPeakHeapUsage() {
+		System.gc();
+		long used = 0;
+		
+		for (final MemoryPoolMXBean pool : getHeapPools()) {
+			pool.resetPeakUsage();
+			used += pool.getUsage().getUsed();
+		}
+		
+		return used;
+	}
+
+	private static long getPeakHeapUsage() {
+		long peak = 0;
+		
+		for (final MemoryPoolMXBean pool : getHeapPools())
+			peak += pool.getPeakUsage().getUsed();
+		
+		return peak;
+	}
+
+	private static List<MemoryPoolMXBean> getHeapPools() {
+		final List<MemoryPoolMXBean> pools = new ArrayList<MemoryPoolMXBean>();
+		
+		for (final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP)
+				pools.add(pool);
+		}
+		
+		return pools;
+	}
+}
@@ -0,0 +1,308 @@
+package csapps.layout;
+
+/*
+ * #%L
+ * Cytoscape Layout Algorithms Impl (layout-cytoscape-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.cytoscape.model.CyNode;
+import org.cytoscape.view.layout.AbstractPartitionLayoutTask;
+import org.cytoscape.view.layout.LayoutPartition;
+import org.cytoscape.view.layout.PartitionUtil;
+import org.cytoscape.view.model.CyNetworkView;
+import org.cytoscape.view.model.View;
+import org.cytoscape.work.TaskMonitor;
+import org.cytoscape.work.undo.UndoSupport;
+
+
+/**
+ * A partition layout that lays out the partitions of the network concurrently, on the common
+ * fork-join pool, instead of one after the other.
+ * <p>
+ * Every partition is laid out by its own copy of the task, created by {@link #newPartitionTask()},
+ * so the per-partition state of the subclasses stays confined to one thread.  The partitions are
+ * started from the largest to the smallest, and once they are all laid out, they are packed by
+ * {@link AbstractPartitionLayoutTask} itself, so the result doesn't depend on the scheduling.
+ * The progress of the copies is combined into the progress of this task, weighted by the number
+ * of nodes in their partition.
+ * <p>
+ * Layouts of a single partition, of some of the nodes only, or on a single processor, are left
+ * to {@link AbstractPartitionLayoutTask}.
+ */
+public abstract class ConcurrentPartitionLayoutTask extends AbstractPartitionLayoutTask {
+
+	private final boolean singlePartition;
+
+	/** The copies laying out a partition, so that they can be cancelled */
+	private final List<ConcurrentPartitionLayoutTask> partitionTasks =
+			Collections.synchronizedList(new ArrayList<ConcurrentPartitionLayoutTask>());
+
+	/** Only set on the copies: where their progress goes */
+	private PartitionTaskMonitor partitionMonitor;
+
+	public ConcurrentPartitionLayoutTask(final String displayName, final boolean singlePartition,
+			final CyNetworkView networkView, final Set<View<CyNode>> nodesToLayOut, final String attrName,
+			final UndoSupport undo) {
+		super(displayName, singlePartition, networkView, nodesToLayOut, attrName, undo);
+		this.singlePartition = singlePartition;
+	}
+
+	/**
+	 * @return a new task with the same settings, whose {@link #layoutPartition(LayoutPartition)}
+	 *         can run at the same time as the one of this task
+	 */
+	protected abstract ConcurrentPartitionLayoutTask newPartitionTask();
+
+	@Override
+	public void doLayout(final TaskMonitor taskMonitor) {
+		final boolean useAllNodes = nodesToLayOut.isEmpty()
+				|| nodesToLayOut.size() == networkView.getNodeViews().size();
+
+		if (singlePartition || !useAllNodes || ForkJoinPool.getCommonPoolParallelism() < 2) {
+			super.doLayout(taskMonitor);
+			return;
+		}
+
+		this.taskMonitor = taskMonitor;
+
+		final List<LayoutPartition> partitions =
+				PartitionUtil.partition(networkView, networkView.getNodeViews(), edgeWeighter);
+
+		if (partitions.isEmpty())
+			return;
+
+		layOutPartitions(partitions);
+
+		if (cancelled)
+			return;
+
+		new PartitionPacker().pack(taskMonitor);
+	}
+
+	/**
+	 * Lays out the partitions with more than one node on the common pool, one worker per processor,
+	 * each taking the largest partition left.
+	 */
+	private void layOutPartitions(final List<LayoutPartition> partitions) {
+		final Integer[] order = new Integer[partitions.size()];
+
+		for (int i = 0; i < order.length; i++)
+			order[i] = i;
+
+		// Largest first, so that the small partitions fill in at the end (the sort is stable)
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(final Integer i1, final Integer i2) {
+				return partitions.get(i2).nodeCount() - partitions.get(i1).nodeCount();
+			}
+		});
+
+		final PartitionProgress progress = new PartitionProgress(taskMonitor, partitions);
+		final AtomicInteger next = new AtomicInteger();
+		final int workerCount = Math.min(ForkJoinPool.getCommonPoolParallelism(), order.length);
+		final List<RecursiveAction> workers = new ArrayList<RecursiveAction>(workerCount);
+
+		for (int i = 0; i < workerCount; i++) {
+			workers.add(new RecursiveAction() {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected void compute() {
+					int index;
+
+					while (!cancelled && (index = next.getAndIncrement()) < order.length)
+						layOutPartition(partitions.get(order[index]), new PartitionTaskMonitor(progress, order[index]));
+				}
+			});
+		}
+
+		ForkJoinPool.commonPool().invoke(new RecursiveAction() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected void compute() {
+				invokeAll(workers);
+			}
+		});
+	}
+
+	private void layOutPartition(final LayoutPartition partition, final PartitionTaskMonitor monitor) {
+		if (partition.nodeCount() > 1) {
+			final ConcurrentPartitionLayoutTask task = newPartitionTask();
+			task.taskMonitor = monitor;
+			task.partitionMonitor = monitor;
+			partitionTasks.add(task);
+
+			try {
+				if (cancelled)
+					task.cancel();
+
+				task.layoutPartition(partition);
+			} finally {
+				partitionTasks.remove(task);
+			}
+		}
+
+		monitor.setProgress(1.0);
+	}
+
+	@Override
+	public void setTaskStatus(final int percent) {
+		if (partitionMonitor != null)
+			partitionMonitor.setProgress(percent / 100.0);
+		else
+			super.setTaskStatus(percent);
+	}
+
+	@Override
+	public void cancel() {
+		super.cancel();
+
+		synchronized (partitionTasks) {
+			for (final ConcurrentPartitionLayoutTask task : partitionTasks)
+				task.cancel();
+		}
+	}
+
+	/**
+	 * Moves the partitions, which are already laid out, next to each other, by running the layout
+	 * of {@link AbstractPartitionLayoutTask} without laying out the partitions again.
+	 */
+	private final class PartitionPacker extends AbstractPartitionLayoutTask {
+
+		PartitionPacker() {
+			super(ConcurrentPartitionLayoutTask.this.toString(), false, ConcurrentPartitionLayoutTask.this.networkView,
+					ConcurrentPartitionLayoutTask.this.nodesToLayOut, ConcurrentPartitionLayoutTask.this.layoutAttribute,
+					null);
+			edgeWeighter = ConcurrentPartitionLayoutTask.this.edgeWeighter;
+		}
+
+		void pack(final TaskMonitor taskMonitor) {
+			doLayout(taskMonitor);
+		}
+
+		@Override
+		public void layoutPartition(final LayoutPartition partition) {
+			// Already laid out by its own copy of the task
+		}
+	}
+
+	/**
+	 * The progress of every partition, combined into the progress of the whole layout.
+	 */
+	private static final class PartitionProgress {
+		private final TaskMonitor taskMonitor;
+		/** The fraction of the nodes in every partition */
+		private final double[] weights;
+		private final double[] progress;
+		private double total;
+
+		PartitionProgress(final TaskMonitor taskMonitor, final List<LayoutPartition> partitions) {
+			this.taskMonitor = taskMonitor;
+
+			int nodeCount = 0;
+
+			for (final LayoutPartition partition : partitions)
+				nodeCount += partition.nodeCount();
+
+			weights = new double[partitions.size()];
+			progress = new double[partitions.size()];
+
+			for (int i = 0; i < weights.length; i++)
+				weights[i] = nodeCount > 0 ? (double) partitions.get(i).nodeCount() / nodeCount : 0;
+		}
+
+		synchronized void setProgress(final int partition, final double value) {
+			final double clamped = Math.min(1, value);
+
+			// Some layouts start over in their later passes, but the whole layout only moves forward
+			if (clamped <= progress[partition])
+				return;
+
+			total += weights[partition] * (clamped - progress[partition]);
+			progress[partition] = clamped;
+
+			if (taskMonitor != null)
+				taskMonitor.setProgress(Math.min(1, total));
+		}
+
+		synchronized void setStatusMessage(final String statusMessage) {
+			if (taskMonitor != null)
+				taskMonitor.setStatusMessage(statusMessage);
+		}
+
+		synchronized void showMessage(final TaskMonitor.Level level, final String message) {
+			if (taskMonitor != null)
+				taskMonitor.showMessage(level, message);
+		}
+	}
+
+	/**
+	 * The task monitor of a copy laying out a single partition.  Only changes of at least one
+	 * percent are passed on, since some layouts report their progress for every node.
+	 */
+	private static final class PartitionTaskMonitor implements TaskMonitor {
+		private static final double MIN_PROGRESS_CHANGE = 0.01;
+
+		private final PartitionProgress progress;
+		private final int partition;
+		private double lastProgress;
+
+		PartitionTaskMonitor(final PartitionProgress progress, final int partition) {
+			this.progress = progress;
+			this.partition = partition;
+		}
+
+		@Override
+		public void setTitle(final String title) {
+			// The title is the one of the whole layout
+		}
+
+		@Override
+		public void setProgress(final double value) {
+			if (Math.abs(value - lastProgress) >= MIN_PROGRESS_CHANGE || (value >= 1.0 && lastProgress < 1.0)) {
+				lastProgress = value;
+				progress.setProgress(partition, value);
+			}
+		}
+
+		@Override
+		public void setStatusMessage(final String statusMessage) {
+			progress.setStatusMessage(statusMessage);
+		}
+
+		@Override
+		public void showMessage(final TaskMonitor.Level level, final String message) {
+			progress.showMessage(level, message);
+		}
+	}
+}
@@ -0,0 +1,750 @@
+package csapps.layout.algorithms.bioLayout;
+
+/*
+ * #%L
+ * Cytoscape Layout Algorithms Impl (layout-cytoscape-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+
+/**
+ * The iteration of {@link BioLayoutFRAlgorithmTask}, on a graph held in primitive arrays, with the
+ * repulsive forces approximated by a Barnes-Hut quadtree and computed on the fork-join pool.
+ * <p>
+ * A cell of the quadtree repels a node as a single node at its center of mass when the cell is
+ * smaller than theta times its distance to the node, all the nodes in it are within the maximum
+ * repulsion distance, and the conflict avoidance force applies to either all or none of them.
+ * Everything else is computed exactly as in the task, so a theta of 0 gives the exact forces.
+ * <p>
+ * {@link #coarsen()} merges matched neighbors into a smaller graph, whose layout is the starting
+ * point of this one after {@link #interpolate(BarnesHutFRLayout)}.
+ */
+final class BarnesHutFRLayout {
+	/** Minimum number of nodes for computing the repulsive forces on the fork-join pool. */
+	static final int PARALLEL_THRESHOLD = 2048;
+	/** Number of nodes whose repulsive forces are computed by a single fork-join task. */
+	private static final int CHUNK_SIZE = 256;
+	/** Maximum number of nodes in a leaf of the quadtree. */
+	private static final int LEAF_SIZE = 8;
+	/** Cells are not split below this depth, so that coincident nodes share a leaf. */
+	private static final int MAX_DEPTH = 40;
+	/** Coarsening stops when it would keep more than this fraction of the nodes. */
+	private static final double MAX_COARSENING_RATIO = 0.8;
+	private static final double EPSILON = 0.0000001;
+
+	private final int nodeCount;
+	private final double[] x;
+	private final double[] y;
+	private final double[] radius;
+	private final boolean[] locked;
+	private final int[] degree;
+	/** Number of nodes of the original graph merged into each node */
+	private final int[] multiplicity;
+	private final int[] edgeSource;
+	private final int[] edgeTarget;
+	private final double[] edgeWeight;
+
+	/** The node of the coarser graph that each node was merged into */
+	private int[] parent;
+
+	private double attractionConstant;
+	private double repulsionConstant;
+	private double gravityConstant;
+	private double conflictAvoidance;
+	private double maxDistance;
+	private double theta;
+
+	private final double[] xDisp;
+	private final double[] yDisp;
+
+	/** The total displacements of the last iterations, as a ring buffer */
+	private final double[] displacements = new double[100];
+	private int firstDisplacement;
+	private int displacementCount;
+
+	// The quadtree: node indices sorted by cell, and one entry per cell in the other arrays
+	private final int[] cellNodes;
+	private int cellCount;
+	private double[] cellMinX = new double[0];
+	private double[] cellMinY = new double[0];
+	private double[] cellSize = new double[0];
+	private double[] cellCenterX = new double[0];
+	private double[] cellCenterY = new double[0];
+	private double[] cellMass = new double[0];
+	private double[] cellRadius = new double[0];
+	private double[] cellMinRadius = new double[0];
+	private int[] cellStart = new int[0];
+	private int[] cellEnd = new int[0];
+	private int[] cellFirstChild = new int[0];
+	private int[] cellChildCount = new int[0];
+
+	/**
+	 * @param x the X locations, which are updated by the iterations
+	 * @param y the Y locations, which are updated by the iterations
+	 * @param radius half the width of every node
+	 * @param locked which nodes must not move
+	 * @param degree the number of edges of every node
+	 * @param edgeSource the index of the source node of every edge
+	 * @param edgeTarget the index of the target node of every edge
+	 * @param edgeWeight the (normalized) weight of every edge
+	 */
+	BarnesHutFRLayout(final double[] x, final double[] y, final double[] radius, final boolean[] locked,
+	                  final int[] degree, final int[] edgeSource, final int[] edgeTarget,
+	                  final double[] edgeWeight) {
+		this(x, y, radius, locked, degree, ones(x.length), edgeSource, edgeTarget, edgeWeight);
+	}
+
+	private BarnesHutFRLayout(final double[] x, final double[] y, final double[] radius, final boolean[] locked,
+	                          final int[] degree, final int[] multiplicity, final int[] edgeSource,
+	                          final int[] edgeTarget, final double[] edgeWeight) {
+		this.nodeCount = x.length;
+		this.x = x;
+		this.y = y;
+		this.radius = radius;
+		this.locked = locked;
+		this.degree = degree;
+		this.multiplicity = multiplicity;
+		this.edgeSource = edgeSource;
+		this.edgeTarget = edgeTarget;
+		this.edgeWeight = edgeWeight;
+
+		xDisp = new double[nodeCount];
+		yDisp = new double[nodeCount];
+		cellNodes = new int[nodeCount];
+	}
+
+	/**
+	 * Sets the constants of the forces, as computed by the task.
+	 *
+	 * @param theta the Barnes-Hut accuracy parameter; 0 computes every force exactly
+	 */
+	void setForces(final double attractionConstant, final double repulsionConstant,
+	               final double gravityConstant, final double conflictAvoidance, final double maxDistance,
+	               final double theta) {
+		this.attractionConstant = attractionConstant;
+		this.repulsionConstant = repulsionConstant;
+		this.gravityConstant = gravityConstant;
+		this.conflictAvoidance = conflictAvoidance;
+		this.maxDistance = maxDistance;
+		this.theta = Math.max(0, theta);
+	}
+
+	int getNodeCount() {
+		return nodeCount;
+	}
+
+	double getX(final int node) {
+		return x[node];
+	}
+
+	double getY(final int node) {
+		return y[node];
+	}
+
+	/**
+	 * This executes a single iteration of the FR algorithm.
+	 *
+	 * @param iteration The current interation.
+	 * @param nIterations The number of iterations, which determines the cooling.
+	 * @param temp The current temperature factor.
+	 * @return an updated temperature factor, or 0 if the layout is complete.
+	 */
+	double doOneIteration(final int iteration, final int nIterations, final double temp) {
+		double xAverage = 0;
+		double yAverage = 0;
+
+		for (int i = 0; i < nodeCount; i++) {
+			if (!locked[i]) {
+				xAverage += x[i] / nodeCount;
+				yAverage += y[i] / nodeCount;
+			}
+		}
+
+		buildQuadtree();
+
+		// Calculate repulsive forces
+		if (nodeCount >= PARALLEL_THRESHOLD && ForkJoinPool.getCommonPoolParallelism() > 1)
+			ForkJoinPool.commonPool().invoke(new RepulsionTask(0, nodeCount, xAverage, yAverage));
+		else
+			calculateRepulsion(0, nodeCount, xAverage, yAverage);
+
+		// Calculate attractive forces
+		for (int e = 0; e < edgeSource.length; e++)
+			calculateAttraction(e);
+
+		// Dampen & update
+		double xDispTotal = 0;
+		double yDispTotal = 0;
+
+		for (int i = 0; i < nodeCount; i++) {
+			if (locked[i])
+				continue;
+
+			calculatePosition(i, temp);
+
+			xDispTotal += Math.abs(xDisp[i]);
+			yDispTotal += Math.abs(yDisp[i]);
+		}
+
+		if (complete(xDispTotal, yDispTotal))
+			return 0;
+
+		return temp * (1.0 - ((double)iteration / (double)nIterations));
+	}
+
+	/**
+	 * Same as the task: the layout is complete when the average slope of the total displacement
+	 * over the last 100 iterations is (about) 0.
+	 */
+	private boolean complete(final double xDispTotal, final double yDispTotal) {
+		final int capacity = displacements.length;
+		displacements[(firstDisplacement + displacementCount) % capacity] =
+				Math.sqrt((xDispTotal * xDispTotal) + (yDispTotal * yDispTotal));
+		displacementCount++;
+
+		if (displacementCount < capacity - 1)
+			return false;
+
+		final double first = displacements[firstDisplacement];
+		final double last = displacements[(firstDisplacement + displacementCount - 1) % capacity];
+
+		if (Math.abs((last - first) / displacementCount) < .001)
+			return true;
+
+		if (displacementCount == capacity) {
+			firstDisplacement = (firstDisplacement + 1) % capacity;
+			displacementCount--;
+		}
+
+		return false;
+	}
+
+	/**
+	 * Calculates the repulsive forces and the gravity for the unlocked nodes in [from, to).
+	 */
+	private void calculateRepulsion(final int from, final int to, final double xAverage, final double yAverage) {
+		// Each pop pushes at most 4 cells, and there are at most 3 siblings left per level
+		final int[] stack = new int[3 * MAX_DEPTH + 4];
+
+		for (int i = from; i < to; i++) {
+			if (locked[i]) {
+				xDisp[i] = 0;
+				yDisp[i] = 0;
+				continue;
+			}
+
+			calculateRepulsion(i, stack);
+
+			if (gravityConstant != 0)
+				calculateGravity(i, xAverage, yAverage);
+		}
+	}
+
+	private void calculateRepulsion(final int v, final int[] stack) {
+		final double vx = x[v];
+		final double vy = y[v];
+		final double vRadius = radius[v];
+		final double k2 = repulsionConstant * repulsionConstant;
+		double dispX = 0;
+		double dispY = 0;
+
+		int top = 0;
+		stack[top++] = 0;
+
+		while (top > 0) {
+			final int cell = stack[--top];
+			final double minX = cellMinX[cell];
+			final double minY = cellMinY[cell];
+			final double maxX = minX + cellSize[cell];
+			final double maxY = minY + cellSize[cell];
+
+			// No node in the cell is closer than this
+			final double nearX = vx < minX ? minX - vx : (vx > maxX ? vx - maxX : 0);
+			final double nearY = vy < minY ? minY - vy : (vy > maxY ? vy - maxY : 0);
+			final double nearest = Math.sqrt(nearX * nearX + nearY * nearY);
+			final boolean noConflicts = nearest >= vRadius + cellRadius[cell];
+
+			if (nearest > maxDistance && noConflicts)
+				continue;
+
+			if (cellChildCount[cell] == 0) {
+				for (int n = cellStart[cell]; n < cellEnd[cell]; n++) {
+					final int u = cellNodes[n];
+
+					if (u == v)
+						continue;
+
+					final double dx = vx - x[u];
+					final double dy = vy - y[u];
+					double deltaDistance = Math.sqrt(dx * dx + dy * dy);
+
+					if (deltaDistance == 0.0)
+						deltaDistance = EPSILON;
+
+					double fr = deltaDistance > maxDistance ? 0 : k2 / deltaDistance;
+
+					// If its too close, increase the force by a constant
+					if (deltaDistance < (vRadius + radius[u]))
+						fr += conflictAvoidance;
+
+					if (Double.isNaN(fr))
+						fr = 500;
+
+					final double f = fr / deltaDistance * mass(u);
+					dispX += dx * f;
+					dispY += dy * f;
+				}
+
+				continue;
+			}
+
+			final double dx = vx - cellCenterX[cell];
+			final double dy = vy - cellCenterY[cell];
+			final double deltaDistance = Math.sqrt(dx * dx + dy * dy);
+
+			if (cellSize[cell] < theta * deltaDistance) {
+				// No node in the cell is farther than this
+				final double farX = Math.max(vx - minX, maxX - vx);
+				final double farY = Math.max(vy - minY, maxY - vy);
+				final double farthest = Math.sqrt(farX * farX + farY * farY);
+				final boolean allConflicts = farthest < vRadius + cellMinRadius[cell];
+
+				if (farthest <= maxDistance && (noConflicts || allConflicts)) {
+					final double fr = k2 / deltaDistance + (allConflicts ? conflictAvoidance : 0);
+					final double f = fr / deltaDistance * cellMass[cell];
+					dispX += dx * f;
+					dispY += dy * f;
+					continue;
+				}
+			}
+
+			final int firstChild = cellFirstChild[cell];
+
+			for (int c = 0; c < cellChildCount[cell]; c++)
+				stack[top++] = firstChild + c;
+		}
+
+		xDisp[v] = dispX;
+		yDisp[v] = dispY;
+	}
+
+	/**
+	 * Locked nodes repel twice as much, because they are not pushed back.
+	 */
+	private double mass(final int node) {
+		return locked[node] ? 2 * multiplicity[node] : multiplicity[node];
+	}
+
+	private void calculateGravity(final int v, final double xAverage, final double yAverage) {
+		final double dx = x[v] - xAverage;
+		final double dy = y[v] - yAverage;
+		double distance = Math.sqrt(dx * dx + dy * dy);
+
+		if (distance == 0)
+			distance = EPSILON;
+
+		final double phi = (1 + degree[v]) / 3;
+		final double force = gravityConstant * distance * phi;
+		xDisp[v] -= dx * force;
+		yDisp[v] -= dy * force;
+	}
+
+	private void calculateAttraction(final int e) {
+		final int v = edgeSource[e];
+		final int u = edgeTarget[e];
+		final double dx = x[v] - x[u];
+		final double dy = y[v] - y[u];
+		final double deltaDistance = Math.sqrt(dx * dx + dy * dy);
+
+		double fa = (deltaDistance / attractionConstant) * edgeWeight[e];
+
+		if (Double.isNaN(fa))
+			fa = EPSILON;
+
+		final double xVector = dx * fa;
+		final double yVector = dy * fa;
+
+		if (locked[u] && locked[v]) {
+			return;
+		} else if (locked[u]) {
+			xDisp[v] -= xVector * 2;
+			yDisp[v] -= yVector * 2;
+		} else if (locked[v]) {
+			xDisp[u] += xVector * 2;
+			yDisp[u] += yVector * 2;
+		} else {
+			xDisp[v] -= xVector;
+			yDisp[v] -= yVector;
+			xDisp[u] += xVector;
+			yDisp[u] += yVector;
+		}
+	}
+
+	private void calculatePosition(final int v, final double temp) {
+		final double deltaDistance = Math.sqrt(xDisp[v] * xDisp[v] + yDisp[v] * yDisp[v]);
+		double newXDisp = xDisp[v] / deltaDistance * Math.min(deltaDistance, temp);
+
+		if (Double.isNaN(newXDisp))
+			newXDisp = 0;
+
+		double newYDisp = yDisp[v] / deltaDistance * Math.min(deltaDistance, temp);
+
+		if (Double.isNaN(newYDisp))
+			newYDisp = 0;
+
+		x[v] += newXDisp;
+		y[v] += newYDisp;
+	}
+
+	private void buildQuadtree() {
+		double minX = Double.POSITIVE_INFINITY;
+		double minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY;
+		double maxY = Double.NEGATIVE_INFINITY;
+
+		for (int i = 0; i < nodeCount; i++) {
+			cellNodes[i] = i;
+			minX = Math.min(minX, x[i]);
+			minY = Math.min(minY, y[i]);
+			maxX = Math.max(maxX, x[i]);
+			maxY = Math.max(maxY, y[i]);
+		}
+
+		// Make the root a bit larger, so that the maximum coordinates fall inside of it
+		final double size = Math.max(maxX - minX, maxY - minY) * (1 + EPSILON) + EPSILON;
+
+		cellCount = 0;
+		buildCell(allocateCells(1), 0, nodeCount, minX, minY, size, 0);
+	}
+
+	private void buildCell(final int cell, final int start, final int end, final double minX, final double minY,
+	                       final double size, final int depth) {
+		cellMinX[cell] = minX;
+		cellMinY[cell] = minY;
+		cellSize[cell] = size;
+		cellStart[cell] = start;
+		cellEnd[cell] = end;
+		cellChildCount[cell] = 0;
+
+		double mass = 0;
+		double centerX = 0;
+		double centerY = 0;
+		double maxRadius = 0;
+		double minRadius = Double.POSITIVE_INFINITY;
+
+		if (end - start <= LEAF_SIZE || depth == MAX_DEPTH || !(size > 0)) {
+			for (int n = start; n < end; n++) {
+				final int node = cellNodes[n];
+				final double m = mass(node);
+				mass += m;
+				centerX += x[node] * m;
+				centerY += y[node] * m;
+				maxRadius = Math.max(maxRadius, radius[node]);
+				minRadius = Math.min(minRadius, radius[node]);
+			}
+		} else {
+			final double half = size / 2;
+			final double midX = minX + half;
+			final double midY = minY + half;
+
+			// Sort the nodes by quadrant: left/bottom, left/top, right/bottom, right/top
+			final int right = partition(start, end, x, midX);
+			final int[] bounds = { start, partition(start, right, y, midY), right,
+			                       partition(right, end, y, midY), end };
+
+			int children = 0;
+
+			for (int q = 0; q < 4; q++) {
+				if (bounds[q] < bounds[q + 1])
+					children++;
+			}
+
+			final int firstChild = allocateCells(children);
+			int child = firstChild;
+
+			for (int q = 0; q < 4; q++) {
+				if (bounds[q] == bounds[q + 1])
+					continue;
+
+				buildCell(child, bounds[q], bounds[q + 1], q < 2 ? minX : midX, (q & 1) == 0 ? minY : midY, half,
+				          depth + 1);
+
+				mass += cellMass[child];
+				centerX += cellCenterX[child] * cellMass[child];
+				centerY += cellCenterY[child] * cellMass[child];
+				maxRadius = Math.max(maxRadius, cellRadius[child]);
+				minRadius = Math.min(minRadius, cellMinRadius[child]);
+				child++;
+			}
+
+			cellFirstChild[cell] = firstChild;
+			cellChildCount[cell] = children;
+		}
+
+		cellMass[cell] = mass;
+		cellCenterX[cell] = centerX / mass;
+		cellCenterY[cell] = centerY / mass;
+		cellRadius[cell] = maxRadius;
+		cellMinRadius[cell] = minRadius;
+	}
+
+	/**
+	 * Moves the nodes in [start, end) whose coordinate is lower than the pivot to the front.
+	 *
+	 * @return the index of the first node whose coordinate is not lower than the pivot
+	 */
+	private int partition(int start, int end, final double[] coordinates, final double pivot) {
+		while (start < end) {
+			if (coordinates[cellNodes[start]] < pivot) {
+				start++;
+			} else {
+				end--;
+				final int node = cellNodes[start];
+				cellNodes[start] = cellNodes[end];
+				cellNodes[end] = node;
+			}
+		}
+
+		return start;
+	}
+
+	/**
+	 * @return the index of the first of the new cells
+	 */
+	private int allocateCells(final int count) {
+		if (cellCount + count > cellMinX.length) {
+			final int capacity = Math.max(cellCount + count, 2 * cellMinX.length + 16);
+			cellMinX = Arrays.copyOf(cellMinX, capacity);
+			cellMinY = Arrays.copyOf(cellMinY, capacity);
+			cellSize = Arrays.copyOf(cellSize, capacity);
+			cellCenterX = Arrays.copyOf(cellCenterX, capacity);
+			cellCenterY = Arrays.copyOf(cellCenterY, capacity);
+			cellMass = Arrays.copyOf(cellMass, capacity);
+			cellRadius = Arrays.copyOf(cellRadius, capacity);
+			cellMinRadius = Arrays.copyOf(cellMinRadius, capacity);
+			cellStart = Arrays.copyOf(cellStart, capacity);
+			cellEnd = Arrays.copyOf(cellEnd, capacity);
+			cellFirstChild = Arrays.copyOf(cellFirstChild, capacity);
+			cellChildCount = Arrays.copyOf(cellChildCount, capacity);
+		}
+
+		final int first = cellCount;
+		cellCount += count;
+
+		return first;
+	}
+
+	/**
+	 * Creates a coarser version of this graph, by merging every unlocked node with its unmatched
+	 * unlocked neighbor of the highest edge weight.  The coarse nodes are located at the centers of
+	 * the nodes they replace, have the same area, and the weights of the edges they replace.
+	 *
+	 * @return the coarser graph, or null if the graph can't be made significantly smaller
+	 */
+	BarnesHutFRLayout coarsen() {
+		// Adjacency lists
+		final int[] offsets = new int[nodeCount + 1];
+
+		for (int e = 0; e < edgeSource.length; e++) {
+			offsets[edgeSource[e] + 1]++;
+			offsets[edgeTarget[e] + 1]++;
+		}
+
+		for (int i = 0; i < nodeCount; i++)
+			offsets[i + 1] += offsets[i];
+
+		final int[] neighbors = new int[offsets[nodeCount]];
+		final double[] weights = new double[offsets[nodeCount]];
+		final int[] next = Arrays.copyOf(offsets, nodeCount);
+
+		for (int e = 0; e < edgeSource.length; e++) {
+			neighbors[next[edgeSource[e]]] = edgeTarget[e];
+			weights[next[edgeSource[e]]++] = edgeWeight[e];
+			neighbors[next[edgeTarget[e]]] = edgeSource[e];
+			weights[next[edgeTarget[e]]++] = edgeWeight[e];
+		}
+
+		// Heavy edge matching
+		final int[] coarseNode = new int[nodeCount];
+		Arrays.fill(coarseNode, -1);
+		int coarseCount = 0;
+
+		for (int v = 0; v < nodeCount; v++) {
+			if (coarseNode[v] >= 0)
+				continue;
+
+			int match = -1;
+			double matchWeight = 0;
+
+			if (!locked[v]) {
+				for (int n = offsets[v]; n < offsets[v + 1]; n++) {
+					final int u = neighbors[n];
+
+					if (u == v || coarseNode[u] >= 0 || locked[u])
+						continue;
+
+					// Prefer the lighter neighbor on ties, to keep the coarse nodes balanced
+					if (match < 0 || weights[n] > matchWeight
+							|| (weights[n] == matchWeight && multiplicity[u] < multiplicity[match])) {
+						match = u;
+						matchWeight = weights[n];
+					}
+				}
+			}
+
+			coarseNode[v] = coarseCount;
+
+			if (match >= 0)
+				coarseNode[match] = coarseCount;
+
+			coarseCount++;
+		}
+
+		if (coarseCount > nodeCount * MAX_COARSENING_RATIO)
+			return null;
+
+		final double[] cx = new double[coarseCount];
+		final double[] cy = new double[coarseCount];
+		final double[] cRadius = new double[coarseCount];
+		final boolean[] cLocked = new boolean[coarseCount];
+		final int[] cMultiplicity = new int[coarseCount];
+
+		for (int v = 0; v < nodeCount; v++) {
+			final int c = coarseNode[v];
+			cx[c] += x[v] * multiplicity[v];
+			cy[c] += y[v] * multiplicity[v];
+			cRadius[c] += radius[v] * radius[v];
+			cLocked[c] |= locked[v];
+			cMultiplicity[c] += multiplicity[v];
+		}
+
+		for (int c = 0; c < coarseCount; c++) {
+			cx[c] /= cMultiplicity[c];
+			cy[c] /= cMultiplicity[c];
+			cRadius[c] = Math.sqrt(cRadius[c]);
+		}
+
+		// Merge the parallel edges and drop the ones inside of a coarse node
+		final Map<Long, Integer> edgeIndices = new HashMap<Long, Integer>();
+		final int[] cSource = new int[edgeSource.length];
+		final int[] cTarget = new int[edgeSource.length];
+		final double[] cWeight = new double[edgeSource.length];
+		final int[] cDegree = new int[coarseCount];
+		int cEdgeCount = 0;
+
+		for (int e = 0; e < edgeSource.length; e++) {
+			final int s = Math.min(coarseNode[edgeSource[e]], coarseNode[edgeTarget[e]]);
+			final int t = Math.max(coarseNode[edgeSource[e]], coarseNode[edgeTarget[e]]);
+
+			if (s == t)
+				continue;
+
+			final Long key = ((long) s << 32) | t;
+			final Integer index = edgeIndices.get(key);
+
+			if (index != null) {
+				cWeight[index] += edgeWeight[e];
+			} else {
+				edgeIndices.put(key, cEdgeCount);
+				cSource[cEdgeCount] = s;
+				cTarget[cEdgeCount] = t;
+				cWeight[cEdgeCount] = edgeWeight[e];
+				cDegree[s]++;
+				cDegree[t]++;
+				cEdgeCount++;
+			}
+		}
+
+		final BarnesHutFRLayout coarse = new BarnesHutFRLayout(cx, cy, cRadius, cLocked, cDegree, cMultiplicity,
+				Arrays.copyOf(cSource, cEdgeCount), Arrays.copyOf(cTarget, cEdgeCount),
+				Arrays.copyOf(cWeight, cEdgeCount));
+		coarse.setForces(attractionConstant, repulsionConstant, gravityConstant, conflictAvoidance, maxDistance,
+		                 theta);
+		parent = coarseNode;
+
+		return coarse;
+	}
+
+	/**
+	 * Moves the unlocked nodes to the location of the node they were merged into, with some
+	 * deterministic jitter so that merged nodes don't start at the same place.
+	 *
+	 * @param coarse the graph returned by {@link #coarsen()}, after its layout
+	 */
+	void interpolate(final BarnesHutFRLayout coarse) {
+		final Random random = new Random(nodeCount);
+
+		for (int v = 0; v < nodeCount; v++) {
+			if (locked[v])
+				continue;
+
+			final double jitter = Math.max(radius[v], EPSILON);
+			x[v] = coarse.x[parent[v]] + (random.nextDouble() - 0.5) * jitter;
+			y[v] = coarse.y[parent[v]] + (random.nextDouble() - 0.5) * jitter;
+		}
+
+		// Start the completion criterion over
+		firstDisplacement = 0;
+		displacementCount = 0;
+	}
+
+	private static int[] ones(final int length) {
+		final int[] array = new int[length];
+		Arrays.fill(array, 1);
+
+		return array;
+	}
+
+	private final class RepulsionTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final int from;
+		private final int to;
+		private final double xAverage;
+		private final double yAverage;
+
+		RepulsionTask(final int from, final int to, final double xAverage, final double yAverage) {
+			this.from = from;
+			this.to = to;
+			this.xAverage = xAverage;
+			this.yAverage = yAverage;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > CHUNK_SIZE) {
+				final int mid = (from + to) >>> 1;
+				invokeAll(new RepulsionTask(from, mid, xAverage, yAverage),
+				          new RepulsionTask(mid, to, xAverage, yAverage));
+				return;
+			}
+
+			calculateRepulsion(from, to, xAverage, yAverage);
+		}
+	}
+}
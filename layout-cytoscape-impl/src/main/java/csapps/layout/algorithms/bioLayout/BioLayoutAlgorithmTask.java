@@ -36,14 +36,15 @@ package csapps.layout.algorithms.bioLayout;
 import java.util.Set;
 
 import org.cytoscape.model.CyNode;
-import org.cytoscape.view.layout.AbstractPartitionLayoutTask;
 import org.cytoscape.view.layout.LayoutPartition;
 import org.cytoscape.view.model.CyNetworkView;
 import org.cytoscape.view.model.View;
 import org.cytoscape.work.undo.UndoSupport;
 
+import csapps.layout.ConcurrentPartitionLayoutTask;
 
-public abstract class BioLayoutAlgorithmTask extends AbstractPartitionLayoutTask {
+
+public abstract class BioLayoutAlgorithmTask extends ConcurrentPartitionLayoutTask {
 
 	/**
 	 * A small value used to avoid division by zero
@@ -27,6 +27,7 @@ package csapps.layout.algorithms.bioLayout;
 
 
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 
 import org.cytoscape.model.CyNode;
@@ -60,6 +61,15 @@ public class BioLayoutFRAlgorithmTask extends BioLayoutAlgorithmTask {
 	private double maxVelocity_divisor = 25;
 	private double maxVelocity;
 
+	/**
+	 * Multilevel layouts stop coarsening at this number of nodes.
+	 * The finer levels start from the layout of the coarser one,
+	 * so they run fewer iterations, at a lower temperature.
+	 */
+	private static final int MIN_COARSE_NODES = 100;
+	private static final int REFINEMENT_ITERATIONS_DIVISOR = 4;
+	private static final double REFINEMENT_TEMPERATURE = 0.25;
+
 	/**
 	 * This ArrayList is used to calculate the slope of the magnitude
 	 * of the displacement.  When the slope is (approximately) 0, we're
@@ -132,6 +142,12 @@ public class BioLayoutFRAlgorithmTask extends BioLayoutAlgorithmTask {
 			return "Force directed (BioLayout)";
 	}
 
+	@Override
+	protected BioLayoutFRAlgorithmTask newPartitionTask() {
+		return new BioLayoutFRAlgorithmTask(toString(), networkView, nodesToLayOut, context, supportWeights,
+		                                    layoutAttribute, null);
+	}
+
 	/**
 	 * Perform a layout
 	 */
@@ -189,35 +205,39 @@ public class BioLayoutFRAlgorithmTask extends BioLayoutAlgorithmTask {
 		// iterProfile.start();
 		int iteration = 0;
 
-		for (iteration = 0; (iteration < context.nIterations) && !cancelled; iteration++) {
-			if ((temp = doOneIteration(iteration, temp)) == 0)
-				break;
-
-			if (debug || ((context.update_iterations > 0) && ((iteration % context.update_iterations) == 0))) {
-				if (iteration > 0) {
-					// Actually move the pieces around
-					for (LayoutNode v: partition.getNodeList()) {
-						// if this is locked, the move just resets X and Y
-						if(context.layout3D)
-							v.moveToLocation3D();
-						else
-							v.moveToLocation();
-
+		if (context.approximateRepulsion && !context.layout3D) {
+			layoutApproximately(temp);
+		} else {
+			for (iteration = 0; (iteration < context.nIterations) && !cancelled; iteration++) {
+				if ((temp = doOneIteration(iteration, temp)) == 0)
+					break;
+
+				if (debug || ((context.update_iterations > 0) && ((iteration % context.update_iterations) == 0))) {
+					if (iteration > 0) {
+						// Actually move the pieces around
+						for (LayoutNode v: partition.getNodeList()) {
+							// if this is locked, the move just resets X and Y
+							if(context.layout3D)
+								v.moveToLocation3D();
+							else
+								v.moveToLocation();
+
+						}
+						// This fires events to presentation layer.
+						networkView.updateView();
 					}
-					// This fires events to presentation layer.
-					networkView.updateView();
-				}
 
-				if (debug) {
-					try {
-						Thread.sleep(100);
-					} catch (InterruptedException e) {
+					if (debug) {
+						try {
+							Thread.sleep(100);
+						} catch (InterruptedException e) {
+						}
 					}
 				}
-			}
 
-			taskMonitor.setStatusMessage("Calculating new node positions - " + iteration);
-			taskMonitor.setProgress(iteration / context.nIterations);
+				taskMonitor.setStatusMessage("Calculating new node positions - " + iteration);
+				taskMonitor.setProgress(iteration / context.nIterations);
+			}
 		}
 
 		// iterProfile.done("Iterations complete in ");
@@ -263,6 +283,119 @@ public class BioLayoutFRAlgorithmTask extends BioLayoutAlgorithmTask {
 		//System.out.println("Layout complete after " + iteration + " iterations");
 	}
 
+	/**
+	 * Runs the iterations with {@link BarnesHutFRLayout}, which approximates the repulsive forces
+	 * and computes them in parallel.  In multilevel mode, coarser versions of the partition are
+	 * laid out first, and the finer ones get fewer iterations at a lower temperature.
+	 *
+	 * @param temp The initial temperature factor.
+	 */
+	private void layoutApproximately(final double temp) {
+		final List<LayoutNode> nodes = partition.getNodeList();
+		final List<LayoutEdge> edges = partition.getEdgeList();
+		final int nodeCount = nodes.size();
+		final double[] x = new double[nodeCount];
+		final double[] y = new double[nodeCount];
+		final double[] radius = new double[nodeCount];
+		final boolean[] locked = new boolean[nodeCount];
+		final int[] degree = new int[nodeCount];
+
+		for (LayoutNode v: nodes) {
+			final int i = v.getIndex();
+			x[i] = v.getX();
+			y[i] = v.getY();
+			radius[i] = v.getWidth() / 2;
+			locked[i] = v.isLocked();
+			degree[i] = v.getDegree();
+		}
+
+		final int[] edgeSource = new int[edges.size()];
+		final int[] edgeTarget = new int[edges.size()];
+		final double[] edgeWeight = new double[edges.size()];
+		int edgeCount = 0;
+
+		for (LayoutEdge e: edges) {
+			edgeSource[edgeCount] = e.getSource().getIndex();
+			edgeTarget[edgeCount] = e.getTarget().getIndex();
+			edgeWeight[edgeCount] = e.getWeight();
+			edgeCount++;
+		}
+
+		final BarnesHutFRLayout layout = new BarnesHutFRLayout(x, y, radius, locked, degree, edgeSource,
+		                                                       edgeTarget, edgeWeight);
+		layout.setForces(attraction_constant, repulsion_constant, gravity_constant, context.conflict_avoidance,
+		                 maxDistance, context.theta);
+
+		final List<BarnesHutFRLayout> levels = new ArrayList<BarnesHutFRLayout>();
+		levels.add(layout);
+
+		if (context.multilevel) {
+			BarnesHutFRLayout coarser;
+
+			while (levels.get(levels.size() - 1).getNodeCount() > MIN_COARSE_NODES
+			       && (coarser = levels.get(levels.size() - 1).coarsen()) != null)
+				levels.add(coarser);
+		}
+
+		final int coarsest = levels.size() - 1;
+		final int refinementIterations = Math.max(1, context.nIterations / REFINEMENT_ITERATIONS_DIVISOR);
+
+		// The progress is measured in node iterations over all levels, so that it does not start over at each level
+		double totalWork = 0;
+		double doneWork = 0;
+
+		for (int level = 0; level <= coarsest; level++)
+			totalWork += (double) levels.get(level).getNodeCount()
+			             * (level == coarsest ? context.nIterations : refinementIterations);
+
+		for (int level = coarsest; (level >= 0) && !cancelled; level--) {
+			final BarnesHutFRLayout levelLayout = levels.get(level);
+			final int nIterations;
+			double levelTemp;
+
+			if (level == coarsest) {
+				nIterations = context.nIterations;
+				levelTemp = temp;
+			} else {
+				levelLayout.interpolate(levels.get(level + 1));
+				nIterations = refinementIterations;
+				levelTemp = temp * REFINEMENT_TEMPERATURE;
+			}
+
+			for (int iteration = 0; (iteration < nIterations) && !cancelled; iteration++) {
+				if ((levelTemp = levelLayout.doOneIteration(iteration, nIterations, levelTemp)) == 0)
+					break;
+
+				if (level == 0 && (context.update_iterations > 0) && ((iteration % context.update_iterations) == 0)
+				    && iteration > 0) {
+					for (LayoutNode v: nodes) {
+						if (!v.isLocked()) {
+							v.setX(x[v.getIndex()]);
+							v.setY(y[v.getIndex()]);
+						}
+
+						v.moveToLocation();
+					}
+
+					networkView.updateView();
+				}
+
+				taskMonitor.setStatusMessage("Calculating new node positions - " + iteration
+				                             + (levels.size() > 1 ? " (level " + level + ")" : ""));
+				taskMonitor.setProgress((doneWork + (double) levelLayout.getNodeCount() * iteration) / totalWork);
+			}
+
+			doneWork += (double) levelLayout.getNodeCount() * nIterations;
+		}
+
+		for (LayoutNode v: nodes) {
+			if (!v.isLocked()) {
+				v.setX(x[v.getIndex()]);
+				v.setY(y[v.getIndex()]);
+			}
+		}
+	}
+
 	/**
 	 * This executes a single iteration of the FR algorithm.
 	 *
@@ -24,6 +24,8 @@ package csapps.layout.algorithms.bioLayout;
  * #L%
  */
 
+import java.io.IOException;
+
 import org.cytoscape.work.Tunable;
 import org.cytoscape.work.TunableValidator;
 
@@ -85,8 +87,39 @@ public class BioLayoutFRContext extends BioLayoutContext implements TunableValid
 	@Tunable(description="Layout nodes in 3D:")
 	public boolean layout3D;
 
-	@Override // TODO
+	/**
+	 * Approximate the repulsive forces with a quadtree (Barnes-Hut),
+	 * and compute them on all processors.  Only used for 2D layouts.
+	 */
+	@Tunable(description="Approximate repulsion (faster for large networks):")
+	public boolean approximateRepulsion;
+
+	/**
+	 * A group of nodes repels as a single node when its size is smaller
+	 * than theta times its distance.  Lower values are more accurate.
+	 */
+	@Tunable(description="Repulsion approximation factor (Barnes-Hut theta):", dependsOn="approximateRepulsion=true")
+	public double theta = 0.9;
+
+	/**
+	 * With approximate repulsion, lay out coarser versions of the network first,
+	 * and use each layout as the starting point of the next finer one.
+	 */
+	@Tunable(description="Lay out coarser versions of the network first:", dependsOn="approximateRepulsion=true")
+	public boolean multilevel;
+
+	@Override
 	public ValidationState getValidationState(final Appendable errMsg) {
+		if (!(theta >= 0 && theta <= 1)) {
+			try {
+				errMsg.append("The repulsion approximation factor must be between 0 and 1.");
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+
+			return ValidationState.INVALID;
+		}
+
 		return ValidationState.OK;
 	}
 
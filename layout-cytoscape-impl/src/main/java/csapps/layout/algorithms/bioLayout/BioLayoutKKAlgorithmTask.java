@@ -52,6 +52,12 @@ public class BioLayoutKKAlgorithmTask extends BioLayoutAlgorithmTask {
 	   */
 	protected static double EPSILON = 0.0000001D;
 
+	/**
+	 * Sparse layouts stop when an iteration lowers the energy of
+	 * the springs by less than this fraction
+	 */
+	private static final double SPARSE_CONVERGENCE = 0.0001;
+
 	/**
 	 * The total number of layout passes
 	 */
@@ -165,6 +171,12 @@ public class BioLayoutKKAlgorithmTask extends BioLayoutAlgorithmTask {
 			return "Spring Embedded";
 	}
 
+	@Override
+	protected BioLayoutKKAlgorithmTask newPartitionTask() {
+		return new BioLayoutKKAlgorithmTask(toString(), networkView, nodesToLayOut, context, supportWeights,
+		                                    layoutAttribute, null);
+	}
+
 	/**
 	 * Sets the number of iterations
 	 *
@@ -348,118 +360,125 @@ public class BioLayoutKKAlgorithmTask extends BioLayoutAlgorithmTask {
 		PartialDerivatives partials;
 		PartialDerivatives furthestNodePartials = null;
 
-		m_nodeDistanceSpringRestLengths = new double[m_nodeCount][m_nodeCount];
-		m_nodeDistanceSpringStrengths = new double[m_nodeCount][m_nodeCount];
-
 		// Figure out our starting point
 		initialLocation = partition.getAverageLocation();
 
 		// Randomize our points, if any points lie
 		// outside of our bounds
-		if (context.randomize)
+		if (context.randomize && !context.sparse)
 			partition.randomizeLocations();
 
 		// Calculate our edge weights
 		partition.calculateEdgeWeights();
 
-		// Compute our distances
-		if (cancelled)
-			return;
+		if (context.sparse) {
+			layoutSparse();
 
-		taskMonitor.setProgress(0.02);
-		taskMonitor.setStatusMessage("Calculating node distances");
+			if (cancelled)
+				return;
+		} else {
+			m_nodeDistanceSpringRestLengths = new double[m_nodeCount][m_nodeCount];
+			m_nodeDistanceSpringStrengths = new double[m_nodeCount][m_nodeCount];
 
-		int[][] nodeDistances = calculateNodeDistances();
+			// Compute our distances
+			if (cancelled)
+				return;
 
-		if (cancelled)
-			return;
+			taskMonitor.setProgress(0.02);
+			taskMonitor.setStatusMessage("Calculating node distances");
 
-		taskMonitor.setProgress(0.04);
-		taskMonitor.setStatusMessage("Calculating spring constants");
+			int[][] nodeDistances = calculateNodeDistances();
 
-		calculateSpringData(nodeDistances);
+			if (cancelled)
+				return;
 
-		final double percentCompletedBeforePasses = 5.0d;
-		final double percentCompletedAfterPass1 = 60.0d;
-		final double percentCompletedAfterFinalPass = 95.0d;
-		double currentProgress = percentCompletedBeforePasses;
+			taskMonitor.setProgress(0.04);
+			taskMonitor.setStatusMessage("Calculating spring constants");
 
-		// Profile partialProfile = new Profile();
-		// Profile springProfile = new Profile();
+			calculateSpringData(nodeDistances);
 
-		// Compute our optimal lengths
-		for (m_layoutPass = 0; m_layoutPass < m_numLayoutPasses; m_layoutPass++) {
-			final double percentProgressPerIter;
-			Profile passTimer = new Profile();
-			passTimer.start();
+			final double percentCompletedBeforePasses = 5.0d;
+			final double percentCompletedAfterPass1 = 60.0d;
+			final double percentCompletedAfterFinalPass = 95.0d;
+			double currentProgress = percentCompletedBeforePasses;
 
-			if (m_layoutPass == 0) {
-				percentProgressPerIter = (percentCompletedAfterPass1 - percentCompletedBeforePasses) / (double) (m_nodeCount
-				                         + numIterations);
-			} else {
-				percentProgressPerIter = (percentCompletedAfterFinalPass
-				                         - percentCompletedAfterPass1) / (double) ((m_nodeCount
-				                                                                   + numIterations) * (m_numLayoutPasses
-				                                                                                      - 1));
-			}
+			// Profile partialProfile = new Profile();
+			// Profile springProfile = new Profile();
 
-			// Initialize this layout pass.
-			potentialEnergy[0] = 0.0;
-			partialsList.clear();
-			furthestNodePartials = null;
+			// Compute our optimal lengths
+			for (m_layoutPass = 0; m_layoutPass < m_numLayoutPasses; m_layoutPass++) {
+				final double percentProgressPerIter;
+				Profile passTimer = new Profile();
+				passTimer.start();
 
-			taskMonitor.setStatusMessage("Calculating partial derivatives -- pass " + (m_layoutPass + 1)
-			                      + " of " + m_numLayoutPasses);
+				if (m_layoutPass == 0) {
+					percentProgressPerIter = (percentCompletedAfterPass1 - percentCompletedBeforePasses) / (double) (m_nodeCount
+					                         + numIterations);
+				} else {
+					percentProgressPerIter = (percentCompletedAfterFinalPass
+					                         - percentCompletedAfterPass1) / (double) ((m_nodeCount
+					                                                                   + numIterations) * (m_numLayoutPasses
+					                                                                                      - 1));
+				}
 
-			// partialProfile.start();
+				// Initialize this layout pass.
+				potentialEnergy[0] = 0.0;
+				partialsList.clear();
+				furthestNodePartials = null;
 
-			// Calculate all node distances.  Keep track of the furthest.
-			for (LayoutNode v: partition.getNodeList()) {
+				taskMonitor.setStatusMessage("Calculating partial derivatives -- pass " + (m_layoutPass + 1)
+				                      + " of " + m_numLayoutPasses);
 
-				if (cancelled)
-					return;
+				// partialProfile.start();
 
-				taskMonitor.setProgress(currentProgress/100.0);
+				// Calculate all node distances.  Keep track of the furthest.
+				for (LayoutNode v: partition.getNodeList()) {
 
-				if (v.isLocked())
-					continue;
+					if (cancelled)
+						return;
+
+					taskMonitor.setProgress(currentProgress/100.0);
+
+					if (v.isLocked())
+						continue;
 
-				partials = new PartialDerivatives(v);
-				calculatePartials(partials, null, potentialEnergy, false);
-				// System.out.println(partials.printPartial()+" potentialEnergy = "+potentialEnergy[0]);
-				partialsList.add(partials);
+					partials = new PartialDerivatives(v);
+					calculatePartials(partials, null, potentialEnergy, false);
+					// System.out.println(partials.printPartial()+" potentialEnergy = "+potentialEnergy[0]);
+					partialsList.add(partials);
 
-				if ((furthestNodePartials == null)
-				    || (partials.euclideanDistance > furthestNodePartials.euclideanDistance)) {
-					furthestNodePartials = partials;
+					if ((furthestNodePartials == null)
+					    || (partials.euclideanDistance > furthestNodePartials.euclideanDistance)) {
+						furthestNodePartials = partials;
+					}
+
+					currentProgress += percentProgressPerIter;
 				}
 
-				currentProgress += percentProgressPerIter;
-			}
+				// partialProfile.done("Partial time for pass "+(m_layoutPass+1)+" is ");
+				taskMonitor.setStatusMessage("Executing spring logic -- pass " + (m_layoutPass + 1) + " of "
+				                      + m_numLayoutPasses);
 
-			// partialProfile.done("Partial time for pass "+(m_layoutPass+1)+" is ");
-			taskMonitor.setStatusMessage("Executing spring logic -- pass " + (m_layoutPass + 1) + " of "
-			                      + m_numLayoutPasses);
+				// springProfile.start();
+				for (int iterations_i = 0;
+				     (iterations_i < numIterations)
+				     && (furthestNodePartials.euclideanDistance >= euclideanDistanceThreshold);
+				     iterations_i++) {
+					if (cancelled)
+						return;
 
-			// springProfile.start();
-			for (int iterations_i = 0;
-			     (iterations_i < numIterations)
-			     && (furthestNodePartials.euclideanDistance >= euclideanDistanceThreshold);
-			     iterations_i++) {
-				if (cancelled)
-					return;
+					taskMonitor.setProgress(currentProgress/100.0);
 
-				taskMonitor.setProgress(currentProgress/100.0);
+					furthestNodePartials = moveNode(furthestNodePartials, partialsList, potentialEnergy);
+					//    		System.out.println(furthestNodePartials.printPartial()+" (furthest) potentialEnergy = "+potentialEnergy[0]);
+					currentProgress += percentProgressPerIter;
+				}
 
-				furthestNodePartials = moveNode(furthestNodePartials, partialsList, potentialEnergy);
-				//    		System.out.println(furthestNodePartials.printPartial()+" (furthest) potentialEnergy = "+potentialEnergy[0]);
-				currentProgress += percentProgressPerIter;
+				// springProfile.done("Spring time for pass "+(m_layoutPass+1)+" is ");
 			}
-
-			// springProfile.done("Spring time for pass "+(m_layoutPass+1)+" is ");
 		}
 
-		taskMonitor.setProgress(percentCompletedAfterFinalPass/100.0);
+		taskMonitor.setProgress(0.95);
 		taskMonitor.setStatusMessage("Updating display");
 
 		// Actually move the pieces around
@@ -486,6 +505,85 @@ public class BioLayoutKKAlgorithmTask extends BioLayoutAlgorithmTask {
 		}
 	}
 
+	/**
+	 * Lays out the partition with {@link SparseKKLayout}, which only keeps the springs of the edges
+	 * and of a sample of pivot nodes.  Every node is moved once per iteration, so there are as many
+	 * iterations as iterations per node, and the anticollision springs start after the first pass.
+	 */
+	private void layoutSparse() {
+		final List<LayoutNode> nodes = partition.getNodeList();
+		final List<LayoutEdge> edges = partition.getEdgeList();
+		final double[] x = new double[m_nodeCount];
+		final double[] y = new double[m_nodeCount];
+		final double[] radius = new double[m_nodeCount];
+		final boolean[] locked = new boolean[m_nodeCount];
+
+		for (LayoutNode v: nodes) {
+			final int i = v.getIndex();
+			x[i] = v.getX();
+			y[i] = v.getY();
+			radius[i] = v.getWidth() / 2;
+			locked[i] = v.isLocked();
+		}
+
+		final int[] edgeSource = new int[edges.size()];
+		final int[] edgeTarget = new int[edges.size()];
+		final double[] edgeLength = new double[edges.size()];
+		int edgeCount = 0;
+
+		for (LayoutEdge e: edges) {
+			final double weight = context.unweighted ? edgeWeighter.defaultEdgeWeight : e.getWeight();
+			edgeSource[edgeCount] = e.getSource().getIndex();
+			edgeTarget[edgeCount] = e.getTarget().getIndex();
+			edgeLength[edgeCount] = m_nodeDistanceRestLengthConstant / Math.max(weight, EPSILON);
+			edgeCount++;
+		}
+
+		final SparseKKLayout layout = new SparseKKLayout(x, y, radius, locked, edgeSource, edgeTarget, edgeLength);
+		layout.setSprings(m_nodeDistanceStrengthConstant, m_disconnectedNodeDistanceSpringStrength,
+		                  m_disconnectedNodeDistanceSpringRestLength, m_anticollisionSpringStrength);
+
+		taskMonitor.setProgress(0.02);
+		taskMonitor.setStatusMessage("Calculating node distances");
+
+		layout.calculatePivotSprings(context.pivotCount);
+
+		if (cancelled)
+			return;
+
+		if (context.randomize) {
+			taskMonitor.setProgress(0.04);
+			taskMonitor.setStatusMessage("Calculating initial layout");
+
+			layout.initializeLocations();
+		}
+
+		final int numIterations = Math.max(1, (int) m_averageIterationsPerNode);
+		final int firstPassIterations = numIterations / m_numLayoutPasses;
+		double previousStress = Double.POSITIVE_INFINITY;
+
+		for (int iteration = 0; (iteration < numIterations) && !cancelled; iteration++) {
+			final boolean anticollision = iteration >= firstPassIterations;
+
+			taskMonitor.setStatusMessage("Executing spring logic -- iteration " + (iteration + 1) + " of "
+			                             + numIterations);
+			taskMonitor.setProgress(0.05 + 0.9 * iteration / numIterations);
+
+			final double stress = layout.doOneIteration(anticollision);
+
+			// Stop once the springs have (almost) reached their minimum energy
+			if (iteration > firstPassIterations && (previousStress - stress) < SPARSE_CONVERGENCE * previousStress)
+				break;
+
+			previousStress = stress;
+		}
+
+		for (LayoutNode v: nodes) {
+			if (!v.isLocked())
+				v.setLocation(x[v.getIndex()], y[v.getIndex()]);
+		}
+	}
+
 	private int[][] calculateNodeDistances() {
 		int[][] distances = new int[m_nodeCount][];
 		LinkedList<Integer> queue = new LinkedList<Integer>();
@@ -24,6 +24,8 @@ package csapps.layout.algorithms.bioLayout;
  * #L%
  */
 
+import java.io.IOException;
+
 import org.cytoscape.work.Tunable;
 import org.cytoscape.work.TunableValidator;
 
@@ -49,8 +51,33 @@ public class BioLayoutKKContext extends BioLayoutContext implements TunableValid
 	public boolean singlePartition;
 	@Tunable(description="Use unweighted edges:", groups="Standard Settings")
 	public boolean unweighted;
-	@Override // TODO
+
+	/**
+	 * Only keep the springs of the edges and of a sample of the nodes (the pivots),
+	 * instead of a spring between every pair of nodes.
+	 */
+	@Tunable(description="Use sparse springs (for large networks):")
+	public boolean sparse;
+
+	/**
+	 * The number of pivots for sparse springs.  More pivots are more accurate,
+	 * but need more memory.
+	 */
+	@Tunable(description="Number of pivot nodes for sparse springs:", dependsOn="sparse=true")
+	public int pivotCount = 100;
+
+	@Override
 	public ValidationState getValidationState(final Appendable errMsg) {
+		if (sparse && pivotCount < 1) {
+			try {
+				errMsg.append("The number of pivot nodes must be at least 1.");
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+
+			return ValidationState.INVALID;
+		}
+
 		return ValidationState.OK;
 	}
 
@@ -0,0 +1,898 @@
+package csapps.layout.algorithms.bioLayout;
+
+/*
+ * #%L
+ * Cytoscape Layout Algorithms Impl (layout-cytoscape-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+
+/**
+ * A sparse version of the spring model of {@link BioLayoutKKAlgorithmTask}, on a graph held in
+ * primitive arrays, which needs memory and time proportional to the number of nodes times the
+ * number of pivots instead of the square of the number of nodes.
+ * <p>
+ * Every node keeps the springs of its edges, and gets one spring to each pivot, a sample of
+ * the nodes.  The rest length of a spring is the length of the shortest path between its nodes,
+ * where an edge is as long as the rest length of its own spring, and its strength is the spring
+ * strength divided by the square of the number of edges in that path.  The spring to a pivot
+ * stands for all the nodes closest to that pivot, so its strength is multiplied by the number of
+ * them that are less than half as far from the pivot as the node.  Nodes without a path to a
+ * pivot get a 'disconnected' spring to it instead.  This is the sparse stress model of Ortmann,
+ * Klimenta and Brandes, and with as many pivots as nodes it is the complete Kamada-Kawai model.
+ * <p>
+ * The shortest paths from the pivots are computed in parallel.  {@link #initializeLocations()}
+ * computes a starting layout from them with pivot MDS, and {@link #doOneIteration(boolean)} moves
+ * every node to the location that minimizes the energy of its springs, given the locations of
+ * the other nodes (stress majorization).
+ */
+final class SparseKKLayout {
+	/** Minimum number of nodes for running on the fork-join pool. */
+	static final int PARALLEL_THRESHOLD = 2048;
+	/** Number of nodes updated by a single fork-join task. */
+	private static final int CHUNK_SIZE = 256;
+	/** Maximum number of pivots for the initial layout, which takes time proportional to their square. */
+	private static final int MAX_MDS_PIVOTS = 100;
+	/** Maximum number of power iterations for each pivot MDS coordinate. */
+	private static final int MDS_ITERATIONS = 200;
+	private static final double MDS_TOLERANCE = 0.0000001;
+	private static final double EPSILON = 0.0000001;
+
+	private final int nodeCount;
+	private final double[] x;
+	private final double[] y;
+	private final double[] radius;
+	private final boolean[] locked;
+
+	// The edges of every node: the neighbors of node v are in [adjacencyStart[v], adjacencyStart[v + 1])
+	private final int[] adjacencyStart;
+	private final int[] adjacency;
+	private final double[] adjacencyLength;
+	private final boolean uniformLengths;
+
+	private double strengthConstant;
+	private double disconnectedStrength;
+	private double disconnectedRestLength;
+	private double anticollisionStrength;
+
+	private int[] pivots;
+	/** The rest length of the spring between every pivot and every node, indexed by [pivot][node]. */
+	private float[][] pivotRestLengths;
+	/** The strength of the spring between every pivot and every node, or 0 for none. */
+	private float[][] pivotStrengths;
+
+	private final double[] newX;
+	private final double[] newY;
+	private final double[] nodeStress;
+
+	// A grid of cells at least as large as the largest node, for finding overlapping nodes
+	private int[] gridStart = new int[0];
+	private int[] gridNodes = new int[0];
+	private int gridColumns;
+	private int gridRows;
+	private double gridMinX;
+	private double gridMinY;
+	private double gridCellSize;
+
+	/**
+	 * @param x the X locations, which are updated by the iterations
+	 * @param y the Y locations, which are updated by the iterations
+	 * @param radius half the width of every node
+	 * @param locked which nodes must not move
+	 * @param edgeSource the index of the source node of every edge
+	 * @param edgeTarget the index of the target node of every edge
+	 * @param edgeLength the rest length of the spring of every edge
+	 */
+	SparseKKLayout(final double[] x, final double[] y, final double[] radius, final boolean[] locked,
+	               final int[] edgeSource, final int[] edgeTarget, final double[] edgeLength) {
+		this.nodeCount = x.length;
+		this.x = x;
+		this.y = y;
+		this.radius = radius;
+		this.locked = locked;
+
+		adjacencyStart = new int[nodeCount + 1];
+		boolean uniform = true;
+
+		for (int e = 0; e < edgeSource.length; e++) {
+			if (edgeSource[e] == edgeTarget[e])
+				continue;
+
+			adjacencyStart[edgeSource[e] + 1]++;
+			adjacencyStart[edgeTarget[e] + 1]++;
+			uniform &= edgeLength[e] == edgeLength[0];
+		}
+
+		for (int v = 0; v < nodeCount; v++)
+			adjacencyStart[v + 1] += adjacencyStart[v];
+
+		adjacency = new int[adjacencyStart[nodeCount]];
+		adjacencyLength = new double[adjacency.length];
+		final int[] next = Arrays.copyOf(adjacencyStart, nodeCount);
+
+		for (int e = 0; e < edgeSource.length; e++) {
+			final int s = edgeSource[e];
+			final int t = edgeTarget[e];
+
+			if (s == t)
+				continue;
+
+			adjacency[next[s]] = t;
+			adjacencyLength[next[s]++] = edgeLength[e];
+			adjacency[next[t]] = s;
+			adjacencyLength[next[t]++] = edgeLength[e];
+		}
+
+		uniformLengths = uniform;
+		newX = new double[nodeCount];
+		newY = new double[nodeCount];
+		nodeStress = new double[nodeCount];
+	}
+
+	/**
+	 * Sets the constants of the springs, as set in the context.
+	 */
+	void setSprings(final double strengthConstant, final double disconnectedStrength,
+	                final double disconnectedRestLength, final double anticollisionStrength) {
+		this.strengthConstant = strengthConstant;
+		this.disconnectedStrength = disconnectedStrength;
+		this.disconnectedRestLength = disconnectedRestLength;
+		this.anticollisionStrength = anticollisionStrength;
+	}
+
+	int getNodeCount() {
+		return nodeCount;
+	}
+
+	int getPivotCount() {
+		return pivots == null ? 0 : pivots.length;
+	}
+
+	/**
+	 * Picks a random (but reproducible) sample of the nodes as pivots, computes the shortest
+	 * paths from each of them, and the springs between them and every node.
+	 *
+	 * @param pivotCount the number of pivots; every node is a pivot if there are fewer nodes
+	 */
+	void calculatePivotSprings(final int pivotCount) {
+		final int k = Math.min(Math.max(1, pivotCount), nodeCount);
+		final int[] order = new int[nodeCount];
+
+		for (int v = 0; v < nodeCount; v++)
+			order[v] = v;
+
+		final Random random = new Random(nodeCount);
+
+		for (int i = 0; i < k; i++) {
+			final int j = i + random.nextInt(nodeCount - i);
+			final int v = order[j];
+			order[j] = order[i];
+			order[i] = v;
+		}
+
+		pivots = Arrays.copyOf(order, k);
+		pivotRestLengths = new float[k][];
+		pivotStrengths = new float[k][];
+
+		// The number of edges in the paths goes to pivotStrengths until the regions are known
+		if (parallel())
+			ForkJoinPool.commonPool().invoke(new ShortestPathTask(0, k));
+		else
+			calculateShortestPaths(0, k);
+
+		// The region of a pivot is the set of nodes that are closer to it than to the other pivots
+		final int[] region = new int[nodeCount];
+		final int[] regionSize = new int[k];
+
+		for (int v = 0; v < nodeCount; v++) {
+			region[v] = -1;
+			float nearest = Float.POSITIVE_INFINITY;
+
+			for (int p = 0; p < k; p++) {
+				if (pivotRestLengths[p][v] < nearest) {
+					nearest = pivotRestLengths[p][v];
+					region[v] = p;
+				}
+			}
+
+			if (region[v] >= 0)
+				regionSize[region[v]]++;
+		}
+
+		// The distances of the nodes of every region to its pivot, in ascending order
+		final float[][] regionDistances = new float[k][];
+
+		for (int p = 0; p < k; p++)
+			regionDistances[p] = new float[regionSize[p]];
+
+		Arrays.fill(regionSize, 0);
+
+		for (int v = 0; v < nodeCount; v++) {
+			if (region[v] >= 0)
+				regionDistances[region[v]][regionSize[region[v]]++] = pivotRestLengths[region[v]][v];
+		}
+
+		for (int p = 0; p < k; p++)
+			Arrays.sort(regionDistances[p]);
+
+		if (parallel())
+			ForkJoinPool.commonPool().invoke(new PivotSpringTask(0, k, regionDistances));
+		else
+			calculatePivotSprings(0, k, regionDistances);
+	}
+
+	private boolean parallel() {
+		return nodeCount >= PARALLEL_THRESHOLD && ForkJoinPool.getCommonPoolParallelism() > 1;
+	}
+
+	/**
+	 * Computes the lengths of the shortest paths from the pivots in [from, to), with a breadth-first
+	 * search when all the edges are as long, and with Dijkstra's algorithm otherwise.
+	 */
+	private void calculateShortestPaths(final int from, final int to) {
+		final int[] queue = new int[nodeCount];
+		final int[] heapIndex = uniformLengths ? null : new int[nodeCount];
+		final double[] distance = uniformLengths ? null : new double[nodeCount];
+
+		for (int p = from; p < to; p++) {
+			final float[] restLengths = new float[nodeCount];
+			final float[] edgeCounts = new float[nodeCount];
+			Arrays.fill(restLengths, Float.POSITIVE_INFINITY);
+			Arrays.fill(edgeCounts, Float.POSITIVE_INFINITY);
+
+			if (uniformLengths)
+				breadthFirstSearch(pivots[p], queue, restLengths, edgeCounts);
+			else
+				dijkstra(pivots[p], queue, heapIndex, distance, restLengths, edgeCounts);
+
+			pivotRestLengths[p] = restLengths;
+			pivotStrengths[p] = edgeCounts;
+		}
+	}
+
+	private void breadthFirstSearch(final int source, final int[] queue, final float[] restLengths,
+	                                final float[] edgeCounts) {
+		final double length = adjacencyLength.length > 0 ? adjacencyLength[0] : 0;
+		edgeCounts[source] = 0;
+		restLengths[source] = 0;
+		queue[0] = source;
+
+		for (int head = 0, tail = 1; head < tail; head++) {
+			final int v = queue[head];
+
+			for (int n = adjacencyStart[v]; n < adjacencyStart[v + 1]; n++) {
+				final int u = adjacency[n];
+
+				if (edgeCounts[u] == Float.POSITIVE_INFINITY) {
+					edgeCounts[u] = edgeCounts[v] + 1;
+					restLengths[u] = (float) (edgeCounts[u] * length);
+					queue[tail++] = u;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Dijkstra's algorithm with a binary heap of node indices.
+	 */
+	private void dijkstra(final int source, final int[] heap, final int[] heapIndex, final double[] distance,
+	                      final float[] restLengths, final float[] edgeCounts) {
+		Arrays.fill(heapIndex, -1);
+		Arrays.fill(distance, Double.POSITIVE_INFINITY);
+		distance[source] = 0;
+		edgeCounts[source] = 0;
+		heap[0] = source;
+		heapIndex[source] = 0;
+		int heapSize = 1;
+
+		while (heapSize > 0) {
+			final int v = heap[0];
+			heapIndex[v] = -2;
+			restLengths[v] = (float) distance[v];
+
+			if (--heapSize > 0) {
+				heap[0] = heap[heapSize];
+				heapIndex[heap[0]] = 0;
+				siftDown(heap, heapIndex, distance, heapSize);
+			}
+
+			for (int n = adjacencyStart[v]; n < adjacencyStart[v + 1]; n++) {
+				final int u = adjacency[n];
+				final double d = distance[v] + adjacencyLength[n];
+
+				if (heapIndex[u] == -2 || d >= distance[u])
+					continue;
+
+				distance[u] = d;
+				edgeCounts[u] = edgeCounts[v] + 1;
+
+				if (heapIndex[u] < 0) {
+					heap[heapSize] = u;
+					heapIndex[u] = heapSize++;
+				}
+
+				siftUp(heap, heapIndex, distance, heapIndex[u]);
+			}
+		}
+	}
+
+	private static void siftUp(final int[] heap, final int[] heapIndex, final double[] distance, int i) {
+		final int v = heap[i];
+
+		while (i > 0) {
+			final int parent = (i - 1) >>> 1;
+
+			if (distance[heap[parent]] <= distance[v])
+				break;
+
+			heap[i] = heap[parent];
+			heapIndex[heap[i]] = i;
+			i = parent;
+		}
+
+		heap[i] = v;
+		heapIndex[v] = i;
+	}
+
+	private static void siftDown(final int[] heap, final int[] heapIndex, final double[] distance,
+	                             final int heapSize) {
+		final int v = heap[0];
+		int i = 0;
+
+		while (true) {
+			int child = 2 * i + 1;
+
+			if (child >= heapSize)
+				break;
+
+			if (child + 1 < heapSize && distance[heap[child + 1]] < distance[heap[child]])
+				child++;
+
+			if (distance[heap[child]] >= distance[v])
+				break;
+
+			heap[i] = heap[child];
+			heapIndex[heap[i]] = i;
+			i = child;
+		}
+
+		heap[i] = v;
+		heapIndex[v] = i;
+	}
+
+	/**
+	 * Replaces the number of edges in the paths from the pivots in [from, to) by the strengths of
+	 * their springs, and the lengths of the missing paths by the 'disconnected' rest length.
+	 */
+	private void calculatePivotSprings(final int from, final int to, final float[][] regionDistances) {
+		for (int p = from; p < to; p++) {
+			final float[] restLengths = pivotRestLengths[p];
+			final float[] strengths = pivotStrengths[p];
+			final float[] distances = regionDistances[p];
+
+			for (int v = 0; v < nodeCount; v++) {
+				final float edgeCount = strengths[v];
+
+				if (edgeCount == Float.POSITIVE_INFINITY) {
+					restLengths[v] = (float) disconnectedRestLength;
+					strengths[v] = (float) (disconnectedStrength * Math.max(1, distances.length));
+				} else if (edgeCount <= 1) {
+					// The pivot itself, or a neighbor, which already has the spring of the edge
+					strengths[v] = 0;
+				} else {
+					final int closer = upperBound(distances, restLengths[v] / 2);
+					strengths[v] = (float) (strengthConstant * Math.max(1, closer) / (edgeCount * edgeCount));
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return the number of values in the sorted array that are not greater than the key
+	 */
+	private static int upperBound(final float[] sorted, final float key) {
+		int low = 0;
+		int high = sorted.length;
+
+		while (low < high) {
+			final int mid = (low + high) >>> 1;
+
+			if (sorted[mid] <= key)
+				low = mid + 1;
+			else
+				high = mid;
+		}
+
+		return low;
+	}
+
+	/**
+	 * Moves the unlocked nodes to a layout computed by pivot MDS from the rest lengths of the springs
+	 * of (up to 100 of) the pivots, scaled to fit the springs as well as possible, with some deterministic jitter so that
+	 * nodes at the same distance from every pivot don't start at the same place.  The layout is
+	 * centered on the average location of the nodes.
+	 */
+	void initializeLocations() {
+		final int k = Math.min(pivots.length, MAX_MDS_PIVOTS);
+
+		// Double-center the squared distances: c(v, p) = -(d2(v, p) - nodeMean(v) - pivotMean(p) + mean) / 2
+		final double[] nodeMeans = new double[nodeCount];
+		final double[] pivotMeans = new double[k];
+		double mean = 0;
+
+		for (int p = 0; p < k; p++) {
+			final float[] restLengths = pivotRestLengths[p];
+
+			for (int v = 0; v < nodeCount; v++) {
+				final double d2 = (double) restLengths[v] * restLengths[v];
+				nodeMeans[v] += d2 / k;
+				pivotMeans[p] += d2 / nodeCount;
+			}
+
+			mean += pivotMeans[p] / k;
+		}
+
+		// The two main eigenvectors of C^T C, which is only k x k
+		final double[][] product = new double[k][k];
+
+		if (parallel())
+			ForkJoinPool.commonPool().invoke(new ProductTask(0, k, product, nodeMeans, pivotMeans, mean));
+		else
+			calculateProduct(0, k, product, nodeMeans, pivotMeans, mean);
+
+		final double[] first = powerIteration(product, null);
+		final double[] second = powerIteration(product, first);
+
+		double xAverage = 0;
+		double yAverage = 0;
+
+		for (int v = 0; v < nodeCount; v++) {
+			xAverage += x[v] / nodeCount;
+			yAverage += y[v] / nodeCount;
+		}
+
+		for (int v = 0; v < nodeCount; v++) {
+			newX[v] = 0;
+			newY[v] = 0;
+
+			for (int p = 0; p < k; p++) {
+				final double c = centered(p, v, nodeMeans, pivotMeans, mean);
+				newX[v] += c * first[p];
+				newY[v] += c * second[p];
+			}
+		}
+
+		// The scale that minimizes the energy of the pivot and edge springs
+		double numerator = 0;
+		double denominator = 0;
+
+		for (int v = 0; v < nodeCount; v++) {
+			for (int p = 0; p < pivots.length; p++) {
+				final int u = pivots[p];
+				final double w = pivotStrengths[p][v];
+
+				if (w > 0) {
+					final double d = Math.hypot(newX[v] - newX[u], newY[v] - newY[u]);
+					numerator += w * pivotRestLengths[p][v] * d;
+					denominator += w * d * d;
+				}
+			}
+
+			for (int n = adjacencyStart[v]; n < adjacencyStart[v + 1]; n++) {
+				final int u = adjacency[n];
+				final double d = Math.hypot(newX[v] - newX[u], newY[v] - newY[u]);
+				numerator += strengthConstant * adjacencyLength[n] * d;
+				denominator += strengthConstant * d * d;
+			}
+		}
+
+		final double scale = denominator > 0 ? numerator / denominator : 1;
+		final Random random = new Random(nodeCount);
+
+		for (int v = 0; v < nodeCount; v++) {
+			final double jitter = Math.max(radius[v], EPSILON);
+			final double jitterX = (random.nextDouble() - 0.5) * jitter;
+			final double jitterY = (random.nextDouble() - 0.5) * jitter;
+
+			if (!locked[v]) {
+				x[v] = xAverage + newX[v] * scale + jitterX;
+				y[v] = yAverage + newY[v] * scale + jitterY;
+			}
+		}
+	}
+
+	private double centered(final int p, final int v, final double[] nodeMeans, final double[] pivotMeans,
+	                        final double mean) {
+		final double d = pivotRestLengths[p][v];
+
+		return -0.5 * (d * d - nodeMeans[v] - pivotMeans[p] + mean);
+	}
+
+	/**
+	 * Computes the rows [from, to) of C^T C, and the same columns.
+	 */
+	private void calculateProduct(final int from, final int to, final double[][] product, final double[] nodeMeans,
+	                              final double[] pivotMeans, final double mean) {
+		final double[] column = new double[nodeCount];
+
+		for (int p = from; p < to; p++) {
+			for (int v = 0; v < nodeCount; v++)
+				column[v] = centered(p, v, nodeMeans, pivotMeans, mean);
+
+			for (int q = 0; q <= p; q++) {
+				double sum = 0;
+
+				for (int v = 0; v < nodeCount; v++)
+					sum += column[v] * centered(q, v, nodeMeans, pivotMeans, mean);
+
+				product[p][q] = sum;
+				product[q][p] = sum;
+			}
+		}
+	}
+
+	/**
+	 * @param orthogonalTo an eigenvector to deflate, or null
+	 * @return the unit eigenvector of the largest eigenvalue of the symmetric matrix, apart from the
+	 *         one it must be orthogonal to
+	 */
+	private static double[] powerIteration(final double[][] matrix, final double[] orthogonalTo) {
+		final int k = matrix.length;
+		final Random random = new Random(k);
+		double[] vector = new double[k];
+		double[] next = new double[k];
+
+		for (int i = 0; i < k; i++)
+			vector[i] = random.nextDouble() - 0.5;
+
+		normalize(vector, orthogonalTo);
+
+		for (int iteration = 0; iteration < MDS_ITERATIONS; iteration++) {
+			for (int i = 0; i < k; i++) {
+				double sum = 0;
+
+				for (int j = 0; j < k; j++)
+					sum += matrix[i][j] * vector[j];
+
+				next[i] = sum;
+			}
+
+			if (normalize(next, orthogonalTo) == 0)
+				break;
+
+			double change = 0;
+
+			for (int i = 0; i < k; i++)
+				change += Math.abs(next[i] - vector[i]);
+
+			final double[] swap = vector;
+			vector = next;
+			next = swap;
+
+			if (change < MDS_TOLERANCE)
+				break;
+		}
+
+		return vector;
+	}
+
+	private static double normalize(final double[] vector, final double[] orthogonalTo) {
+		if (orthogonalTo != null) {
+			double dot = 0;
+
+			for (int i = 0; i < vector.length; i++)
+				dot += vector[i] * orthogonalTo[i];
+
+			for (int i = 0; i < vector.length; i++)
+				vector[i] -= dot * orthogonalTo[i];
+		}
+
+		double norm = 0;
+
+		for (int i = 0; i < vector.length; i++)
+			norm += vector[i] * vector[i];
+
+		norm = Math.sqrt(norm);
+
+		if (norm > 0) {
+			for (int i = 0; i < vector.length; i++)
+				vector[i] /= norm;
+		}
+
+		return norm;
+	}
+
+	/**
+	 * Moves every unlocked node to the location that minimizes the energy of its springs, given
+	 * the current locations of the others.
+	 *
+	 * @param anticollision whether to add springs that push overlapping nodes apart
+	 * @return the energy of the springs before the move
+	 */
+	double doOneIteration(final boolean anticollision) {
+		final boolean collisions = anticollision && anticollisionStrength > 0;
+
+		if (collisions)
+			buildGrid();
+
+		if (parallel())
+			ForkJoinPool.commonPool().invoke(new MoveTask(0, nodeCount, collisions));
+		else
+			calculateLocations(0, nodeCount, collisions);
+
+		double stress = 0;
+
+		for (int v = 0; v < nodeCount; v++) {
+			x[v] = newX[v];
+			y[v] = newY[v];
+			stress += nodeStress[v];
+		}
+
+		return stress;
+	}
+
+	private void calculateLocations(final int from, final int to, final boolean collisions) {
+		final double[] sums = new double[4];
+
+		for (int v = from; v < to; v++) {
+			// The sum of the weights, of the weighted targets in X and Y, and the energy
+			Arrays.fill(sums, 0);
+
+			for (int n = adjacencyStart[v]; n < adjacencyStart[v + 1]; n++)
+				addSpring(v, adjacency[n], strengthConstant, adjacencyLength[n], sums);
+
+			for (int p = 0; p < pivots.length; p++) {
+				final double strength = pivotStrengths[p][v];
+
+				if (strength > 0)
+					addSpring(v, pivots[p], strength, pivotRestLengths[p][v], sums);
+			}
+
+			if (collisions)
+				addCollisionSprings(v, sums);
+
+			nodeStress[v] = sums[3];
+
+			if (locked[v] || sums[0] == 0) {
+				newX[v] = x[v];
+				newY[v] = y[v];
+			} else {
+				newX[v] = sums[1] / sums[0];
+				newY[v] = sums[2] / sums[0];
+			}
+		}
+	}
+
+	private void addSpring(final int v, final int u, final double strength, final double restLength,
+	                       final double[] sums) {
+		double dx = x[v] - x[u];
+		double dy = y[v] - y[u];
+		double distance = Math.sqrt(dx * dx + dy * dy);
+
+		if (distance < EPSILON) {
+			// Same place: push them apart in a direction that depends on both nodes
+			final double angle = (v * 31 + u) * 2.399963;
+			dx = Math.cos(angle);
+			dy = Math.sin(angle);
+			distance = 0;
+		} else {
+			dx /= distance;
+			dy /= distance;
+		}
+
+		sums[0] += strength;
+		sums[1] += strength * (x[u] + restLength * dx);
+		sums[2] += strength * (y[u] + restLength * dy);
+		sums[3] += strength * (distance - restLength) * (distance - restLength) / 2;
+	}
+
+	private void addCollisionSprings(final int v, final double[] sums) {
+		final int column = gridColumn(x[v]);
+		final int row = gridRow(y[v]);
+
+		for (int r = Math.max(0, row - 1); r <= Math.min(gridRows - 1, row + 1); r++) {
+			for (int c = Math.max(0, column - 1); c <= Math.min(gridColumns - 1, column + 1); c++) {
+				final int cell = r * gridColumns + c;
+
+				for (int n = gridStart[cell]; n < gridStart[cell + 1]; n++) {
+					final int u = gridNodes[n];
+					final double touching = radius[v] + radius[u];
+
+					if (u != v && Math.hypot(x[v] - x[u], y[v] - y[u]) < touching)
+						addSpring(v, u, anticollisionStrength, touching, sums);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Sorts the nodes into a grid of cells as large as the largest node, or larger when that would
+	 * make more cells than nodes, so that overlapping nodes are in the same or adjacent cells.
+	 */
+	private void buildGrid() {
+		double minX = Double.POSITIVE_INFINITY;
+		double minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY;
+		double maxY = Double.NEGATIVE_INFINITY;
+		double maxRadius = EPSILON;
+
+		for (int v = 0; v < nodeCount; v++) {
+			minX = Math.min(minX, x[v]);
+			minY = Math.min(minY, y[v]);
+			maxX = Math.max(maxX, x[v]);
+			maxY = Math.max(maxY, y[v]);
+			maxRadius = Math.max(maxRadius, radius[v]);
+		}
+
+		final double width = maxX - minX;
+		final double height = maxY - minY;
+		gridMinX = minX;
+		gridMinY = minY;
+		gridCellSize = Math.max(2 * maxRadius, Math.sqrt(width * height / nodeCount));
+		gridColumns = (int) Math.min(nodeCount, width / gridCellSize + 1);
+		gridRows = (int) Math.min(nodeCount, height / gridCellSize + 1);
+
+		final int cellCount = gridColumns * gridRows;
+
+		if (gridStart.length < cellCount + 1)
+			gridStart = new int[cellCount + 1];
+		else
+			Arrays.fill(gridStart, 0);
+
+		if (gridNodes.length < nodeCount)
+			gridNodes = new int[nodeCount];
+
+		for (int v = 0; v < nodeCount; v++)
+			gridStart[gridCell(v) + 1]++;
+
+		for (int cell = 0; cell < cellCount; cell++)
+			gridStart[cell + 1] += gridStart[cell];
+
+		final int[] next = Arrays.copyOf(gridStart, cellCount);
+
+		for (int v = 0; v < nodeCount; v++)
+			gridNodes[next[gridCell(v)]++] = v;
+	}
+
+	private int gridCell(final int v) {
+		return gridRow(y[v]) * gridColumns + gridColumn(x[v]);
+	}
+
+	private int gridColumn(final double vx) {
+		return Math.min(gridColumns - 1, (int) ((vx - gridMinX) / gridCellSize));
+	}
+
+	private int gridRow(final double vy) {
+		return Math.min(gridRows - 1, (int) ((vy - gridMinY) / gridCellSize));
+	}
+
+	private final class ShortestPathTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final int from;
+		private final int to;
+
+		ShortestPathTask(final int from, final int to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > 1) {
+				final int mid = (from + to) >>> 1;
+				invokeAll(new ShortestPathTask(from, mid), new ShortestPathTask(mid, to));
+				return;
+			}
+
+			calculateShortestPaths(from, to);
+		}
+	}
+
+	private final class PivotSpringTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final int from;
+		private final int to;
+		private final float[][] regionDistances;
+
+		PivotSpringTask(final int from, final int to, final float[][] regionDistances) {
+			this.from = from;
+			this.to = to;
+			this.regionDistances = regionDistances;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > 1) {
+				final int mid = (from + to) >>> 1;
+				invokeAll(new PivotSpringTask(from, mid, regionDistances),
+				          new PivotSpringTask(mid, to, regionDistances));
+				return;
+			}
+
+			calculatePivotSprings(from, to, regionDistances);
+		}
+	}
+
+	private final class ProductTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final int from;
+		private final int to;
+		private final double[][] product;
+		private final double[] nodeMeans;
+		private final double[] pivotMeans;
+		private final double mean;
+
+		ProductTask(final int from, final int to, final double[][] product, final double[] nodeMeans,
+		            final double[] pivotMeans, final double mean) {
+			this.from = from;
+			this.to = to;
+			this.product = product;
+			this.nodeMeans = nodeMeans;
+			this.pivotMeans = pivotMeans;
+			this.mean = mean;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > 1) {
+				final int mid = (from + to) >>> 1;
+				invokeAll(new ProductTask(from, mid, product, nodeMeans, pivotMeans, mean),
+				          new ProductTask(mid, to, product, nodeMeans, pivotMeans, mean));
+				return;
+			}
+
+			calculateProduct(from, to, product, nodeMeans, pivotMeans, mean);
+		}
+	}
+
+	private final class MoveTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final int from;
+		private final int to;
+		private final boolean collisions;
+
+		MoveTask(final int from, final int to, final boolean collisions) {
+			this.from = from;
+			this.to = to;
+			this.collisions = collisions;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > CHUNK_SIZE) {
+				final int mid = (from + to) >>> 1;
+				invokeAll(new MoveTask(from, mid, collisions), new MoveTask(mid, to, collisions));
+				return;
+			}
+
+			calculateLocations(from, to, collisions);
+		}
+	}
+}
@@ -32,7 +32,6 @@ import java.util.Set;
 import org.cytoscape.model.CyEdge;
 import org.cytoscape.model.CyNetwork;
 import org.cytoscape.model.CyNode;
-import org.cytoscape.view.layout.AbstractPartitionLayoutTask;
 import org.cytoscape.view.layout.LayoutNode;
 import org.cytoscape.view.layout.LayoutPartition;
 import org.cytoscape.view.model.CyNetworkView;
@@ -46,10 +45,13 @@ import cern.colt.map.tlong.OpenLongIntHashMap;
 import cern.colt.matrix.tdouble.DoubleMatrix1D;
 import cern.colt.matrix.tdouble.impl.DenseDoubleMatrix1D;
 
-public class ISOMLayoutTask  extends AbstractPartitionLayoutTask {
+import csapps.layout.ConcurrentPartitionLayoutTask;
+
+public class ISOMLayoutTask  extends ConcurrentPartitionLayoutTask {
 
 	private int epoch;
 	private double adaption;
+	private int radius;
 	private LayoutPartition partition;
 
 	//Queue, First In First Out, use add() and get(0)/remove(0)
@@ -70,6 +72,11 @@ public class ISOMLayoutTask  extends AbstractPartitionLayoutTask {
 		q = new LongArrayList();
 	}
 	
+	@Override
+	protected ISOMLayoutTask newPartitionTask() {
+		return new ISOMLayoutTask(toString(), networkView, nodesToLayOut, context, layoutAttribute, null);
+	}
+
 	public void layoutPartition(LayoutPartition partition) {
 		this.partition = partition;
 
@@ -81,6 +88,7 @@ public class ISOMLayoutTask  extends AbstractPartitionLayoutTask {
 		epoch = 1;
 
 		adaption = context.initialAdaptation;
+		radius = context.radius;
 
 		// System.out.println("Epoch: " + epoch + " maxEpoch: " + context.maxEpoch);
 
@@ -156,8 +164,8 @@ public class ISOMLayoutTask  extends AbstractPartitionLayoutTask {
 		double factor = Math.exp(-1 * context.coolingFactor * ((1.0 * epoch) / context.maxEpoch));
 		adaption = Math.max(context.minAdaptation, factor * context.initialAdaptation);
 
-		if ((context.radius > context.minRadius) && ((epoch % context.radiusConstantTime) == 0)) {
-			context.radius--;
+		if ((radius > context.minRadius) && ((epoch % context.radiusConstantTime) == 0)) {
+			radius--;
 		}
 	}
 
@@ -199,7 +207,7 @@ public class ISOMLayoutTask  extends AbstractPartitionLayoutTask {
 			currentNode.setY(current_y + (factor * dy));
 			partition.moveNodeToLocation(currentNode);
 
-			if (currData.distance < context.radius) {
+			if (currData.distance < radius) {
 				long[] neighbors = neighborsArray(network, currentNode.getNode());
 
 				for (int neighbor_index = 0; neighbor_index < neighbors.length; ++neighbor_index) {
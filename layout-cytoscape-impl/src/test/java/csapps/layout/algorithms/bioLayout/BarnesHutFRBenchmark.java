@@ -0,0 +1,245 @@
+package csapps.layout.algorithms.bioLayout;
+
+/*
+ * #%L
+ * Cytoscape Layout Algorithms Impl (layout-cytoscape-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+
+/**
+ * Compares the layout time and the stress of the BioLayout FR iterations with exact repulsion
+ * (theta = 0), Barnes-Hut repulsion, and Barnes-Hut repulsion with multilevel coarsening, on
+ * random clustered networks.
+ * <p>
+ * Usage: {@code BarnesHutFRBenchmark [node counts...]}.  The exact layout is skipped above
+ * 20000 nodes.  Run with {@code -Djava.util.concurrent.ForkJoinPool.common.parallelism=1} to
+ * measure a single thread.
+ */
+public class BarnesHutFRBenchmark {
+
+	private static final int MAX_EXACT_NODES = 20000;
+	private static final int ITERATIONS = 500;
+	private static final double NODE_WIDTH = 30;
+	private static final int STRESS_SOURCES = 100;
+
+	private final int nodeCount;
+	private final int[] edgeSource;
+	private final int[] edgeTarget;
+	private final double[] initialX;
+	private final double[] initialY;
+	private final double width;
+
+	public static void main(String[] args) {
+		final int[] nodeCounts = args.length > 0 ? new int[args.length] : new int[] { 1000, 5000, 20000, 100000 };
+
+		for (int i = 0; i < args.length; i++)
+			nodeCounts[i] = Integer.parseInt(args[i]);
+
+		System.out.println("nodes\tedges\tmode\ttime (ms)\tstress");
+
+		for (int n : nodeCounts) {
+			final BarnesHutFRBenchmark benchmark = new BarnesHutFRBenchmark(n, new Random(n));
+
+			if (n <= MAX_EXACT_NODES)
+				benchmark.run("exact", 0, false);
+
+			benchmark.run("barnes-hut", 0.9, false);
+			benchmark.run("multilevel", 0.9, true);
+		}
+	}
+
+	/**
+	 * Creates a connected network of clusters of about 50 nodes, with 3 edges per node,
+	 * nine out of ten of them within the cluster.
+	 */
+	BarnesHutFRBenchmark(final int nodeCount, final Random random) {
+		this.nodeCount = nodeCount;
+
+		final int clusterSize = 50;
+		final List<int[]> edges = new ArrayList<int[]>();
+
+		for (int v = 1; v < nodeCount; v++)
+			edges.add(new int[] { v, random.nextInt(v) });
+
+		for (int v = 0; v < nodeCount; v++) {
+			for (int e = 0; e < 2; e++) {
+				final int u;
+
+				if (random.nextInt(10) == 0) {
+					u = random.nextInt(nodeCount);
+				} else {
+					final int clusterStart = v - v % clusterSize;
+					u = Math.min(nodeCount - 1, clusterStart + random.nextInt(clusterSize));
+				}
+
+				if (u != v)
+					edges.add(new int[] { v, u });
+			}
+		}
+
+		edgeSource = new int[edges.size()];
+		edgeTarget = new int[edges.size()];
+
+		for (int e = 0; e < edges.size(); e++) {
+			edgeSource[e] = edges.get(e)[0];
+			edgeTarget[e] = edges.get(e)[1];
+		}
+
+		// Same size as the task computes for nodes without a layout
+		width = Math.sqrt(nodeCount * NODE_WIDTH * NODE_WIDTH) * 2;
+		initialX = new double[nodeCount];
+		initialY = new double[nodeCount];
+
+		for (int v = 0; v < nodeCount; v++) {
+			initialX[v] = random.nextDouble() * width;
+			initialY[v] = random.nextDouble() * width;
+		}
+	}
+
+	/**
+	 * Lays out the network with the default settings of {@link BioLayoutFRContext}, the same way
+	 * as {@link BioLayoutFRAlgorithmTask}.
+	 */
+	void run(final String mode, final double theta, final boolean multilevel) {
+		final BioLayoutFRContext context = new BioLayoutFRContext();
+		final double[] x = initialX.clone();
+		final double[] y = initialY.clone();
+		final double[] radius = new double[nodeCount];
+		final int[] degree = new int[nodeCount];
+		final double[] weight = new double[edgeSource.length];
+		Arrays.fill(radius, NODE_WIDTH / 2);
+		Arrays.fill(weight, 0.5);
+
+		for (int e = 0; e < edgeSource.length; e++) {
+			degree[edgeSource[e]]++;
+			degree[edgeTarget[e]]++;
+		}
+
+		final double force = Math.sqrt(width * width / nodeCount);
+		final double maxDistance = Math.max(NODE_WIDTH * 10, width * context.max_distance_factor / 100);
+		final long start = System.nanoTime();
+
+		final List<BarnesHutFRLayout> levels = new ArrayList<BarnesHutFRLayout>();
+		levels.add(new BarnesHutFRLayout(x, y, radius, new boolean[nodeCount], degree, edgeSource, edgeTarget,
+		                                 weight));
+		levels.get(0).setForces(force * context.attraction_multiplier, force * context.repulsion_multiplier,
+		                        context.gravity_multiplier, context.conflict_avoidance, maxDistance, theta);
+
+		if (multilevel) {
+			BarnesHutFRLayout coarser;
+
+			while (levels.get(levels.size() - 1).getNodeCount() > 100
+			       && (coarser = levels.get(levels.size() - 1).coarsen()) != null)
+				levels.add(coarser);
+		}
+
+		final double temp = width * context.temperature / 100;
+
+		for (int level = levels.size() - 1; level >= 0; level--) {
+			final BarnesHutFRLayout layout = levels.get(level);
+			final int nIterations = level == levels.size() - 1 ? ITERATIONS : ITERATIONS / 4;
+			double levelTemp = level == levels.size() - 1 ? temp : temp * 0.25;
+
+			if (level < levels.size() - 1)
+				layout.interpolate(levels.get(level + 1));
+
+			for (int iteration = 0; iteration < nIterations; iteration++) {
+				if ((levelTemp = layout.doOneIteration(iteration, nIterations, levelTemp)) == 0)
+					break;
+			}
+		}
+
+		final long time = (System.nanoTime() - start) / 1000000;
+
+		System.out.println(nodeCount + "\t" + edgeSource.length + "\t" + mode + "\t" + time + "\t"
+		                   + String.format("%.4f", stress(x, y)));
+	}
+
+	/**
+	 * Normalized stress of the layout, scaled optimally, against the shortest path distances
+	 * from a sample of the nodes: the mean of ((s * euclidean - graph) / graph)^2.
+	 */
+	private double stress(final double[] x, final double[] y) {
+		final int[] offsets = new int[nodeCount + 1];
+
+		for (int e = 0; e < edgeSource.length; e++) {
+			offsets[edgeSource[e] + 1]++;
+			offsets[edgeTarget[e] + 1]++;
+		}
+
+		for (int v = 0; v < nodeCount; v++)
+			offsets[v + 1] += offsets[v];
+
+		final int[] neighbors = new int[offsets[nodeCount]];
+		final int[] next = Arrays.copyOf(offsets, nodeCount);
+
+		for (int e = 0; e < edgeSource.length; e++) {
+			neighbors[next[edgeSource[e]]++] = edgeTarget[e];
+			neighbors[next[edgeTarget[e]]++] = edgeSource[e];
+		}
+
+		final Random random = new Random(0);
+		final int[] distance = new int[nodeCount];
+		final int[] queue = new int[nodeCount];
+		long pairs = 0;
+		double sumRatio = 0;
+		double sumRatio2 = 0;
+
+		for (int s = 0; s < Math.min(STRESS_SOURCES, nodeCount); s++) {
+			final int source = random.nextInt(nodeCount);
+			Arrays.fill(distance, -1);
+			distance[source] = 0;
+			queue[0] = source;
+
+			for (int head = 0, tail = 1; head < tail; head++) {
+				final int v = queue[head];
+
+				for (int n = offsets[v]; n < offsets[v + 1]; n++) {
+					final int u = neighbors[n];
+
+					if (distance[u] < 0) {
+						distance[u] = distance[v] + 1;
+						queue[tail++] = u;
+					}
+				}
+			}
+
+			for (int v = 0; v < nodeCount; v++) {
+				if (distance[v] > 0) {
+					final double ratio = Math.hypot(x[v] - x[source], y[v] - y[source]) / distance[v];
+					sumRatio += ratio;
+					sumRatio2 += ratio * ratio;
+					pairs++;
+				}
+			}
+		}
+
+		// With the scale that minimizes it, sumRatio / sumRatio2, the stress
+		// sum((scale * ratio - 1)^2) is pairs - sumRatio^2 / sumRatio2
+		return (pairs - sumRatio * sumRatio / sumRatio2) / pairs;
+	}
+}
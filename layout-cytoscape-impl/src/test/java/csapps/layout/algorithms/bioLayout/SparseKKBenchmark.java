@@ -0,0 +1,212 @@
+package csapps.layout.algorithms.bioLayout;
+
+/*
+ * #%L
+ * Cytoscape Layout Algorithms Impl (layout-cytoscape-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+
+/**
+ * Compares the layout time, the memory of the pivot springs and the stress of the sparse
+ * Kamada-Kawai layout with all the nodes as pivots (the complete model) and with the default
+ * number of pivots, on random clustered networks.
+ * <p>
+ * Usage: {@code SparseKKBenchmark [node counts...]}.  The complete model is skipped above 5000
+ * nodes.  Run with {@code -Djava.util.concurrent.ForkJoinPool.common.parallelism=1} to measure
+ * a single thread.
+ */
+public class SparseKKBenchmark {
+
+	private static final int MAX_COMPLETE_NODES = 5000;
+	private static final double NODE_WIDTH = 30;
+	private static final int STRESS_SOURCES = 100;
+
+	private final int nodeCount;
+	private final int[] edgeSource;
+	private final int[] edgeTarget;
+
+	public static void main(String[] args) {
+		final int[] nodeCounts = args.length > 0 ? new int[args.length] : new int[] { 1000, 5000, 20000, 100000 };
+
+		for (int i = 0; i < args.length; i++)
+			nodeCounts[i] = Integer.parseInt(args[i]);
+
+		System.out.println("nodes\tedges\tpivots\ttime (ms)\tpivot springs (MB)\tstress");
+
+		for (int n : nodeCounts) {
+			final SparseKKBenchmark benchmark = new SparseKKBenchmark(n, new Random(n));
+
+			if (n <= MAX_COMPLETE_NODES)
+				benchmark.run(n);
+
+			benchmark.run(new BioLayoutKKContext().pivotCount);
+		}
+	}
+
+	/**
+	 * Creates a connected network of clusters of about 50 nodes, with 3 edges per node,
+	 * nine out of ten of them within the cluster.
+	 */
+	SparseKKBenchmark(final int nodeCount, final Random random) {
+		this.nodeCount = nodeCount;
+
+		final int clusterSize = 50;
+		final List<int[]> edges = new ArrayList<int[]>();
+
+		for (int v = 1; v < nodeCount; v++)
+			edges.add(new int[] { v, random.nextInt(v) });
+
+		for (int v = 0; v < nodeCount; v++) {
+			for (int e = 0; e < 2; e++) {
+				final int u;
+
+				if (random.nextInt(10) == 0) {
+					u = random.nextInt(nodeCount);
+				} else {
+					final int clusterStart = v - v % clusterSize;
+					u = Math.min(nodeCount - 1, clusterStart + random.nextInt(clusterSize));
+				}
+
+				if (u != v)
+					edges.add(new int[] { v, u });
+			}
+		}
+
+		edgeSource = new int[edges.size()];
+		edgeTarget = new int[edges.size()];
+
+		for (int e = 0; e < edges.size(); e++) {
+			edgeSource[e] = edges.get(e)[0];
+			edgeTarget[e] = edges.get(e)[1];
+		}
+	}
+
+	/**
+	 * Lays out the network with the default settings of {@link BioLayoutKKContext}, the same way
+	 * as {@link BioLayoutKKAlgorithmTask}, with unweighted edges.
+	 */
+	void run(final int pivotCount) {
+		final BioLayoutKKContext context = new BioLayoutKKContext();
+		final double[] x = new double[nodeCount];
+		final double[] y = new double[nodeCount];
+		final double[] radius = new double[nodeCount];
+		final double[] edgeLength = new double[edgeSource.length];
+		Arrays.fill(radius, NODE_WIDTH / 2);
+		Arrays.fill(edgeLength, context.m_nodeDistanceRestLengthConstant / context.edgeWeighter.defaultEdgeWeight);
+
+		final long start = System.nanoTime();
+		final SparseKKLayout layout = new SparseKKLayout(x, y, radius, new boolean[nodeCount], edgeSource,
+		                                                 edgeTarget, edgeLength);
+		layout.setSprings(context.m_nodeDistanceStrengthConstant, context.m_disconnectedNodeDistanceSpringStrength,
+		                  context.m_disconnectedNodeDistanceSpringRestLength, context.m_anticollisionSpringStrength);
+		layout.calculatePivotSprings(pivotCount);
+		layout.initializeLocations();
+
+		final int numIterations = (int) context.m_averageIterationsPerNode;
+		double previousStress = Double.POSITIVE_INFINITY;
+
+		// The task's 10 passes, with a convergence test after the first
+		for (int iteration = 0; iteration < numIterations; iteration++) {
+			final double stress = layout.doOneIteration(iteration >= numIterations / 10);
+
+			if (iteration > numIterations / 10 && (previousStress - stress) < 0.0001 * previousStress)
+				break;
+
+			previousStress = stress;
+		}
+
+		final long time = (System.nanoTime() - start) / 1000000;
+		final double megabytes = 2.0 * 4 * layout.getPivotCount() * nodeCount / (1024 * 1024);
+
+		System.out.println(nodeCount + "\t" + edgeSource.length + "\t" + layout.getPivotCount() + "\t" + time
+		                   + "\t" + String.format("%.1f", megabytes) + "\t" + String.format("%.4f", stress(x, y)));
+	}
+
+	/**
+	 * Normalized stress of the layout, scaled optimally, against the shortest path distances
+	 * from a sample of the nodes: the mean of ((s * euclidean - graph) / graph)^2.
+	 */
+	private double stress(final double[] x, final double[] y) {
+		final int[] offsets = new int[nodeCount + 1];
+
+		for (int e = 0; e < edgeSource.length; e++) {
+			offsets[edgeSource[e] + 1]++;
+			offsets[edgeTarget[e] + 1]++;
+		}
+
+		for (int v = 0; v < nodeCount; v++)
+			offsets[v + 1] += offsets[v];
+
+		final int[] neighbors = new int[offsets[nodeCount]];
+		final int[] next = Arrays.copyOf(offsets, nodeCount);
+
+		for (int e = 0; e < edgeSource.length; e++) {
+			neighbors[next[edgeSource[e]]++] = edgeTarget[e];
+			neighbors[next[edgeTarget[e]]++] = edgeSource[e];
+		}
+
+		final Random random = new Random(0);
+		final int[] distance = new int[nodeCount];
+		final int[] queue = new int[nodeCount];
+		long pairs = 0;
+		double sumRatio = 0;
+		double sumRatio2 = 0;
+
+		for (int s = 0; s < Math.min(STRESS_SOURCES, nodeCount); s++) {
+			final int source = random.nextInt(nodeCount);
+			Arrays.fill(distance, -1);
+			distance[source] = 0;
+			queue[0] = source;
+
+			for (int head = 0, tail = 1; head < tail; head++) {
+				final int v = queue[head];
+
+				for (int n = offsets[v]; n < offsets[v + 1]; n++) {
+					final int u = neighbors[n];
+
+					if (distance[u] < 0) {
+						distance[u] = distance[v] + 1;
+						queue[tail++] = u;
+					}
+				}
+			}
+
+			for (int v = 0; v < nodeCount; v++) {
+				if (distance[v] > 0) {
+					final double ratio = Math.hypot(x[v] - x[source], y[v] - y[source]) / distance[v];
+					sumRatio += ratio;
+					sumRatio2 += ratio * ratio;
+					pairs++;
+				}
+			}
+		}
+
+		// With the scale that minimizes it, sumRatio / sumRatio2, the stress
+		// sum((scale * ratio - 1)^2) is pairs - sumRatio^2 / sumRatio2
+		return (pairs - sumRatio * sumRatio / sumRatio2) / pairs;
+	}
+}
@@ -32,7 +32,6 @@ import java.util.Map;
 import java.util.Set;
 
 import org.cytoscape.model.CyNode;
-import org.cytoscape.view.layout.AbstractPartitionLayoutTask;
 import org.cytoscape.view.layout.LayoutEdge;
 import org.cytoscape.view.layout.LayoutNode;
 import org.cytoscape.view.layout.LayoutPartition;
@@ -53,11 +52,9 @@ import prefuse.util.force.SpringForce;
  * 
  * @see <a href="http://prefuse.org">Prefuse web site</a>
  */
-public class ForceDirectedLayoutTask extends AbstractPartitionLayoutTask {
+public class ForceDirectedLayoutTask extends ConcurrentPartitionLayoutTask {
 
-	private ForceSimulator m_fsim;
 	private ForceDirectedLayout.Integrators integrator;
-	private Map<LayoutNode,ForceItem> forceItems;
 	private ForceDirectedLayoutContext context;
 
 	/**
@@ -73,13 +70,6 @@ public class ForceDirectedLayoutTask extends AbstractPartitionLayoutTask {
 
 		edgeWeighter = context.edgeWeighter;
 		edgeWeighter.setWeightAttribute(layoutAttribute);
-
-		m_fsim = new ForceSimulator();
-		m_fsim.addForce(new NBodyForce());
-		m_fsim.addForce(new SpringForce());
-		m_fsim.addForce(new DragForce());
-
-		forceItems = new HashMap<LayoutNode, ForceItem>();
 	}
 	
 	
@@ -88,6 +78,12 @@ public class ForceDirectedLayoutTask extends AbstractPartitionLayoutTask {
 		return ForceDirectedLayout.ALGORITHM_DISPLAY_NAME;
 	}
 
+	@Override
+	protected ForceDirectedLayoutTask newPartitionTask() {
+		return new ForceDirectedLayoutTask(toString(), networkView, nodesToLayOut, context, integrator,
+				layoutAttribute, null);
+	}
+
 	public void layoutPartition(LayoutPartition part) {
 		LayoutPoint initialLocation = null;
 		// System.out.println("layoutPartion: "+part.getEdgeList().size()+" edges");
@@ -95,15 +91,16 @@ public class ForceDirectedLayoutTask extends AbstractPartitionLayoutTask {
 		part.calculateEdgeWeights();
 		// System.out.println("layoutPartion: "+part.getEdgeList().size()+" edges after calculateEdgeWeights");
 
-		//m_fsim.setIntegrator(integrator.getNewIntegrator());
-		//m_fsim.clear();
+		//fsim.setIntegrator(integrator.getNewIntegrator());
+		//fsim.clear();
 
-		m_fsim = new ForceSimulator();
-		m_fsim.addForce(new NBodyForce());
-		m_fsim.addForce(new SpringForce());
-		m_fsim.addForce(new DragForce());
+		// The simulation is local, so partitions can be laid out concurrently
+		final ForceSimulator fsim = new ForceSimulator();
+		fsim.addForce(new NBodyForce());
+		fsim.addForce(new SpringForce());
+		fsim.addForce(new DragForce());
 
-		forceItems.clear();
+		final Map<LayoutNode,ForceItem> forceItems = new HashMap<LayoutNode, ForceItem>();
 		
 		List<LayoutNode> nodeList = part.getNodeList();
 		List<LayoutEdge> edgeList = part.getEdgeList();
@@ -125,7 +122,7 @@ public class ForceDirectedLayoutTask extends AbstractPartitionLayoutTask {
 			fitem.mass = getMassValue(ln);
 			fitem.location[0] = 0f; 
 			fitem.location[1] = 0f; 
-			m_fsim.addItem(fitem);
+			fsim.addItem(fitem);
 		}
 		
 		// initialize edges
@@ -136,7 +133,7 @@ public class ForceDirectedLayoutTask extends AbstractPartitionLayoutTask {
 			ForceItem f2 = forceItems.get(n2); 
 			if ( f1 == null || f2 == null )
 				continue;
-			m_fsim.addSpring(f1, f2, getSpringCoefficient(e), getSpringLength(e)); 
+			fsim.addSpring(f1, f2, getSpringCoefficient(e), getSpringLength(e)); 
 		}
 
 		// setTaskStatus(5); // This is a rough approximation, but probably good enough
@@ -152,7 +149,7 @@ public class ForceDirectedLayoutTask extends AbstractPartitionLayoutTask {
 		for ( int i = 0; i < context.numIterations && !cancelled; i++ ) {
 			timestep *= (1.0 - i/(double)context.numIterations);
 			long step = timestep+50;
-			m_fsim.runSimulator(step);
+			fsim.runSimulator(step);
 			setTaskStatus((int)(((double)i/(double)context.numIterations)*90.+5));
 		}
 		
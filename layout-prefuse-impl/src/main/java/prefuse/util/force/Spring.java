@@ -79,7 +79,7 @@ public class Spring {
         /**
          * Get a Spring instance and set it to the given parameters.
          */
-        public Spring getSpring(ForceItem f1, ForceItem f2, float k, float length) {
+        public synchronized Spring getSpring(ForceItem f1, ForceItem f2, float k, float length) {
             if ( springs.size() > 0 ) {
                 Spring s = (Spring)springs.remove(springs.size()-1);
                 s.item1 = f1;
@@ -94,7 +94,7 @@ public class Spring {
         /**
          * Reclaim a Spring into the object pool.
          */
-        public void reclaim(Spring s) {
+        public synchronized void reclaim(Spring s) {
             s.item1 = null;
             s.item2 = null;
             if ( springs.size() < maxSprings )
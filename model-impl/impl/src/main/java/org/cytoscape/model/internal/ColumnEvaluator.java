@@ -0,0 +1,168 @@
+package org.cytoscape.model.internal;
+
+/*
+ * #%L
+ * Cytoscape Model Impl (model-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.cytoscape.equations.Equation;
+import org.cytoscape.equations.Function;
+import org.cytoscape.equations.Interpreter;
+
+
+/**
+ * Evaluates the equations of one column for many rows in one pass.
+ * <p>
+ * The table reads the values the equations refer to beforehand, so evaluating a row reads nothing
+ * from the table, see {@link EqnSupport#evalEquation(Equation, Object, Interpreter, String[], Object[],
+ * String, Appendable)}. Large columns are split into chunks of rows that are evaluated on the
+ * fork-join pool, but only if all their equations call nothing but built-in functions, which keep no
+ * state. Functions registered by apps may not be safe to call concurrently.
+ * <p>
+ * Relies on the interpreter being safe for concurrent use.
+ */
+final class ColumnEvaluator {
+
+	/** Minimum number of rows for evaluating the equations on the fork-join pool. */
+	static final int PARALLEL_THRESHOLD = 10000;
+	/** Number of rows evaluated by a single fork-join task. */
+	private static final int CHUNK_SIZE = 2048;
+
+	private final Interpreter interpreter;
+	private final String columnName;
+
+	private final List<Object> keys = new ArrayList<Object>();
+	private final List<Equation> equations = new ArrayList<Equation>();
+	private final List<Object[]> values = new ArrayList<Object[]>();
+	// Equation -> its variable references, in the order of getVariableReferences().
+	private final Map<Equation, String[]> references = new IdentityHashMap<Equation, String[]>();
+	private boolean builtinOnly = true;
+
+	private Object[] results;
+	private String[] errors;
+
+	ColumnEvaluator(final Interpreter interpreter, final String columnName) {
+		this.interpreter = interpreter;
+		this.columnName = columnName;
+	}
+
+	/**
+	 * @return the variable references of the equation, in the order in which {@link #add} expects their values
+	 */
+	String[] getReferences(final Equation equation) {
+		String[] names = references.get(equation);
+		if (names == null) {
+			names = equation.getVariableReferences().toArray(new String[0]);
+			references.put(equation, names);
+
+			for (final Object code : equation.getCode()) {
+				if (code instanceof Function && !EquationCache.isBuiltin((Function) code))
+					builtinOnly = false;
+			}
+		}
+		return names;
+	}
+
+	/**
+	 * Adds a row to evaluate.
+	 *
+	 * @param referencedValues the value of each of {@link #getReferences(Equation)} in the row, null if not set
+	 * @return the number under which the result of the row can be retrieved
+	 */
+	int add(final Object key, final Equation equation, final Object[] referencedValues) {
+		getReferences(equation);
+		keys.add(key);
+		equations.add(equation);
+		values.add(referencedValues);
+		return keys.size() - 1;
+	}
+
+	int size() {
+		return keys.size();
+	}
+
+	void evaluate() {
+		results = new Object[keys.size()];
+		errors = new String[keys.size()];
+
+		if (results.length >= PARALLEL_THRESHOLD && builtinOnly && ForkJoinPool.getCommonPoolParallelism() > 1)
+			ForkJoinPool.commonPool().invoke(new EvaluateRowsTask(0, results.length));
+		else
+			evaluateRows(0, results.length);
+	}
+
+	/**
+	 * @return the result of the n-th row added, null if its evaluation failed
+	 */
+	Object getResult(final int n) {
+		return results[n];
+	}
+
+	/**
+	 * @return the error message of the n-th row added, empty if its evaluation succeeded
+	 */
+	String getError(final int n) {
+		return errors[n];
+	}
+
+	private void evaluateRows(final int from, final int to) {
+		for (int n = from; n < to; n++) {
+			final Equation equation = equations.get(n);
+			final StringBuilder errorMsg = new StringBuilder();
+			results[n] = EqnSupport.evalEquation(equation, keys.get(n), interpreter, references.get(equation),
+			                                     values.get(n), columnName, errorMsg);
+			errors[n] = errorMsg.toString();
+		}
+	}
+
+	private final class EvaluateRowsTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final int from;
+		private final int to;
+
+		EvaluateRowsTask(final int from, final int to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > CHUNK_SIZE) {
+				final int mid = (from + to) >>> 1;
+				invokeAll(new EvaluateRowsTask(from, mid), new EvaluateRowsTask(mid, to));
+				return;
+			}
+
+			evaluateRows(from, to);
+		}
+	}
+}
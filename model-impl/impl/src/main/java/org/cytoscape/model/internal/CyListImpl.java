@@ -73,6 +73,8 @@ public class CyListImpl<T> implements List<T> {
 	}
 
 	private void fireEvent() {
+		table.listChanged(row, column.getName());
+		
 		// TODO: If this is a virtual column, we need to ensure all dependents
 		// fire events.
 		if(table.eventsEnabled())
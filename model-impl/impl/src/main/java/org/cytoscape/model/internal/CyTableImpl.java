@@ -31,6 +31,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -57,6 +58,8 @@ import org.cytoscape.model.events.TableAddedEvent;
 import org.cytoscape.model.events.TableAddedListener;
 import org.cytoscape.model.events.TablePrivacyChangedEvent;
 import org.cytoscape.model.events.TableTitleChangedEvent;
+import org.cytoscape.model.internal.column.ColumnData;
+import org.cytoscape.model.internal.column.RowIndex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -64,10 +67,14 @@ import org.slf4j.LoggerFactory;
 public final class CyTableImpl implements CyTable, TableAddedListener {
 	
 	private static final Logger logger = LoggerFactory.getLogger(CyTableImpl.class);
+	
+	// Stands for the primary key among the columns an equation refers to.
+	private static final Object PRIMARY_KEY = new Object();
 
 	private Set<String> currentlyActiveAttributes;
-	private Map<String, Map<Object, Object>> attributes; // Maps column names to (key,value) pairs, where "key" is the primary key.
+	private Map<String, ColumnData> attributes; // Maps column names to columnar values, addressed by row index.
 	private Map<Object, CyRow> rows; // Maps the primary key to CyRow.
+	private RowIndex rowIndex; // Maps row indices back to rows.
 	private Map<String, CyColumn> types;
 	private ArrayList<CyColumn> colList; //Stores the list of columns in the table
 	private ArrayList<CyRow> rowList;    //Stores the list of rows in the table
@@ -103,6 +110,14 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 	
 	private final Object lock = new Object();
 	
+	// Lookups answered by a column index vs. by scanning the column.
+	private long indexHits;
+	private long indexMisses;
+	
+	private EquationCache equationCache;
+	// Set while evaluating an equation whose result depends on something the cache cannot track.
+	private boolean uncachedRead;
+	
 	/**
 	 * Creates a new CyTableImpl object.
 	 */
@@ -127,9 +142,10 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 		this.defaultInitSize = defaultInitSize;
 
 		currentlyActiveAttributes = new HashSet<String>();
-		attributes = new HashMap<String, Map<Object, Object>>();
+		attributes = new HashMap<String, ColumnData>();
 		
 		rows = new ConcurrentHashMap<Object, CyRow>(defaultInitSize, 0.5f, 2);
+		rowIndex = new RowIndex(defaultInitSize);
 		types = new ConcurrentHashMap<String, CyColumn>(16, 0.75f, 2);
 		colList = new ArrayList<CyColumn>();
 		rowList = new ArrayList<CyRow>();
@@ -148,11 +164,10 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 						                             /* isImmutable = */ true,
 						                             null));
 		colList.add(getColumn(normalizedPKName));
-		// Using a ConcurrentHashMap for attributes because this speeds up initial access times
-		// for getMatchingRows()
-		attributes.put(normalizedPKName, new HashMap<Object, Object>(defaultInitSize));
+		attributes.put(normalizedPKName, ColumnData.create(primaryKeyType, defaultInitSize));
 
 		virtualColumnMap = new HashMap<String, VirtualColumn>();
+		equationCache = new EquationCache();
 	}
 
 
@@ -165,13 +180,17 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 			currentlyActiveAttributes = other.currentlyActiveAttributes;
 			other.currentlyActiveAttributes = tempCurrentlyActiveAttributes;
 	
-			final Map<String, Map<Object, Object>> tempAttributes = attributes;
+			final Map<String, ColumnData> tempAttributes = attributes;
 			attributes = other.attributes;
 			other.attributes = tempAttributes;
 	
 			final Map<Object, CyRow> tempRows = rows;
 			rows = other.rows;
 			other.rows = tempRows;
+			
+			final RowIndex tempRowIndex = rowIndex;
+			rowIndex = other.rowIndex;
+			other.rowIndex = tempRowIndex;
 	
 			final Map<String, CyColumn> tempTypes = types;
 			types = other.types;
@@ -217,6 +236,10 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 			dependents = other.dependents;
 			other.dependents = tempDependents;
 			
+			final EquationCache tempEquationCache = equationCache;
+			equationCache = other.equationCache;
+			other.equationCache = tempEquationCache;
+			
 			final SavePolicy tempSavePolicy = savePolicy;
 			savePolicy = other.savePolicy;
 			other.savePolicy = tempSavePolicy;
@@ -241,10 +264,10 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 
 			String normalizedOldColName = normalizeColumnName(oldColumnName);
 			String normalizedNewColName = normalizeColumnName(newColumnName);
-			final Map<Object, Object> keyValuePairs = attributes.get(normalizedOldColName);
-			if (keyValuePairs != null) {
+			final ColumnData columnData = attributes.get(normalizedOldColName);
+			if (columnData != null) {
 				attributes.remove(normalizedOldColName);
-				attributes.put(normalizedNewColName, keyValuePairs);
+				attributes.put(normalizedNewColName, columnData);
 			}
 
 			final CyColumn column = types.get(normalizedOldColName);
@@ -262,6 +285,9 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 				dependents.remove(normalizedOldColName);
 				dependents.put(normalizedNewColName, columnDependents);
 			}
+			
+			// Equations refer to columns by name.
+			equationCache.clear();
 		}
 
 		eventHelper.fireEvent(new ColumnNameChangedEvent(this, oldColumnName, newColumnName));
@@ -375,6 +401,8 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 				
 			final VirtualColumn virtColumn = virtualColumnMap.get(normalizedColName);
 			if (attributes.containsKey(normalizedColName) || virtColumn != null) {
+				equationCache.invalidateColumn(normalizedColName);
+				
 				if (virtColumn != null) {
 					final CyColumn cyColumn = types.get(normalizedColName);
 					virtualColumnMap.remove(normalizedColName);
@@ -449,8 +477,9 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 							                              /* isPrimaryKey = */ false,
 							                              isImmutable,
 							                              defaultValue));
-			attributes.put(normalizedColName, new HashMap<Object, Object>(defaultInitSize));
+			attributes.put(normalizedColName, ColumnData.create(type, defaultInitSize));
 			colList.add(types.get(normalizedColName));
+			equationCache.invalidateColumn(normalizedColName);
 		}
 		
 		eventHelper.fireEvent(new ColumnCreatedEvent(this, columnName));
@@ -489,8 +518,9 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 							       /* isPrimaryKey = */ false,
 							       isImmutable,
 								   defaultValue));
-			attributes.put(normalizedColName, new HashMap<Object, Object>(defaultInitSize));
+			attributes.put(normalizedColName, ColumnData.create(List.class, defaultInitSize));
 			colList.add(types.get(normalizedColName));
+			equationCache.invalidateColumn(normalizedColName);
 		}
 
 		eventHelper.fireEvent(new ColumnCreatedEvent(this, columnName));
@@ -504,6 +534,15 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 			throw new NullPointerException("column type is null.");
 
 		synchronized (lock) {
+			final String normalizedColName = normalizeColumnName(columnName);
+			final ColumnData columnData = attributes.get(normalizedColName);
+			
+			// Equations evaluated from within another equation must detect recursion, so they
+			// take the per-row path, like virtual columns and the primary key do.
+			if (columnData != null && !virtualColumnMap.containsKey(normalizedColName)
+					&& !primaryKey.equalsIgnoreCase(normalizedColName) && currentlyActiveAttributes.isEmpty())
+				return (List<T>) evaluateColumn(columnName, normalizedColName, columnData, type);
+			
 			List<T> l = new ArrayList<>();
 			for(Object key : rows.keySet()) {
 				l.add((T)getValue(key, columnName, type));
@@ -512,6 +551,133 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 		}
 	}
 
+	/**
+	 * Returns what getValue() returns for each row of a non-virtual column, in the same order and
+	 * with the same side effects, but evaluates the equations of the column in one pass, see
+	 * {@link ColumnEvaluator}. Rows whose equation refers to a virtual column or to another
+	 * equation are evaluated one by one. The caller must hold the lock.
+	 */
+	private List<Object> evaluateColumn(final String columnName, final String normalizedColName,
+	                                    final ColumnData columnData, final Class<?> type) {
+		final int rowCount = rows.size();
+		final Object[] values = new Object[rowCount];
+		final Object[] keys = new Object[rowCount];
+		final Equation[] equations = new Equation[rowCount];
+		// For rows holding an equation: the number of the row in the evaluator, or -1 if it has
+		// been evaluated already, in which case errors holds its error message.
+		final int[] evaluatorRows = new int[rowCount];
+		final String[] errors = new String[rowCount];
+		
+		final ColumnEvaluator evaluator = new ColumnEvaluator(interpreter, columnName);
+		// Equation -> the data of each column it refers to, null if the equation must be
+		// evaluated one row at a time.
+		final Map<Equation, Object[]> referencedColumns = new IdentityHashMap<Equation, Object[]>();
+		
+		int i = 0;
+		for (final CyRow row : rows.values()) {
+			final InternalRow internalRow = (InternalRow) row;
+			final Object value = columnData.get(internalRow.index);
+			keys[i] = internalRow.key;
+			values[i] = value;
+			
+			if (value instanceof Equation) {
+				final Equation equation = (Equation) value;
+				equations[i] = equation;
+				evaluatorRows[i] = -1;
+				
+				final Object cached = equationCache.get(normalizedColName, internalRow.key);
+				if (cached != null) {
+					values[i] = cached;
+					errors[i] = "";
+				} else {
+					if (!referencedColumns.containsKey(equation))
+						referencedColumns.put(equation, getReferencedColumns(evaluator.getReferences(equation)));
+					
+					final Object[] referencedValues =
+							getReferencedValues(referencedColumns.get(equation), internalRow);
+					if (referencedValues != null) {
+						evaluatorRows[i] = evaluator.add(internalRow.key, equation, referencedValues);
+					} else {
+						values[i] = evalEquation(equation, internalRow.key, columnName, true);
+						errors[i] = lastInternalError;
+					}
+				}
+			}
+			i++;
+		}
+		
+		if (evaluator.size() > 0)
+			evaluator.evaluate();
+		
+		final List<Object> result = new ArrayList<Object>(rowCount);
+		for (i = 0; i < rowCount; i++) {
+			if (equations[i] == null) {
+				result.add(values[i]);
+				continue;
+			}
+			
+			if (evaluatorRows[i] >= 0) {
+				values[i] = evaluator.getResult(evaluatorRows[i]);
+				errors[i] = evaluator.getError(evaluatorRows[i]);
+				
+				// Nothing the cache cannot track was read.
+				final boolean cache = errors[i].length() == 0 && EquationCache.isCacheable(equations[i], values[i]);
+				cacheResult(normalizedColName, keys[i], equations[i], values[i], cache);
+			}
+			
+			lastInternalError = errors[i];
+			
+			if (type != null && values[i] != null)
+				result.add(EqnSupport.convertEqnResultToColumnType(type, values[i]));
+			else
+				result.add(values[i]);
+		}
+		
+		return result;
+	}
+
+	/**
+	 * @return for each reference, PRIMARY_KEY for the primary key or "ID", the column data, or
+	 *         null for a column that does not exist; null instead of the array if one of the
+	 *         references is a virtual column
+	 */
+	private Object[] getReferencedColumns(final String[] references) {
+		final Object[] columns = new Object[references.length];
+		for (int i = 0; i < references.length; i++) {
+			final String normalizedRefName = normalizeColumnName(references[i]);
+			if (virtualColumnMap.containsKey(normalizedRefName))
+				return null;
+			
+			if (references[i].equals("ID") || primaryKey.equalsIgnoreCase(normalizedRefName))
+				columns[i] = PRIMARY_KEY;
+			else
+				columns[i] = attributes.get(normalizedRefName);
+		}
+		return columns;
+	}
+
+	/**
+	 * @return the values of the referenced columns in the given row, or null if the equation
+	 *         must be evaluated one row at a time, because it refers to another equation
+	 */
+	private Object[] getReferencedValues(final Object[] columns, final InternalRow row) {
+		if (columns == null)
+			return null;
+		
+		final Object[] values = new Object[columns.length];
+		for (int i = 0; i < columns.length; i++) {
+			final Object column = columns[i];
+			if (column == PRIMARY_KEY) {
+				values[i] = row.key;
+			} else if (column != null) {
+				values[i] = ((ColumnData) column).get(row.index);
+				if (values[i] instanceof Equation)
+					return null;
+			}
+		}
+		return values;
+	}
+
 	// Used in virtual columns so that we don't create new rows in tables
 	// that are only being referenced. We expect it to return null.
 	CyRow getRowNoCreate(final Object key) {
@@ -527,15 +693,32 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 		if (row != null)
 			return row;
 
-		row = new InternalRow(key);
-		rows.put(key, row);
-		rowList.add(row);
+		synchronized (lock) {
+			row = rows.get(key);
+			if (row != null)
+				return row;
+			
+			row = createRow(key);
+		}
 
 		if (fireEvents)
 			eventHelper.addEventPayload((CyTable) this, (Object) key, RowsCreatedEvent.class);
 		return row;
 	}
 
+	/**
+	 * Adds a row for a key that has none. The caller must hold the lock, and fires
+	 * the RowsCreatedEvent once it has released it.
+	 */
+	private final InternalRow createRow(final Object key) {
+		final int index = rowIndex.allocate();
+		final InternalRow row = new InternalRow(key, index);
+		rowIndex.set(index, row);
+		rows.put(key, row);
+		rowList.add(row);
+		return row;
+	}
+
 	@Override
 	public boolean rowExists(final Object primaryKey) {
 		return (primaryKey != null && rows.containsKey(primaryKey));	
@@ -547,6 +730,21 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 		return lastInternalError;
 	}
 
+	/**
+	 * Returns the index under which the row's values are stored in the column data,
+	 * or -1 if there is no such row.
+	 * The index is always resolved through this table's current row map, so that
+	 * it stays consistent with the column data after a {@link #swap(CyTable)}.
+	 */
+	private final int indexOf(final Object key) {
+		final InternalRow row = (InternalRow) rows.get(key);
+		return row == null ? -1 : row.index;
+	}
+
+	private final Object keyAt(final int index) {
+		return ((InternalRow) rowIndex.get(index)).key;
+	}
+
 	private final void checkKey(final Object suid) {
 		if (suid == null)
 			throw new NullPointerException("key is null");
@@ -579,15 +777,10 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 				return matchingRows;
 			}
 			
-			final Map<Object, Object> keyToValueMap = attributes.get(normalizedColName);
-			final ArrayList<CyRow> matchingRows = new ArrayList<CyRow>(rows.size());
+			final ColumnData columnData = attributes.get(normalizedColName);
+			countLookup(columnData.isIndexed());
 			
-			for(Entry<Object, Object> entry: keyToValueMap.entrySet()) {
-				if(entry.getValue().equals(value))
-					matchingRows.add(rows.get(entry.getKey()));
-			}
-	
-			return matchingRows;
+			return toRows(columnData.findMatches(value));
 		}
 	}
 
@@ -600,11 +793,141 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 			if (virtColumn != null)
 				return virtColumn.countMatchingRows(value);
 			
-			final Map<Object, Object> keyToValueMap = attributes.get(normalizedColName);
-			return Collections.frequency(keyToValueMap.values(), value);
+			final ColumnData columnData = attributes.get(normalizedColName);
+			if (value == null)
+				return 0;
+			
+			countLookup(columnData.isIndexed());
+			return columnData.countMatches(value);
+		}
+	}
+
+	/**
+	 * Returns the rows whose value in the given column lies between the two bounds,
+	 * in the sense of {@link java.util.NavigableMap#subMap(Object, boolean, Object, boolean)}.
+	 * A null bound means unbounded. Cells holding equations are not considered.
+	 * The column must be a Double, Integer, Long or String column and the bounds must be of its type.
+	 */
+	public Collection<CyRow> getMatchingRows(final String columnName, final Object fromValue,
+	                                         final boolean fromInclusive, final Object toValue,
+	                                         final boolean toInclusive) {
+		synchronized (lock) {
+			final String normalizedColName = normalizeColumnName(columnName);
+			final CyColumn column = types.get(normalizedColName);
+			
+			if (column == null)
+				throw new IllegalArgumentException("column: '" + columnName + "' does not yet exist.");
+			
+			final Class<?> type = column.getType();
+			if (type != Double.class && type != Integer.class && type != Long.class && type != String.class)
+				throw new IllegalArgumentException("column: '" + columnName + "' does not support range lookups.");
+			if ((fromValue != null && !type.isInstance(fromValue)) || (toValue != null && !type.isInstance(toValue)))
+				throw new IllegalArgumentException("bounds must be of type " + type.getName());
+			
+			final VirtualColumn virtColumn = virtualColumnMap.get(normalizedColName);
+			if (virtColumn != null) {
+				final CyTableImpl sourceTable = (CyTableImpl) virtColumn.getSourceTable();
+				final Collection<CyRow> sourceRows = sourceTable.getMatchingRows(virtColumn.getSourceColumn(),
+						fromValue, fromInclusive, toValue, toInclusive);
+				return virtColumn.mapFromSourceRows(sourceRows);
+			}
+			
+			final ColumnData columnData = attributes.get(normalizedColName);
+			countLookup(columnData.isRangeIndexed());
+			
+			return toRows(columnData.findRange(fromValue, fromInclusive, toValue, toInclusive));
 		}
 	}
 
+	/**
+	 * Creates a secondary index for the column, so that {@link #getMatchingRows(String, Object)}
+	 * and {@link #countMatchingRows(String, Object)} no longer scan it. Numeric columns get a
+	 * sorted index, which also serves range lookups. The index is kept up to date on every
+	 * change, so it only pays off for columns that are looked up often. Indexing a virtual
+	 * column indexes its source column.
+	 */
+	public void createIndex(final String columnName) {
+		setIndexed(columnName, true);
+	}
+
+	public void dropIndex(final String columnName) {
+		setIndexed(columnName, false);
+	}
+
+	public boolean isIndexed(final String columnName) {
+		synchronized (lock) {
+			final String normalizedColName = normalizeColumnName(columnName);
+			final VirtualColumn virtColumn = virtualColumnMap.get(normalizedColName);
+			
+			if (virtColumn != null)
+				return ((CyTableImpl) virtColumn.getSourceTable()).isIndexed(virtColumn.getSourceColumn());
+			
+			final ColumnData columnData = attributes.get(normalizedColName);
+			return columnData != null && columnData.isIndexed();
+		}
+	}
+
+	/**
+	 * @return the number of value lookups on this table that were answered by a column index.
+	 */
+	public long getIndexHitCount() {
+		synchronized (lock) {
+			return indexHits;
+		}
+	}
+
+	/**
+	 * @return the number of value lookups on this table that had to scan a column.
+	 */
+	public long getIndexMissCount() {
+		synchronized (lock) {
+			return indexMisses;
+		}
+	}
+
+	private void setIndexed(final String columnName, final boolean indexed) {
+		final VirtualColumn virtColumn;
+		
+		synchronized (lock) {
+			final String normalizedColName = normalizeColumnName(columnName);
+			final CyColumn column = types.get(normalizedColName);
+			
+			if (column == null)
+				throw new IllegalArgumentException("column: '" + columnName + "' does not yet exist.");
+			if (column.getType() == List.class)
+				throw new IllegalArgumentException("list column: '" + columnName + "' cannot be indexed.");
+			
+			virtColumn = virtualColumnMap.get(normalizedColName);
+			
+			if (virtColumn == null) {
+				final ColumnData columnData = attributes.get(normalizedColName);
+				if (indexed)
+					columnData.createIndex();
+				else
+					columnData.dropIndex();
+			}
+		}
+		
+		if (virtColumn != null)
+			((CyTableImpl) virtColumn.getSourceTable()).setIndexed(virtColumn.getSourceColumn(), indexed);
+	}
+
+	private void countLookup(final boolean indexed) {
+		if (indexed)
+			indexHits++;
+		else
+			indexMisses++;
+	}
+
+	private List<CyRow> toRows(final int[] indices) {
+		final List<CyRow> matchingRows = new ArrayList<CyRow>(indices.length);
+		
+		for (final int i : indices)
+			matchingRows.add((CyRow) rowIndex.get(i));
+		
+		return matchingRows;
+	}
+
 	private final void setX(final Object key, final String columnName, final Object value) {
 		if (columnName == null)
 			throw new NullPointerException("columnName must not be null.");
@@ -636,29 +959,30 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 				newValue = virtColumn.getValue(key);
 				newRawValue = virtColumn.getRawValue(key);
 			} else {
-				Map<Object, Object> keyToValueMap = attributes.get(normalizedColName);
+				final ColumnData columnData = attributes.get(normalizedColName);
+				final int index = indexOf(key);
+
+				// A row that has been deleted in the meantime is not brought back.
+				if (index < 0)
+					return;
 
 				if (!columnType.isAssignableFrom(value.getClass())
 				    && !EqnSupport.scalarEquationIsCompatible(value, columnType))
 					throw new IllegalArgumentException("value of \"" + columnName + "\" is not of type " + columnType);
 
+				equationCache.invalidate(normalizedColName, key);
+				
 				if (value instanceof Equation) {
 					newRawValue = value;
 					final Equation equation = (Equation)value;
-					// TODO this is an implicit addRow - not sure if we want to refactor this or not
-					keyToValueMap.put(key, equation);
+					columnData.set(index, equation);
 
-					final StringBuilder errorMsg = new StringBuilder();
-					newValue = EqnSupport.evalEquation(equation, key, interpreter,
-									   currentlyActiveAttributes, columnName,
-									   errorMsg, this);
-					lastInternalError = errorMsg.toString();
+					newValue = evalEquation(equation, key, columnName, true);
 					if (newValue == null)
 						logger.warn("attempted premature evaluation evaluation for " + equation);
 				} else {
-					// TODO this is an implicit addRow - not sure if we want to refactor this or not
 					newRawValue = newValue = columnType.cast(value);
-					keyToValueMap.put(key, newValue);
+					columnData.set(index, newValue);
 				}
 			}
 		}
@@ -699,14 +1023,16 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 				fireVirtualColumnRowSetEvent(table2, key, dependent.getName(), newValue, newRawValue, seen);
 			} else {
 				String normalizedTargetJoinKey = table2.normalizeColumnName(targetJoinKey);		
-				Map<Object, Object> keyToValueMap = table2.attributes.get(normalizedTargetJoinKey);
-				if(keyToValueMap != null) {
-					for (Object key2: keyToValueMap.keySet()) {
-						if (keyToValueMap.get(key2).equals(key)) {
-							fireVirtualColumnRowSetEvent(table2, key2, dependent.getName(), newValue, newRawValue, seen);
-						}
+				final List<Object> keys2 = new ArrayList<>();
+				synchronized (table2.lock) {
+					final ColumnData columnData = table2.attributes.get(normalizedTargetJoinKey);
+					if (columnData != null) {
+						for (final int i : columnData.findMatches(key))
+							keys2.add(table2.keyAt(i));
 					}
 				}
+				for (Object key2 : keys2)
+					fireVirtualColumnRowSetEvent(table2, key2, dependent.getName(), newValue, newRawValue, seen);
 			}
 		}
 	}
@@ -746,10 +1072,15 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 				virtColumn.setValue(key, rawValue);
 				newValue = virtColumn.getListValue(key);
 			} else {
-				Map<Object, Object> keyToValueMap = attributes.get(normalizedColName);
+				final ColumnData columnData = attributes.get(normalizedColName);
+				final int index = indexOf(key);
+
+				// A row that has been deleted in the meantime is not brought back.
+				if (index < 0)
+					return;
 
-				// TODO this is an implicit addRow - not sure if we want to refactor this or not
-				keyToValueMap.put(key, rawValue);
+				columnData.set(index, rawValue);
+				equationCache.invalidate(normalizedColName, key);
 				if (rawValue instanceof Equation) {
 					final StringBuilder errorMsg = new StringBuilder();
 					newValue = EqnSupport.evalEquation((Equation)rawValue, suid, interpreter,
@@ -776,15 +1107,14 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 			if (virtColumn != null)
 				virtColumn.setValue(key, null);
 			else {
-				final Map<Object, Object> keyToValueMap = attributes.get(normalizedColName);
-				if (!types.containsKey(normalizedColName) || keyToValueMap == null)
+				final ColumnData columnData = attributes.get(normalizedColName);
+				if (!types.containsKey(normalizedColName) || columnData == null)
 					throw new IllegalArgumentException("column: '" + columnName + "' does not yet exist.");
 
-				final Object value = keyToValueMap.get(key);
-				if (value == null)
+				equationCache.invalidate(normalizedColName, key);
+				
+				if (!columnData.unset(indexOf(key)))
 					return;
-
-				keyToValueMap.remove(key);
 			}
 		}
 
@@ -811,11 +1141,11 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 			if (virtColumn != null)
 				return virtColumn.getRawValue(key);
 			
-			final Map<Object, Object> keyToValueMap = attributes.get(normalizedColName);
-			if (keyToValueMap == null)
+			final ColumnData columnData = attributes.get(normalizedColName);
+			if (columnData == null)
 				return null;
 			
-			return keyToValueMap.get(key);
+			return columnData.get(indexOf(key));
 		}
 	}
 
@@ -843,6 +1173,11 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 		final String normalizedColName = normalizeColumnName(columnName);
 		final VirtualColumn virtColumn = virtualColumnMap.get(normalizedColName);
 		final Object vl = getValueOrEquation(key, columnName, virtColumn);
+		
+		// The source table of a virtual column can change without this table being notified.
+		if (virtColumn != null)
+			uncachedRead = true;
+		
 		if (virtColumn != null && vl == null)
 			return virtColumn.getValue(key);
 
@@ -850,12 +1185,7 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 			return null;
 
 		if (vl instanceof Equation) {
-			final StringBuilder errorMsg = new StringBuilder();
-			final Object value =
-				EqnSupport.evalEquation((Equation)vl, key, interpreter,
-							currentlyActiveAttributes, columnName,
-							errorMsg, this);
-			lastInternalError = errorMsg.toString();
+			final Object value = evalEquation((Equation)vl, key, columnName, virtColumn == null);
 			if ( type == null )
 				return value;
 			else if(value != null)
@@ -912,19 +1242,106 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 			if (vl == null)
 				return getDefaultValue(columnName,defaultValue);
 	
-			if (vl instanceof Equation) {
-				final StringBuilder errorMsg = new StringBuilder();
-				final Object result =
-					EqnSupport.evalEquation((Equation)vl, key, interpreter,
-								currentlyActiveAttributes, columnName,
-								errorMsg, this);
-				lastInternalError = errorMsg.toString();
-				return (List)result;
-			} else
+			if (vl instanceof Equation)
+				return (List)evalEquation((Equation)vl, key, columnName, false);
+			else
 				return (List)vl;
 		}
 	}
 
+	/**
+	 * Returns the result of the equation in the given cell, evaluating it only if there is no
+	 * cached result. Results are only cached if "cacheable" is true, the evaluation succeeded
+	 * and it did not read anything the cache cannot track, see {@link EquationCache}.
+	 * Sets {@link #lastInternalError} just like evaluating the equation does.
+	 */
+	private Object evalEquation(final Equation equation, final Object key, final String columnName,
+	                            final boolean cacheable) {
+		final String normalizedColName = normalizeColumnName(columnName);
+		
+		if (cacheable) {
+			final Object result = equationCache.get(normalizedColName, key);
+			if (result != null) {
+				lastInternalError = "";
+				return result;
+			}
+		}
+		
+		final boolean outerUncachedRead = uncachedRead;
+		uncachedRead = false;
+		
+		final StringBuilder errorMsg = new StringBuilder();
+		final Object result = EqnSupport.evalEquation(equation, key, interpreter,
+		                                              currentlyActiveAttributes, columnName,
+		                                              errorMsg, this);
+		lastInternalError = errorMsg.toString();
+		
+		final boolean cache = cacheable && !uncachedRead && errorMsg.length() == 0
+				&& EquationCache.isCacheable(equation, result);
+		cacheResult(normalizedColName, key, equation, result, cache);
+		
+		// An equation referring to this one cannot be cached either if this result was not.
+		uncachedRead = outerUncachedRead || !cache;
+		
+		return result;
+	}
+
+	/**
+	 * Records the evaluation of the equation in the given cell, and its result if "cache" is true.
+	 */
+	private void cacheResult(final String normalizedColName, final Object key, final Equation equation,
+	                         final Object result, final boolean cache) {
+		if (cache) {
+			final List<String> referencedColumns = new ArrayList<String>();
+			for (final String reference : equation.getVariableReferences())
+				referencedColumns.add(normalizeColumnName(reference));
+			
+			equationCache.put(normalizedColName, key, referencedColumns, result);
+		} else {
+			equationCache.put(normalizedColName, key, Collections.<String>emptyList(), null);
+		}
+	}
+
+	/**
+	 * Called when a list stored in the given cell has been modified in place.
+	 */
+	void listChanged(final CyRow row, final String columnName) {
+		final VirtualColumn virtColumn;
+		
+		synchronized (lock) {
+			final String normalizedColName = normalizeColumnName(columnName);
+			virtColumn = virtualColumnMap.get(normalizedColName);
+			
+			if (virtColumn == null && row instanceof InternalRow && row.getTable() == this)
+				equationCache.invalidate(normalizedColName, ((InternalRow) row).key);
+			else
+				equationCache.invalidateColumn(normalizedColName);
+		}
+		
+		// The list is stored in the source table.
+		if (virtColumn != null)
+			((CyTableImpl) virtColumn.getSourceTable()).listChanged(null, virtColumn.getSourceColumn());
+	}
+
+	/**
+	 * @return the number of equation results that were answered from the cache instead of
+	 *         evaluating the equation again.
+	 */
+	public long getEquationCacheHitCount() {
+		synchronized (lock) {
+			return equationCache.getHitCount();
+		}
+	}
+
+	/**
+	 * @return the number of times an equation in this table has been evaluated.
+	 */
+	public long getEquationEvaluationCount() {
+		synchronized (lock) {
+			return equationCache.getEvaluationCount();
+		}
+	}
+
 	private <T> boolean isSetX(final Object key, final String columnName) {
 		synchronized (lock) {
 			final String normalizedColName = normalizeColumnName(columnName);
@@ -937,9 +1354,9 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 			if (virtColumn != null) {
 				return virtColumn.getRawValue(key) != null;
 			} else {
-				final Map<Object, Object> keyToValueMap = attributes.get(normalizedColName);
+				final ColumnData columnData = attributes.get(normalizedColName);
 				
-				return keyToValueMap != null && keyToValueMap.get(key) != null;
+				return columnData != null && columnData.isSet(indexOf(key));
 			}
 		}
 	}
@@ -1015,9 +1432,10 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 
 			final String normalizedTargetName = normalizeColumnName(targetName);
 			types.put(normalizedTargetName, targetColumn);
-			attributes.put(normalizedTargetName, new HashMap<Object, Object>(defaultInitSize));
+			attributes.put(normalizedTargetName, ColumnData.create(sourceColumn.getType(), 0));
 			virtualColumnMap.put(normalizedTargetName, virtualColumn);
 			colList.add(types.get(normalizedTargetName));
+			equationCache.invalidateColumn(normalizedTargetName);
 		}
 
 		eventHelper.fireEvent(new ColumnCreatedEvent(this, targetName));
@@ -1040,6 +1458,7 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 				((CyTableImpl) info.getSourceTable()).removeDependent(info.getSourceColumn(), column);
 			}
 			virtualColumnMap.clear();
+			equationCache.clear();
 		}
 	}
 
@@ -1121,19 +1540,19 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 			for (Object key : primaryKeys) {
 				checkKey(key);
 
-				CyRow row = rows.remove(key);
-				if (row != null) {
-					rowList.remove(row);
-					changed = true;
-				}
+				final InternalRow row = (InternalRow) rows.remove(key);
+				if (row == null)
+					continue;
+				
+				rowList.remove(row);
+				changed = true;
 
-				for (CyColumn col : getColumns()) {
-					final String normalizedColName = normalizeColumnName(col.getName());
-					final Map<Object, Object> keyToValueMap = attributes.get(normalizedColName);
-					if (keyToValueMap != null) {
-						keyToValueMap.remove(key);
-					}
-				}
+				for (final ColumnData columnData : attributes.values())
+					columnData.unset(row.index);
+				
+				equationCache.invalidateRow(key);
+				
+				rowIndex.release(row.index);
 			}
 		}
 		if(changed)
@@ -1141,11 +1560,175 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 		return changed;
 	}
 	
+	/**
+	 * Sets the values of one column for many rows at once. The table lock is taken
+	 * once and the column type is checked once for the whole batch, and instead of
+	 * one payload per cell a single RowsSetEvent is fired for this table (and one for
+	 * each table with a virtual column depending on it).
+	 * A null value unsets the cell, just like {@link CyRow#set(String, Object)}.
+	 * Rows that do not exist yet are created, and their RowsCreatedEvent payloads are
+	 * added once the lock has been released.
+	 */
+	public void setValues(final String columnName, final Map<?, ?> keyToValue) {
+		if (columnName == null)
+			throw new NullPointerException("columnName must not be null.");
+		if (keyToValue == null)
+			throw new NullPointerException("keyToValue must not be null.");
+		if (keyToValue.isEmpty())
+			return;
+		
+		final Map<Object, RowSetRecord> changes = new LinkedHashMap<>(keyToValue.size() * 2);
+		final List<Object> createdKeys = new ArrayList<>();
+		boolean cellByCell = false;
+		VirtualColumn delegateTo = null;
+		
+		synchronized (lock) {
+			final String normalizedColName = normalizeColumnName(columnName);
+			final CyColumn column = types.get(normalizedColName);
+			
+			if (column == null)
+				throw new IllegalArgumentException("column: '" + columnName + "' does not yet exist.");
+			
+			final VirtualColumn virtColumn = virtualColumnMap.get(normalizedColName);
+			final boolean joinedOnPrimaryKey = virtColumn != null
+					&& normalizeColumnName(virtColumn.getTargetJoinKey()).equals(normalizeColumnName(primaryKey));
+			
+			if ((virtColumn != null && !joinedOnPrimaryKey) || column.getType() == List.class) {
+				// No fast path for these.
+				cellByCell = true;
+			} else if (virtColumn != null) {
+				// Joined on our primary key, so the source table has the same keys.
+				delegateTo = virtColumn;
+			} else {
+				final Class<?> columnType = column.getType();
+				final ColumnData columnData = attributes.get(normalizedColName);
+
+				// Validate everything first, so a bad value does not leave the batch half written.
+				for (final Entry<?, ?> entry : keyToValue.entrySet()) {
+					checkKey(entry.getKey());
+					final Object value = entry.getValue();
+					if (value != null && !columnType.isInstance(value)
+							&& !(value instanceof Equation && EqnSupport.scalarEquationIsCompatible(value, columnType)))
+						throw new IllegalArgumentException("value of \"" + columnName + "\" is not of type " + columnType);
+				}
+
+				for (final Entry<?, ?> entry : keyToValue.entrySet()) {
+					final Object key = entry.getKey();
+					final Object value = entry.getValue();
+					
+					equationCache.invalidate(normalizedColName, key);
+
+					if (value == null) {
+						if (columnData.unset(indexOf(key)))
+							changes.put(key, new RowSetRecord(rows.get(key), columnName, null, null));
+					} else {
+						InternalRow row = (InternalRow) rows.get(key);
+						if (row == null) {
+							row = createRow(key);
+							createdKeys.add(key);
+						}
+						
+						columnData.set(row.index, value);
+						
+						if (columnType.isInstance(value)) {
+							changes.put(key, new RowSetRecord(row, columnName, value, value));
+						} else {
+							final Object newValue = evalEquation((Equation) value, key, columnName, true);
+							changes.put(key, new RowSetRecord(row, columnName, newValue, value));
+						}
+					}
+				}
+			}
+		}
+		
+		if (fireEvents) {
+			for (final Object key : createdKeys)
+				eventHelper.addEventPayload((CyTable) this, key, RowsCreatedEvent.class);
+		}
+		
+		if (cellByCell) {
+			for (final Entry<?, ?> entry : keyToValue.entrySet())
+				getRow(entry.getKey()).set(columnName, entry.getValue());
+		} else if (delegateTo != null) {
+			// The source table fires the events for itself and all of its dependents, including us.
+			((CyTableImpl) delegateTo.getSourceTable()).setValues(delegateTo.getSourceColumn(), keyToValue);
+		} else if (fireEvents && !changes.isEmpty()) {
+			fireBatchRowsSetEvent(columnName, changes, Collections.newSetFromMap(new IdentityHashMap<VirtualColumnInfo, Boolean>()));
+		}
+	}
+
+	/**
+	 * Sets several columns of one row at once, see {@link #setValues(String, Map)}.
+	 */
+	public void setRowValues(final Object key, final Map<String, ?> columnToValue) {
+		for (final Entry<String, ?> entry : columnToValue.entrySet())
+			setValues(entry.getKey(), Collections.singletonMap(key, entry.getValue()));
+	}
+
+	/**
+	 * The batch counterpart of {@link #fireVirtualColumnRowSetEvent}.
+	 */
+	private void fireBatchRowsSetEvent(final String columnName, final Map<Object, RowSetRecord> changes,
+	                                   final Set<VirtualColumnInfo> seen) {
+		final List<RowSetRecord> records = new ArrayList<>(changes.size());
+		
+		for (final Entry<Object, RowSetRecord> entry : changes.entrySet()) {
+			final CyRow row = getRowNoCreate(entry.getKey());
+			if (row == null)
+				continue;
+			
+			final RowSetRecord record = entry.getValue();
+			if (row == record.getRow() && columnName.equals(record.getColumn()))
+				records.add(record);
+			else
+				records.add(new RowSetRecord(row, columnName, record.getValue(), record.getRawValue()));
+		}
+		
+		if (!records.isEmpty())
+			eventHelper.fireEvent(new RowsSetEvent(this, records));
+		
+		final Set<CyColumn> columnDependents;
+		synchronized (lock) {
+			final Set<CyColumn> deps = dependents.get(normalizeColumnName(columnName));
+			if (deps == null)
+				return;
+			columnDependents = new HashSet<>(deps);
+		}
+		
+		for (final CyColumn dependent : columnDependents) {
+			final VirtualColumnInfo info = dependent.getVirtualColumnInfo();
+			if (!seen.add(info))
+				continue;
+			
+			final CyTableImpl table2 = (CyTableImpl) dependent.getTable();
+			final String targetJoinKey = info.getTargetJoinKey();
+			
+			if (targetJoinKey.equals(table2.getPrimaryKey().getName())) {
+				table2.fireBatchRowsSetEvent(dependent.getName(), changes, seen);
+			} else {
+				final Map<Object, RowSetRecord> changes2 = new LinkedHashMap<>();
+				synchronized (table2.lock) {
+					final ColumnData columnData = table2.attributes.get(table2.normalizeColumnName(targetJoinKey));
+					if (columnData != null) {
+						for (final Entry<Object, RowSetRecord> entry : changes.entrySet()) {
+							final Object key = entry.getKey();
+							for (final int i : columnData.findMatches(key))
+								changes2.put(table2.keyAt(i), entry.getValue());
+						}
+					}
+				}
+				table2.fireBatchRowsSetEvent(dependent.getName(), changes2, seen);
+			}
+		}
+	}
+	
 	private final class InternalRow implements CyRow {
 		private final Object key;
+		private final int index;
 
-		InternalRow(final Object key) {
+		InternalRow(final Object key, final int index) {
 			this.key = key;
+			this.index = index;
 		}
 
 		@Override
@@ -173,6 +173,69 @@ class EqnSupport {
 		}
 	}
 
+	/**
+	 *  Evaluates an equation given the values of the columns it refers to, with the same results and errors as
+	 *  evalEquation().  It reads nothing from the table, so that the rows of a column can be evaluated concurrently.
+	 *  @param references  the variable references of the equation, in the order of getVariableReferences()
+	 *  @param values      the value of each reference in the row of "key", null if it is not set
+	 */
+	static Object evalEquation(final Equation equation, final Object key,
+				   final Interpreter interpreter,
+				   final String[] references, final Object[] values,
+				   final String columnName, final Appendable lastInternalError)
+	{
+		final Map<String, Object> defaultValues = equation.getDefaultVariableValues();
+
+		final Map<String, IdentDescriptor> nameToDescriptorMap = new TreeMap<String, IdentDescriptor>();
+		for (int i = 0; i < references.length; ++i) {
+			final String attribRef = references[i];
+			if (attribRef.equals("ID")) {
+				nameToDescriptorMap.put("ID", new IdentDescriptor(key));
+				continue;
+			}
+
+			Object attribValue = values[i];
+			if (attribValue == null) {
+				final Object defaultValue = defaultValues.get(attribRef);
+				if (defaultValue != null)
+					attribValue = defaultValue;
+				else {
+					try {
+						lastInternalError.append("Missing value for referenced column \"" + attribRef + "\".");
+					} catch (Exception e) {
+						// Intentionally empty!
+					}
+					logger.warn("Missing value for \"" + attribRef + "\" while evaluating an equation (ID:" + key + ", column name:" + columnName + ")");
+					return null;
+				}
+			}
+
+			try {
+				nameToDescriptorMap.put(attribRef, new IdentDescriptor(attribValue));
+			} catch (final Exception e) {
+				try {
+					lastInternalError.append("Bad column reference to \"" + attribRef + "\".");
+				} catch (Exception e2) {
+					// Intentionally empty!
+				}
+				logger.warn("Bad column reference to \"" + attribRef + "\" while evaluating an equation (ID:" + key + ", column name:" + columnName + ")");
+				return null;
+			}
+		}
+
+		try {
+			return interpreter.execute(equation, nameToDescriptorMap);
+		} catch (final Exception e) {
+			try {
+				lastInternalError.append(e.getMessage());
+			} catch (Exception e2) {
+				// Intentionally empty!
+			}
+			logger.warn("Error while evaluating an equation: " + e.getMessage() + " (ID:" + key + ", column name:" + columnName + ")");
+			return null;
+		}
+	}
+
 	/**
 	 *  @return an in-order list of attribute names that will have to be evaluated before "columnName" can be evaluated
 	 */
@@ -0,0 +1,212 @@
+package org.cytoscape.model.internal;
+
+/*
+ * #%L
+ * Cytoscape Model Impl (model-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.cytoscape.equations.Equation;
+import org.cytoscape.equations.Function;
+
+
+/**
+ * Caches the results of the equations of one table, per cell.
+ * <p>
+ * An equation only reads cells of its own row, so a cached result stays valid until one of the
+ * columns the equation refers to changes in that row. This keeps a reverse dependency graph from
+ * each referenced column to the equation columns referring to it; when a cell changes, the results
+ * of all equations that depend on it, directly or through other equations, are dropped.
+ * <p>
+ * Not thread-safe, all access must be guarded by the owning table's lock.
+ */
+final class EquationCache {
+
+	/**
+	 * Package of the functions that come with the equation parser. Functions registered by apps may
+	 * read anything, e.g. the network or a random number generator, so only these are cached.
+	 */
+	private static final String BUILTIN_FUNCTION_PACKAGE = "org.cytoscape.equations.internal.builtins.";
+
+	/** Built-in functions whose result changes without any of their arguments changing. */
+	private static final Set<String> VOLATILE_FUNCTIONS = new HashSet<String>();
+
+	static {
+		VOLATILE_FUNCTIONS.add("NOW");
+		VOLATILE_FUNCTIONS.add("TODAY");
+	}
+
+	// Normalized equation column name -> primary key -> result.
+	private final Map<String, Map<Object, Object>> results = new HashMap<String, Map<Object, Object>>();
+	// Normalized referenced column name -> normalized names of the equation columns referring to it.
+	private final Map<String, Set<String>> referringColumns = new HashMap<String, Set<String>>();
+
+	private long hits;
+	private long evaluations;
+
+	/**
+	 * @return the cached result of the equation in the given cell, or null if there is none.
+	 */
+	Object get(final String columnName, final Object key) {
+		final Map<Object, Object> columnResults = results.get(columnName);
+		if (columnResults == null)
+			return null;
+
+		final Object result = columnResults.get(key);
+		if (result != null)
+			hits++;
+
+		return result;
+	}
+
+	/**
+	 * Records that the equation in the given cell has been evaluated.
+	 *
+	 * @param referencedColumns  the normalized names of the columns the equation refers to
+	 * @param result             the result, or null if it must not be cached
+	 */
+	void put(final String columnName, final Object key, final Collection<String> referencedColumns,
+	         final Object result) {
+		evaluations++;
+
+		if (result == null)
+			return;
+
+		for (final String referencedColumn : referencedColumns) {
+			Set<String> columns = referringColumns.get(referencedColumn);
+			if (columns == null) {
+				columns = new HashSet<String>();
+				referringColumns.put(referencedColumn, columns);
+			}
+			columns.add(columnName);
+		}
+
+		Map<Object, Object> columnResults = results.get(columnName);
+		if (columnResults == null) {
+			columnResults = new HashMap<Object, Object>();
+			results.put(columnName, columnResults);
+		}
+		columnResults.put(key, result);
+	}
+
+	/**
+	 * Drops the cached results that depend on the given cell, including its own.
+	 */
+	void invalidate(final String columnName, final Object key) {
+		for (final String column : getAffectedColumns(columnName)) {
+			final Map<Object, Object> columnResults = results.get(column);
+			if (columnResults != null)
+				columnResults.remove(key);
+		}
+	}
+
+	/**
+	 * Drops the cached results that depend on any cell of the given column, including its own.
+	 */
+	void invalidateColumn(final String columnName) {
+		for (final String column : getAffectedColumns(columnName))
+			results.remove(column);
+	}
+
+	/**
+	 * Drops the cached results of all columns for the given row.
+	 */
+	void invalidateRow(final Object key) {
+		for (final Map<Object, Object> columnResults : results.values())
+			columnResults.remove(key);
+	}
+
+	void clear() {
+		results.clear();
+		referringColumns.clear();
+	}
+
+	long getHitCount() {
+		return hits;
+	}
+
+	long getEvaluationCount() {
+		return evaluations;
+	}
+
+	/**
+	 * @return the given column and all equation columns depending on it, directly or transitively
+	 */
+	private Set<String> getAffectedColumns(final String columnName) {
+		final Set<String> affected = new HashSet<String>();
+		final Deque<String> pending = new ArrayDeque<String>();
+		affected.add(columnName);
+		pending.push(columnName);
+
+		while (!pending.isEmpty()) {
+			final Set<String> columns = referringColumns.get(pending.pop());
+			if (columns == null)
+				continue;
+
+			for (final String column : columns) {
+				if (affected.add(column))
+					pending.push(column);
+			}
+		}
+
+		return affected;
+	}
+
+	/**
+	 * @return false if the equation calls a function whose result may change between two evaluations
+	 *         with the same arguments, or if the result is a list, which callers are free to modify
+	 */
+	static boolean isCacheable(final Equation equation, final Object result) {
+		if (result == null || result instanceof List)
+			return false;
+
+		for (final Object code : equation.getCode()) {
+			if (code instanceof Function && !isDeterministic((Function) code))
+				return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * @return true if the function is known to depend on nothing but its arguments
+	 */
+	private static boolean isDeterministic(final Function function) {
+		return isBuiltin(function) && !VOLATILE_FUNCTIONS.contains(function.getName().toUpperCase());
+	}
+
+	/**
+	 * @return true if the function comes with the equation parser
+	 */
+	static boolean isBuiltin(final Function function) {
+		return function.getClass().getName().startsWith(BUILTIN_FUNCTION_PACKAGE);
+	}
+}
@@ -30,6 +30,8 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
 
 import org.cytoscape.model.CyEdge;
 import org.cytoscape.model.CyNode;
@@ -42,6 +44,13 @@ import cern.colt.map.tobject.OpenLongObjectHashMap;
  * operations not fully represented here are addNode and addEdge.
  * Instead we provide addNodeInternal and addEdgeInternal, which
  * add a provided CyNode/CyEdge object to the network topology. 
+ * <p>
+ * Concurrency: the topology is guarded by a {@link StampedLock}. Writers
+ * (the *Internal methods) take the exclusive write lock, so they remain
+ * linearizable. Readers first try an optimistic, lock-free read that is
+ * validated against the lock's version stamp afterwards; only if a write
+ * happened in the meantime is the read repeated under the shared read lock.
+ * Readers therefore never block each other.
  */
 class SimpleNetwork {
 	
@@ -61,7 +70,13 @@ class SimpleNetwork {
 	
 	private NodePointer firstNode;
 	
-	private Object lock = new Object();
+	// Incremented by every topology change, so cached snapshots can be validated lazily.
+	private int topologyVersion;
+	private volatile TopologySnapshot snapshot;
+	
+	// Not reentrant! Never call a locking method while holding the lock,
+	// use the unguarded *Unlocked variants instead.
+	private final StampedLock lock = new StampedLock();
 
 	SimpleNetwork(final long suid) {
 		this.suid = suid; 
@@ -77,39 +92,51 @@ class SimpleNetwork {
 	}
 
 	public int getNodeCount() {
-		synchronized (lock) {
-			return nodeCount;
+		long stamp = lock.tryOptimisticRead();
+		int count = nodeCount;
+		
+		if (!lock.validate(stamp)) {
+			stamp = lock.readLock();
+			try {
+				count = nodeCount;
+			} finally {
+				lock.unlockRead(stamp);
+			}
 		}
+		
+		return count;
 	}
 
 	public int getEdgeCount() {
-		synchronized (lock) {
-			return edgeCount;
+		long stamp = lock.tryOptimisticRead();
+		int count = edgeCount;
+		
+		if (!lock.validate(stamp)) {
+			stamp = lock.readLock();
+			try {
+				count = edgeCount;
+			} finally {
+				lock.unlockRead(stamp);
+			}
 		}
+		
+		return count;
 	}
 
 	public CyEdge getEdge(final long e) {
-		synchronized (lock) {
-			final EdgePointer ep = (EdgePointer) edgePointers.get(e);
-			if (ep != null)
-				return ep.cyEdge;
-			else
-				return null;
-		}
+		final EdgePointer ep = read(() -> (EdgePointer) edgePointers.get(e));
+		
+		return ep != null ? ep.cyEdge : null;
 	}
 
 	public CyNode getNode(final long n) {
-		synchronized (lock) {
-			final NodePointer np = (NodePointer) nodePointers.get(n);
-			if (np != null)
-				return np.cyNode;
-			else
-				return null;
-		}
+		final NodePointer np = read(() -> (NodePointer) nodePointers.get(n));
+		
+		return np != null ? np.cyNode : null;
 	}
 
 	public List<CyNode> getNodeList() {
-		synchronized (lock) {
+		return read(() -> {
 			final List<CyNode> ret = new ArrayList<>(nodeCount);
 			int numRemaining = nodeCount;
 			NodePointer node = firstNode;
@@ -124,11 +151,11 @@ class SimpleNetwork {
 			}
 	
 			return ret;
-		}
+		});
 	}
 
 	public List<CyEdge> getEdgeList() {
-		synchronized (lock) {
+		return read(() -> {
 			final List<CyEdge> ret = new ArrayList<>(edgeCount);
 			EdgePointer edge = null;
 	
@@ -155,52 +182,59 @@ class SimpleNetwork {
 			}
 	
 			return ret;
-		}
+		});
 	}
 
 	public List<CyNode> getNeighborList(final CyNode n, final CyEdge.Type e) {
-		synchronized (lock) {
-			if (!containsNode(n)) 
-				return Collections.emptyList(); 
+		return read(() -> {
+			final NodePointer np = getNodePointerUnlocked(n);
+			
+			if (np == null) 
+				return Collections.<CyNode>emptyList(); 
 	
-			final NodePointer np = getNodePointer(n);
 			final List<CyNode> ret = new ArrayList<>(countEdges(np, e));
 			final Iterator<EdgePointer> it = edgesAdjacent(np, e);
 			while (it.hasNext()) {
 				final EdgePointer edge = it.next();
-				final long neighborIndex = np.index ^ edge.source.index ^ edge.target.index;
-				ret.add(getNode(neighborIndex));
+				final NodePointer neighbor = edge.source == np ? edge.target : edge.source;
+				ret.add(neighbor.cyNode);
 			}
 	
 			return ret;
-		}
+		});
 	}
 
 	public List<CyEdge> getAdjacentEdgeList(final CyNode n, final CyEdge.Type e) {
-		synchronized (lock) {
-			if (!containsNode(n)) 
-				return Collections.emptyList(); 
-	
-			final NodePointer np = getNodePointer(n);
-			final List<CyEdge> ret = new ArrayList<>(countEdges(np, e));
-			final Iterator<EdgePointer> it = edgesAdjacent(np, e);
-	
-			while (it.hasNext()) {
-				ret.add(it.next().cyEdge);
-			}
-	
-			return ret;
+		return read(() -> getAdjacentEdgeListUnlocked(n, e));
+	}
+
+	private List<CyEdge> getAdjacentEdgeListUnlocked(final CyNode n, final CyEdge.Type e) {
+		final NodePointer np = getNodePointerUnlocked(n);
+		
+		if (np == null) 
+			return Collections.emptyList(); 
+
+		final List<CyEdge> ret = new ArrayList<>(countEdges(np, e));
+		final Iterator<EdgePointer> it = edgesAdjacent(np, e);
+
+		while (it.hasNext()) {
+			ret.add(it.next().cyEdge);
 		}
+
+		return ret;
 	}
 
 	public Iterable<CyEdge> getAdjacentEdgeIterable(final CyNode n, final CyEdge.Type e) {
-		synchronized (lock) {
-			if (!containsNode(n)) 
-				return Collections.emptyList();
+		// The returned iterable is consumed outside of the lock, as it always was, so
+		// it only follows the edge pointers and never touches the shared hash maps.
+		return read(() -> {
+			final NodePointer np = getNodePointerUnlocked(n);
+			
+			if (np == null) 
+				return Collections.<CyEdge>emptyList();
 	
-			final NodePointer np = getNodePointer(n);
 			return new IterableEdgeIterator( edgesAdjacent(np, e) ); 
-		}
+		});
 	}
 
 	private class IterableEdgeIterator implements Iterator<CyEdge>, Iterable<CyEdge> {
@@ -233,15 +267,12 @@ class SimpleNetwork {
 	}
 
 	public List<CyEdge> getConnectingEdgeList(final CyNode src, final CyNode trg, final CyEdge.Type e) {
-		synchronized (lock) {
-			if (!containsNode(src)) 
-				return Collections.emptyList(); 
-	
-			if (!containsNode(trg)) 
-				return Collections.emptyList(); 
-	
-			final NodePointer srcP = getNodePointer(src);
-			final NodePointer trgP = getNodePointer(trg);
+		return read(() -> {
+			final NodePointer srcP = getNodePointerUnlocked(src);
+			final NodePointer trgP = getNodePointerUnlocked(trg);
+			
+			if (srcP == null || trgP == null) 
+				return Collections.<CyEdge>emptyList(); 
 	
 			final List<CyEdge> ret = new ArrayList<>(Math.min(countEdges(srcP, e), countEdges(trgP, e)));
 			final Iterator<EdgePointer> it = edgesConnecting(srcP, trgP, e);
@@ -250,22 +281,29 @@ class SimpleNetwork {
 				ret.add(it.next().cyEdge);
 	
 			return ret;
-		}
+		});
 	}
 
 	/**
-	 * IMPORTANT: this is not protected by synchronized 
-	 * because caller always uses lock.
+	 * Callers usually hold their own lock to make the creation of the
+	 * CyNode and its insertion atomic; the topology itself is guarded here.
 	 */
 	CyNode addNodeInternal(final CyNode node) {
-		// node already exists in this network
-		if (containsNode(node))
-			return node;
-
-		final NodePointer n = new NodePointer(node);
-		nodePointers.put(node.getSUID(), n);
-		nodeCount++;
-		firstNode = n.insert(firstNode);
+		final long stamp = lock.writeLock();
+		
+		try {
+			// node already exists in this network
+			if (containsNodeUnlocked(node))
+				return node;
+	
+			final NodePointer n = new NodePointer(node);
+			nodePointers.put(node.getSUID(), n);
+			nodeCount++;
+			firstNode = n.insert(firstNode);
+			topologyVersion++;
+		} finally {
+			lock.unlockWrite(stamp);
+		}
 
 		return node;
 	}
@@ -275,21 +313,26 @@ class SimpleNetwork {
 			return false;
 
 		boolean madeChanges = false;
-		synchronized (lock) {
+		final long stamp = lock.writeLock();
+		
+		try {
 			for ( CyNode n : nodes ) {
-				if (!containsNode(n)) 
+				if (!containsNodeUnlocked(n)) 
 					continue;
 
 				// remove adjacent edges from network
-				removeEdgesInternal(getAdjacentEdgeList(n, CyEdge.Type.ANY));
+				removeEdgesUnlocked(getAdjacentEdgeListUnlocked(n, CyEdge.Type.ANY));
 	
 				final NodePointer node = (NodePointer)nodePointers.get(n.getSUID());
 				nodePointers.removeKey(n.getSUID());
 				firstNode = node.remove(firstNode);
 	
 				nodeCount--;
+				topologyVersion++;
 				madeChanges = true;
 			}
+		} finally {
+			lock.unlockWrite(stamp);
 		}
 
 		return madeChanges;
@@ -298,28 +341,32 @@ class SimpleNetwork {
 	protected CyEdge addEdgeInternal(final CyNode s, final CyNode t, final boolean directed, final CyEdge edge) {
 
 		final EdgePointer e;
+		final long stamp = lock.writeLock();
 
-		synchronized (lock) {
+		try {
 			// here we check with possible sub node, not just root node
-			if (!containsNode(s))
+			if (!containsNodeUnlocked(s))
 				throw new IllegalArgumentException("source node is not a member of this network");
 
 			// here we check with possible sub node, not just root node
-			if (!containsNode(t))
+			if (!containsNodeUnlocked(t))
 				throw new IllegalArgumentException("target node is not a member of this network");
 
 			// edge already exists in this network
-			if ( containsEdge(edge) )
+			if ( containsEdgeUnlocked(edge) )
 				return edge;
 
-			final NodePointer source = getNodePointer(s);
-			final NodePointer target = getNodePointer(t);
+			final NodePointer source = getNodePointerUnlocked(s);
+			final NodePointer target = getNodePointerUnlocked(t);
 
 			e = new EdgePointer(source, target, directed, edge); 
 
 			edgePointers.put(edge.getSUID(),e);
 
 			edgeCount++;
+			topologyVersion++;
+		} finally {
+			lock.unlockWrite(stamp);
 		}
 
 		return edge; 
@@ -329,20 +376,33 @@ class SimpleNetwork {
 		if (edges == null || edges.isEmpty())
 			return false;
 
+		final long stamp = lock.writeLock();
+		
+		try {
+			return removeEdgesUnlocked(edges);
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * IMPORTANT: caller must hold the write lock.
+	 */
+	private boolean removeEdgesUnlocked(final Collection<CyEdge> edges) {
 		boolean madeChanges = false;
-		synchronized (lock) {
-			for (CyEdge edge : edges) {
-				if (!containsEdge(edge))
-					continue;
-	
-				final EdgePointer e = (EdgePointer)edgePointers.get(edge.getSUID());
-				edgePointers.removeKey(edge.getSUID());
-	
-				e.remove();
-	
-				edgeCount--;
-				madeChanges = true;
-			}
+		
+		for (CyEdge edge : edges) {
+			if (!containsEdgeUnlocked(edge))
+				continue;
+
+			final EdgePointer e = (EdgePointer)edgePointers.get(edge.getSUID());
+			edgePointers.removeKey(edge.getSUID());
+
+			e.remove();
+
+			edgeCount--;
+			topologyVersion++;
+			madeChanges = true;
 		}
 
 		return madeChanges;
@@ -352,11 +412,7 @@ class SimpleNetwork {
 		if (node == null)
 			return false;
 
-		final NodePointer thisNode; 
-
-		synchronized (lock) {
-			thisNode = (NodePointer)nodePointers.get(node.getSUID());
-		}
+		final NodePointer thisNode = read(() -> (NodePointer)nodePointers.get(node.getSUID()));
 
 		if (thisNode == null)
 			return false;
@@ -368,11 +424,7 @@ class SimpleNetwork {
 		if (edge == null)
 			return false;
 
-		final EdgePointer thisEdge; 
-
-		synchronized (lock) {
-			thisEdge = (EdgePointer)edgePointers.get(edge.getSUID());
-		}
+		final EdgePointer thisEdge = read(() -> (EdgePointer)edgePointers.get(edge.getSUID()));
 
 		if (thisEdge == null)
 			return false;
@@ -381,19 +433,89 @@ class SimpleNetwork {
 	}
 
 	public boolean containsEdge(final CyNode n1, final CyNode n2) {
-		synchronized (lock) {
-			if (!containsNode(n1))
-				return false;
-	
-			if (!containsNode(n2))
+		return read(() -> {
+			final NodePointer np1 = getNodePointerUnlocked(n1);
+			final NodePointer np2 = getNodePointerUnlocked(n2);
+			
+			if (np1 == null || np2 == null)
 				return false;
 	
-			final Iterator<EdgePointer> it = edgesConnecting(getNodePointer(n1), getNodePointer(n2), CyEdge.Type.ANY);
-	
-			return it.hasNext();
+			return edgesConnecting(np1, np2, CyEdge.Type.ANY).hasNext();
+		});
+	}
+
+	/**
+	 * Returns an immutable CSR snapshot of the current topology. The snapshot is
+	 * cached and only rebuilt, on the next call, after the topology has changed.
+	 */
+	public TopologySnapshot getTopologySnapshot() {
+		final long stamp = lock.readLock();
+		
+		try {
+			TopologySnapshot ret = snapshot;
+			
+			if (ret == null || ret.version != topologyVersion) {
+				// Concurrent readers may both get here and build equal snapshots,
+				// which is harmless; writers are excluded by the read lock.
+				ret = new TopologySnapshot(firstNode, nodeCount, edgeCount, topologyVersion);
+				snapshot = ret;
+			}
+			
+			return ret;
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	/**
+	 * Runs the given read-only operation without taking a lock and validates the
+	 * version stamp afterwards. If a writer got in the way (the validation fails,
+	 * or the operation tripped over a half-updated structure) the operation is
+	 * repeated while holding the shared read lock.
+	 */
+	private <T> T read(final Supplier<T> op) {
+		final long optimisticStamp = lock.tryOptimisticRead();
+		
+		if (optimisticStamp != 0L) {
+			try {
+				final T ret = op.get();
+				
+				if (lock.validate(optimisticStamp))
+					return ret;
+			} catch (RuntimeException e) {
+				// Inconsistent snapshot caused by a concurrent write; retry below.
+				if (lock.validate(optimisticStamp))
+					throw e;
+			}
+		}
+		
+		final long stamp = lock.readLock();
+		
+		try {
+			return op.get();
+		} finally {
+			lock.unlockRead(stamp);
 		}
 	}
 
+	private boolean containsNodeUnlocked(final CyNode node) {
+		if (node == null)
+			return false;
+		
+		final NodePointer thisNode = (NodePointer)nodePointers.get(node.getSUID());
+		
+		return thisNode != null && thisNode.cyNode.equals(node);
+	}
+
+	private boolean containsEdgeUnlocked(final CyEdge edge) {
+		if (edge == null)
+			return false;
+		
+		final EdgePointer thisEdge = (EdgePointer)edgePointers.get(edge.getSUID());
+		
+		return thisEdge != null && thisEdge.cyEdge.equals(edge);
+	}
+
 	private Iterator<EdgePointer> edgesAdjacent(final NodePointer n, final CyEdge.Type edgeType) {
 		assert (n != null);
 
@@ -433,7 +555,7 @@ class SimpleNetwork {
 					while (edge == null)
 						edge = edgeLists[++edgeListIndex];
 
-					long returnIndex = -1;
+					EdgePointer ret = null;
 
 					// look at outgoing edges
 					if (edgeListIndex == 0) {
@@ -458,7 +580,7 @@ class SimpleNetwork {
 						// since edgeListIndex is still for outgoing we'll
 						// just directly to the return
 						if ((edge != null) && (edgeListIndex == 0)) {
-							returnIndex = edge.index;
+							ret = edge;
 							edge = edge.nextOutEdge;
 						}
 					}
@@ -486,12 +608,12 @@ class SimpleNetwork {
 							edge = edge.nextInEdge;
 						}
 
-						returnIndex = edge.index;
+						ret = edge;
 						edge = edge.nextInEdge;
 					}
 
 					numRemaining--;
-					return (EdgePointer)edgePointers.get(returnIndex);
+					return ret;
 				}
 			};
 	}
@@ -517,24 +639,27 @@ class SimpleNetwork {
 		}
 
 		return new Iterator<EdgePointer>() {
-				private long nextIndex = -1;
+				private EdgePointer nextEdge;
+				private boolean computed;
 
 				private void ensureComputeNext() {
-					if (nextIndex != -1) {
+					if (computed) {
 						return;
 					}
 
+					computed = true;
+
 					while (theAdj.hasNext()) {
 						final EdgePointer e = theAdj.next();
 
 						if (nodeOne == (nodeZero ^ e.source.index ^ e.target.index)) {
-							nextIndex = e.index;
+							nextEdge = e;
 
 							return;
 						}
 					}
 
-					nextIndex = -2;
+					nextEdge = null;
 				}
 
 				@Override
@@ -546,17 +671,17 @@ class SimpleNetwork {
 				public boolean hasNext() {
 					ensureComputeNext();
 
-					return (nextIndex >= 0);
+					return nextEdge != null;
 				}
 
 				@Override
 				public EdgePointer next() {
 					ensureComputeNext();
 
-					final long returnIndex = nextIndex;
-					nextIndex = -1;
+					final EdgePointer ret = nextEdge;
+					computed = false;
 
-					return (EdgePointer)edgePointers.get(returnIndex);
+					return ret;
 				}
 			};
 	}
@@ -594,9 +719,17 @@ class SimpleNetwork {
 		return count;
 	}
 
-	private NodePointer getNodePointer(final CyNode node) {
-		assert(node != null);
-		return (NodePointer)nodePointers.get(node.getSUID());
+	/**
+	 * Returns null if the node is not a member of this network.
+	 * IMPORTANT: caller must hold the lock or be inside {@link #read(Supplier)}.
+	 */
+	private NodePointer getNodePointerUnlocked(final CyNode node) {
+		if (node == null)
+			return null;
+		
+		final NodePointer np = (NodePointer)nodePointers.get(node.getSUID());
+		
+		return np != null && np.cyNode.equals(node) ? np : null;
 	}
 
 	@Override
@@ -0,0 +1,200 @@
+package org.cytoscape.model.internal;
+
+/*
+ * #%L
+ * Cytoscape Model Impl (model-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+
+import java.util.Arrays;
+
+
+/**
+ * An immutable, compressed-sparse-row (CSR) view of a network's topology.
+ * <p>
+ * Nodes and edges are addressed by dense int indices, assigned in ascending SUID
+ * order. For node index <code>i</code> its adjacent edges (in any direction) are
+ * found at positions <code>offsets[i] .. offsets[i+1]-1</code> of the
+ * <code>targets</code> (neighbour node index) and <code>edgeIds</code> (edge
+ * index) arrays. Self-loops are listed once. Iterating neighbours therefore
+ * needs no allocation and no pointer chasing.
+ * <p>
+ * Snapshots are created by {@link SimpleNetwork#getTopologySnapshot()}, which
+ * caches them until the next topology change.
+ */
+public final class TopologySnapshot {
+
+	private final long[] nodeSuids;
+	private final long[] edgeSuids;
+	private final int[] offsets;
+	private final int[] targets;
+	private final int[] edgeIds;
+	private final int[] edgeSources;
+	private final int[] edgeTargets;
+	private final boolean[] edgeDirected;
+	
+	// The topology version of the network this snapshot was taken from.
+	final int version;
+
+	/**
+	 * IMPORTANT: the caller must hold the network's read lock.
+	 */
+	TopologySnapshot(final NodePointer firstNode, final int nodeCount, final int edgeCount, final int version) {
+		this.version = version;
+		nodeSuids = new long[nodeCount];
+		edgeSuids = new long[edgeCount];
+
+		int n = 0;
+		int e = 0;
+		for (NodePointer np = firstNode; np != null && n < nodeCount; np = np.nextNode) {
+			nodeSuids[n++] = np.index;
+			
+			// Every edge is in exactly one out-list, so this visits each edge once.
+			for (EdgePointer ep = np.firstOutEdge; ep != null; ep = ep.nextOutEdge)
+				edgeSuids[e++] = ep.index;
+		}
+		Arrays.sort(nodeSuids);
+		Arrays.sort(edgeSuids);
+
+		edgeSources = new int[edgeCount];
+		edgeTargets = new int[edgeCount];
+		edgeDirected = new boolean[edgeCount];
+		offsets = new int[nodeCount + 1];
+
+		// First pass: endpoints and degrees.
+		for (NodePointer np = firstNode; np != null; np = np.nextNode) {
+			for (EdgePointer ep = np.firstOutEdge; ep != null; ep = ep.nextOutEdge) {
+				final int idx = Arrays.binarySearch(edgeSuids, ep.index);
+				final int src = Arrays.binarySearch(nodeSuids, ep.source.index);
+				final int trg = Arrays.binarySearch(nodeSuids, ep.target.index);
+				edgeSources[idx] = src;
+				edgeTargets[idx] = trg;
+				edgeDirected[idx] = ep.directed;
+				offsets[src + 1]++;
+				
+				if (src != trg)
+					offsets[trg + 1]++;
+			}
+		}
+		
+		for (int i = 0; i < nodeCount; i++)
+			offsets[i + 1] += offsets[i];
+
+		// Second pass: fill the adjacency arrays in edge index order.
+		final int size = offsets[nodeCount];
+		targets = new int[size];
+		edgeIds = new int[size];
+		final int[] fill = Arrays.copyOf(offsets, nodeCount);
+		
+		for (int idx = 0; idx < edgeCount; idx++) {
+			final int src = edgeSources[idx];
+			final int trg = edgeTargets[idx];
+			
+			targets[fill[src]] = trg;
+			edgeIds[fill[src]++] = idx;
+			
+			if (src != trg) {
+				targets[fill[trg]] = src;
+				edgeIds[fill[trg]++] = idx;
+			}
+		}
+	}
+
+	public int getNodeCount() {
+		return nodeSuids.length;
+	}
+
+	public int getEdgeCount() {
+		return edgeSuids.length;
+	}
+
+	/**
+	 * @return the node index for the given SUID, or -1 if the node is not part of this snapshot.
+	 */
+	public int getNodeIndex(final long suid) {
+		final int idx = Arrays.binarySearch(nodeSuids, suid);
+		return idx >= 0 ? idx : -1;
+	}
+
+	/**
+	 * @return the edge index for the given SUID, or -1 if the edge is not part of this snapshot.
+	 */
+	public int getEdgeIndex(final long suid) {
+		final int idx = Arrays.binarySearch(edgeSuids, suid);
+		return idx >= 0 ? idx : -1;
+	}
+
+	public long getNodeSUID(final int nodeIndex) {
+		return nodeSuids[nodeIndex];
+	}
+
+	public long getEdgeSUID(final int edgeIndex) {
+		return edgeSuids[edgeIndex];
+	}
+
+	public int getEdgeSource(final int edgeIndex) {
+		return edgeSources[edgeIndex];
+	}
+
+	public int getEdgeTarget(final int edgeIndex) {
+		return edgeTargets[edgeIndex];
+	}
+
+	public boolean isEdgeDirected(final int edgeIndex) {
+		return edgeDirected[edgeIndex];
+	}
+
+	public int getDegree(final int nodeIndex) {
+		return offsets[nodeIndex + 1] - offsets[nodeIndex];
+	}
+
+	/**
+	 * The returned arrays are shared and must not be modified.
+	 */
+	public int[] getOffsets() {
+		return offsets;
+	}
+
+	/**
+	 * The returned arrays are shared and must not be modified.
+	 */
+	public int[] getTargets() {
+		return targets;
+	}
+
+	/**
+	 * The returned arrays are shared and must not be modified.
+	 */
+	public int[] getEdgeIds() {
+		return edgeIds;
+	}
+
+	/**
+	 * @return an estimate of the heap used by this snapshot, in bytes.
+	 */
+	public long getEstimatedSize() {
+		return 8L * (nodeSuids.length + edgeSuids.length)
+		     + 4L * (offsets.length + targets.length + edgeIds.length + edgeSources.length + edgeTargets.length)
+		     + edgeDirected.length;
+	}
+}
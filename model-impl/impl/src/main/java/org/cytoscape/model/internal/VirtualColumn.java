@@ -108,7 +108,10 @@ final class VirtualColumn implements VirtualColumnInfo {
 	}
 
 	Collection<CyRow> getMatchingRows(final Object value) {
-		final Collection<CyRow> sourceRows = sourceTable.getMatchingRows(sourceColumn.getName(), value);
+		return mapFromSourceRows(sourceTable.getMatchingRows(sourceColumn.getName(), value));
+	}
+
+	Collection<CyRow> mapFromSourceRows(final Collection<CyRow> sourceRows) {
 		final Set<CyRow> targetRows = new HashSet<CyRow>();
 		for (final CyRow sourceRow : sourceRows) {
 			final Object targetValue = sourceRow.get(sourceJoinColumn.getName(), sourceJoinColumn.getType());
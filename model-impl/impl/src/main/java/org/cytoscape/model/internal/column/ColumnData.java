@@ -0,0 +1,321 @@
+package org.cytoscape.model.internal.column;
+
+/*
+ * #%L
+ * Cytoscape Model Impl (model-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2010 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+
+/**
+ * Columnar storage for the values of a single table column, addressed by the
+ * dense row index handed out by {@link RowIndex}.
+ * <p>
+ * Subclasses store values of their column type in primitive arrays. Values
+ * that do not fit the primitive representation (i.e. equations) are kept out of
+ * line in a sparse map, so they do not cost anything for ordinary columns.
+ * <p>
+ * Not thread-safe, callers must synchronize.
+ */
+public abstract class ColumnData {
+
+	private static final int MIN_CAPACITY = 16;
+
+	// Rows that have a value (primitive or out of line).
+	protected final BitSet present = new BitSet();
+
+	// Out of line values, e.g. Equations; null until first needed.
+	private Map<Integer, Object> outOfLine;
+
+	// Optional secondary index, see createIndex().
+	private ColumnIndex index;
+
+	public static ColumnData create(final Class<?> type, final int initialCapacity) {
+		final int capacity = Math.max(MIN_CAPACITY, initialCapacity);
+		
+		if (type == Double.class)
+			return new DoubleColumnData(capacity);
+		if (type == Integer.class)
+			return new IntColumnData(capacity);
+		if (type == Long.class)
+			return new LongColumnData(capacity);
+		if (type == Boolean.class)
+			return new BooleanColumnData();
+		if (type == String.class)
+			return new StringColumnData(capacity);
+		
+		// List columns and anything else.
+		return new ObjectColumnData(capacity);
+	}
+
+	/**
+	 * @return the value stored for the row, or null if none is set.
+	 */
+	public final Object get(final int row) {
+		if (row < 0 || !present.get(row))
+			return null;
+		
+		if (outOfLine != null) {
+			final Object value = outOfLine.get(row);
+			if (value != null)
+				return value;
+		}
+		
+		return getValue(row);
+	}
+
+	/**
+	 * Stores a non-null value. The value must already have been type checked by the caller.
+	 */
+	public final void set(final int row, final Object value) {
+		ensureCapacity(row + 1);
+		
+		if (present.get(row)) {
+			if (index != null)
+				index.remove(get(row), row);
+			
+			clearValue(row);
+		}
+		
+		if (accepts(value)) {
+			if (outOfLine != null)
+				outOfLine.remove(row);
+			
+			setValue(row, value);
+		} else {
+			if (outOfLine == null)
+				outOfLine = new HashMap<>();
+			
+			outOfLine.put(row, value);
+		}
+		
+		present.set(row);
+		
+		if (index != null)
+			index.add(value, row, present.length());
+	}
+
+	/**
+	 * @return true if the row had a value.
+	 */
+	public final boolean unset(final int row) {
+		if (row < 0 || !present.get(row))
+			return false;
+		
+		if (index != null)
+			index.remove(get(row), row);
+		
+		present.clear(row);
+		clearValue(row);
+		
+		if (outOfLine != null)
+			outOfLine.remove(row);
+		
+		return true;
+	}
+
+	public final boolean isSet(final int row) {
+		return row >= 0 && present.get(row);
+	}
+
+	/**
+	 * @return the first row at or after <code>fromRow</code> that has a value, or -1.
+	 */
+	public final int nextSetRow(final int fromRow) {
+		return present.nextSetBit(fromRow);
+	}
+
+	/**
+	 * @return the first row at or after <code>fromRow</code> whose value equals the given one, or -1.
+	 */
+	public final int nextMatch(final Object value, final int fromRow) {
+		for (int row = present.nextSetBit(fromRow); row >= 0; row = present.nextSetBit(row + 1)) {
+			if (matches(row, value))
+				return row;
+		}
+		
+		return -1;
+	}
+
+	public final int countMatches(final Object value) {
+		if (index != null)
+			return index.count(value);
+		
+		int count = 0;
+		
+		for (int row = present.nextSetBit(0); row >= 0; row = present.nextSetBit(row + 1)) {
+			if (matches(row, value))
+				count++;
+		}
+		
+		return count;
+	}
+
+	/**
+	 * @return the rows whose value equals the given one, in ascending order.
+	 */
+	public final int[] findMatches(final Object value) {
+		if (index != null)
+			return index.get(value);
+		
+		int[] rows = new int[16];
+		int count = 0;
+		
+		for (int row = nextMatch(value, 0); row >= 0; row = nextMatch(value, row + 1)) {
+			if (count == rows.length)
+				rows = Arrays.copyOf(rows, count * 2);
+			rows[count++] = row;
+		}
+		
+		return Arrays.copyOf(rows, count);
+	}
+
+	/**
+	 * Finds the rows whose value lies between the given bounds; a null bound means
+	 * unbounded. Only values of the column type are considered, not equations.
+	 * The bounds must be of the column type, which must be Comparable.
+	 * @return the matching rows, in ascending order.
+	 */
+	@SuppressWarnings("unchecked")
+	public final int[] findRange(final Object from, final boolean fromInclusive,
+	                             final Object to, final boolean toInclusive) {
+		if (index != null && index.isSorted())
+			return index.range(from, fromInclusive, to, toInclusive);
+		
+		int[] rows = new int[16];
+		int count = 0;
+		
+		for (int row = present.nextSetBit(0); row >= 0; row = present.nextSetBit(row + 1)) {
+			if (isOutOfLine(row))
+				continue;
+			
+			final Comparable<Object> value = (Comparable<Object>) getValue(row);
+			if (from != null) {
+				final int cmp = value.compareTo(from);
+				if (cmp < 0 || (cmp == 0 && !fromInclusive))
+					continue;
+			}
+			if (to != null) {
+				final int cmp = value.compareTo(to);
+				if (cmp > 0 || (cmp == 0 && !toInclusive))
+					continue;
+			}
+			
+			if (count == rows.length)
+				rows = Arrays.copyOf(rows, count * 2);
+			rows[count++] = row;
+		}
+		
+		return Arrays.copyOf(rows, count);
+	}
+
+	/**
+	 * Builds a secondary index over the current values, which is then kept up to
+	 * date by {@link #set(int, Object)} and {@link #unset(int)}. Numeric columns get
+	 * a sorted index that also serves {@link #findRange}.
+	 */
+	public final void createIndex() {
+		if (index != null)
+			return;
+		
+		index = new ColumnIndex(getSortedIndexType());
+		final int limit = present.length();
+		
+		for (int row = present.nextSetBit(0); row >= 0; row = present.nextSetBit(row + 1))
+			index.add(get(row), row, limit);
+	}
+
+	public final void dropIndex() {
+		index = null;
+	}
+
+	public final boolean isIndexed() {
+		return index != null;
+	}
+
+	/**
+	 * @return true if range lookups are answered by the index rather than a scan.
+	 */
+	public final boolean isRangeIndexed() {
+		return index != null && index.isSorted();
+	}
+
+	/**
+	 * @return the number of rows that have a value.
+	 */
+	public final int size() {
+		return present.cardinality();
+	}
+
+	/**
+	 * @return a rough estimate of the heap used by this column, in bytes.
+	 */
+	public long getEstimatedSize() {
+		return present.size() / 8 + (outOfLine == null ? 0 : 48L * outOfLine.size())
+				+ (index == null ? 0 : index.getEstimatedSize());
+	}
+
+	protected final boolean isOutOfLine(final int row) {
+		return outOfLine != null && outOfLine.containsKey(row);
+	}
+
+	/**
+	 * Compares the stored value against the given one, following the semantics of
+	 * <code>get(row).equals(value)</code>. Subclasses override this to avoid boxing.
+	 */
+	protected boolean matches(final int row, final Object value) {
+		return get(row).equals(value);
+	}
+
+	/**
+	 * @return the value type for a sorted index, or null if this column only gets a hash index.
+	 */
+	protected Class<?> getSortedIndexType() {
+		return null;
+	}
+
+	/**
+	 * @return true if the value can be stored in the primitive representation.
+	 */
+	protected abstract boolean accepts(Object value);
+
+	protected abstract Object getValue(int row);
+
+	protected abstract void setValue(int row, Object value);
+
+	/**
+	 * Releases whatever the row holds in the primitive representation.
+	 */
+	protected abstract void clearValue(int row);
+
+	protected abstract void ensureCapacity(int capacity);
+
+	protected static int grow(final int current, final int required) {
+		return Math.max(required, current + (current >> 1));
+	}
+}
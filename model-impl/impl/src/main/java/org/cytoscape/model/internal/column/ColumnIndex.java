@@ -0,0 +1,232 @@
+package org.cytoscape.model.internal.column;
+
+/*
+ * #%L
+ * Cytoscape Model Impl (model-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2010 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+
+/**
+ * Secondary index of a {@link ColumnData}: maps each distinct value to the rows
+ * that hold it. Numeric columns get a sorted index, which also answers range
+ * queries; all other columns get a hash index.
+ * <p>
+ * Not thread-safe, callers must synchronize.
+ */
+final class ColumnIndex {
+
+	private static final int[] NO_ROWS = new int[0];
+
+	// The type kept in the sorted map, or null for a hash index.
+	private final Class<?> sortedType;
+	private final Map<Object, Rows> values;
+	// For sorted indexes: values that are not of the sorted type, e.g. equations.
+	private Map<Object, Rows> others;
+
+	ColumnIndex(final Class<?> sortedType) {
+		this.sortedType = sortedType;
+		this.values = sortedType != null ? new TreeMap<Object, Rows>() : new HashMap<Object, Rows>();
+	}
+
+	boolean isSorted() {
+		return sortedType != null;
+	}
+
+	void add(final Object value, final int row, final int limit) {
+		final Map<Object, Rows> map = mapFor(value, true);
+		Rows rows = map.get(value);
+		
+		if (rows == null) {
+			rows = new Rows();
+			map.put(value, rows);
+		}
+		
+		rows.add(row, limit);
+	}
+
+	void remove(final Object value, final int row) {
+		final Map<Object, Rows> map = mapFor(value, false);
+		final Rows rows = map == null ? null : map.get(value);
+		
+		if (rows != null && rows.remove(row) && rows.size == 0)
+			map.remove(value);
+	}
+
+	int count(final Object value) {
+		final Map<Object, Rows> map = mapFor(value, false);
+		final Rows rows = map == null ? null : map.get(value);
+		
+		return rows == null ? 0 : rows.size;
+	}
+
+	/**
+	 * @return the rows holding the value, in ascending order.
+	 */
+	int[] get(final Object value) {
+		final Map<Object, Rows> map = mapFor(value, false);
+		final Rows rows = map == null ? null : map.get(value);
+		
+		if (rows == null)
+			return NO_ROWS;
+		
+		final int[] result = new int[rows.size];
+		rows.copyTo(result, 0);
+		Arrays.sort(result);
+		
+		return result;
+	}
+
+	/**
+	 * @return the rows whose value lies between the bounds, in ascending order;
+	 *         a null bound means unbounded.
+	 */
+	@SuppressWarnings("unchecked")
+	int[] range(final Object from, final boolean fromInclusive, final Object to, final boolean toInclusive) {
+		NavigableMap<Object, Rows> map = (NavigableMap<Object, Rows>) values;
+		
+		if (from != null && to != null && ((Comparable<Object>) from).compareTo(to) > 0)
+			return NO_ROWS;
+		if (from != null)
+			map = map.tailMap(from, fromInclusive);
+		if (to != null)
+			map = map.headMap(to, toInclusive);
+		
+		int size = 0;
+		for (final Rows rows : map.values())
+			size += rows.size;
+		
+		final int[] result = new int[size];
+		int offset = 0;
+		for (final Rows rows : map.values())
+			offset = rows.copyTo(result, offset);
+		Arrays.sort(result);
+		
+		return result;
+	}
+
+	long getEstimatedSize() {
+		long size = 0;
+		
+		for (final Rows rows : values.values())
+			size += 64 + rows.getEstimatedSize();
+		if (others != null)
+			for (final Rows rows : others.values())
+				size += 64 + rows.getEstimatedSize();
+		
+		return size;
+	}
+
+	private Map<Object, Rows> mapFor(final Object value, final boolean create) {
+		if (sortedType == null || sortedType.isInstance(value))
+			return values;
+		
+		if (others == null && create)
+			others = new HashMap<>();
+		
+		return others;
+	}
+
+	/**
+	 * The rows holding one value. Small sets are kept in an unordered int array,
+	 * which turns into a BitSet once that is the more compact representation, so
+	 * values shared by a large part of the table can still be removed in constant time.
+	 */
+	private static final class Rows {
+
+		private static final int MIN_BITSET_SIZE = 64;
+
+		private int[] array = new int[2];
+		private BitSet bits;
+		private int size;
+
+		void add(final int row, final int limit) {
+			if (bits != null) {
+				if (!bits.get(row)) {
+					bits.set(row);
+					size++;
+				}
+				return;
+			}
+			
+			if (size == array.length)
+				array = Arrays.copyOf(array, size * 2);
+			
+			array[size++] = row;
+			
+			// A BitSet takes limit/8 bytes, the array 4 bytes per row.
+			if (size >= MIN_BITSET_SIZE && size * 32L > limit) {
+				bits = new BitSet(limit);
+				for (int i = 0; i < size; i++)
+					bits.set(array[i]);
+				array = null;
+			}
+		}
+
+		/**
+		 * @return true if the row was in the set.
+		 */
+		boolean remove(final int row) {
+			if (bits != null) {
+				if (!bits.get(row))
+					return false;
+				
+				bits.clear(row);
+				size--;
+				return true;
+			}
+			
+			for (int i = 0; i < size; i++) {
+				if (array[i] == row) {
+					array[i] = array[--size];
+					return true;
+				}
+			}
+			
+			return false;
+		}
+
+		int copyTo(final int[] dest, int offset) {
+			if (bits != null) {
+				for (int row = bits.nextSetBit(0); row >= 0; row = bits.nextSetBit(row + 1))
+					dest[offset++] = row;
+			} else {
+				System.arraycopy(array, 0, dest, offset, size);
+				offset += size;
+			}
+			
+			return offset;
+		}
+
+		long getEstimatedSize() {
+			return bits != null ? bits.size() / 8 : 4L * array.length;
+		}
+	}
+}
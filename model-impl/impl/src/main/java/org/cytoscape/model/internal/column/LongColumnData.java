@@ -0,0 +1,83 @@
+package org.cytoscape.model.internal.column;
+
+/*
+ * #%L
+ * Cytoscape Model Impl (model-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2010 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+
+import java.util.Arrays;
+
+
+final class LongColumnData extends ColumnData {
+
+	private long[] values;
+
+	LongColumnData(final int capacity) {
+		values = new long[capacity];
+	}
+
+	@Override
+	protected boolean accepts(final Object value) {
+		return value instanceof Long;
+	}
+
+	@Override
+	protected Object getValue(final int row) {
+		return values[row];
+	}
+
+	@Override
+	protected void setValue(final int row, final Object value) {
+		values[row] = (Long) value;
+	}
+
+	@Override
+	protected void clearValue(final int row) {
+		values[row] = 0L;
+	}
+
+	@Override
+	protected boolean matches(final int row, final Object value) {
+		if (value instanceof Long && !isOutOfLine(row))
+			return values[row] == (Long) value;
+		
+		return super.matches(row, value);
+	}
+
+	@Override
+	protected Class<?> getSortedIndexType() {
+		return Long.class;
+	}
+
+	@Override
+	protected void ensureCapacity(final int capacity) {
+		if (capacity > values.length)
+			values = Arrays.copyOf(values, grow(values.length, capacity));
+	}
+
+	@Override
+	public long getEstimatedSize() {
+		return super.getEstimatedSize() + 8L * values.length;
+	}
+}
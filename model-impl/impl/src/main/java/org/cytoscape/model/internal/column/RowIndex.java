@@ -0,0 +1,85 @@
+package org.cytoscape.model.internal.column;
+
+/*
+ * #%L
+ * Cytoscape Model Impl (model-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2010 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+
+import java.util.Arrays;
+
+
+/**
+ * Hands out dense row indices for the columnar table storage and maps them back
+ * to the rows they were assigned to. Indices of deleted rows are recycled.
+ * <p>
+ * Not thread-safe, callers must synchronize.
+ */
+public final class RowIndex {
+
+	private Object[] rows;
+	private int limit;
+	private int[] free = new int[16];
+	private int freeCount;
+
+	public RowIndex(final int initialCapacity) {
+		rows = new Object[Math.max(16, initialCapacity)];
+	}
+
+	/**
+	 * @return a new index; the caller must {@link #set(int, Object)} its row.
+	 */
+	public int allocate() {
+		if (freeCount > 0)
+			return free[--freeCount];
+		
+		if (limit == rows.length)
+			rows = Arrays.copyOf(rows, rows.length + (rows.length >> 1));
+		
+		return limit++;
+	}
+
+	public void set(final int index, final Object row) {
+		rows[index] = row;
+	}
+
+	public Object get(final int index) {
+		return rows[index];
+	}
+
+	public void release(final int index) {
+		rows[index] = null;
+		
+		if (freeCount == free.length)
+			free = Arrays.copyOf(free, free.length * 2);
+		
+		free[freeCount++] = index;
+	}
+
+	/**
+	 * @return one past the highest index ever handed out.
+	 */
+	public int getLimit() {
+		return limit;
+	}
+}
@@ -0,0 +1,145 @@
+package org.cytoscape.model.internal.column;
+
+/*
+ * #%L
+ * Cytoscape Model Impl (model-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2010 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Dictionary encoded String storage: every row holds an int code into a table of
+ * distinct values. Codes are reference counted and recycled once unused, so the
+ * dictionary does not grow with every update of a high-cardinality column.
+ */
+final class StringColumnData extends ColumnData {
+
+	private int[] codes;
+
+	private final List<String> dictionary = new ArrayList<>();
+	private final Map<String, Integer> lookup = new HashMap<>();
+	private int[] refCounts = new int[16];
+	private int[] freeCodes = new int[16];
+	private int freeCount;
+
+	StringColumnData(final int capacity) {
+		codes = new int[capacity];
+	}
+
+	/**
+	 * @return the number of distinct values currently referenced.
+	 */
+	int getDictionarySize() {
+		return lookup.size();
+	}
+
+	@Override
+	protected boolean accepts(final Object value) {
+		return value instanceof String;
+	}
+
+	@Override
+	protected Object getValue(final int row) {
+		return dictionary.get(codes[row]);
+	}
+
+	@Override
+	protected void setValue(final int row, final Object value) {
+		codes[row] = intern((String) value);
+	}
+
+	@Override
+	protected void clearValue(final int row) {
+		if (isOutOfLine(row))
+			return;
+		
+		final int code = codes[row];
+		
+		if (--refCounts[code] == 0) {
+			lookup.remove(dictionary.get(code));
+			dictionary.set(code, null);
+			
+			if (freeCount == freeCodes.length)
+				freeCodes = Arrays.copyOf(freeCodes, freeCodes.length * 2);
+			
+			freeCodes[freeCount++] = code;
+		}
+	}
+
+	@Override
+	protected boolean matches(final int row, final Object value) {
+		if (value instanceof String && !isOutOfLine(row)) {
+			final Integer code = lookup.get(value);
+			return code != null && codes[row] == code.intValue();
+		}
+		
+		return super.matches(row, value);
+	}
+
+	@Override
+	protected void ensureCapacity(final int capacity) {
+		if (capacity > codes.length)
+			codes = Arrays.copyOf(codes, grow(codes.length, capacity));
+	}
+
+	@Override
+	public long getEstimatedSize() {
+		long strings = 0;
+		for (final String s : lookup.keySet())
+			strings += 40 + 2L * s.length();
+		
+		return super.getEstimatedSize() + 4L * codes.length + 4L * refCounts.length + 48L * lookup.size() + strings;
+	}
+
+	private int intern(final String value) {
+		final Integer existing = lookup.get(value);
+		
+		if (existing != null) {
+			refCounts[existing]++;
+			return existing;
+		}
+		
+		final int code;
+		if (freeCount > 0) {
+			code = freeCodes[--freeCount];
+			dictionary.set(code, value);
+		} else {
+			code = dictionary.size();
+			dictionary.add(value);
+			
+			if (code == refCounts.length)
+				refCounts = Arrays.copyOf(refCounts, refCounts.length * 2);
+		}
+		
+		refCounts[code] = 1;
+		lookup.put(value, code);
+		
+		return code;
+	}
+}
@@ -25,7 +25,10 @@ package org.cytoscape.model;
  */
 
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -40,6 +43,7 @@ import org.cytoscape.equations.internal.interpreter.InterpreterImpl;
 import org.cytoscape.event.CyEventHelper;
 import org.cytoscape.event.DummyCyEventHelper;
 import org.cytoscape.model.events.RowSetRecord;
+import org.cytoscape.model.events.RowsSetEvent;
 import org.cytoscape.model.events.TableAddedEvent;
 import org.cytoscape.model.internal.CyNetworkManagerImpl;
 import org.cytoscape.model.internal.CyNetworkTableManagerImpl;
@@ -324,4 +328,116 @@ public class CyTableTest extends AbstractCyTableTest {
 			}
 		}
 	}
+
+	@Test
+	public void testSetValues() {
+		table.createColumn("someInt", Integer.class, false);
+		table.getRow(1L).set("someInt", 5);
+		final Map<Long, Integer> values = new HashMap<Long, Integer>();
+		values.put(1L, null);
+		values.put(2L, 2);
+		values.put(3L, 3);
+		((CyTableImpl) table).setValues("someInt", values);
+
+		assertFalse(table.getRow(1L).isSet("someInt"));
+		assertEquals(Integer.valueOf(2), table.getRow(2L).get("someInt", Integer.class));
+		assertEquals(Integer.valueOf(3), table.getRow(3L).get("someInt", Integer.class));
+	}
+
+	@Test
+	public void testSetValuesFiresSingleRowsSetEvent() {
+		table.createColumn("someInt", Integer.class, false);
+		final Map<Long, Integer> values = new HashMap<Long, Integer>();
+		for (long i = 0; i < 10; i++)
+			values.put(i, (int) i);
+		((CyTableImpl) table).setValues("someInt", values);
+
+		int count = 0;
+		for (Object event : eventHelper.getAllLastEvents()) {
+			if (event instanceof RowsSetEvent) {
+				assertEquals(10, ((RowsSetEvent) event).getPayloadCollection().size());
+				count++;
+			}
+		}
+		assertEquals(1, count);
+	}
+
+	@Test
+	public void testSetValuesWithBadValueWritesNothing() {
+		table.createColumn("someInt", Integer.class, false);
+		final Map<Long, Object> values = new LinkedHashMap<Long, Object>();
+		values.put(1L, 1);
+		values.put(2L, "two");
+		try {
+			((CyTableImpl) table).setValues("someInt", values);
+			fail();
+		} catch (IllegalArgumentException e) {
+			/* Intentionally empty. */
+		}
+		assertFalse(table.rowExists(1L) && table.getRow(1L).isSet("someInt"));
+	}
+
+	@Test
+	public void testSetOnDeletedRowDoesNotRecreateIt() {
+		table.createColumn("someInt", Integer.class, false);
+		final CyRow row = table.getRow(1L);
+		table.deleteRows(Arrays.asList(1L));
+		row.set("someInt", 5);
+
+		assertFalse(table.rowExists(1L));
+	}
+
+	@Test
+	public void testSetValuesThroughVirtualColumn() {
+		table.createColumn("real", String.class, false);
+		table2.addVirtualColumn("virtual", "real", table, table.getPrimaryKey().getName(), true);
+		table2.getRow(1L);
+		((CyTableImpl) table2).setValues("virtual", Collections.singletonMap(1L, "foo"));
+
+		assertEquals("foo", table.getRow(1L).get("real", String.class));
+		assertEquals("foo", table2.getRow(1L).get("virtual", String.class));
+	}
+
+	@Test
+	public void testIndexedLookups() {
+		final CyTableImpl impl = (CyTableImpl) table;
+		table.createColumn("someString", String.class, false);
+		table.getRow(1L).set("someString", "x");
+		table.getRow(2L).set("someString", "y");
+		impl.createIndex("someString");
+		table.getRow(3L).set("someString", "x");
+		table.getRow(2L).set("someString", "x");
+		table.deleteRows(Arrays.asList(1L));
+
+		assertTrue(impl.isIndexed("someString"));
+		assertEquals(2, table.getMatchingRows("someString", "x").size());
+		assertEquals(0, table.countMatchingRows("someString", "y"));
+		assertEquals(2, impl.getIndexHitCount());
+		assertEquals(0, impl.getIndexMissCount());
+
+		impl.dropIndex("someString");
+		assertEquals(2, table.countMatchingRows("someString", "x"));
+		assertEquals(1, impl.getIndexMissCount());
+	}
+
+	@Test
+	public void testRangeLookup() {
+		final CyTableImpl impl = (CyTableImpl) table;
+		table.createColumn("someDouble", Double.class, false);
+		for (long i = 0; i < 10; i++)
+			table.getRow(i).set("someDouble", (double) i);
+		impl.createIndex("someDouble");
+
+		final Collection<CyRow> rows = impl.getMatchingRows("someDouble", 2.5, true, 5.0, true);
+		assertEquals(3, rows.size());
+		for (CyRow row : rows)
+			assertTrue(row.get("someDouble", Double.class) >= 3.0);
+		assertEquals(1, impl.getIndexHitCount());
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testCannotIndexListColumn() {
+		table.createListColumn("someList", String.class, false);
+		((CyTableImpl) table).createIndex("someList");
+	}
 }
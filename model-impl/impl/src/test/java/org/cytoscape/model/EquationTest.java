@@ -27,6 +27,7 @@ import static org.junit.Assert.*;
  */
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -36,12 +37,27 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 
 import org.cytoscape.equations.Equation;
+import org.cytoscape.equations.Function;
 import org.cytoscape.equations.internal.EquationCompilerImpl;
 import org.cytoscape.equations.internal.EquationParserImpl;
+import org.cytoscape.model.internal.CyTableImpl;
 import org.junit.Before;
 import org.junit.Test;
 
 public class EquationTest {
+	/** Stands in for an app function that depends on something other than its arguments. */
+	static private class NextFunction implements Function {
+		private long next = 1;
+
+		public String getName() { return "NEXT"; }
+		public String getFunctionSummary() { return "Returns a new number on every call."; }
+		public String getUsageDescription() { return "Call this with \"NEXT()\"."; }
+		public Class<?> getReturnType() { return Long.class; }
+		public Class<?> validateArgTypes(final Class<?>[] argTypes) { return argTypes.length == 0 ? Long.class : null; }
+		public Object evaluateFunction(final Object[] args) { return next++; }
+		public List<Class<?>> getPossibleArgTypes(final Class<?>[] leadingArgs) { return null; }
+	}
+
 	private TableTestSupport support;
 	private EquationParserImpl parser;
 
@@ -330,5 +346,173 @@ public class EquationTest {
 		assertEquals(Integer.valueOf(2), row.get("c2", Integer.class));
 		assertEquals(Integer.valueOf(3), row.get("c3", Integer.class));
 	}
+	
+	@Test
+	public void testEquationResultsAreCached() {
+		CyTableFactory factory = support.getTableFactory();
+		CyTableImpl table = (CyTableImpl) factory.createTable("MyTable3", "SUID", Long.class, true, true);
+		table.createColumn("c1", Integer.class, false);
+		table.createColumn("c2", Integer.class, false);
+		table.createColumn("c3", Integer.class, false);
+		table.createColumn("other", Integer.class, false);
+		
+		CyRow row1 = table.getRow(1L);
+		CyRow row2 = table.getRow(2L);
+		row1.set("c1", 1);
+		row2.set("c1", 10);
+		row1.set("c2", parseEquation("=$c1 + 1", table));
+		row2.set("c2", parseEquation("=$c1 + 1", table));
+		row1.set("c3", parseEquation("=$c2 * 2", table));
+		row2.set("c3", parseEquation("=$c2 * 2", table));
+		
+		final long evaluations = table.getEquationEvaluationCount();
+		final long hits = table.getEquationCacheHitCount();
+		
+		for (int i = 0; i < 10; i++) {
+			assertEquals(Integer.valueOf(4), row1.get("c3", Integer.class));
+			assertEquals(Integer.valueOf(22), row2.get("c3", Integer.class));
+		}
+		assertEquals(evaluations, table.getEquationEvaluationCount());
+		assertEquals(hits + 20, table.getEquationCacheHitCount());
+		
+		// Unrelated changes do not invalidate anything.
+		row1.set("other", 5);
+		assertEquals(Integer.valueOf(4), row1.get("c3", Integer.class));
+		assertEquals(evaluations, table.getEquationEvaluationCount());
+		
+		// A change is propagated through c2 to c3, but only in its own row.
+		row1.set("c1", 2);
+		assertEquals(Integer.valueOf(6), row1.get("c3", Integer.class));
+		assertEquals(Integer.valueOf(22), row2.get("c3", Integer.class));
+		assertEquals(evaluations + 2, table.getEquationEvaluationCount());
+		
+		row2.set("c1", null);
+		assertNull(row2.get("c3", Integer.class));
+		row2.set("c1", 20);
+		assertEquals(Integer.valueOf(42), row2.get("c3", Integer.class));
+		
+		table.setValues("c1", Collections.singletonMap(1L, 3));
+		assertEquals(Integer.valueOf(8), row1.get("c3", Integer.class));
+	}
+	
+	@Test
+	public void testEquationResultsOfVirtualColumnsAreNotCached() {
+		CyTableFactory factory = support.getTableFactory();
+		CyTable table1 = factory.createTable("Table 1", "SUID", Long.class, true, true);
+		CyTableImpl table2 = (CyTableImpl) factory.createTable("Table 2", "SUID", Long.class, true, true);
+		table1.createColumn("real", Integer.class, false);
+		table2.addVirtualColumn("virtual", "real", table1, "SUID", false);
+		table2.createColumn("c", Integer.class, false);
+		
+		CyRow row1 = table1.getRow(1L);
+		CyRow row2 = table2.getRow(1L);
+		row1.set("real", 1);
+		row2.set("c", parseEquation("=$virtual + 1", table2));
+		assertEquals(Integer.valueOf(2), row2.get("c", Integer.class));
+		
+		// This table is not notified of changes in the source table.
+		row1.set("real", 2);
+		assertEquals(Integer.valueOf(3), row2.get("c", Integer.class));
+		assertEquals(0, table2.getEquationCacheHitCount());
+	}
+	
+	@Test
+	public void testEquationResultsOfAppFunctionsAreNotCached() {
+		parser.registerFunction(new NextFunction());
+		CyTableFactory factory = support.getTableFactory();
+		CyTableImpl table = (CyTableImpl) factory.createTable("MyTable4", "SUID", Long.class, true, true);
+		table.createColumn("c", Long.class, false);
+		
+		CyRow row = table.getRow(1L);
+		row.set("c", parseEquation("=NEXT()", table));
+		final long first = row.get("c", Long.class);
+		assertEquals(Long.valueOf(first + 1), row.get("c", Long.class));
+		assertEquals(0, table.getEquationCacheHitCount());
+	}
+	
+	@Test
+	public void testColumnValuesMatchRowValues() {
+		// Enough rows for the column to be evaluated on the fork-join pool.
+		final int rowCount = 12000;
+		CyTableFactory factory = support.getTableFactory();
+		CyTableImpl columnTable = (CyTableImpl) factory.createTable("MyTable5", "SUID", Long.class, true, true);
+		CyTableImpl rowTable = (CyTableImpl) factory.createTable("MyTable6", "SUID", Long.class, true, true);
+		fillEquationTable(columnTable, rowCount);
+		fillEquationTable(rowTable, rowCount);
+		
+		assertColumnValuesMatchRowValues(columnTable, rowTable, "c", Double.class);
+		assertColumnValuesMatchRowValues(columnTable, rowTable, "s", String.class);
+		
+		// The results cached by the column evaluation are dropped when a referenced value changes.
+		for (long key = 1; key <= rowCount; key += 5) {
+			columnTable.getRow(key).set("a", (double) key);
+			rowTable.getRow(key).set("a", (double) key);
+		}
+		assertColumnValuesMatchRowValues(columnTable, rowTable, "c", Double.class);
+		assertColumnValuesMatchRowValues(columnTable, rowTable, "s", String.class);
+	}
+	
+	@Test
+	public void testColumnValuesOfAppFunctionsAreEvaluatedInRowOrder() {
+		parser.registerFunction(new NextFunction());
+		CyTableFactory factory = support.getTableFactory();
+		CyTableImpl table = (CyTableImpl) factory.createTable("MyTable7", "SUID", Long.class, true, true);
+		table.createColumn("c", Long.class, false);
+		
+		final Equation next = parseEquation("=NEXT()", table);
+		for (long key = 1; key <= 12000; key++)
+			table.getRow(key).set("c", next);
+		
+		final List<Long> values = table.getColumn("c").getValues(Long.class);
+		for (int i = 1; i < values.size(); i++)
+			assertEquals(Long.valueOf(values.get(i - 1) + 1), values.get(i));
+	}
+	
+	/**
+	 * Fills "c" with equations reading plain values, other equations, missing values and
+	 * values that make the equation fail, and "s" with one reading the primary key and
+	 * a default value.
+	 */
+	private void fillEquationTable(final CyTable table, final int rowCount) {
+		table.createColumn("a", Double.class, false);
+		table.createColumn("b", Integer.class, false);
+		table.createColumn("d", Double.class, false);
+		table.createColumn("c", Double.class, false);
+		table.createColumn("s", String.class, false);
+		
+		final Equation c = parseEquation("=$a * LOG($b)", table);
+		final Equation cFromD = parseEquation("=$d + $b", table);
+		final Equation d = parseEquation("=$a * 2", table);
+		final Equation s = parseEquation("=${SUID} + ${a:0}", table);
+		
+		// Set the equations first, so that setting the values drops their results from the cache.
+		for (long key = 1; key <= rowCount; key++) {
+			final CyRow row = table.getRow(key);
+			row.set("d", d);
+			if (key % 101 == 0)
+				row.set("c", 1.5);
+			else
+				row.set("c", key % 11 == 0 ? cFromD : c);
+			row.set("s", s);
+		}
+		
+		for (long key = 1; key <= rowCount; key++) {
+			final CyRow row = table.getRow(key);
+			if (key % 13 != 0)
+				row.set("a", key / 3.0);
+			if (key % 17 != 0)
+				row.set("b", (int) (key % 50) - 5);
+		}
+	}
+	
+	private static <T> void assertColumnValuesMatchRowValues(final CyTable columnTable, final CyTable rowTable,
+	                                                         final String columnName, final Class<T> type) {
+		// Both lists are in the order of the rows of the table.
+		final List<Long> keys = columnTable.getPrimaryKey().getValues(Long.class);
+		final List<T> values = columnTable.getColumn(columnName).getValues(type);
+		assertEquals(keys.size(), values.size());
+		
+		for (int i = 0; i < keys.size(); i++)
+			assertEquals(rowTable.getRow(keys.get(i)).get(columnName, type), values.get(i));
+	}
 }
-
@@ -0,0 +1,112 @@
+package org.cytoscape.model.internal;
+
+/*
+ * #%L
+ * Cytoscape Model Impl (model-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.cytoscape.model.CyEdge;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.model.NetworkTestSupport;
+import org.junit.Before;
+import org.junit.Test;
+
+
+public class SimpleNetworkConcurrencyTest {
+
+	private static final int NODE_COUNT = 200;
+	
+	private CyNetwork net;
+	private List<CyNode> nodes;
+
+	@Before
+	public void setUp() {
+		net = new NetworkTestSupport().getNetwork();
+		nodes = new ArrayList<>();
+		
+		for (int i = 0; i < NODE_COUNT; i++)
+			nodes.add(net.addNode());
+		for (int i = 0; i < NODE_COUNT; i++)
+			net.addEdge(nodes.get(i), nodes.get((i + 1) % NODE_COUNT), true);
+	}
+
+	@Test
+	public void testReadsAreConsistentWhileWriting() throws Exception {
+		final AtomicReference<Throwable> failure = new AtomicReference<>();
+		final int iterations = 2000;
+		
+		final Thread writer = new Thread(() -> {
+			try {
+				for (int i = 0; i < iterations; i++) {
+					final CyNode n = net.addNode();
+					final CyEdge e = net.addEdge(nodes.get(i % NODE_COUNT), n, false);
+					net.removeEdges(Collections.singletonList(e));
+					net.removeNodes(Collections.singletonList(n));
+				}
+			} catch (Throwable t) {
+				failure.compareAndSet(null, t);
+			}
+		});
+		
+		final List<Thread> readers = new ArrayList<>();
+		
+		for (int r = 0; r < 4; r++) {
+			readers.add(new Thread(() -> {
+				try {
+					for (int i = 0; i < iterations; i++) {
+						final CyNode n = nodes.get(i % NODE_COUNT);
+						// The ring edges are never touched by the writer.
+						assertEquals(1, net.getAdjacentEdgeList(n, CyEdge.Type.OUTGOING).size());
+						assertEquals(net.getNodeList().size(), net.getNodeCount(), 1);
+						
+						for (CyNode neighbor : net.getNeighborList(n, CyEdge.Type.ANY))
+							neighbor.getSUID();
+					}
+				} catch (Throwable t) {
+					failure.compareAndSet(null, t);
+				}
+			}));
+		}
+		
+		writer.start();
+		for (Thread t : readers)
+			t.start();
+		writer.join();
+		for (Thread t : readers)
+			t.join();
+		
+		assertNull(failure.get());
+		assertEquals(NODE_COUNT, net.getNodeCount());
+		assertEquals(NODE_COUNT, net.getEdgeCount());
+	}
+}
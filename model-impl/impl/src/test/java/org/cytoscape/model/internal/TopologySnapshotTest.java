@@ -0,0 +1,112 @@
+package org.cytoscape.model.internal;
+
+/*
+ * #%L
+ * Cytoscape Model Impl (model-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.cytoscape.model.CyEdge;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.model.NetworkTestSupport;
+import org.junit.Before;
+import org.junit.Test;
+
+
+public class TopologySnapshotTest {
+
+	private CySubNetworkImpl net;
+	private CyNode n1, n2, n3;
+	private CyEdge e1, e2, e3;
+
+	@Before
+	public void setUp() {
+		net = (CySubNetworkImpl) new NetworkTestSupport().getNetwork();
+		n1 = net.addNode();
+		n2 = net.addNode();
+		n3 = net.addNode();
+		e1 = net.addEdge(n1, n2, true);
+		e2 = net.addEdge(n2, n3, false);
+		e3 = net.addEdge(n3, n3, true);
+	}
+
+	@Test
+	public void testCounts() {
+		final TopologySnapshot s = net.getTopologySnapshot();
+		assertEquals(3, s.getNodeCount());
+		assertEquals(3, s.getEdgeCount());
+		assertEquals(-1, s.getNodeIndex(e1.getSUID()));
+	}
+
+	@Test
+	public void testAdjacencyMatchesNetwork() {
+		final TopologySnapshot s = net.getTopologySnapshot();
+		final int[] offsets = s.getOffsets();
+		final int[] targets = s.getTargets();
+		final int[] edgeIds = s.getEdgeIds();
+		
+		for (CyNode n : net.getNodeList()) {
+			final int i = s.getNodeIndex(n.getSUID());
+			assertEquals(n.getSUID().longValue(), s.getNodeSUID(i));
+			
+			final Set<Long> expected = new HashSet<>();
+			for (CyEdge e : net.getAdjacentEdgeList(n, CyEdge.Type.ANY))
+				expected.add(e.getSUID());
+			
+			final Set<Long> actual = new HashSet<>();
+			for (int k = offsets[i]; k < offsets[i + 1]; k++) {
+				final int edge = edgeIds[k];
+				actual.add(s.getEdgeSUID(edge));
+				assertTrue(targets[k] == s.getEdgeSource(edge) || targets[k] == s.getEdgeTarget(edge));
+			}
+			
+			assertEquals(expected, actual);
+		}
+		
+		final int self = s.getEdgeIndex(e3.getSUID());
+		assertEquals(s.getEdgeSource(self), s.getEdgeTarget(self));
+		assertFalse(s.isEdgeDirected(s.getEdgeIndex(e2.getSUID())));
+	}
+
+	@Test
+	public void testSnapshotIsCachedUntilTopologyChanges() {
+		final TopologySnapshot s = net.getTopologySnapshot();
+		assertSame(s, net.getTopologySnapshot());
+		
+		net.removeEdges(Collections.singletonList(e1));
+		final TopologySnapshot s2 = net.getTopologySnapshot();
+		assertNotSame(s, s2);
+		assertEquals(2, s2.getEdgeCount());
+		assertEquals(3, s.getEdgeCount());
+	}
+}
@@ -0,0 +1,178 @@
+package org.cytoscape.model.internal.column;
+
+/*
+ * #%L
+ * Cytoscape Model Impl (model-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+
+public class ColumnDataTest {
+
+	@Test
+	public void testPrimitiveRoundTrip() {
+		final ColumnData d = ColumnData.create(Double.class, 0);
+		d.set(3, 1.5);
+		d.set(100, -0.0);
+		assertEquals(1.5, d.get(3));
+		assertEquals(-0.0, d.get(100));
+		assertNull(d.get(4));
+		assertNull(d.get(-1));
+		assertEquals(2, d.size());
+		assertEquals(1, d.countMatches(-0.0));
+		assertEquals(0, d.countMatches(0.0));
+	}
+
+	@Test
+	public void testUnset() {
+		final ColumnData d = ColumnData.create(Integer.class, 0);
+		d.set(0, 7);
+		assertTrue(d.unset(0));
+		assertFalse(d.unset(0));
+		assertFalse(d.isSet(0));
+		assertEquals(0, d.countMatches(7));
+	}
+
+	@Test
+	public void testBooleans() {
+		final ColumnData d = ColumnData.create(Boolean.class, 0);
+		d.set(0, true);
+		d.set(1, false);
+		assertEquals(Boolean.TRUE, d.get(0));
+		assertEquals(Boolean.FALSE, d.get(1));
+		assertEquals(1, d.countMatches(Boolean.FALSE));
+	}
+
+	@Test
+	public void testOutOfLineValuesInPrimitiveColumn() {
+		final ColumnData d = ColumnData.create(Long.class, 0);
+		final Object notALong = new Object();
+		d.set(2, notALong);
+		assertSame(notALong, d.get(2));
+		d.set(2, 5L);
+		assertEquals(5L, d.get(2));
+		assertEquals(1, d.countMatches(5L));
+	}
+
+	@Test
+	public void testStringDictionaryIsRecycled() {
+		final StringColumnData d = (StringColumnData) ColumnData.create(String.class, 0);
+		d.set(0, "a");
+		d.set(1, "a");
+		d.set(2, "b");
+		assertEquals(2, d.getDictionarySize());
+		assertEquals(2, d.countMatches("a"));
+		assertEquals(0, d.countMatches("c"));
+		
+		d.set(2, "c");
+		d.unset(0);
+		d.unset(1);
+		assertEquals(1, d.getDictionarySize());
+		assertEquals("c", d.get(2));
+		
+		d.set(0, "d");
+		assertEquals("d", d.get(0));
+		assertEquals(2, d.getDictionarySize());
+	}
+
+	@Test
+	public void testNextMatch() {
+		final ColumnData d = ColumnData.create(List.class, 0);
+		d.set(1, Arrays.asList(1));
+		d.set(5, Arrays.asList(1));
+		assertEquals(1, d.nextMatch(Arrays.asList(1), 0));
+		assertEquals(5, d.nextMatch(Arrays.asList(1), 2));
+		assertEquals(-1, d.nextMatch(Arrays.asList(1), 6));
+	}
+
+	@Test
+	public void testRowIndexRecyclesIndices() {
+		final RowIndex index = new RowIndex(0);
+		final int a = index.allocate();
+		final int b = index.allocate();
+		index.set(a, "a");
+		index.set(b, "b");
+		index.release(a);
+		assertEquals(a, index.allocate());
+		assertEquals(2, index.getLimit());
+	}
+
+	@Test
+	public void testIndexIsMaintained() {
+		final ColumnData d = ColumnData.create(String.class, 0);
+		d.set(0, "a");
+		d.set(1, "b");
+		d.createIndex();
+		d.set(2, "a");
+		d.set(1, "a");
+		d.set(0, "c");
+		d.unset(2);
+		assertTrue(d.isIndexed());
+		assertTrue(Arrays.equals(new int[] { 1 }, d.findMatches("a")));
+		assertEquals(1, d.countMatches("c"));
+		assertEquals(0, d.countMatches("b"));
+		d.dropIndex();
+		assertTrue(Arrays.equals(new int[] { 1 }, d.findMatches("a")));
+	}
+
+	@Test
+	public void testIndexWithManyEqualValues() {
+		final ColumnData d = ColumnData.create(Boolean.class, 0);
+		d.createIndex();
+		for (int i = 0; i < 1000; i++)
+			d.set(i, i % 2 == 0);
+		for (int i = 0; i < 1000; i += 4)
+			d.unset(i);
+		assertEquals(250, d.countMatches(Boolean.TRUE));
+		assertEquals(500, d.findMatches(Boolean.FALSE).length);
+		assertEquals(2, d.findMatches(Boolean.TRUE)[0]);
+	}
+
+	@Test
+	public void testRangeLookup() {
+		final ColumnData d = ColumnData.create(Integer.class, 0);
+		for (int i = 0; i < 10; i++)
+			d.set(i, i * 10);
+		final Object notAnInt = new Object();
+		d.set(10, notAnInt);
+		final int[] scanned = d.findRange(20, true, 50, false);
+		d.createIndex();
+		assertTrue(d.isRangeIndexed());
+		assertTrue(Arrays.equals(new int[] { 2, 3, 4 }, scanned));
+		assertTrue(Arrays.equals(scanned, d.findRange(20, true, 50, false)));
+		assertTrue(Arrays.equals(new int[] { 9 }, d.findRange(80, false, null, false)));
+		assertEquals(0, d.findRange(50, true, 20, true).length);
+		assertTrue(Arrays.equals(new int[] { 10 }, d.findMatches(notAnInt)));
+	}
+}
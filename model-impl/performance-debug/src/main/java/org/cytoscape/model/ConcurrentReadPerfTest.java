@@ -0,0 +1,140 @@
+package org.cytoscape.model;
+
+/*
+ * #%L
+ * Cytoscape Model Impl Performance Debug (model-impl-performance-debug)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Measures how read throughput of the network topology scales with the number
+ * of reader threads, while an optional writer keeps adding and removing edges.
+ * Run with: java -cp model-impl-performance-debug-jar-with-dependencies.jar org.cytoscape.model.ConcurrentReadPerfTest [maxThreads] [withWriter]
+ */
+public class ConcurrentReadPerfTest {
+
+	private static final int NODE_COUNT = 100000;
+	private static final int EDGE_COUNT = 500000;
+	private static final long RUN_MILLIS = 3000;
+
+	private final CyNetwork network;
+	private final List<CyNode> nodes;
+
+	public static void main(String[] args) throws Exception {
+		final int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+		final boolean withWriter = args.length > 1 && Boolean.parseBoolean(args[1]);
+		new ConcurrentReadPerfTest().runTestLoop(maxThreads, withWriter);
+	}
+
+	public ConcurrentReadPerfTest() {
+		NetworkTestSupport testSupport = new NetworkTestSupport();
+		network = testSupport.getNetworkFactory().createNetwork();
+		nodes = new ArrayList<CyNode>(NODE_COUNT);
+
+		for (int i = 0; i < NODE_COUNT; i++)
+			nodes.add(network.addNode());
+
+		final Random rand = new Random(1234L);
+		for (int i = 0; i < EDGE_COUNT; i++)
+			network.addEdge(nodes.get(rand.nextInt(NODE_COUNT)), nodes.get(rand.nextInt(NODE_COUNT)), (i % 2) == 0);
+	}
+
+	public void runTestLoop(final int maxThreads, final boolean withWriter) throws InterruptedException {
+		long single = 0;
+
+		for (int threads = 1; threads <= maxThreads; threads *= 2) {
+			final long ops = measure(threads, withWriter);
+			if (threads == 1)
+				single = ops;
+
+			System.out.println(String.format("threads: %2d  reads/sec: %,12d  speedup: %.2f",
+			                                 threads, ops * 1000 / RUN_MILLIS, (double) ops / Math.max(1, single)));
+		}
+	}
+
+	private long measure(final int threads, final boolean withWriter) throws InterruptedException {
+		final AtomicLong reads = new AtomicLong();
+		final CountDownLatch start = new CountDownLatch(1);
+		final long deadline = System.currentTimeMillis() + RUN_MILLIS;
+		final List<Thread> workers = new ArrayList<Thread>();
+
+		for (int t = 0; t < threads; t++) {
+			final Random rand = new Random(t);
+			workers.add(new Thread() {
+				public void run() {
+					await(start);
+					long count = 0;
+					while (System.currentTimeMillis() < deadline) {
+						for (int i = 0; i < 1000; i++) {
+							final CyNode n = nodes.get(rand.nextInt(NODE_COUNT));
+							network.getNode(n.getSUID());
+							network.getNeighborList(n, CyEdge.Type.ANY);
+							for (CyEdge e : network.getAdjacentEdgeIterable(n, CyEdge.Type.ANY))
+								e.getTarget();
+						}
+						count += 1000;
+					}
+					reads.addAndGet(count);
+				}
+			});
+		}
+
+		if (withWriter) {
+			workers.add(new Thread() {
+				public void run() {
+					final Random rand = new Random(-1L);
+					await(start);
+					while (System.currentTimeMillis() < deadline) {
+						final CyEdge e = network.addEdge(nodes.get(rand.nextInt(NODE_COUNT)),
+						                                 nodes.get(rand.nextInt(NODE_COUNT)), true);
+						network.removeEdges(Collections.singletonList(e));
+					}
+				}
+			});
+		}
+
+		for (Thread w : workers)
+			w.start();
+		start.countDown();
+		for (Thread w : workers)
+			w.join();
+
+		return reads.get();
+	}
+
+	private static void await(final CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
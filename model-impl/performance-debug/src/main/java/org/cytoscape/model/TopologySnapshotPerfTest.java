@@ -0,0 +1,94 @@
+package org.cytoscape.model;
+
+/*
+ * #%L
+ * Cytoscape Model Impl Performance Debug (model-impl-performance-debug)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.cytoscape.model.internal.CySubNetworkImpl;
+import org.cytoscape.model.internal.TopologySnapshot;
+
+
+/**
+ * Compares the heap cost per edge of the linked pointer topology with the CSR
+ * {@link TopologySnapshot}, and the time it takes to visit every neighbour.
+ * Note that the pointer figure also includes the CyEdgeImpl objects and table rows
+ * that are created together with each edge.
+ */
+public class TopologySnapshotPerfTest {
+
+	private static final int NODE_COUNT = 100000;
+	private static final int EDGE_COUNT = 500000;
+
+	public static void main(String[] args) {
+		new TopologySnapshotPerfTest().runTest();
+	}
+
+	public void runTest() {
+		final CyNetwork network = new NetworkTestSupport().getNetworkFactory().createNetwork();
+		final List<CyNode> nodes = new ArrayList<CyNode>(NODE_COUNT);
+		for (int i = 0; i < NODE_COUNT; i++)
+			nodes.add(network.addNode());
+
+		final long beforeEdges = usedHeap();
+		final Random rand = new Random(1234L);
+		for (int i = 0; i < EDGE_COUNT; i++)
+			network.addEdge(nodes.get(rand.nextInt(NODE_COUNT)), nodes.get(rand.nextInt(NODE_COUNT)), true);
+		final long afterEdges = usedHeap();
+
+		final TopologySnapshot snapshot = ((CySubNetworkImpl) network).getTopologySnapshot();
+		final long afterSnapshot = usedHeap();
+
+		System.out.println("pointer topology bytes/edge:  " + (afterEdges - beforeEdges) / EDGE_COUNT);
+		System.out.println("CSR snapshot bytes/edge:      " + (afterSnapshot - afterEdges) / EDGE_COUNT
+		                   + " (estimated " + snapshot.getEstimatedSize() / EDGE_COUNT + ")");
+
+		long start = System.currentTimeMillis();
+		long sum = 0;
+		for (CyNode n : nodes)
+			for (CyNode neighbor : network.getNeighborList(n, CyEdge.Type.ANY))
+				sum += neighbor.getSUID();
+		System.out.println("getNeighborList traversal:    " + (System.currentTimeMillis() - start) + " ms (" + sum + ")");
+
+		start = System.currentTimeMillis();
+		sum = 0;
+		final int[] offsets = snapshot.getOffsets();
+		final int[] targets = snapshot.getTargets();
+		for (int i = 0; i < snapshot.getNodeCount(); i++)
+			for (int k = offsets[i]; k < offsets[i + 1]; k++)
+				sum += snapshot.getNodeSUID(targets[k]);
+		System.out.println("CSR traversal:                " + (System.currentTimeMillis() - start) + " ms (" + sum + ")");
+	}
+
+	private static long usedHeap() {
+		final Runtime rt = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++)
+			System.gc();
+		return rt.totalMemory() - rt.freeMemory();
+	}
+}
@@ -0,0 +1,98 @@
+package org.cytoscape.model;
+
+/*
+ * #%L
+ * Cytoscape Model Impl Table Performance Debug (model-impl-table-performance-debug)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.cytoscape.model.internal.CyTableImpl;
+
+
+/**
+ * Compares filling a table cell by cell through CyRow.set() against the bulk
+ * CyTableImpl.setValues(), which takes the table lock once per column and fires a
+ * single RowsSetEvent instead of one payload per cell.
+ */
+public class BulkWritePerfTest {
+
+	private final int numRows;
+	private final int numCols;
+	private final CyTableFactory tableFactory;
+
+	public static void main(String[] args) {
+		final int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		final int cols = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+		new BulkWritePerfTest(rows, cols).runTest();
+	}
+
+	public BulkWritePerfTest(final int numRows, final int numCols) {
+		this.numRows = numRows;
+		this.numCols = numCols;
+		tableFactory = new TableTestSupport().getTableFactory();
+	}
+
+	public void runTest() {
+		CyTable table = createTable();
+		long start = System.currentTimeMillis();
+		for (long r = 0; r < numRows; r++) {
+			final CyRow row = table.getRow(r);
+			for (int c = 0; c < numCols; c++)
+				row.set(colName(c), (double) (r + c));
+		}
+		final long cellTime = System.currentTimeMillis() - start;
+		System.out.println("CyRow.set:      " + cellTime + " ms, " + cellsPerSecond(cellTime) + " cells/sec");
+
+		table = createTable();
+		start = System.currentTimeMillis();
+		final Map<Object, Object> values = new HashMap<>(numRows * 2);
+		for (int c = 0; c < numCols; c++) {
+			values.clear();
+			for (long r = 0; r < numRows; r++)
+				values.put(r, (double) (r + c));
+			((CyTableImpl) table).setValues(colName(c), values);
+		}
+		final long bulkTime = System.currentTimeMillis() - start;
+		System.out.println("setValues:      " + bulkTime + " ms, " + cellsPerSecond(bulkTime) + " cells/sec");
+		System.out.println("speedup:        " + (double) cellTime / Math.max(1, bulkTime));
+	}
+
+	private CyTable createTable() {
+		final CyTable table = tableFactory.createTable("bulk", "SUID", Long.class, false, true);
+		for (int c = 0; c < numCols; c++)
+			table.createColumn(colName(c), Double.class, false);
+		return table;
+	}
+
+	private long cellsPerSecond(final long millis) {
+		return (long) numRows * numCols * 1000 / Math.max(1, millis);
+	}
+
+	private static String colName(final int c) {
+		return "col" + c;
+	}
+}
@@ -0,0 +1,135 @@
+package org.cytoscape.model;
+
+/*
+ * #%L
+ * Cytoscape Model Impl Table Performance Debug (model-impl-table-performance-debug)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+
+/**
+ * Compares the heap used by a CyTable with many numeric columns against the old
+ * map-of-maps layout (column name -> SUID -> boxed value), and measures column
+ * scan throughput through the CyRow API and getMatchingRows().
+ */
+public class ColumnarTablePerfTest {
+
+	private final int numRows;
+	private final int numCols;
+	private final CyTableFactory tableFactory;
+
+	public static void main(String[] args) {
+		final int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		final int cols = args.length > 1 ? Integer.parseInt(args[1]) : 40;
+		new ColumnarTablePerfTest(rows, cols).runTest();
+	}
+
+	public ColumnarTablePerfTest(final int numRows, final int numCols) {
+		this.numRows = numRows;
+		this.numCols = numCols;
+		tableFactory = new TableTestSupport().getTableFactory();
+	}
+
+	public void runTest() {
+		long before = usedHeap();
+		final Map<String, Map<Object, Object>> mapOfMaps = fillMapOfMaps();
+		final long mapBytes = usedHeap() - before;
+		System.out.println("map-of-maps heap:  " + mapBytes / (1024 * 1024) + " MB (" + mapOfMaps.size() + " columns)");
+
+		before = usedHeap();
+		final CyTable table = fillTable();
+		final long tableBytes = usedHeap() - before;
+		System.out.println("CyTable heap:      " + tableBytes / (1024 * 1024) + " MB (" + table.getRowCount() + " rows)");
+
+		long start = System.currentTimeMillis();
+		double sum = 0;
+		for (final CyRow row : table.getAllRows())
+			for (int c = 0; c < numCols; c += 2)
+				sum += row.get(colName(c), Double.class);
+		long time = System.currentTimeMillis() - start;
+		System.out.println("row.get scan:      " + time + " ms, "
+		                   + (long) numRows * (numCols / 2) * 1000 / Math.max(1, time) + " cells/sec (" + sum + ")");
+
+		start = System.currentTimeMillis();
+		int matches = 0;
+		for (int c = 1; c < numCols; c += 2)
+			for (int v = 0; v < 10; v++)
+				matches += table.countMatchingRows(colName(c), Integer.valueOf(v));
+		time = System.currentTimeMillis() - start;
+		System.out.println("countMatchingRows: " + time + " ms (" + matches + ")");
+
+		start = System.currentTimeMillis();
+		matches = 0;
+		for (int c = 1; c < numCols; c += 2)
+			matches += table.getMatchingRows(colName(c), Integer.valueOf(7)).size();
+		time = System.currentTimeMillis() - start;
+		System.out.println("getMatchingRows:   " + time + " ms (" + matches + ")");
+	}
+
+	private CyTable fillTable() {
+		final CyTable table = tableFactory.createTable("perf", "SUID", Long.class, true, true);
+		for (int c = 0; c < numCols; c++)
+			table.createColumn(colName(c), (c % 2) == 0 ? Double.class : Integer.class, false);
+
+		final Random rand = new Random(numRows);
+		for (long i = 0; i < numRows; i++) {
+			final CyRow row = table.getRow(Long.valueOf(i));
+			for (int c = 0; c < numCols; c++)
+				row.set(colName(c), value(c, rand));
+		}
+
+		return table;
+	}
+
+	private Map<String, Map<Object, Object>> fillMapOfMaps() {
+		final Map<String, Map<Object, Object>> attributes = new HashMap<String, Map<Object, Object>>();
+		for (int c = 0; c < numCols; c++)
+			attributes.put(colName(c), new HashMap<Object, Object>());
+
+		final Random rand = new Random(numRows);
+		for (long i = 0; i < numRows; i++)
+			for (int c = 0; c < numCols; c++)
+				attributes.get(colName(c)).put(Long.valueOf(i), value(c, rand));
+
+		return attributes;
+	}
+
+	private static Object value(final int col, final Random rand) {
+		return (col % 2) == 0 ? (Object) Double.valueOf(rand.nextDouble()) : (Object) Integer.valueOf(rand.nextInt(10));
+	}
+
+	private static String colName(final int col) {
+		return "col" + col;
+	}
+
+	private static long usedHeap() {
+		final Runtime rt = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++)
+			System.gc();
+		return rt.totalMemory() - rt.freeMemory();
+	}
+}
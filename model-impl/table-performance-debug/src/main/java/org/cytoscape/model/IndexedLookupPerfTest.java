@@ -0,0 +1,122 @@
+package org.cytoscape.model;
+
+/*
+ * #%L
+ * Cytoscape Model Impl Table Performance Debug (model-impl-table-performance-debug)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+
+
+import java.util.Random;
+
+import org.cytoscape.model.internal.CyTableImpl;
+
+
+/**
+ * Measures getMatchingRows(), countMatchingRows() and range lookups on a large
+ * table, first by scanning the columns and then with column indexes, and the
+ * cost the indexes add to writes.
+ */
+public class IndexedLookupPerfTest {
+
+	private static final int NUM_LOOKUPS = 1000;
+
+	private final int numRows;
+	private final int numDistinct;
+	private final CyTableFactory tableFactory;
+
+	public static void main(String[] args) {
+		final int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		final int distinct = args.length > 1 ? Integer.parseInt(args[1]) : 10000;
+		new IndexedLookupPerfTest(rows, distinct).runTest();
+	}
+
+	public IndexedLookupPerfTest(final int numRows, final int numDistinct) {
+		this.numRows = numRows;
+		this.numDistinct = numDistinct;
+		tableFactory = new TableTestSupport().getTableFactory();
+	}
+
+	public void runTest() {
+		final CyTableImpl table = (CyTableImpl) tableFactory.createTable("index", "SUID", Long.class, false, true);
+		table.createColumn("name", String.class, false);
+		table.createColumn("score", Double.class, false);
+
+		long start = System.currentTimeMillis();
+		fill(table);
+		System.out.println("fill, no index:   " + (System.currentTimeMillis() - start) + " ms");
+
+		lookups(table, "scan");
+
+		start = System.currentTimeMillis();
+		table.createIndex("name");
+		table.createIndex("score");
+		System.out.println("create indexes:   " + (System.currentTimeMillis() - start) + " ms");
+
+		lookups(table, "index");
+
+		start = System.currentTimeMillis();
+		fill(table);
+		System.out.println("refill, indexed:  " + (System.currentTimeMillis() - start) + " ms");
+
+		System.out.println("index hits: " + table.getIndexHitCount() + ", misses: " + table.getIndexMissCount());
+	}
+
+	private void fill(final CyTable table) {
+		final Random random = new Random(42);
+		for (long r = 0; r < numRows; r++) {
+			final CyRow row = table.getRow(r);
+			row.set("name", "name" + random.nextInt(numDistinct));
+			row.set("score", (double) random.nextInt(numDistinct));
+		}
+	}
+
+	private void lookups(final CyTableImpl table, final String label) {
+		final Random random = new Random(7);
+
+		long start = System.nanoTime();
+		long found = 0;
+		for (int i = 0; i < NUM_LOOKUPS; i++)
+			found += table.getMatchingRows("name", "name" + random.nextInt(numDistinct)).size();
+		report(label + " getMatchingRows:", start, found);
+
+		start = System.nanoTime();
+		found = 0;
+		for (int i = 0; i < NUM_LOOKUPS; i++)
+			found += table.countMatchingRows("score", (double) random.nextInt(numDistinct));
+		report(label + " countMatchingRows:", start, found);
+
+		start = System.nanoTime();
+		found = 0;
+		for (int i = 0; i < NUM_LOOKUPS; i++) {
+			final double from = random.nextInt(numDistinct);
+			found += table.getMatchingRows("score", from, true, from + 10.0, false).size();
+		}
+		report(label + " range:", start, found);
+	}
+
+	private static void report(final String label, final long startNanos, final long found) {
+		final long micros = (System.nanoTime() - startNanos) / 1000;
+		System.out.println(String.format("%-28s %10d us/lookup (%d rows)", label, micros / NUM_LOOKUPS, found));
+	}
+}
@@ -24,13 +24,6 @@ package org.cytoscape.view.vizmap.internal;
  * #L%
  */
 
-import java.util.Collections;
-import java.util.HashSet;
-import java.util.LinkedList;
-import java.util.Map;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-
 import org.cytoscape.application.CyApplicationManager;
 import org.cytoscape.application.NetworkViewRenderer;
 import org.cytoscape.model.CyEdge;
@@ -40,11 +33,8 @@ import org.cytoscape.model.CyRow;
 import org.cytoscape.service.util.CyServiceRegistrar;
 import org.cytoscape.view.model.View;
 import org.cytoscape.view.model.VisualLexicon;
-import org.cytoscape.view.model.VisualLexiconNode;
 import org.cytoscape.view.model.VisualProperty;
 import org.cytoscape.view.presentation.property.BasicVisualLexicon;
-import org.cytoscape.view.vizmap.VisualMappingFunction;
-import org.cytoscape.view.vizmap.VisualPropertyDependency;
 import org.cytoscape.view.vizmap.VisualStyle;
 import org.cytoscape.view.vizmap.events.VisualStyleChangedEvent;
 import org.cytoscape.view.vizmap.events.VisualStyleChangedListener;
@@ -57,12 +47,8 @@ public abstract class AbstractApplyHandler<T extends CyIdentifiable> implements
 	protected final Class<T> targetDataType;
 	protected final VisualProperty<?> rootVisualProperty;
 	
-	/** Index the Dependencies by the parent Visual Property. */
-	protected final Map<VisualProperty<?>, Set<VisualPropertyDependency<?>>> dependencyParents;
-	/** Index the Dependencies by child Visual Properties. */
-	protected final Map<VisualProperty<?>, Set<VisualPropertyDependency<?>>> dependencyChildren;
-	
-	protected volatile boolean updateDependencyMaps = true;
+	private volatile ApplyPlan<T> applyPlan;
+	private volatile CyApplicationManager applicationManager;
 
 	AbstractApplyHandler(
 			final VisualStyle style,
@@ -79,165 +65,45 @@ public abstract class AbstractApplyHandler<T extends CyIdentifiable> implements
 			rootVisualProperty = BasicVisualLexicon.EDGE;
 		else
 			rootVisualProperty = BasicVisualLexicon.NETWORK;
-		
-		dependencyParents = new ConcurrentHashMap<VisualProperty<?>, Set<VisualPropertyDependency<?>>>(16, 0.75f, 2);
-		dependencyChildren = new ConcurrentHashMap<VisualProperty<?>, Set<VisualPropertyDependency<?>>>(16, 0.75f, 2);
 	}
 
 	@Override
 	public void handleEvent(final VisualStyleChangedEvent e) {
-		updateDependencyMaps = true;
+		applyPlan = null;
 	}
 
 	@Override
 	public void apply(final CyRow row, final View<T> view) {
-		if (updateDependencyMaps)
-			updateDependencyMaps();
+		final ApplyPlan<T> plan = getApplyPlan(getCurrentLexicon());
 		
 		// Clear visual properties first
 		view.clearVisualProperties();
-		
-		// Get current Visual Lexicon
-		final CyApplicationManager appMgr = serviceRegistrar.getService(CyApplicationManager.class);
-		final VisualLexicon lexicon = appMgr.getCurrentNetworkViewRenderer()
-				.getRenderingEngineFactory(NetworkViewRenderer.DEFAULT_CONTEXT)
-				.getVisualLexicon();
-		
-		final LinkedList<VisualLexiconNode> descendants = new LinkedList<VisualLexiconNode>();
-		descendants.addAll(lexicon.getVisualLexiconNode(rootVisualProperty).getChildren());
-		
-		while (!descendants.isEmpty()) {
-			final VisualLexiconNode node = descendants.pop();
-			final VisualProperty<?> vp = node.getVisualProperty();
-			
-			if (vp.getTargetDataType() != targetDataType)
-				continue; // Because NETWORK has node/edge properties as descendants as well
-			
-			final VisualMappingFunction<?, ?> mapping = style.getVisualMappingFunction(vp);
-			final Object value = mapping != null ? mapping.getMappedValue(row) : null;
-			
-			if (value == null) {
-				// Apply the default value...
-				applyDefaultValue(view, vp, lexicon);
-			} else {
-				// Apply the mapped value...
-				applyMappedValue(view, vp, value);
-			}
-			
-			descendants.addAll(node.getChildren());
-		}
+		plan.apply(row, view);
 	}
 
-	private void applyDefaultValue(final View<T> view, final VisualProperty<?> vp, final VisualLexicon lexicon) {
-		// This is the view default value.
-		Object value = style.getDefaultValue(vp);
-
-		if (value == null) {
-			((VisualStyleImpl) style).getStyleDefaults().put(vp, vp.getDefault());
-			value = style.getDefaultValue(vp);
-		}
-		
-		final Set<VisualPropertyDependency<?>> depSet = dependencyParents.get(vp);
-		
-		// If this property has already received a propagated value from a previous
-		// enabled dependency, do not apply this mapping's value over it.
-		if (!isParentOfDependency(vp) && !isChildOfEnabledDependency(vp)) {
-			// TODO: Is this correct? Shouldn't default values be applied through CyNetworkView.setViewDefault instead?
-			if (!vp.shouldIgnoreDefault())
-				view.setVisualProperty(vp, value);
-		} else if (depSet != null) {
-			for (final VisualPropertyDependency<?> dep : depSet) {
-				// The dependency has a higher priority over children's mappings when enabled.
-				if (dep.isDependencyEnabled())
-					propagateValue(view, vp, value, dep.getVisualProperties(), true);
-			}
-		}
-	}
-
-	private void applyMappedValue(final View<T> view, final VisualProperty<?> vp, final Object value) {
-		final Set<VisualPropertyDependency<?>> depSet = dependencyParents.get(vp);
-		
-		// If this property has already received a propagated value from a previous
-		// enabled dependency, do not apply this mapping's value over it.
-		if (!isParentOfDependency(vp) && !isChildOfEnabledDependency(vp)) {
-			view.setVisualProperty(vp, value);
-		} else if (depSet != null) {
-			for (final VisualPropertyDependency<?> dep : depSet) {
-				// The dependency has a higher priority over children's mappings when enabled.
-				if (dep.isDependencyEnabled())
-					propagateValue(view, vp, value, dep.getVisualProperties(), false);
-			}
-		}
-	}
-	
-	protected void propagateValue(final View<? extends CyIdentifiable> view,
-								  final VisualProperty<?> parent,
-								  final Object value,
-								  final Set<VisualProperty<?>> children,
-								  final boolean isDefaultValue) {
-		for (final VisualProperty<?> vp : children) {
-			// Prevent ClassCastExceptions (the child property can have a different value type)
-			if (parent.getClass() == vp.getClass() && !(isDefaultValue && vp.shouldIgnoreDefault()))
-				view.setVisualProperty(vp, value);
-		}
-	}
-	
 	/**
-	 * Re-index the dependency maps.
+	 * @return the compiled plan for the current version of the style and the given lexicon,
+	 *         which is rebuilt only if either of them has changed since it was last requested.
 	 */
-	protected synchronized void updateDependencyMaps() {
-		dependencyParents.clear();
-		dependencyChildren.clear();
+	protected ApplyPlan<T> getApplyPlan(final VisualLexicon lexicon) {
+		final ApplyPlan<T> cached = applyPlan;
+		final ApplyPlan<T> plan = ApplyPlan.compile(cached, (VisualStyleImpl) style, lexicon, rootVisualProperty,
+				targetDataType);
 		
-		for (final VisualPropertyDependency<?> dep : style.getAllVisualPropertyDependencies()) {
-			final VisualProperty<?> parent = dep.getParentVisualProperty();
-			Set<VisualPropertyDependency<?>> depSet = dependencyParents.get(parent);
-			
-			if (depSet == null)
-				dependencyParents.put(parent, 
-						depSet = Collections.synchronizedSet(new HashSet<VisualPropertyDependency<?>>()));
-			
-			depSet.add(dep);
-			
-			for (final VisualProperty<?> child : dep.getVisualProperties()) {
-				Set<VisualPropertyDependency<?>> childSet = dependencyChildren.get(child);
-				
-				if (childSet == null)
-					dependencyChildren.put(child,
-							childSet = Collections.synchronizedSet(new HashSet<VisualPropertyDependency<?>>()));
-				
-				childSet.add(dep);
-			}
-		}
+		if (plan != cached)
+			applyPlan = plan;
 		
-		updateDependencyMaps = false;
+		return plan;
 	}
 	
-	/**
-	 * @param vp
-	 * @return true if the {@link VisualProperty} has any {@link VisualPropertyDependency}.
-	 */
-	protected boolean isParentOfDependency(final VisualProperty<?> vp) {
-		final Set<VisualPropertyDependency<?>> set = dependencyParents.get(vp);
+	protected VisualLexicon getCurrentLexicon() {
+		CyApplicationManager appMgr = applicationManager;
 		
-		return set != null && !set.isEmpty();
-	}
-	
-	/**
-	 * @param vp
-	 * @return true if the {@link VisualProperty} belongs to any enabled {@link VisualPropertyDependency}'s 
-	 *              properties set.
-	 */
-	protected boolean isChildOfEnabledDependency(final VisualProperty<?> vp) {
-		final Set<VisualPropertyDependency<?>> set = dependencyChildren.get(vp);
+		if (appMgr == null)
+			applicationManager = appMgr = serviceRegistrar.getService(CyApplicationManager.class);
 		
-		if (set != null) {
-			for (final VisualPropertyDependency<?> dep : set) {
-				if (dep.isDependencyEnabled())
-					return true;
-			}
-		}
-		
-		return false;
+		return appMgr.getCurrentNetworkViewRenderer()
+				.getRenderingEngineFactory(NetworkViewRenderer.DEFAULT_CONTEXT)
+				.getVisualLexicon();
 	}
 }
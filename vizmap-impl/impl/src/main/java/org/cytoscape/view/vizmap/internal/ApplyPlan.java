@@ -0,0 +1,342 @@
+package org.cytoscape.view.vizmap.internal;
+
+/*
+ * #%L
+ * Cytoscape VizMap Impl (vizmap-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+import org.cytoscape.model.CyIdentifiable;
+import org.cytoscape.model.CyRow;
+import org.cytoscape.view.model.View;
+import org.cytoscape.view.model.VisualLexicon;
+import org.cytoscape.view.model.VisualLexiconNode;
+import org.cytoscape.view.model.VisualProperty;
+import org.cytoscape.view.vizmap.VisualMappingFunction;
+import org.cytoscape.view.vizmap.VisualPropertyDependency;
+import org.cytoscape.view.vizmap.internal.mappings.VectorizedMappingFunction;
+
+/**
+ * Flat, immutable list of the steps needed to apply a {@link VisualStyleImpl} to a single view.
+ * It is compiled once for a given style version and {@link VisualLexicon}, so applying the style to each
+ * node or edge does not have to walk the lexicon tree or look up mappings, defaults and dependencies again.
+ * Only {@link VisualPropertyDependency#isDependencyEnabled()} is evaluated on every row,
+ * because enabling a dependency does not change the style version.
+ */
+final class ApplyPlan<T extends CyIdentifiable> {
+
+	private final VisualLexicon lexicon;
+	private final int styleVersion;
+	private final Step[] steps;
+	/** Subset of {@link #steps} that have a mapping. */
+	private final Step[] mappedSteps;
+
+	ApplyPlan(
+			final VisualStyleImpl style,
+			final int styleVersion,
+			final VisualLexicon lexicon,
+			final VisualProperty<?> rootVisualProperty,
+			final Class<T> targetDataType
+	) {
+		this.lexicon = lexicon;
+		this.styleVersion = styleVersion;
+		
+		final List<Step> list = new ArrayList<Step>();
+		final Deque<VisualLexiconNode> descendants = new ArrayDeque<VisualLexiconNode>();
+		descendants.addAll(lexicon.getVisualLexiconNode(rootVisualProperty).getChildren());
+		
+		// Same (breadth-first) order as the lexicon walk this replaces, so overlapping dependencies
+		// still resolve the same way
+		while (!descendants.isEmpty()) {
+			final VisualLexiconNode node = descendants.pop();
+			final VisualProperty<?> vp = node.getVisualProperty();
+			
+			if (vp.getTargetDataType() != targetDataType)
+				continue; // Because NETWORK has node/edge properties as descendants as well
+			
+			list.add(new Step(style, vp));
+			descendants.addAll(node.getChildren());
+		}
+		
+		steps = list.toArray(new Step[list.size()]);
+		
+		final List<Step> mappedList = new ArrayList<Step>();
+		
+		for (final Step step : steps) {
+			if (step.mapping != null)
+				mappedList.add(step);
+		}
+		
+		mappedSteps = mappedList.toArray(new Step[mappedList.size()]);
+	}
+
+	/**
+	 * @return the given plan if it is still valid for the current version of the style and the lexicon,
+	 *         otherwise a newly compiled one.
+	 */
+	static <T extends CyIdentifiable> ApplyPlan<T> compile(
+			final ApplyPlan<T> plan,
+			final VisualStyleImpl style,
+			final VisualLexicon lexicon,
+			final VisualProperty<?> rootVisualProperty,
+			final Class<T> targetDataType
+	) {
+		// Read the version before compiling, so a change made while the plan is built invalidates it
+		final int version = style.getVersion();
+		
+		if (plan != null && plan.isValid(version, lexicon))
+			return plan;
+		
+		return new ApplyPlan<T>(style, version, lexicon, rootVisualProperty, targetDataType);
+	}
+
+	/**
+	 * @return true if this plan was compiled for the given style version and lexicon.
+	 */
+	boolean isValid(final int styleVersion, final VisualLexicon lexicon) {
+		return this.styleVersion == styleVersion && this.lexicon == lexicon;
+	}
+
+	/**
+	 * Applies mapped values and style defaults to the view.
+	 */
+	void apply(final CyRow row, final View<T> view) {
+		for (final Step step : steps)
+			step.apply(row, view, Writer.DIRECT, false);
+	}
+
+	/**
+	 * Passes only the values that come from mappings to the writer, leaving out the defaults,
+	 * which {@link ApplyToNetworkHandler} sets as view defaults instead.
+	 * Each mapping is evaluated for all the rows at once, then the values are passed on view by view.
+	 * @param views the views to apply the mappings to.
+	 * @param rows the row of each view, in the same order.
+	 */
+	void applyMappings(final List<? extends View<? extends T>> views, final List<CyRow> rows, final Writer writer) {
+		final Object[][] mappedValues = new Object[mappedSteps.length][];
+		
+		for (int i = 0; i < mappedSteps.length; i++) {
+			mappedValues[i] = new Object[rows.size()];
+			mappedSteps[i].getMappedValues(rows, mappedValues[i]);
+		}
+		
+		for (int j = 0; j < views.size(); j++) {
+			final View<?> view = views.get(j);
+			
+			for (int i = 0; i < mappedSteps.length; i++)
+				mappedSteps[i].apply(mappedValues[i][j], view, writer, true);
+		}
+	}
+
+	boolean hasMappings() {
+		return mappedSteps.length > 0;
+	}
+
+	int size() {
+		return steps.length;
+	}
+	
+	/**
+	 * Receives the visual property values computed by a plan.
+	 */
+	static abstract class Writer {
+		
+		/** Sets the values on the view straight away. */
+		static final Writer DIRECT = new Writer() {
+			@Override
+			void write(final View<?> view, final VisualProperty<?> vp, final Object value) {
+				view.setVisualProperty(vp, value);
+			}
+		};
+		
+		abstract void write(View<?> view, VisualProperty<?> vp, Object value);
+	}
+	
+	/**
+	 * Buffers values so they can be computed on one thread and set on the views later, in the same order.
+	 */
+	static final class Batch extends Writer {
+		
+		private View<?>[] views = new View<?>[64];
+		private VisualProperty<?>[] properties = new VisualProperty<?>[64];
+		private Object[] values = new Object[64];
+		private int size;
+		
+		@Override
+		void write(final View<?> view, final VisualProperty<?> vp, final Object value) {
+			if (size == values.length) {
+				final int capacity = size * 2;
+				views = Arrays.copyOf(views, capacity);
+				properties = Arrays.copyOf(properties, capacity);
+				values = Arrays.copyOf(values, capacity);
+			}
+			
+			views[size] = view;
+			properties[size] = vp;
+			values[size] = value;
+			size++;
+		}
+		
+		int size() {
+			return size;
+		}
+		
+		/**
+		 * Sets all buffered values on their views and empties the batch.
+		 */
+		void commit() {
+			for (int i = 0; i < size; i++) {
+				views[i].setVisualProperty(properties[i], values[i]);
+				views[i] = null;
+				properties[i] = null;
+				values[i] = null;
+			}
+			
+			size = 0;
+		}
+	}
+	
+	private static final class Step {
+		
+		private final VisualProperty<?> vp;
+		private final VisualMappingFunction<?, ?> mapping;
+		private final Object defaultValue;
+		private final boolean ignoreDefault;
+		/** Dependencies this property is the parent of. */
+		private final Propagation[] propagations;
+		/** Dependencies this property is one of the children of. */
+		private final VisualPropertyDependency<?>[] childOf;
+		
+		Step(final VisualStyleImpl style, final VisualProperty<?> vp) {
+			this.vp = vp;
+			this.mapping = style.getVisualMappingFunction(vp);
+			this.ignoreDefault = vp.shouldIgnoreDefault();
+			
+			Object value = style.getDefaultValue(vp);
+			
+			if (value == null) {
+				style.getStyleDefaults().put(vp, vp.getDefault());
+				value = style.getDefaultValue(vp);
+			}
+			
+			this.defaultValue = value;
+			
+			final List<Propagation> parentList = new ArrayList<Propagation>();
+			final List<VisualPropertyDependency<?>> childList = new ArrayList<VisualPropertyDependency<?>>();
+			
+			for (final VisualPropertyDependency<?> dep : style.getAllVisualPropertyDependencies()) {
+				if (vp.equals(dep.getParentVisualProperty()))
+					parentList.add(new Propagation(vp, dep));
+				if (dep.getVisualProperties().contains(vp))
+					childList.add(dep);
+			}
+			
+			propagations = parentList.toArray(new Propagation[parentList.size()]);
+			childOf = childList.toArray(new VisualPropertyDependency<?>[childList.size()]);
+		}
+		
+		void getMappedValues(final List<CyRow> rows, final Object[] mappedValues) {
+			if (mapping instanceof VectorizedMappingFunction) {
+				((VectorizedMappingFunction<?, ?>) mapping).getMappedValues(rows, mappedValues);
+			} else {
+				for (int i = 0; i < mappedValues.length; i++)
+					mappedValues[i] = mapping.getMappedValue(rows.get(i));
+			}
+		}
+		
+		void apply(final CyRow row, final View<?> view, final Writer writer, final boolean mappedOnly) {
+			apply(mapping != null ? mapping.getMappedValue(row) : null, view, writer, mappedOnly);
+		}
+		
+		void apply(final Object mappedValue, final View<?> view, final Writer writer, final boolean mappedOnly) {
+			final boolean isDefault = mappedValue == null;
+			
+			if (isDefault && mappedOnly)
+				return;
+			
+			final Object value = isDefault ? defaultValue : mappedValue;
+			
+			// If this property has already received a propagated value from a previous
+			// enabled dependency, do not apply this mapping's value over it.
+			if (propagations.length == 0 && !isChildOfEnabledDependency()) {
+				// TODO: Is this correct? Shouldn't default values be applied through CyNetworkView.setViewDefault instead?
+				if (!isDefault || !ignoreDefault)
+					writer.write(view, vp, value);
+			} else {
+				for (final Propagation p : propagations) {
+					// The dependency has a higher priority over children's mappings when enabled.
+					if (p.dependency.isDependencyEnabled())
+						p.propagate(view, value, isDefault, writer);
+				}
+			}
+		}
+		
+		private boolean isChildOfEnabledDependency() {
+			for (final VisualPropertyDependency<?> dep : childOf) {
+				if (dep.isDependencyEnabled())
+					return true;
+			}
+			
+			return false;
+		}
+	}
+	
+	private static final class Propagation {
+		
+		private final VisualPropertyDependency<?> dependency;
+		/** Children that can take the parent's value. */
+		private final VisualProperty<?>[] targets;
+		/** Subset of {@link #targets} that also accept the parent's default value. */
+		private final VisualProperty<?>[] defaultTargets;
+		
+		Propagation(final VisualProperty<?> parent, final VisualPropertyDependency<?> dependency) {
+			this.dependency = dependency;
+			
+			final List<VisualProperty<?>> list = new ArrayList<VisualProperty<?>>();
+			final List<VisualProperty<?>> defaultList = new ArrayList<VisualProperty<?>>();
+			
+			for (final VisualProperty<?> vp : dependency.getVisualProperties()) {
+				// Prevent ClassCastExceptions (the child property can have a different value type)
+				if (parent.getClass() != vp.getClass())
+					continue;
+				
+				list.add(vp);
+				
+				if (!vp.shouldIgnoreDefault())
+					defaultList.add(vp);
+			}
+			
+			targets = list.toArray(new VisualProperty<?>[list.size()]);
+			defaultTargets = defaultList.toArray(new VisualProperty<?>[defaultList.size()]);
+		}
+		
+		void propagate(final View<?> view, final Object value, final boolean isDefaultValue, final Writer writer) {
+			for (final VisualProperty<?> vp : isDefaultValue ? defaultTargets : targets)
+				writer.write(view, vp, value);
+		}
+	}
+}
@@ -25,17 +25,19 @@ package org.cytoscape.view.vizmap.internal;
  */
 
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Deque;
 import java.util.HashSet;
-import java.util.LinkedList;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.concurrent.TimeUnit;
 
-import org.cytoscape.application.CyApplicationManager;
-import org.cytoscape.application.NetworkViewRenderer;
 import org.cytoscape.model.CyEdge;
 import org.cytoscape.model.CyIdentifiable;
 import org.cytoscape.model.CyNetwork;
@@ -48,7 +50,6 @@ import org.cytoscape.view.model.VisualLexicon;
 import org.cytoscape.view.model.VisualLexiconNode;
 import org.cytoscape.view.model.VisualProperty;
 import org.cytoscape.view.presentation.property.BasicVisualLexicon;
-import org.cytoscape.view.vizmap.VisualMappingFunction;
 import org.cytoscape.view.vizmap.VisualPropertyDependency;
 import org.cytoscape.view.vizmap.VisualStyle;
 import org.slf4j.Logger;
@@ -59,6 +60,16 @@ public class ApplyToNetworkHandler extends AbstractApplyHandler<CyNetwork> {
 	
 	private static final Logger logger = LoggerFactory.getLogger(ApplyToNetworkHandler.class);
 
+	/** Minimum number of node or edge views for evaluating mappings on the fork-join pool. */
+	static final int DEFAULT_PARALLEL_THRESHOLD = 10000;
+	/** Number of views whose mappings are evaluated together, by a single fork-join task when in parallel. */
+	private static final int CHUNK_SIZE = 1024;
+	/** Number of chunks evaluated before their values are set on the views. Bounds the buffered values. */
+	private static final int CHUNKS_PER_COMMIT = 64;
+	
+	private volatile ApplyPlan<CyNode> nodePlan;
+	private volatile ApplyPlan<CyEdge> edgePlan;
+	private volatile int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
 	
 	ApplyToNetworkHandler(final VisualStyle style, final CyServiceRegistrar serviceRegistrar) {
 		super(style, serviceRegistrar, CyNetwork.class);
@@ -69,12 +80,8 @@ public class ApplyToNetworkHandler extends AbstractApplyHandler<CyNetwork> {
 		final CyNetworkView netView = (CyNetworkView) view;
 		final Collection<View<CyNode>> nodeViews = netView.getNodeViews();
 		final Collection<View<CyEdge>> edgeViews = netView.getEdgeViews();
-		final Collection<View<CyNetwork>> networkViewSet = new HashSet<View<CyNetwork>>();
-		networkViewSet.add(netView);
+		final List<View<CyNetwork>> networkViewList = Collections.singletonList(view);
 		
-		// Make sure the dependency maps are up to date
-		updateDependencyMaps();
-
 		// Clear visual properties from all views first
 		view.clearVisualProperties();
 		
@@ -85,10 +92,7 @@ public class ApplyToNetworkHandler extends AbstractApplyHandler<CyNetwork> {
 			v.clearVisualProperties();
 		
 		// Get current Visual Lexicon
-		final CyApplicationManager appMgr = serviceRegistrar.getService(CyApplicationManager.class);
-		final VisualLexicon lexicon = appMgr.getCurrentNetworkViewRenderer()
-				.getRenderingEngineFactory(NetworkViewRenderer.DEFAULT_CONTEXT)
-				.getVisualLexicon();
+		final VisualLexicon lexicon = getCurrentLexicon();
 		
 		applyDefaultsInParallel(netView, lexicon.getVisualLexiconNode(BasicVisualLexicon.NODE));
 		applyDefaultsInParallel(netView, lexicon.getVisualLexiconNode(BasicVisualLexicon.EDGE));
@@ -96,10 +100,18 @@ public class ApplyToNetworkHandler extends AbstractApplyHandler<CyNetwork> {
 
 		applyDependencies(netView);
 		
+		final VisualStyleImpl styleImpl = (VisualStyleImpl) style;
+		final ApplyPlan<CyNode> nodePlan = this.nodePlan = ApplyPlan.compile(this.nodePlan, styleImpl, lexicon,
+				BasicVisualLexicon.NODE, CyNode.class);
+		final ApplyPlan<CyEdge> edgePlan = this.edgePlan = ApplyPlan.compile(this.edgePlan, styleImpl, lexicon,
+				BasicVisualLexicon.EDGE, CyEdge.class);
+		final ApplyPlan<CyNetwork> networkPlan = getApplyPlan(lexicon);
+		final CyNetwork net = netView.getModel();
+		
 		final ExecutorService exe = Executors.newCachedThreadPool();
-		exe.submit(new ApplyMappingsTask(netView, nodeViews, BasicVisualLexicon.NODE, lexicon));
-		exe.submit(new ApplyMappingsTask(netView, edgeViews, BasicVisualLexicon.EDGE, lexicon));
-		exe.submit(new ApplyMappingsTask(netView, networkViewSet, BasicVisualLexicon.NETWORK, lexicon));
+		exe.submit(new ApplyMappingsTask<CyNode>(net, new ArrayList<View<CyNode>>(nodeViews), nodePlan));
+		exe.submit(new ApplyMappingsTask<CyEdge>(net, new ArrayList<View<CyEdge>>(edgeViews), edgePlan));
+		exe.submit(new ApplyMappingsTask<CyNetwork>(net, networkViewList, networkPlan));
 		
 		try {
 			exe.shutdown();
@@ -109,6 +121,13 @@ public class ApplyToNetworkHandler extends AbstractApplyHandler<CyNetwork> {
 		}
 	}
 	
+	/**
+	 * Sets the minimum number of node or edge views for which mappings are evaluated in parallel.
+	 */
+	void setParallelThreshold(final int parallelThreshold) {
+		this.parallelThreshold = parallelThreshold;
+	}
+	
 	private void applyDefaultsInParallel(final CyNetworkView netView, final VisualLexiconNode rootNode) {
 		final ExecutorService exe = Executors.newCachedThreadPool();
 		final Deque<VisualLexiconNode> deque = new ArrayDeque<>();
@@ -165,62 +184,89 @@ public class ApplyToNetworkHandler extends AbstractApplyHandler<CyNetwork> {
 		}
 	}
 
-	private final class ApplyMappingsTask implements Runnable {
+	private final class ApplyMappingsTask<T extends CyIdentifiable> implements Runnable {
 
-		private final CyNetworkView netView;
-		private final Collection<? extends View<? extends CyIdentifiable>> views;
-		private final VisualProperty<?> rootVisualProperty;
-		private final VisualLexicon lexicon;
-		
-		ApplyMappingsTask(final CyNetworkView netView,
-						  final Collection<? extends View<? extends CyIdentifiable>> views,
-						  final VisualProperty<?> rootVisualProperty,
-						  final VisualLexicon lexicon) {
-			this.netView = netView;
+		private final CyNetwork net;
+		private final List<View<T>> views;
+		private final ApplyPlan<T> plan;
+		
+		ApplyMappingsTask(final CyNetwork net, final List<View<T>> views, final ApplyPlan<T> plan) {
+			this.net = net;
 			this.views = views;
-			this.rootVisualProperty = rootVisualProperty;
-			this.lexicon = lexicon;
+			this.plan = plan;
 		}
 		
 		@Override
 		public void run() {
-			final Class<? extends CyIdentifiable> targetDataType = rootVisualProperty.getTargetDataType();
-			final LinkedList<VisualLexiconNode> descendants = new LinkedList<VisualLexiconNode>();
-			descendants.addAll(lexicon.getVisualLexiconNode(rootVisualProperty).getChildren());
+			if (!plan.hasMappings())
+				return;
 			
-			while (!descendants.isEmpty()) {
-				final VisualLexiconNode node = descendants.pop();
-				final VisualProperty<?> vp = node.getVisualProperty();
-				
-				if (vp.getTargetDataType() != targetDataType)
-					continue; // Because NETWORK has node/edge properties as descendants as well
+			if (views.size() >= parallelThreshold && ForkJoinPool.getCommonPoolParallelism() > 1) {
+				applyInParallel();
+			} else {
+				for (int from = 0; from < views.size(); from += CHUNK_SIZE)
+					applyChunk(from, Math.min(views.size(), from + CHUNK_SIZE), ApplyPlan.Writer.DIRECT);
+			}
+		}
+		
+		private void applyChunk(final int from, final int to, final ApplyPlan.Writer writer) {
+			final List<View<T>> chunk = views.subList(from, to);
+			final List<CyRow> rows = new ArrayList<CyRow>(chunk.size());
+			
+			for (final View<T> view : chunk)
+				rows.add(net.getRow(view.getModel()));
+			
+			plan.applyMappings(chunk, rows, writer);
+		}
+		
+		/**
+		 * Evaluates the mappings for chunks of views on the fork-join pool, then sets the buffered values
+		 * on the views from this thread, one window of chunks at a time. Each view receives its values
+		 * in the same order as in the serial case, so the result is the same.
+		 */
+		private void applyInParallel() {
+			final int chunks = (views.size() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+			final ApplyPlan.Batch[] batches = new ApplyPlan.Batch[Math.min(chunks, CHUNKS_PER_COMMIT)];
+			
+			for (int i = 0; i < batches.length; i++)
+				batches[i] = new ApplyPlan.Batch();
+			
+			for (int first = 0; first < chunks; first += batches.length) {
+				final int last = Math.min(chunks, first + batches.length);
+				ForkJoinPool.commonPool().invoke(new EvaluateChunksTask(batches, first, first, last));
 				
-				final VisualMappingFunction<?, ?> mapping = style.getVisualMappingFunction(vp);
-
-				if (mapping != null) {
-					final CyNetwork net = netView.getModel();
-					final Set<VisualPropertyDependency<?>> depSet = dependencyParents.get(vp);
-
-					for (final View<? extends CyIdentifiable> view : views) {
-						final Object value = mapping.getMappedValue(net.getRow(view.getModel()));
-						
-						if (value != null) {
-							// If this property has already received a propagated value from a previous
-							// enabled dependency, do not apply this mapping's value over it.
-							if (!isParentOfDependency(vp) && !isChildOfEnabledDependency(vp)) {
-								view.setVisualProperty(vp, value);
-							} else if (depSet != null) {
-								for (final VisualPropertyDependency<?> dep : depSet) {
-									// The dependency has a higher priority over children's mappings when enabled.
-									if (dep.isDependencyEnabled())
-										propagateValue(view, vp, value, dep.getVisualProperties(), false);
-								}
-							}
-						}
-					}
+				for (int i = first; i < last; i++)
+					batches[i - first].commit();
+			}
+		}
+		
+		private final class EvaluateChunksTask extends RecursiveAction {
+			
+			private static final long serialVersionUID = 1L;
+			
+			private final ApplyPlan.Batch[] batches;
+			private final int firstChunk;
+			private final int from;
+			private final int to;
+			
+			EvaluateChunksTask(final ApplyPlan.Batch[] batches, final int firstChunk, final int from, final int to) {
+				this.batches = batches;
+				this.firstChunk = firstChunk;
+				this.from = from;
+				this.to = to;
+			}
+			
+			@Override
+			protected void compute() {
+				if (to - from > 1) {
+					final int mid = (from + to) >>> 1;
+					invokeAll(new EvaluateChunksTask(batches, firstChunk, from, mid),
+							new EvaluateChunksTask(batches, firstChunk, mid, to));
+					return;
 				}
 				
-				descendants.addAll(node.getChildren());
+				applyChunk(from * CHUNK_SIZE, Math.min(views.size(), (from + 1) * CHUNK_SIZE),
+						batches[from - firstChunk]);
 			}
 		}
 	}
@@ -73,6 +73,12 @@ public class VisualStyleImpl implements VisualStyle, VisualMappingFunctionChange
 
 	private final Object lock = new Object();
 	
+	/**
+	 * Incremented whenever mappings, defaults or dependencies change, so the apply handlers can tell whether
+	 * a compiled {@link ApplyPlan} is stale without waiting for the (asynchronous) {@link VisualStyleChangedEvent}.
+	 */
+	private volatile int version;
+	
 	/**
 	 * @param title Title of the new Visual Style
 	 * @param lexManager
@@ -115,6 +121,7 @@ public class VisualStyleImpl implements VisualStyle, VisualMappingFunctionChange
 	public void addVisualMappingFunction(final VisualMappingFunction<?, ?> mapping) {
 		synchronized (lock) {
 			mappings.put(mapping.getVisualProperty(), mapping);
+			version++;
 		}
 		eventHelper.addEventPayload((VisualStyle) this, new VisualStyleChangeRecord(),
 				VisualStyleChangedEvent.class);
@@ -132,6 +139,7 @@ public class VisualStyleImpl implements VisualStyle, VisualMappingFunctionChange
 	public void removeVisualMappingFunction(VisualProperty<?> t) {
 		synchronized (lock) {
 			mappings.remove(t);
+			version++;
 		}
 		eventHelper.addEventPayload((VisualStyle) this, new VisualStyleChangeRecord(),
 				VisualStyleChangedEvent.class);
@@ -149,6 +157,7 @@ public class VisualStyleImpl implements VisualStyle, VisualMappingFunctionChange
 	public <V, S extends V> void setDefaultValue(final VisualProperty<V> vp, final S value) {
 		synchronized (lock) {
 			styleDefaults.put(vp, value);
+			version++;
 		}
 		eventHelper.addEventPayload((VisualStyle) this, new VisualStyleChangeRecord(),
 				VisualStyleChangedEvent.class);
@@ -217,6 +226,10 @@ public class VisualStyleImpl implements VisualStyle, VisualMappingFunctionChange
 		return this.styleDefaults;
 	}
 
+	int getVersion() {
+		return version;
+	}
+
 	@Override
 	public Set<VisualPropertyDependency<?>> getAllVisualPropertyDependencies() {
 		return Collections.unmodifiableSet(dependencies);
@@ -229,6 +242,7 @@ public class VisualStyleImpl implements VisualStyle, VisualMappingFunctionChange
 	public void addVisualPropertyDependency(VisualPropertyDependency<?> dependency) {
 		synchronized (lock) {
 			dependencies.add(dependency);
+			version++;
 		}
 		eventHelper.addEventPayload((VisualStyle) this, new VisualStyleChangeRecord(),
 				VisualStyleChangedEvent.class);
@@ -238,6 +252,7 @@ public class VisualStyleImpl implements VisualStyle, VisualMappingFunctionChange
 	public void removeVisualPropertyDependency(VisualPropertyDependency<?> dependency) {
 		synchronized (lock) {
 			dependencies.remove(dependency);
+			version++;
 		}
 		eventHelper.addEventPayload((VisualStyle) this, new VisualStyleChangeRecord(),
 				VisualStyleChangedEvent.class);
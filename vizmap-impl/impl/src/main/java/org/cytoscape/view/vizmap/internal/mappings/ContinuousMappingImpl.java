@@ -28,7 +28,9 @@ package org.cytoscape.view.vizmap.internal.mappings;
 import java.awt.Color;
 import java.awt.Paint;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 
 import org.cytoscape.event.CyEventHelper;
@@ -41,6 +43,7 @@ import org.cytoscape.view.vizmap.internal.mappings.interpolators.FlatInterpolato
 import org.cytoscape.view.vizmap.internal.mappings.interpolators.Interpolator;
 import org.cytoscape.view.vizmap.internal.mappings.interpolators.LinearNumberToColorInterpolator;
 import org.cytoscape.view.vizmap.internal.mappings.interpolators.LinearNumberToNumberInterpolator;
+import org.cytoscape.view.vizmap.internal.mappings.interpolators.NumberInterpolator;
 import org.cytoscape.view.vizmap.mappings.AbstractVisualMappingFunction;
 import org.cytoscape.view.vizmap.mappings.BoundaryRangeValues;
 import org.cytoscape.view.vizmap.mappings.ContinuousMapping;
@@ -59,7 +62,8 @@ import org.cytoscape.view.vizmap.mappings.ContinuousMappingPoint;
  *            cytoscape.visual.mappings.continuous.README.txt.
  * 
  */
-public class ContinuousMappingImpl<K, V> extends AbstractVisualMappingFunction<K, V> implements ContinuousMapping<K, V> {
+public class ContinuousMappingImpl<K, V> extends AbstractVisualMappingFunction<K, V> implements ContinuousMapping<K, V>,
+		VectorizedMappingFunction<K, V> {
 	
 	// used to interpolate between boundaries
 	private Interpolator<K, V> interpolator;
@@ -210,7 +214,6 @@ public class ContinuousMappingImpl<K, V> extends AbstractVisualMappingFunction<K
 	 * lower boundary value (because the desired domain value is greater) and
 	 * the "lesser" field of the upper boundary value (semantic difficulties).
 	 */
-	@SuppressWarnings("unchecked")
 	private V getRangeValue(int index, K domainValue) {
 		// Get Lower Domain and Range
 		ContinuousMappingPoint<K, V> lowerBound = points.get(index - 1);
@@ -224,8 +227,11 @@ public class ContinuousMappingImpl<K, V> extends AbstractVisualMappingFunction<K
 		BoundaryRangeValues<V> gv = upperBound.getRange();
 		V upperRange = gv.lesserValue;
 		
-		Object value = interpolator.getRangeValue(lowerDomain, lowerRange, upperDomain, upperRange, domainValue);
-		
+		return toRangeType(interpolator.getRangeValue(lowerDomain, lowerRange, upperDomain, upperRange, domainValue));
+	}
+
+	@SuppressWarnings("unchecked")
+	private V toRangeType(Object value) {
 		if (value instanceof Number) {
 			// Number-To-Number Interpolators always return Numbers (or Doubles!),
 			// so let's see if it's necessary to convert it to the correct VisualProperty type
@@ -255,6 +261,144 @@ public class ContinuousMappingImpl<K, V> extends AbstractVisualMappingFunction<K
 		return (V) value;
 	}
 
+	@Override
+	public void getMappedValues(final List<CyRow> rows, final Object[] mappedValues) {
+		final double[] domainValues = new double[rows.size()];
+		int i = 0;
+		
+		for (final CyRow row : rows) {
+			double domainValue = Double.NaN;
+			
+			if (row != null && row.isSet(columnName)) {
+				final K attrValue = row.get(columnName, columnType);
+				
+				if (attrValue != null)
+					domainValue = ((Number) attrValue).doubleValue();
+			}
+			
+			domainValues[i++] = domainValue;
+		}
+		
+		getMappedValues(domainValues, mappedValues);
+	}
+
+	@Override
+	public void getMappedValues(final Iterator<?> columnValues, final Object[] mappedValues) {
+		final double[] domainValues = new double[mappedValues.length];
+		
+		for (int i = 0; i < domainValues.length; i++) {
+			final Object attrValue = columnValues.next();
+			domainValues[i] = attrValue != null ? ((Number) attrValue).doubleValue() : Double.NaN;
+		}
+		
+		getMappedValues(domainValues, mappedValues);
+	}
+
+	/**
+	 * Maps a whole column of numbers at once, using a binary search over the points
+	 * instead of scanning them for every value.
+	 * @param domainValues the column values; NaN where the column is not set.
+	 * @param mappedValues receives the mapped value of each column value, or null.
+	 */
+	@SuppressWarnings("unchecked")
+	public void getMappedValues(final double[] domainValues, final Object[] mappedValues) {
+		final int count = points.size();
+		
+		if (count == 0) {
+			Arrays.fill(mappedValues, 0, domainValues.length, null);
+			return;
+		}
+		
+		// Take a snapshot of the points, so they don't have to be unboxed for every value
+		final double[] domain = new double[count];
+		final Object[] lesser = new Object[count];
+		final Object[] equal = new Object[count];
+		final Object[] greater = new Object[count];
+		boolean sorted = true;
+		boolean nullDomain = false;
+		
+		for (int i = 0; i < count; i++) {
+			final ContinuousMappingPoint<K, V> point = points.get(i);
+			final K value = point.getValue();
+			final BoundaryRangeValues<V> range = point.getRange();
+			domain[i] = value != null ? ((Number) value).doubleValue() : Double.NEGATIVE_INFINITY;
+			nullDomain |= value == null;
+			lesser[i] = range.lesserValue;
+			equal[i] = range.equalValue;
+			greater[i] = range.greaterValue;
+			
+			if (i > 0 && domain[i] < domain[i - 1])
+				sorted = false;
+		}
+		
+		// Number interpolators can work on the primitive values directly
+		final NumberInterpolator<V> numberInterpolator = interpolator instanceof NumberInterpolator && !nullDomain ?
+				(NumberInterpolator<V>) interpolator : null;
+		
+		for (int i = 0; i < domainValues.length; i++) {
+			final double domainValue = domainValues[i];
+			final Object value;
+			
+			if (Double.isNaN(domainValue)) {
+				value = null;
+			} else if (domainValue <= domain[0]) {
+				// Smaller than (or equal to) any in our list
+				value = domainValue < domain[0] ? lesser[0] : equal[0];
+			} else if (domainValue > domain[count - 1]) {
+				// Larger than any in our list
+				value = greater[count - 1];
+			} else if (interpolator == null) {
+				value = null;
+			} else {
+				// The first point that is not smaller than the value; there is always one, the last one
+				final int index = sorted ? lowerBound(domain, domainValue) : linearSearch(domain, domainValue);
+				
+				if (domain[index] == domainValue) {
+					value = equal[index];
+				} else {
+					// Interpolate between the "greater" value of the lower point and the "lesser" value of the upper one
+					final V lowerRange = (V) greater[index - 1];
+					final V upperRange = (V) lesser[index];
+					
+					if (numberInterpolator != null) {
+						value = lowerRange == null || upperRange == null ? null : toRangeType(numberInterpolator
+								.getRangeValue(domain[index - 1], lowerRange, domain[index], upperRange, domainValue));
+					} else {
+						value = toRangeType(interpolator.getRangeValue(points.get(index - 1).getValue(), lowerRange,
+								points.get(index).getValue(), upperRange, (K) Double.valueOf(domainValue)));
+					}
+				}
+			}
+			
+			mappedValues[i] = value;
+		}
+	}
+
+	private static int lowerBound(final double[] domain, final double value) {
+		int low = 0;
+		int high = domain.length - 1;
+		
+		while (low < high) {
+			final int mid = (low + high) >>> 1;
+			
+			if (domain[mid] < value)
+				low = mid + 1;
+			else
+				high = mid;
+		}
+		
+		return low;
+	}
+
+	private static int linearSearch(final double[] domain, final double value) {
+		int index = 0;
+		
+		while (index < domain.length - 1 && domain[index] < value)
+			index++;
+		
+		return index;
+	}
+
 	/**
 	 * Helper function to compare Number objects. This is needed because Java
 	 * doesn't allow comparing, for example, Integer objects to Double objects.
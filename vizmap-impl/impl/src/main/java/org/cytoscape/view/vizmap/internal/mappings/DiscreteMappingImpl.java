@@ -26,12 +26,14 @@ package org.cytoscape.view.vizmap.internal.mappings;
 
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
 import org.cytoscape.event.CyEventHelper;
 import org.cytoscape.model.CyColumn;
 import org.cytoscape.model.CyRow;
+import org.cytoscape.model.CyTable;
 import org.cytoscape.view.model.VisualProperty;
 import org.cytoscape.view.vizmap.VisualMappingFunction;
 import org.cytoscape.view.vizmap.events.VisualMappingFunctionChangeRecord;
@@ -44,7 +46,8 @@ import org.cytoscape.view.vizmap.mappings.DiscreteMapping;
  * data value is extracted from a bundle of attributes by using a specified data
  * attribute name.
  */
-public class DiscreteMappingImpl<K, V> extends AbstractVisualMappingFunction<K, V> implements DiscreteMapping<K, V> {
+public class DiscreteMappingImpl<K, V> extends AbstractVisualMappingFunction<K, V> implements DiscreteMapping<K, V>,
+		VectorizedMappingFunction<K, V> {
 
 	// contains the actual map elements (sorted)
 	private final Map<K, V> attribute2visualMap;
@@ -78,27 +81,63 @@ public class DiscreteMappingImpl<K, V> extends AbstractVisualMappingFunction<K,
 			final CyColumn column = row.getTable().getColumn(columnName);
 			final Class<?> attrClass = column.getType();
 
-			if (attrClass.isAssignableFrom(List.class)) {
-				List<?> list = row.getList(columnName, column.getListElementType());
+			if (attrClass.isAssignableFrom(List.class))
+				value = mapColumnValue(row.getList(columnName, column.getListElementType()));
+			else
+				value = mapColumnValue(row.get(columnName, columnType));
+		}
 
-				if (list != null) {
-					for (Object item : list) {
-						// TODO: should we convert other types to String?
-						String key = item.toString();
-						value = attribute2visualMap.get(key);
+		return value;
+	}
 
-						if (value != null)
-							break;
-					}
+	@Override
+	public void getMappedValues(final List<CyRow> rows, final Object[] mappedValues) {
+		CyTable table = null;
+		boolean isList = false;
+		Class<?> listElementType = null;
+		int i = 0;
+		
+		for (final CyRow row : rows) {
+			Object attrValue = null;
+			
+			if (row != null && row.isSet(columnName)) {
+				// Look the column up once per table, not once per row
+				if (row.getTable() != table) {
+					table = row.getTable();
+					final CyColumn column = table.getColumn(columnName);
+					isList = column.getType().isAssignableFrom(List.class);
+					listElementType = column.getListElementType();
 				}
-			} else {
-				K key = row.get(columnName, columnType);
-
-				if (key != null)
-					value = attribute2visualMap.get(key);
+				
+				attrValue = isList ? row.getList(columnName, listElementType) : row.get(columnName, columnType);
 			}
+			
+			mappedValues[i++] = mapColumnValue(attrValue);
 		}
+	}
 
+	@Override
+	public void getMappedValues(final Iterator<?> columnValues, final Object[] mappedValues) {
+		for (int i = 0; i < mappedValues.length; i++)
+			mappedValues[i] = mapColumnValue(columnValues.next());
+	}
+
+	private V mapColumnValue(final Object attrValue) {
+		V value = null;
+		
+		if (attrValue instanceof List) {
+			for (Object item : (List<?>) attrValue) {
+				// TODO: should we convert other types to String?
+				String key = item.toString();
+				value = attribute2visualMap.get(key);
+
+				if (value != null)
+					break;
+			}
+		} else if (attrValue != null) {
+			value = attribute2visualMap.get(attrValue);
+		}
+		
 		return value;
 	}
 
@@ -24,9 +24,13 @@ package org.cytoscape.view.vizmap.internal.mappings;
  * #L%
  */
 
+import java.util.Iterator;
+import java.util.List;
+
 import org.cytoscape.event.CyEventHelper;
 import org.cytoscape.model.CyColumn;
 import org.cytoscape.model.CyRow;
+import org.cytoscape.model.CyTable;
 import org.cytoscape.view.model.VisualProperty;
 import org.cytoscape.view.vizmap.mappings.AbstractVisualMappingFunction;
 import org.cytoscape.view.vizmap.mappings.PassthroughMapping;
@@ -35,7 +39,7 @@ import org.cytoscape.view.vizmap.mappings.ValueTranslator;
 /**
  */
 public class PassthroughMappingImpl<K, V> extends AbstractVisualMappingFunction<K, V> implements
-		PassthroughMapping<K, V> {
+		PassthroughMapping<K, V>, VectorizedMappingFunction<K, V> {
 
 	private final ValueTranslator<K, V> translator;
 
@@ -75,16 +79,70 @@ public class PassthroughMappingImpl<K, V> extends AbstractVisualMappingFunction<
 				return null;
 			}
 			
-			Object value = translator.translate(tableValue);
-			
-			if (value instanceof String)
-				value = vp.parseSerializableString((String) value);
+			return translate(tableValue);
+		}
+		
+		return null;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public void getMappedValues(final List<CyRow> rows, final Object[] mappedValues) {
+		CyTable table = null;
+		Class<?> columnClass = null;
+		int i = 0;
+		
+		for (final CyRow row : rows) {
+			V value = null;
 			
-			if (value != null) {
-				try {
-					return (V) value;
-				} catch (ClassCastException cce) {
+			if (row != null && row.isSet(columnName)) {
+				// Look the column up once per table, not once per row
+				if (row.getTable() != table) {
+					table = row.getTable();
+					final CyColumn column = table.getColumn(columnName);
+					columnClass = column != null ? column.getType() : null;
 				}
+				
+				if (columnClass != null) {
+					K tableValue = null;
+					boolean valid = true;
+					
+					try {
+						tableValue = (K) row.get(columnName, columnClass);
+					} catch (ClassCastException cce) {
+						// Invalid
+						valid = false;
+					}
+					
+					if (valid)
+						value = translate(tableValue);
+				}
+			}
+			
+			mappedValues[i++] = value;
+		}
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public void getMappedValues(final Iterator<?> columnValues, final Object[] mappedValues) {
+		for (int i = 0; i < mappedValues.length; i++) {
+			final Object tableValue = columnValues.next();
+			mappedValues[i] = tableValue != null ? translate((K) tableValue) : null;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private V translate(final K tableValue) {
+		Object value = translator.translate(tableValue);
+		
+		if (value instanceof String)
+			value = vp.parseSerializableString((String) value);
+		
+		if (value != null) {
+			try {
+				return (V) value;
+			} catch (ClassCastException cce) {
 			}
 		}
 		
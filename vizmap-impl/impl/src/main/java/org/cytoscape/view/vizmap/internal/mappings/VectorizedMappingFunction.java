@@ -0,0 +1,53 @@
+package org.cytoscape.view.vizmap.internal.mappings;
+
+/*
+ * #%L
+ * Cytoscape VizMap Impl (vizmap-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.util.Iterator;
+import java.util.List;
+
+import org.cytoscape.model.CyRow;
+import org.cytoscape.view.vizmap.VisualMappingFunction;
+
+/**
+ * A {@link VisualMappingFunction} that can map the values of many rows in a single pass,
+ * instead of being called once per {@link CyRow}.
+ */
+public interface VectorizedMappingFunction<K, V> extends VisualMappingFunction<K, V> {
+
+	/**
+	 * Maps the values of the mapping column.
+	 * @param columnValues the column values, one per row; null where the column is not set.
+	 * @param mappedValues receives the mapped value of each column value, in the same order,
+	 *                     or null where nothing is mapped. Its length is the number of values mapped.
+	 */
+	void getMappedValues(Iterator<?> columnValues, Object[] mappedValues);
+
+	/**
+	 * Gives the same results as calling {@link #getMappedValue(CyRow)} for each of the rows.
+	 * @param rows the rows to map.
+	 * @param mappedValues receives the mapped value of each row, in the same order.
+	 */
+	void getMappedValues(List<CyRow> rows, Object[] mappedValues);
+}
@@ -0,0 +1,128 @@
+package org.cytoscape.view.vizmap.internal;
+
+/*
+ * #%L
+ * Cytoscape VizMap Impl (vizmap-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.awt.Color;
+import java.awt.Paint;
+
+import org.cytoscape.application.CyApplicationManager;
+import org.cytoscape.application.NetworkViewRenderer;
+import org.cytoscape.ding.NetworkViewTestSupport;
+import org.cytoscape.event.CyEventHelper;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyTable;
+import org.cytoscape.service.util.CyServiceRegistrar;
+import org.cytoscape.view.model.CyNetworkView;
+import org.cytoscape.view.presentation.RenderingEngineFactory;
+import org.cytoscape.view.presentation.property.BasicVisualLexicon;
+import org.cytoscape.view.presentation.property.NullVisualProperty;
+import org.cytoscape.view.vizmap.VisualMappingFunctionFactory;
+import org.cytoscape.view.vizmap.VisualStyle;
+import org.cytoscape.view.vizmap.internal.mappings.DiscreteMappingImpl;
+import org.cytoscape.view.vizmap.mappings.DiscreteMapping;
+
+
+/**
+ * Compares the nodes per second styled by ApplyToNetworkHandler when the mappings
+ * are evaluated serially and when they are split across the common pool.
+ * Not a unit test; run it with main().
+ */
+public class ParallelApplyBenchmark {
+
+	private static final String ATTR_NAME = "Sample attr 1";
+
+	@SuppressWarnings("unchecked")
+	public static void main(String[] args) throws Exception {
+		final int numNodes = args.length > 0 ? Integer.parseInt(args[0]) : 50000;
+		final int repeat = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+		final NetworkViewTestSupport nvts = new NetworkViewTestSupport();
+		final CyNetwork network = nvts.getNetworkFactory().createNetwork();
+		final CyTable nodeTable = network.getDefaultNodeTable();
+		nodeTable.createColumn(ATTR_NAME, String.class, true);
+
+		final String[] values = { "red", "green", "foo", null };
+		for (int i = 0; i < numNodes; i++)
+			network.getRow(network.addNode()).set(ATTR_NAME, values[i % values.length]);
+
+		final CyNetworkView networkView = nvts.getNetworkViewFactory().createNetworkView(network);
+
+		final BasicVisualLexicon lexicon = new BasicVisualLexicon(new NullVisualProperty("ROOT", "Root"));
+		final RenderingEngineFactory<CyNetwork> reFactory = mock(RenderingEngineFactory.class);
+		when(reFactory.getVisualLexicon()).thenReturn(lexicon);
+		final NetworkViewRenderer nvRenderer = mock(NetworkViewRenderer.class);
+		when(nvRenderer.getRenderingEngineFactory(NetworkViewRenderer.DEFAULT_CONTEXT)).thenReturn(reFactory);
+		final CyApplicationManager appManager = mock(CyApplicationManager.class);
+		when(appManager.getCurrentNetworkViewRenderer()).thenReturn(nvRenderer);
+
+		final CyEventHelper eventHelper = mock(CyEventHelper.class);
+		final CyServiceRegistrar serviceRegistrar = mock(CyServiceRegistrar.class);
+		when(serviceRegistrar.getService(CyEventHelper.class)).thenReturn(eventHelper);
+		when(serviceRegistrar.getService(CyApplicationManager.class)).thenReturn(appManager);
+
+		final VisualStyle style = new VisualStyleFactoryImpl(serviceRegistrar, mock(VisualMappingFunctionFactory.class))
+				.createVisualStyle("Benchmark");
+
+		final DiscreteMapping<String, Paint> colorMapping = new DiscreteMappingImpl<String, Paint>(ATTR_NAME,
+				String.class, BasicVisualLexicon.NODE_FILL_COLOR, eventHelper);
+		colorMapping.putMapValue("red", Color.RED);
+		colorMapping.putMapValue("green", Color.GREEN);
+		style.addVisualMappingFunction(colorMapping);
+
+		final DiscreteMapping<String, Double> widthMapping = new DiscreteMappingImpl<String, Double>(ATTR_NAME,
+				String.class, BasicVisualLexicon.NODE_WIDTH, eventHelper);
+		widthMapping.putMapValue("red", 10d);
+		widthMapping.putMapValue("foo", 30d);
+		style.addVisualMappingFunction(widthMapping);
+
+		final ApplyToNetworkHandler serialHandler = new ApplyToNetworkHandler(style, serviceRegistrar);
+		serialHandler.setParallelThreshold(Integer.MAX_VALUE);
+		final ApplyToNetworkHandler parallelHandler = new ApplyToNetworkHandler(style, serviceRegistrar);
+		parallelHandler.setParallelThreshold(1);
+
+		// Warm up
+		serialHandler.apply(null, networkView);
+		parallelHandler.apply(null, networkView);
+
+		long serial = 0;
+		long parallel = 0;
+
+		for (int i = 0; i < repeat; i++) {
+			long start = System.nanoTime();
+			serialHandler.apply(null, networkView);
+			serial += System.nanoTime() - start;
+
+			start = System.nanoTime();
+			parallelHandler.apply(null, networkView);
+			parallel += System.nanoTime() - start;
+		}
+
+		System.out.println("Serial apply:   " + ((long) numNodes * repeat * 1000000000L / serial) + " nodes/sec");
+		System.out.println("Parallel apply: " + ((long) numNodes * repeat * 1000000000L / parallel) + " nodes/sec");
+	}
+}
@@ -29,6 +29,7 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import java.awt.Color;
+import java.awt.Paint;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
@@ -42,6 +43,7 @@ import org.cytoscape.event.CyEventHelper;
 import org.cytoscape.model.CyIdentifiable;
 import org.cytoscape.model.CyNetwork;
 import org.cytoscape.model.CyNode;
+import org.cytoscape.model.CyRow;
 import org.cytoscape.model.CyTable;
 import org.cytoscape.service.util.CyServiceRegistrar;
 import org.cytoscape.view.model.CyNetworkView;
@@ -52,14 +54,20 @@ import org.cytoscape.view.presentation.RenderingEngineFactory;
 import org.cytoscape.view.presentation.property.BasicVisualLexicon;
 import org.cytoscape.view.presentation.property.NullVisualProperty;
 import org.cytoscape.view.vizmap.AbstractVisualStyleTest;
+import org.cytoscape.view.vizmap.VisualMappingFunction;
 import org.cytoscape.view.vizmap.VisualMappingFunctionFactory;
 import org.cytoscape.view.vizmap.internal.VisualStyleFactoryImpl;
+import org.cytoscape.view.vizmap.internal.mappings.DiscreteMappingImpl;
+import org.cytoscape.view.vizmap.mappings.DiscreteMapping;
 import org.junit.Before;
 import org.junit.Test;
 
 public class VisualStyleTest extends AbstractVisualStyleTest {
 	
 	private static final int NETWORK_SIZE = 5000;
+	
+	private CyServiceRegistrar serviceRegistrar;
+	private CyEventHelper eventHelper;
 
 	@Before
 	@SuppressWarnings("unchecked")
@@ -87,7 +95,7 @@ public class VisualStyleTest extends AbstractVisualStyleTest {
 		lexSet.add(minimalLex);
 
 		final VisualMappingFunctionFactory ptFactory = mock(VisualMappingFunctionFactory.class);
-		final CyEventHelper eventHelper = mock(CyEventHelper.class);
+		eventHelper = mock(CyEventHelper.class);
 		
 		final RenderingEngineFactory<CyNetwork> reFatory = mock(RenderingEngineFactory.class);
 		when(reFatory.getVisualLexicon()).thenReturn(minimalLex);
@@ -98,7 +106,7 @@ public class VisualStyleTest extends AbstractVisualStyleTest {
 		final CyApplicationManager appManager = mock(CyApplicationManager.class);
 		when(appManager.getCurrentNetworkViewRenderer()).thenReturn(nvRenderer);
 		
-		final CyServiceRegistrar serviceRegistrar = mock(CyServiceRegistrar.class);
+		serviceRegistrar = mock(CyServiceRegistrar.class);
 		when(serviceRegistrar.getService(CyEventHelper.class)).thenReturn(eventHelper);
 		when(serviceRegistrar.getService(CyApplicationManager.class)).thenReturn(appManager);
 		
@@ -164,6 +172,117 @@ public class VisualStyleTest extends AbstractVisualStyleTest {
 		return System.currentTimeMillis() - start2;
 	}
 	
+	@Test
+	public void testParallelApplyMatchesSerialApply() {
+		final CyNetwork largeNetwork = createLargeNetwork();
+		final NetworkViewTestSupport nvts = new NetworkViewTestSupport();
+		final CyNetworkView serialView = nvts.getNetworkViewFactory().createNetworkView(largeNetwork);
+		final CyNetworkView parallelView = nvts.getNetworkViewFactory().createNetworkView(largeNetwork);
+		addLargeNetworkMappings();
+		
+		createApplyHandler(Integer.MAX_VALUE).apply(null, serialView);
+		createApplyHandler(1).apply(null, parallelView);
+		
+		assertSameNodeValues(largeNetwork, serialView, parallelView);
+	}
+	
+	@Test
+	public void testParallelReapplyMatchesSerialApply() {
+		final CyNetwork largeNetwork = createLargeNetwork();
+		final NetworkViewTestSupport nvts = new NetworkViewTestSupport();
+		final CyNetworkView serialView = nvts.getNetworkViewFactory().createNetworkView(largeNetwork);
+		final CyNetworkView parallelView = nvts.getNetworkViewFactory().createNetworkView(largeNetwork);
+		addLargeNetworkMappings();
+		
+		final ApplyToNetworkHandler parallelHandler = createApplyHandler(1);
+		parallelHandler.apply(null, parallelView);
+		
+		// Change the mapped column so that every node gets a different value on the second pass
+		final String[] values = { "foo", "red", null, "green" };
+		int i = 0;
+		
+		for (final CyNode node : largeNetwork.getNodeList())
+			largeNetwork.getRow(node).set(attrName, values[i++ % values.length]);
+		
+		createApplyHandler(Integer.MAX_VALUE).apply(null, serialView);
+		parallelHandler.apply(null, parallelView);
+		
+		assertSameNodeValues(largeNetwork, serialView, parallelView);
+	}
+	
+	private void assertSameNodeValues(final CyNetwork largeNetwork, final CyNetworkView serialView,
+			final CyNetworkView parallelView) {
+		final VisualLexicon lexicon = new BasicVisualLexicon(new NullVisualProperty("ROOT", "Root"));
+		
+		for (final CyNode node : largeNetwork.getNodeList()) {
+			final View<CyNode> serialNodeView = serialView.getNodeView(node);
+			final View<CyNode> parallelNodeView = parallelView.getNodeView(node);
+			
+			for (final VisualProperty<?> vp : lexicon.getAllDescendants(BasicVisualLexicon.NODE))
+				assertEquals(vp.getIdString(), serialNodeView.getVisualProperty(vp),
+						parallelNodeView.getVisualProperty(vp));
+		}
+	}
+	
+	private CyNetwork createLargeNetwork() {
+		final CyNetwork largeNetwork = new NetworkViewTestSupport().getNetworkFactory().createNetwork();
+		final CyTable nodeTable = largeNetwork.getDefaultNodeTable();
+		nodeTable.createColumn(attrName, String.class, true);
+		
+		final String[] values = { "red", "green", "foo", null };
+		
+		for (int i = 0; i < NETWORK_SIZE; i++)
+			largeNetwork.getRow(largeNetwork.addNode()).set(attrName, values[i % values.length]);
+		
+		return largeNetwork;
+	}
+	
+	private void addLargeNetworkMappings() {
+		final DiscreteMapping<String, Paint> colorMapping = new DiscreteMappingImpl<String, Paint>(attrName,
+				String.class, BasicVisualLexicon.NODE_FILL_COLOR, eventHelper);
+		colorMapping.putMapValue("red", Color.RED);
+		colorMapping.putMapValue("green", Color.GREEN);
+		style.addVisualMappingFunction(colorMapping);
+		
+		final DiscreteMapping<String, Double> widthMapping = new DiscreteMappingImpl<String, Double>(attrName,
+				String.class, BasicVisualLexicon.NODE_WIDTH, eventHelper);
+		widthMapping.putMapValue("red", 10d);
+		widthMapping.putMapValue("foo", 30d);
+		style.addVisualMappingFunction(widthMapping);
+	}
+	
+	private ApplyToNetworkHandler createApplyHandler(final int parallelThreshold) {
+		final ApplyToNetworkHandler handler = new ApplyToNetworkHandler(style, serviceRegistrar);
+		handler.setParallelThreshold(parallelThreshold);
+		
+		return handler;
+	}
+	
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testApplyToRowAfterStyleChanges() {
+		final View<CyNode> nodeView1 = networkView.getNodeView(node1);
+		final CyRow row = network.getRow(node1);
+		
+		style.setDefaultValue(BasicVisualLexicon.NODE_FILL_COLOR, Color.blue);
+		style.apply(row, nodeView1);
+		assertEquals(Color.blue, nodeView1.getVisualProperty(BasicVisualLexicon.NODE_FILL_COLOR));
+		
+		// The event helper is a mock, so no VisualStyleChangedEvent is ever delivered:
+		// the compiled apply plan must still notice these changes
+		final VisualMappingFunction<String, Paint> mapping = mock(VisualMappingFunction.class);
+		when(mapping.getVisualProperty()).thenReturn(BasicVisualLexicon.NODE_FILL_COLOR);
+		when(mapping.getMappedValue(row)).thenReturn(Color.red);
+		style.addVisualMappingFunction(mapping);
+		style.apply(row, nodeView1);
+		assertEquals(Color.red, nodeView1.getVisualProperty(BasicVisualLexicon.NODE_FILL_COLOR));
+		
+		style.removeVisualMappingFunction(BasicVisualLexicon.NODE_FILL_COLOR);
+		style.setDefaultValue(BasicVisualLexicon.NODE_FILL_COLOR, Color.green);
+		style.apply(row, nodeView1);
+		assertEquals(Color.green, nodeView1.getVisualProperty(BasicVisualLexicon.NODE_FILL_COLOR));
+	}
+	
 	@Test
 	public void testNodeBypass() {
 
@@ -0,0 +1,109 @@
+package org.cytoscape.view.vizmap.internal.mappings;
+
+/*
+ * #%L
+ * Cytoscape VizMap Impl (vizmap-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.awt.Color;
+import java.awt.Paint;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.cytoscape.event.CyEventHelper;
+import org.cytoscape.model.CyRow;
+import org.cytoscape.view.presentation.property.BasicVisualLexicon;
+import org.cytoscape.view.vizmap.internal.mappings.ContinuousMappingImpl;
+import org.cytoscape.view.vizmap.mappings.BoundaryRangeValues;
+import org.junit.Test;
+
+public class ContinuousMappingTest {
+
+	private static final String ATTR_NAME = "score";
+
+	@Test
+	public void testColorGradientMatchesRowMapping() {
+		final ContinuousMappingImpl<Double, Paint> mapping = new ContinuousMappingImpl<Double, Paint>(ATTR_NAME,
+				Double.class, BasicVisualLexicon.NODE_FILL_COLOR, mock(CyEventHelper.class));
+		mapping.addPoint(0d, new BoundaryRangeValues<Paint>(Color.BLACK, Color.BLUE, Color.BLUE));
+		mapping.addPoint(5d, new BoundaryRangeValues<Paint>(Color.GREEN, Color.GREEN, Color.GREEN));
+		mapping.addPoint(10d, new BoundaryRangeValues<Paint>(Color.RED, Color.RED, Color.WHITE));
+		
+		assertSameAsRowMapping(mapping);
+	}
+	
+	@Test
+	public void testSizeGradientMatchesRowMapping() {
+		final ContinuousMappingImpl<Double, Double> mapping = new ContinuousMappingImpl<Double, Double>(ATTR_NAME,
+				Double.class, BasicVisualLexicon.NODE_SIZE, mock(CyEventHelper.class));
+		mapping.addPoint(0d, new BoundaryRangeValues<Double>(1d, 10d, 10d));
+		mapping.addPoint(2.5d, new BoundaryRangeValues<Double>(20d, 25d, 30d));
+		mapping.addPoint(2.5d, new BoundaryRangeValues<Double>(40d, 45d, 50d));
+		mapping.addPoint(10d, new BoundaryRangeValues<Double>(100d, 100d, 200d));
+		
+		assertSameAsRowMapping(mapping);
+	}
+	
+	@Test
+	public void testColumnValues() {
+		final ContinuousMappingImpl<Double, Double> mapping = new ContinuousMappingImpl<Double, Double>(ATTR_NAME,
+				Double.class, BasicVisualLexicon.NODE_SIZE, mock(CyEventHelper.class));
+		mapping.addPoint(0d, new BoundaryRangeValues<Double>(1d, 10d, 10d));
+		mapping.addPoint(10d, new BoundaryRangeValues<Double>(100d, 100d, 200d));
+		
+		final Object[] mappedValues = new Object[6];
+		mapping.getMappedValues(new double[] { -1d, 0d, 5d, 10d, 11d, Double.NaN }, mappedValues);
+		assertArrayEquals(new Object[] { 1d, 10d, 55d, 100d, 200d, null }, mappedValues);
+		
+		mapping.getMappedValues(Arrays.asList(-1d, 0d, 5d, 10d, 11d, null).iterator(), mappedValues);
+		assertArrayEquals(new Object[] { 1d, 10d, 55d, 100d, 200d, null }, mappedValues);
+	}
+	
+	private static void assertSameAsRowMapping(final ContinuousMappingImpl<Double, ?> mapping) {
+		final List<CyRow> rows = new ArrayList<CyRow>();
+		rows.add(createRow(null));
+		rows.add(createRow(Double.NaN));
+		
+		for (double value = -1d; value <= 11d; value += 0.25d)
+			rows.add(createRow(value));
+		
+		final Object[] mappedValues = new Object[rows.size()];
+		mapping.getMappedValues(rows, mappedValues);
+		
+		for (int i = 0; i < rows.size(); i++)
+			assertEquals(mapping.getMappedValue(rows.get(i)), mappedValues[i]);
+	}
+	
+	private static CyRow createRow(final Double value) {
+		final CyRow row = mock(CyRow.class);
+		when(row.isSet(ATTR_NAME)).thenReturn(value != null);
+		when(row.get(ATTR_NAME, Double.class)).thenReturn(value);
+		
+		return row;
+	}
+}
@@ -24,12 +24,14 @@ package org.cytoscape.view.vizmap.internal.mappings;
  * #L%
  */
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.mockito.Mockito.*;
 
 import java.awt.Color;
 import java.awt.Paint;
+import java.util.Arrays;
 
 import org.cytoscape.event.CyEventHelper;
 import org.cytoscape.view.presentation.property.BasicVisualLexicon;
@@ -65,6 +67,18 @@ public class DiscreteMappingTest {
 		assertNull(mapping.getMapValue("g"));
 	}
 
+	@Test
+	public void testColumnValues() {
+		final DiscreteMappingImpl<String, Paint> mapping = (DiscreteMappingImpl<String, Paint>) createDiscreteMapping(
+				"sample attr 1");
+		mapping.putMapValue("r", Color.RED);
+		mapping.putMapValue("g", Color.GREEN);
+
+		final Object[] mappedValues = new Object[4];
+		mapping.getMappedValues(Arrays.asList("r", null, "p", Arrays.asList("p", "g")).iterator(), mappedValues);
+		assertArrayEquals(new Object[] { Color.RED, null, null, Color.GREEN }, mappedValues);
+	}
+
 	private DiscreteMapping<String, Paint> createDiscreteMapping(final String attrName) {
 
 		final Class<String> type = String.class;
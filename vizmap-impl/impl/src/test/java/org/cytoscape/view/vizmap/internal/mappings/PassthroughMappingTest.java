@@ -0,0 +1,185 @@
+package org.cytoscape.view.vizmap.internal.mappings;
+
+/*
+ * #%L
+ * Cytoscape VizMap Impl (vizmap-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.awt.Color;
+import java.awt.Paint;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.cytoscape.event.CyEventHelper;
+import org.cytoscape.model.CyColumn;
+import org.cytoscape.model.CyRow;
+import org.cytoscape.model.CyTable;
+import org.cytoscape.view.presentation.property.BasicVisualLexicon;
+import org.cytoscape.view.vizmap.mappings.ValueTranslator;
+import org.junit.Test;
+
+public class PassthroughMappingTest {
+
+	private static final String ATTR_NAME = "value";
+
+	@Test
+	public void testNumbersMatchRowMapping() {
+		final PassthroughMappingImpl<Object, Double> mapping = new PassthroughMappingImpl<Object, Double>(ATTR_NAME,
+				Object.class, BasicVisualLexicon.NODE_SIZE, stringTranslator(Double.class), mock(CyEventHelper.class));
+		
+		// The values are converted to strings, which are parsed as numbers
+		final CyTable intTable = createTable(Integer.class);
+		final CyTable doubleTable = createTable(Double.class);
+		final CyTable stringTable = createTable(String.class);
+		final CyTable tableWithoutColumn = createTable(null);
+		
+		final List<CyRow> rows = new ArrayList<CyRow>();
+		rows.add(null);
+		rows.add(createRow(intTable, Integer.class, null));
+		rows.add(createRow(intTable, Integer.class, 25));
+		rows.add(createRow(doubleTable, Double.class, 2.5d));
+		rows.add(createRow(intTable, Integer.class, -3));
+		rows.add(createRow(stringTable, String.class, "12.5"));
+		rows.add(createRow(tableWithoutColumn, Integer.class, 7));
+		rows.add(createRow(doubleTable, Double.class, null));
+		rows.add(createRow(doubleTable, Double.class, 0d));
+		rows.add(createInvalidRow(intTable, Integer.class));
+		rows.add(createRow(intTable, Integer.class, 100));
+		
+		final Object[] mappedValues = assertSameAsRowMapping(mapping, rows);
+		assertArrayEquals(new Object[] { null, null, 25d, 2.5d, -3d, 12.5d, null, null, 0d, null, 100d },
+				mappedValues);
+	}
+	
+	@Test
+	public void testColorsMatchRowMapping() {
+		final PassthroughMappingImpl<String, Paint> mapping = new PassthroughMappingImpl<String, Paint>(ATTR_NAME,
+				String.class, BasicVisualLexicon.NODE_FILL_COLOR, new ColorTranslator(), mock(CyEventHelper.class));
+		final CyTable table = createTable(String.class);
+		
+		final List<CyRow> rows = new ArrayList<CyRow>();
+		rows.add(createRow(table, String.class, "#FF0000"));
+		rows.add(createRow(table, String.class, null));
+		rows.add(createRow(table, String.class, "#0000FF"));
+		rows.add(null);
+		
+		final Object[] mappedValues = assertSameAsRowMapping(mapping, rows);
+		assertArrayEquals(new Object[] { Color.RED, null, Color.BLUE, null }, mappedValues);
+	}
+	
+	@Test
+	public void testListsMatchRowMapping() {
+		final PassthroughMappingImpl<Object, String> mapping = new PassthroughMappingImpl<Object, String>(ATTR_NAME,
+				Object.class, BasicVisualLexicon.NODE_LABEL, new StringTranslator(), mock(CyEventHelper.class));
+		final CyTable listTable = createTable(List.class);
+		final CyTable longTable = createTable(Long.class);
+		
+		final List<CyRow> rows = new ArrayList<CyRow>();
+		rows.add(createRow(listTable, List.class, Arrays.asList("a", "b", "c")));
+		rows.add(createRow(longTable, Long.class, 42L));
+		rows.add(createRow(listTable, List.class, new ArrayList<String>()));
+		rows.add(createRow(listTable, List.class, null));
+		
+		final Object[] mappedValues = assertSameAsRowMapping(mapping, rows);
+		assertArrayEquals(new Object[] { "a\nb\nc", "42", "", null }, mappedValues);
+	}
+	
+	@Test
+	public void testColumnValues() {
+		final PassthroughMappingImpl<Object, Double> mapping = new PassthroughMappingImpl<Object, Double>(ATTR_NAME,
+				Object.class, BasicVisualLexicon.NODE_SIZE, stringTranslator(Double.class), mock(CyEventHelper.class));
+		final CyTable table = createTable(Integer.class);
+		final List<Integer> columnValues = Arrays.asList(1, null, 30, -4, null);
+		
+		final Object[] mappedValues = new Object[columnValues.size()];
+		mapping.getMappedValues(columnValues.iterator(), mappedValues);
+		
+		for (int i = 0; i < columnValues.size(); i++)
+			assertEquals(mapping.getMappedValue(createRow(table, Integer.class, columnValues.get(i))),
+					mappedValues[i]);
+		
+		assertArrayEquals(new Object[] { 1d, null, 30d, -4d, null }, mappedValues);
+	}
+	
+	/**
+	 * @return the translator of the passthrough mappings whose visual property has no translator of its own
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static <V> ValueTranslator<Object, V> stringTranslator(final Class<V> type) {
+		return (ValueTranslator) new StringTranslator();
+	}
+	
+	private static Object[] assertSameAsRowMapping(final PassthroughMappingImpl<?, ?> mapping, final List<CyRow> rows) {
+		final Object[] mappedValues = new Object[rows.size()];
+		mapping.getMappedValues(rows, mappedValues);
+		
+		for (int i = 0; i < rows.size(); i++)
+			assertEquals(mapping.getMappedValue(rows.get(i)), mappedValues[i]);
+		
+		return mappedValues;
+	}
+	
+	/**
+	 * @param type the type of the mapped column, or null if the table doesn't have it
+	 */
+	private static CyTable createTable(final Class<?> type) {
+		final CyTable table = mock(CyTable.class);
+		
+		if (type != null) {
+			final CyColumn column = mock(CyColumn.class);
+			doReturn(type).when(column).getType();
+			when(table.getColumn(ATTR_NAME)).thenReturn(column);
+		}
+		
+		return table;
+	}
+	
+	private static <T> CyRow createRow(final CyTable table, final Class<T> type, final T value) {
+		final CyRow row = mock(CyRow.class);
+		when(row.getTable()).thenReturn(table);
+		when(row.isSet(ATTR_NAME)).thenReturn(value != null);
+		when(row.get(ATTR_NAME, type)).thenReturn(value);
+		
+		return row;
+	}
+	
+	/**
+	 * @return a row whose value is not of the type of its column
+	 */
+	private static CyRow createInvalidRow(final CyTable table, final Class<?> type) {
+		final CyRow row = mock(CyRow.class);
+		when(row.getTable()).thenReturn(table);
+		when(row.isSet(ATTR_NAME)).thenReturn(true);
+		doThrow(new ClassCastException()).when(row).get(ATTR_NAME, type);
+		
+		return row;
+	}
+}